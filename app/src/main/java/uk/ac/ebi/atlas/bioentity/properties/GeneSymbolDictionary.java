@@ -0,0 +1,35 @@
+package uk.ac.ebi.atlas.bioentity.properties;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// The symbols of the genes of a species, as two parallel arrays sorted by gene ID: a symbol is found with a binary
+// search, and there’s no per-entry overhead as in a hash map, which matters with tens of thousands of genes per species
+public final class GeneSymbolDictionary {
+    private final String[] geneIds;
+    private final String[] symbols;
+
+    private GeneSymbolDictionary(String[] geneIds, String[] symbols) {
+        this.geneIds = geneIds;
+        this.symbols = symbols;
+    }
+
+    // Takes Map<Gene ID, Symbol>
+    public static GeneSymbolDictionary create(Map<String, String> symbolsByGeneId) {
+        var sortedSymbolsByGeneId = new TreeMap<>(symbolsByGeneId);
+        return new GeneSymbolDictionary(
+                sortedSymbolsByGeneId.keySet().toArray(String[]::new),
+                sortedSymbolsByGeneId.values().toArray(String[]::new));
+    }
+
+    public int size() {
+        return geneIds.length;
+    }
+
+    public Optional<String> symbol(String geneId) {
+        var index = Arrays.binarySearch(geneIds, geneId);
+        return index >= 0 ? Optional.of(symbols[index]) : Optional.empty();
+    }
+}
@@ -0,0 +1,64 @@
+package uk.ac.ebi.atlas.bioentity.properties;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
+import uk.ac.ebi.atlas.solr.cloud.TupleStreamer;
+import uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy;
+import uk.ac.ebi.atlas.solr.cloud.search.SolrQueryBuilder;
+import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.source.SearchStreamBuilder;
+
+import java.util.HashMap;
+
+import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.BIOENTITY_IDENTIFIER_DV;
+import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.PROPERTY_NAME;
+import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.PROPERTY_VALUE;
+import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.SPECIES;
+
+@Component
+public class GeneSymbolDictionaryDao {
+    private final BioentitiesCollectionProxy bioentitiesCollectionProxy;
+    private final JdbcTemplate jdbcTemplate;
+
+    public GeneSymbolDictionaryDao(SolrCloudCollectionProxyFactory collectionProxyFactory,
+                                   JdbcTemplate jdbcTemplate) {
+        bioentitiesCollectionProxy = collectionProxyFactory.create(BioentitiesCollectionProxy.class);
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Species of public and private experiments, as they’re stored in the experiment table
+    @Transactional(transactionManager = "txManager", readOnly = true)
+    public ImmutableList<String> fetchExperimentSpecies() {
+        return ImmutableList.copyOf(
+                jdbcTemplate.queryForList("SELECT DISTINCT species FROM experiment", String.class));
+    }
+
+    // All the symbols of a species, e.g. ensemblSpecies = "homo_sapiens", streamed from the export handler so that
+    // none are left out however many genes the species has; if a gene has more than one symbol we keep the first one
+    // in alphabetical order, so that it doesn’t change from one load to the next
+    public GeneSymbolDictionary fetchDictionary(String ensemblSpecies) {
+        var solrQueryBuilder =
+                new SolrQueryBuilder<BioentitiesCollectionProxy>()
+                        .addFilterFieldByTerm(SPECIES, ensemblSpecies)
+                        .addQueryFieldByTerm(PROPERTY_NAME, "symbol")
+                        .setFieldList(ImmutableSet.of(BIOENTITY_IDENTIFIER_DV, PROPERTY_VALUE))
+                        .sortBy(BIOENTITY_IDENTIFIER_DV, SolrQuery.ORDER.asc);
+        var searchStreamBuilder =
+                new SearchStreamBuilder<>(bioentitiesCollectionProxy, solrQueryBuilder).returnAllDocs();
+
+        var symbolsByGeneId = new HashMap<String, String>();
+        try (var tupleStreamer = TupleStreamer.of(searchStreamBuilder.build())) {
+            tupleStreamer.get().forEach(tuple ->
+                    symbolsByGeneId.merge(
+                            tuple.getString(BIOENTITY_IDENTIFIER_DV.name()),
+                            tuple.getString(PROPERTY_VALUE.name()),
+                            (symbol, otherSymbol) -> symbol.compareTo(otherSymbol) <= 0 ? symbol : otherSymbol));
+        }
+
+        return GeneSymbolDictionary.create(symbolsByGeneId);
+    }
+}
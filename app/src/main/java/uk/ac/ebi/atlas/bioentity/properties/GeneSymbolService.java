@@ -0,0 +1,124 @@
+package uk.ac.ebi.atlas.bioentity.properties;
+
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.atlas.species.Species;
+import uk.ac.ebi.atlas.species.SpeciesFactory;
+
+import java.util.Collection;
+import java.util.Optional;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
+// Gene symbols of the species of all experiments, kept in memory: they only change when the bioentities collection is
+// reindexed, so instead of asking Solr on every heatmap request each species is loaded once and replaced when an
+// admin refreshes them (see JsonGeneSymbolDictionaryController). Dictionaries are loaded in the background at startup;
+// species are looked up in the experiment table on every request, so that a species whose first experiment has just
+// been loaded is fetched on demand, without waiting for, or holding up, the dictionaries of other species.
+@Service
+public class GeneSymbolService implements InitializingBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneSymbolService.class);
+
+    private final GeneSymbolDictionaryDao geneSymbolDictionaryDao;
+    private final SpeciesFactory speciesFactory;
+    private final boolean preload;
+
+    // Ensembl species name → Dictionary; concurrent requests for the same species wait for a single load
+    private final LoadingCache<String, GeneSymbolDictionary> dictionaries;
+
+    public GeneSymbolService(GeneSymbolDictionaryDao geneSymbolDictionaryDao,
+                             SpeciesFactory speciesFactory,
+                             @Value("${gene.symbols.preload:true}") boolean preload) {
+        this.geneSymbolDictionaryDao = geneSymbolDictionaryDao;
+        this.speciesFactory = speciesFactory;
+        this.preload = preload;
+        dictionaries = CacheBuilder.newBuilder().build(CacheLoader.from(this::loadDictionary));
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (preload) {
+            var thread = new Thread(this::warmUp, "gene-symbol-dictionaries");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    // Same as BioEntityPropertyDao::getSymbolsForGeneIds: Map<Gene ID, Symbol>, genes without a symbol are left out
+    public ImmutableMap<String, String> getSymbols(Collection<String> geneIds) {
+        var dictionaries =
+                fetchEnsemblSpecies().stream()
+                        .map(this.dictionaries::getUnchecked)
+                        .collect(toImmutableList());
+
+        var symbols = ImmutableMap.<String, String>builder();
+        // Gene IDs usually come from the same experiment, so we look first in the species where the last one was
+        GeneSymbolDictionary lastDictionary = null;
+        for (var geneId : ImmutableSet.copyOf(geneIds)) {
+            var symbol = lastDictionary == null ? Optional.<String>empty() : lastDictionary.symbol(geneId);
+            for (var dictionary : dictionaries) {
+                if (symbol.isPresent()) {
+                    break;
+                }
+                symbol = dictionary.symbol(geneId);
+                if (symbol.isPresent()) {
+                    lastDictionary = dictionary;
+                }
+            }
+
+            symbol.ifPresent(geneSymbol -> symbols.put(geneId, geneSymbol));
+        }
+        return symbols.build();
+    }
+
+    // Reloads the dictionaries of all species, e.g. after the bioentities collection has been updated; requests are
+    // served with the previous dictionary of each species until its new one is ready. Returns Map<Species, Genes with
+    // a symbol>.
+    public synchronized ImmutableMap<String, Integer> refresh() {
+        var ensemblSpecies = fetchEnsemblSpecies();
+        for (var species : ensemblSpecies) {
+            dictionaries.put(species, loadDictionary(species));
+        }
+        // Species without experiments anymore
+        dictionaries.asMap().keySet().retainAll(ensemblSpecies);
+
+        return ensemblSpecies.stream()
+                .collect(toImmutableMap(species -> species, species -> dictionaries.getUnchecked(species).size()));
+    }
+
+    private void warmUp() {
+        try {
+            var ensemblSpecies = fetchEnsemblSpecies();
+            ensemblSpecies.forEach(dictionaries::getUnchecked);
+            LOGGER.info("Loaded gene symbols of {} species", ensemblSpecies.size());
+        } catch (Exception e) {
+            // They’ll be loaded on first use
+            LOGGER.error("Error loading gene symbols: {}", e.getMessage());
+        }
+    }
+
+    private ImmutableSet<String> fetchEnsemblSpecies() {
+        return geneSymbolDictionaryDao.fetchExperimentSpecies().stream()
+                // We map first to species to account for possible alternate spellings
+                .map(speciesFactory::create)
+                .map(Species::getEnsemblName)
+                .collect(toImmutableSet());
+    }
+
+    private GeneSymbolDictionary loadDictionary(String ensemblSpecies) {
+        var dictionary = geneSymbolDictionaryDao.fetchDictionary(ensemblSpecies);
+        LOGGER.info("Loaded {} gene symbols of {}", dictionary.size(), ensemblSpecies);
+        return dictionary;
+    }
+}
@@ -0,0 +1,26 @@
+package uk.ac.ebi.atlas.bioentity.properties;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ebi.atlas.controllers.JsonExceptionHandlingController;
+
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+@Profile("!cli")
+@RestController
+public class JsonGeneSymbolDictionaryController extends JsonExceptionHandlingController {
+    private final GeneSymbolService geneSymbolService;
+
+    public JsonGeneSymbolDictionaryController(GeneSymbolService geneSymbolService) {
+        this.geneSymbolService = geneSymbolService;
+    }
+
+    // To be called after the bioentities collection has been reindexed
+    @GetMapping(value = "/admin/gene-symbols/refresh",
+                produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public String refreshGeneSymbols() {
+        return GSON.toJson(geneSymbolService.refresh());
+    }
+}
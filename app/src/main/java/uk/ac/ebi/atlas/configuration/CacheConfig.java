@@ -1,49 +1,135 @@
 package uk.ac.ebi.atlas.configuration;
 
+import org.cache2k.Cache2kBuilder;
+import org.cache2k.event.CacheEntryEvictedListener;
 import org.cache2k.extra.spring.SpringCache2kCacheManager;
-import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import uk.ac.ebi.atlas.monitoring.CacheMetrics;
+import uk.ac.ebi.atlas.monitoring.MeteredCacheManager;
+import uk.ac.ebi.atlas.monitoring.Weighed;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+// Every cache has a budget, either a number of entries or, for caches whose values can vary from a few bytes to many
+// megabytes (serialized plots and JSON documents, and per-experiment in-memory indices), a number of megabytes.
+// Budgets can be overridden with the properties cache.<name>.max-entries and cache.<name>.max-megabytes,
+// respectively. Once a cache is full, cache2k evicts the entries that are least likely to be requested again. Stats are
+// available at /admin/stats/caches.
 @Profile("!dev")
 @EnableCaching
 @Configuration
 public class CacheConfig {
+    private static final long MEGABYTE = 1024 * 1024;
+
+    private final Environment environment;
+    private final Map<String, CacheMetrics> cacheMetrics = new HashMap<>();
+
+    public CacheConfig(Environment environment) {
+        this.environment = environment;
+    }
+
     @Bean
-    public CacheManager cacheManager() {
-        return new SpringCache2kCacheManager().addCaches(
-                builder -> builder.name("designElementsByGeneId"),
-                builder -> builder.name("arrayDesignByAccession"),
-                builder -> builder.name("bioentityProperties"),
-
-                builder -> builder.name("experiment"),
-                builder -> builder.name("experimentAttributes"),
-                builder -> builder.name("speciesSummary"),
+    public MeteredCacheManager cacheManager() {
+        var cache2kCacheManager = new SpringCache2kCacheManager().addCaches(
+                entries("designElementsByGeneId", 10_000),
+                entries("arrayDesignByAccession", 1_000),
+                entries("bioentityProperties", 10_000),
+
+                entries("experiment", 1_000),
+                entries("experimentAttributes", 1_000),
+                entries("speciesSummary", 10),
                 // Spring unwraps Optional types
-                builder -> builder.name("experimentCollections").permitNullValues(true),
-                builder -> builder.name("experiment2Collections"),
+                entries("experimentCollections", 1_000).andThen(builder -> builder.permitNullValues(true)),
+                entries("experiment2Collections", 1_000),
 
-                builder -> builder.name("jsonExperimentsList"),
-                builder -> builder.name("jsonExperimentMetadata"),
-                builder -> builder.name("jsonExperimentPageTabs"),
-                builder -> builder.name("cellCounts"),
+                megabytes("jsonExperimentsList", 16),
+                megabytes("jsonExperimentMetadata", 32),
+                megabytes("jsonExperimentPageTabs", 32),
+                entries("cellCounts", 1_000),
                 // We need null values for Optional; see https://github.com/cache2k/cache2k/issues/141
-                builder -> builder.name("plotOptions"),
-                builder -> builder.name("expectedClusters").permitNullValues(true),
-                builder -> builder.name("minimumMarkerProbability"),
-
-                builder -> builder.name("jsonCellMetadata"),
-                builder -> builder.name("jsonTSnePlotWithClusters"),
-                builder -> builder.name("jsonTSnePlotWithMetadata"),
-                builder -> builder.name("jsonCellPlotWithK"),
-                builder -> builder.name("jsonCellPlotWithMetadata"),
-
-                builder -> builder.name("hcaMetadata"),
-                builder -> builder.name("inferredCellTypesOntology"),
-                builder -> builder.name("inferredCellTypesAuthors"),
-                builder -> builder.name("privateExperimentAccessions"));
+                entries("plotOptions", 1_000),
+                entries("cellPlotCatalogue", 1_000),
+                entries("expectedClusters", 1_000).andThen(builder -> builder.permitNullValues(true)),
+                megabytes("clustersIndex", 256),
+                megabytes("markerGeneHeatmaps", 128),
+
+                entries("parsedExperimentFiles", 3_000),
+                megabytes("cellMetadataTable", 256),
+                megabytes("jsonCellMetadata", 64),
+                megabytes("jsonTSnePlotWithClusters", 256),
+                megabytes("jsonTSnePlotWithMetadata", 256),
+                megabytes("jsonCellPlotWithK", 256),
+                megabytes("jsonCellPlotWithMetadata", 256),
+                megabytes("columnarCellPlotWithK", 128),
+                megabytes("columnarCellPlotWithMetadata", 128),
+                megabytes("jsonCellPlotCoordinates", 128),
+                megabytes("cellPlotGridIndexWithK", 512),
+                megabytes("cellPlotGridIndexWithMetadata", 512),
+
+                entries("hcaMetadata", 10),
+                entries("inferredCellTypesOntology", 10_000),
+                entries("inferredCellTypesAuthors", 10_000),
+                megabytes("cellIdDictionary", 256),
+                megabytes("cellMetadataBitmapIndex", 256),
+                megabytes("cellTypeMarkerGenesIndex", 128),
+                // Keyed by visibility snapshot version, only the latest one is used
+                entries("cellTypeExperimentsIndex", 2),
+                entries("privateExperimentAccessions", 10));
+
+        return new MeteredCacheManager(cache2kCacheManager, cacheMetrics);
+    }
+
+    private Function<Cache2kBuilder<?, ?>, Cache2kBuilder<?, ?>> entries(String name, long defaultMaxEntries) {
+        var maxEntries = environment.getProperty("cache." + name + ".max-entries", Long.class, defaultMaxEntries);
+        var metrics = CacheMetrics.withEntryBudget(maxEntries);
+        cacheMetrics.put(name, metrics);
+
+        return builder -> withEvictionListener(builder.name(name).entryCapacity(maxEntries), metrics);
+    }
+
+    private Function<Cache2kBuilder<?, ?>, Cache2kBuilder<?, ?>> megabytes(String name, long defaultMaxMegabytes) {
+        var maxBytes =
+                MEGABYTE * environment.getProperty("cache." + name + ".max-megabytes", Long.class, defaultMaxMegabytes);
+        var metrics = CacheMetrics.withByteBudget(maxBytes, CacheConfig::weigh);
+        cacheMetrics.put(name, metrics);
+
+        return builder ->
+                withEvictionListener(
+                        asObjectBuilder(builder.name(name))
+                                .weigher((key, value) -> (int) Math.min(Integer.MAX_VALUE, weigh(value)))
+                                .maximumWeight(maxBytes),
+                        metrics);
+    }
+
+    private static Cache2kBuilder<?, ?> withEvictionListener(Cache2kBuilder<?, ?> builder, CacheMetrics metrics) {
+        return asObjectBuilder(builder)
+                .addListener((CacheEntryEvictedListener<Object, Object>) (cache, entry) -> metrics.recordEviction());
+    }
+
+    // Spring caches can hold anything, so the key and value types of the builder are only known to be objects
+    @SuppressWarnings("unchecked")
+    private static Cache2kBuilder<Object, Object> asObjectBuilder(Cache2kBuilder<?, ?> builder) {
+        return (Cache2kBuilder<Object, Object>) builder;
+    }
+
+    // Plots and documents are cached already serialized, as strings or byte arrays. Strings are weighed by their
+    // number of chars, which is also their number of bytes on the heap as long as they’re Latin-1 (e.g. ASCII JSON);
+    // indices estimate their own size. Anything else is assumed to be small.
+    private static long weigh(Object value) {
+        if (value instanceof String) {
+            return ((String) value).length();
+        } else if (value instanceof byte[]) {
+            return ((byte[]) value).length;
+        } else if (value instanceof Weighed) {
+            return ((Weighed) value).estimatedBytes();
+        }
+        return 1;
     }
 }
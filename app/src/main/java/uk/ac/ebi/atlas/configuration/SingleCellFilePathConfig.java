@@ -21,4 +21,14 @@ public class SingleCellFilePathConfig {
     public Path cellStatsFilePath() {
         return Paths.get(experimentFilesLocation).resolve("magetab").resolve("cell_stats.json");
     }
+
+    @Bean
+    public Path cellPlotCoordinatesDirPath() {
+        return Paths.get(experimentFilesLocation).resolve("cell-plots");
+    }
+
+    @Bean
+    public Path expressionMatrixDirPath() {
+        return Paths.get(experimentFilesLocation).resolve("expression-matrices");
+    }
 }
@@ -0,0 +1,112 @@
+package uk.ac.ebi.atlas.experimentimport;
+
+import com.google.common.collect.ImmutableList;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
+import uk.ac.ebi.atlas.experimentimport.idf.IdfParserOutput;
+import uk.ac.ebi.atlas.experimentimport.sdrf.SdrfParser;
+import uk.ac.ebi.atlas.model.experiment.ExperimentDesign;
+import uk.ac.ebi.atlas.resource.DataFileHub;
+import uk.ac.ebi.atlas.trader.ExperimentDesignParser;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+// Parse results of the IDF, SDRF and condensed SDRF files of experiments, kept in the parsedExperimentFiles cache.
+// Entries are keyed by the experiment accession and the last modified time and size of every file that’s parsed, so a
+// file that’s been replaced is parsed again on the next request, and ExperimentFilesWatcher evicts the entries of an
+// experiment as soon as its files change. Without a cache manager (i.e. in the dev profile and in tests) files are
+// parsed on every call, like they used to be.
+@Component
+public class CachedExperimentFilesParser {
+    private static final String CACHE_NAME = "parsedExperimentFiles";
+
+    private final DataFileHub dataFileHub;
+    private final IdfParser idfParser;
+    private final SdrfParser sdrfParser;
+    private final ExperimentDesignParser experimentDesignParser;
+    private final ExperimentFilesWatcher experimentFilesWatcher;
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+    public CachedExperimentFilesParser(DataFileHub dataFileHub,
+                                       IdfParser idfParser,
+                                       SdrfParser sdrfParser,
+                                       ExperimentDesignParser experimentDesignParser,
+                                       ExperimentFilesWatcher experimentFilesWatcher,
+                                       ObjectProvider<CacheManager> cacheManagerProvider) {
+        this.dataFileHub = dataFileHub;
+        this.idfParser = idfParser;
+        this.sdrfParser = sdrfParser;
+        this.experimentDesignParser = experimentDesignParser;
+        this.experimentFilesWatcher = experimentFilesWatcher;
+        this.cacheManagerProvider = cacheManagerProvider;
+    }
+
+    public IdfParserOutput parseIdf(String experimentAccession) {
+        return get(
+                experimentAccession,
+                "idf",
+                ImmutableList.of(dataFileHub.getExperimentFiles(experimentAccession).idf.getPath()),
+                () -> idfParser.parse(experimentAccession));
+    }
+
+    public List<String> parseSingleCellTechnologyType(String experimentAccession) {
+        return get(
+                experimentAccession,
+                "technologyType",
+                ImmutableList.of(dataFileHub.getExperimentFiles(experimentAccession).sdrf.getPath()),
+                () -> sdrfParser.parseSingleCellTechnologyType(experimentAccession));
+    }
+
+    public ExperimentDesign parseExperimentDesign(String experimentAccession) {
+        var experimentFiles = dataFileHub.getExperimentFiles(experimentAccession);
+        return get(
+                experimentAccession,
+                "experimentDesign",
+                ImmutableList.of(experimentFiles.condensedSdrf.getPath(), experimentFiles.sdrf.getPath()),
+                () -> experimentDesignParser.parse(experimentAccession));
+    }
+
+    private <T> T get(String experimentAccession,
+                      String parseResult,
+                      ImmutableList<Path> files,
+                      Supplier<T> parser) {
+        var cache =
+                Optional.ofNullable(cacheManagerProvider.getIfAvailable())
+                        .map(cacheManager -> cacheManager.getCache(CACHE_NAME));
+        if (cache.isEmpty()) {
+            return parser.get();
+        }
+
+        // A list starting with the accession, so that ExperimentCacheEvictor can find the entries of an experiment
+        var key = ImmutableList.builder().add(experimentAccession, parseResult);
+        for (var file : files) {
+            try {
+                var attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                key.add(attributes.lastModifiedTime().toMillis(), attributes.size());
+                experimentFilesWatcher.watch(experimentAccession, file);
+            } catch (IOException e) {
+                // Optional files, e.g. the SDRF of some experiments, and missing files are left to the parsers
+                key.add(-1L, -1L);
+            }
+        }
+
+        try {
+            return cache.get().get(key.build(), parser::get);
+        } catch (Cache.ValueRetrievalException e) {
+            // Callers expect the exceptions of the parsers, e.g. UncheckedIOException if a file can’t be read
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package uk.ac.ebi.atlas.experimentimport;
+
+import com.google.common.collect.ImmutableSet;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+// Evicts the entries of a single experiment from the caches whose keys are either the experiment accession or a list
+// that starts with it, e.g. {#experimentAccession, #k, #plotMethod, #plotParameters}. This way loading or updating an
+// experiment leaves the plots and metadata of all other experiments warm, which @CacheEvict can’t do: it can only
+// evict an exact key or the whole cache. Caches are scanned key by key, which is a lot cheaper than recomputing all
+// the entries of other experiments after an allEntries eviction.
+@Component
+public class ExperimentCacheEvictor {
+    static final ImmutableSet<String> EXPERIMENT_SCOPED_CACHE_NAMES = ImmutableSet.of(
+            "plotOptions",
+            "cellPlotCatalogue",
+            "expectedClusters",
+            "clustersIndex",
+            "markerGeneHeatmaps",
+            "parsedExperimentFiles",
+            "cellMetadataTable",
+            "jsonExperimentMetadata",
+            "jsonExperimentPageTabs",
+            "jsonCellMetadata",
+            "jsonTSnePlotWithClusters",
+            "jsonTSnePlotWithMetadata",
+            "jsonCellPlotWithK",
+            "jsonCellPlotWithMetadata",
+            "columnarCellPlotWithK",
+            "columnarCellPlotWithMetadata",
+            "jsonCellPlotCoordinates",
+            "cellPlotGridIndexWithK",
+            "cellPlotGridIndexWithMetadata",
+            "inferredCellTypesOntology",
+            "inferredCellTypesAuthors",
+            "cellIdDictionary",
+            "cellMetadataBitmapIndex",
+            "cellTypeMarkerGenesIndex");
+
+    // There’s no cache manager in the dev profile nor in integration tests (see CacheConfig and TestConfig)
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+    public ExperimentCacheEvictor(ObjectProvider<CacheManager> cacheManagerProvider) {
+        this.cacheManagerProvider = cacheManagerProvider;
+    }
+
+    public void evict(String experimentAccession) {
+        cacheManagerProvider.ifAvailable(cacheManager ->
+                EXPERIMENT_SCOPED_CACHE_NAMES.forEach(cacheName -> {
+                    var cache = cacheManager.getCache(cacheName);
+                    if (cache != null) {
+                        evict(cache, experimentAccession);
+                    }
+                }));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void evict(Cache cache, String experimentAccession) {
+        var nativeCache = cache.getNativeCache();
+
+        if (nativeCache instanceof org.cache2k.Cache) {
+            var cache2kCache = (org.cache2k.Cache<Object, Object>) nativeCache;
+            // Collect the keys first, removing entries while iterating over the keys isn’t supported
+            cache2kCache.removeAll(
+                    StreamSupport.stream(cache2kCache.keys().spliterator(), false)
+                            .filter(key -> belongsToExperiment(key, experimentAccession))
+                            .collect(Collectors.toList()));
+        } else if (nativeCache instanceof Map) {
+            ((Map<Object, Object>) nativeCache).keySet().removeIf(key -> belongsToExperiment(key, experimentAccession));
+        } else {
+            cache.clear();
+        }
+    }
+
+    static boolean belongsToExperiment(Object key, String experimentAccession) {
+        if (key instanceof List) {
+            var keyParts = (List<?>) key;
+            return !keyParts.isEmpty() && experimentAccession.equals(keyParts.get(0));
+        }
+        return experimentAccession.equals(key);
+    }
+}
@@ -0,0 +1,110 @@
+package uk.ac.ebi.atlas.experimentimport;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+
+// Watches the directories of the experiment files that have been parsed, and evicts the caches of an experiment as
+// soon as anything in its directory changes, so that updated IDF or SDRF files are picked up without reloading the
+// experiment or restarting the app. Directories are registered as their files are parsed, so only experiments that
+// have been requested are watched. If the platform has no watch service nothing is watched, and cached parse results
+// are still checked against the last modified time and size of the files (see CachedExperimentFilesParser).
+@Component
+public class ExperimentFilesWatcher implements DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExperimentFilesWatcher.class);
+
+    private final ExperimentCacheEvictor experimentCacheEvictor;
+    private final Optional<WatchService> watchService;
+    private final ConcurrentHashMap<Path, WatchKey> watchKeys = new ConcurrentHashMap<>();
+    // Experiments whose files are in each watched directory
+    private final ConcurrentHashMap<WatchKey, Set<String>> experimentAccessions = new ConcurrentHashMap<>();
+
+    public ExperimentFilesWatcher(ExperimentCacheEvictor experimentCacheEvictor) {
+        this.experimentCacheEvictor = experimentCacheEvictor;
+        this.watchService = newWatchService();
+        watchService.ifPresent(service ->
+                new ThreadFactoryBuilder().setNameFormat("experiment-files-watcher").setDaemon(true).build()
+                        .newThread(() -> processEvents(service))
+                        .start());
+    }
+
+    public void watch(String experimentAccession, Path file) {
+        if (watchService.isEmpty() || file.getParent() == null) {
+            return;
+        }
+
+        // Parse results are looked up on every request, so directories are only registered once
+        var directory = file.getParent();
+        var watchKey = watchKeys.get(directory);
+        if (watchKey == null) {
+            try {
+                watchKey = directory.register(watchService.get(), ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+            } catch (IOException | ClosedWatchServiceException e) {
+                LOGGER.warn("Unable to watch {}: {}", directory, e.getMessage());
+                return;
+            }
+            watchKeys.put(directory, watchKey);
+        }
+        experimentAccessions.computeIfAbsent(watchKey, __ -> ConcurrentHashMap.newKeySet()).add(experimentAccession);
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (watchService.isPresent()) {
+            watchService.get().close();
+        }
+    }
+
+    private void processEvents(WatchService service) {
+        try {
+            while (true) {
+                var watchKey = service.take();
+                // Any event, including OVERFLOW, means that the files of the experiments may have changed
+                watchKey.pollEvents();
+
+                Set<String> accessions;
+                if (watchKey.reset()) {
+                    accessions = experimentAccessions.getOrDefault(watchKey, Set.of());
+                } else {
+                    // The directory is gone
+                    watchKeys.remove((Path) watchKey.watchable());
+                    accessions = Optional.ofNullable(experimentAccessions.remove(watchKey)).orElse(Set.of());
+                }
+
+                accessions.forEach(experimentAccession -> {
+                    LOGGER.info("Files of {} have changed, evicting cached entries", experimentAccession);
+                    experimentCacheEvictor.evict(experimentAccession);
+                });
+            }
+        } catch (ClosedWatchServiceException e) {
+            LOGGER.debug("Experiment files watch service closed");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Optional<WatchService> newWatchService() {
+        try {
+            return Optional.of(FileSystems.getDefault().newWatchService());
+        } catch (IOException | UnsupportedOperationException e) {
+            LOGGER.warn("Experiment files won’t be watched: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+}
@@ -4,10 +4,14 @@ import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.atlas.controllers.ResourceNotFoundException;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotCoordinatesStore;
+import uk.ac.ebi.atlas.experimentpage.expression.ExpressionMatrixStore;
 import uk.ac.ebi.atlas.experimentimport.condensedSdrf.CondensedSdrfParser;
 import uk.ac.ebi.atlas.experimentimport.experimentdesign.ExperimentDesignFileWriterService;
 import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
 import uk.ac.ebi.atlas.model.experiment.ExperimentType;
+import uk.ac.ebi.atlas.search.geneids.ExpressedGeneService;
+import uk.ac.ebi.atlas.trader.ExperimentVisibilityService;
 
 import java.util.UUID;
 
@@ -17,36 +21,42 @@ import static uk.ac.ebi.atlas.model.experiment.ExperimentType.SINGLE_CELL_RNASEQ
 public class ScxaExperimentCrud extends ExperimentCrud {
     private final CondensedSdrfParser condensedSdrfParser;
     private final IdfParser idfParser;
+    private final CellPlotCoordinatesStore cellPlotCoordinatesStore;
+    private final ExpressionMatrixStore expressionMatrixStore;
+    private final ExperimentCacheEvictor experimentCacheEvictor;
+    private final ExpressedGeneService expressedGeneService;
+    private final ExperimentVisibilityService experimentVisibilityService;
 
     public ScxaExperimentCrud(ExperimentCrudDao experimentCrudDao,
                               ExperimentDesignFileWriterService experimentDesignFileWriterService,
                               CondensedSdrfParser condensedSdrfParser,
-                              IdfParser idfParser) {
+                              IdfParser idfParser,
+                              CellPlotCoordinatesStore cellPlotCoordinatesStore,
+                              ExpressionMatrixStore expressionMatrixStore,
+                              ExperimentCacheEvictor experimentCacheEvictor,
+                              ExpressedGeneService expressedGeneService,
+                              ExperimentVisibilityService experimentVisibilityService) {
         super(experimentCrudDao, experimentDesignFileWriterService);
         this.condensedSdrfParser = condensedSdrfParser;
         this.idfParser = idfParser;
+        this.cellPlotCoordinatesStore = cellPlotCoordinatesStore;
+        this.expressionMatrixStore = expressionMatrixStore;
+        this.experimentCacheEvictor = experimentCacheEvictor;
+        this.expressedGeneService = expressedGeneService;
+        this.experimentVisibilityService = experimentVisibilityService;
     }
 
-    // Evicting all entries in jsonCellMetadata, jsonTSnePlotWithClusters and jsonTSnePlotWithMetadata is really a
-    // small defeat, nothing more. We could add a private method that evicts only the appropriate entries, but soon the
-    // logic is going to turn very complicated and really hard to test. Since the service in the public and fallback
-    // environments is read-only, this small inconvenience will only manifest itself in the production environment,
-    // where data is always changing. I think it’s a good trade-off between code simplicity and performance.
+    // Caches keyed by experiment accession and something else (e.g. cell plots and cell metadata) can’t be evicted
+    // with @CacheEvict without dropping the entries of all other experiments; ExperimentCacheEvictor takes care of them
     @Override
     @Caching(evict = {
             @CacheEvict(cacheNames = "experiment", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "experimentAttributes", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "experiment2Collections", key="#experimentAccession"),
             @CacheEvict(cacheNames = "speciesSummary", allEntries = true),
-            @CacheEvict(cacheNames = "jsonExperimentMetadata", key = "{#experimentAccession, 'tSnePlot'}"),
-            @CacheEvict(cacheNames = "jsonExperimentPageTabs", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "expectedClusters", key = "#experimentAccession"),
-            @CacheEvict(cacheNames = "minimumMarkerProbability", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "cellCounts", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "plotOptions", key = "#experimentAccession"),
-            @CacheEvict(cacheNames = "jsonCellMetadata", allEntries = true),
-            @CacheEvict(cacheNames = "jsonTSnePlotWithClusters", allEntries = true),
-            @CacheEvict(cacheNames = "jsonTSnePlotWithMetadata", allEntries = true),
             @CacheEvict(cacheNames = "jsonExperimentsList", allEntries = true),
             @CacheEvict(cacheNames = "privateExperimentAccessions", allEntries = true)})
     public UUID createExperiment(String experimentAccession, boolean isPrivate) {
@@ -70,6 +80,11 @@ public class ScxaExperimentCrud extends ExperimentCrud {
             experimentCrudDao.createExperiment(experimentDto);
             updateExperimentDesign(condensedSdrfParserOutput.getExperimentDesign(), experimentDto);
         }
+        experimentVisibilityService.refresh();
+        cellPlotCoordinatesStore.writeCellPlots(experimentAccession);
+        expressionMatrixStore.writeExpressionMatrix(experimentAccession);
+        experimentCacheEvictor.evict(experimentAccession);
+        expressedGeneService.updateExperiment(experimentAccession, isPrivate);
         return UUID.fromString(experimentDto.getAccessKey());
     }
 
@@ -94,6 +109,11 @@ public class ScxaExperimentCrud extends ExperimentCrud {
             experimentCrudDao.createExperiment(experimentDto);
             updateExperimentDesign(condensedSdrfParserOutput.getExperimentDesign(), experimentDto);
         }
+        experimentVisibilityService.refresh();
+        cellPlotCoordinatesStore.writeCellPlots(experimentAccession);
+        expressionMatrixStore.writeExpressionMatrix(experimentAccession);
+        experimentCacheEvictor.evict(experimentAccession);
+        expressedGeneService.updateExperiment(experimentAccession, isPrivate);
         return UUID.fromString(experimentDto.getAccessKey());
     }
 
@@ -102,14 +122,9 @@ public class ScxaExperimentCrud extends ExperimentCrud {
             @CacheEvict(cacheNames = "experiment", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "experimentAttributes", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "experiment2Collections", key="#experimentAccession"),
-            @CacheEvict(cacheNames = "jsonExperimentMetadata", key = "{#experimentAccession, 'tSnePlot'}"),
-            @CacheEvict(cacheNames = "jsonExperimentPageTabs", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "expectedClusters", key = "#experimentAccession"),
-            @CacheEvict(cacheNames = "minimumMarkerProbability", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "cellCounts", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "plotOptions", key = "#experimentAccession"),
-            @CacheEvict(cacheNames = "jsonCellMetadata", allEntries = true),
-            @CacheEvict(cacheNames = "jsonTSnePlotWithMetadata", allEntries = true),
             @CacheEvict(cacheNames = "jsonExperimentsList", allEntries = true),
             @CacheEvict(cacheNames = "privateExperimentAccessions", allEntries = true)})
     public void updateExperimentDesign(String experimentAccession) {
@@ -122,6 +137,7 @@ public class ScxaExperimentCrud extends ExperimentCrud {
         updateExperimentDesign(
                 condensedSdrfParser.parse(experimentAccession, SINGLE_CELL_RNASEQ_MRNA_BASELINE).getExperimentDesign(),
                 experimentDto);
+        experimentCacheEvictor.evict(experimentAccession);
     }
 
     @Override
@@ -130,20 +146,19 @@ public class ScxaExperimentCrud extends ExperimentCrud {
             @CacheEvict(cacheNames = "experimentAttributes", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "experiment2Collections", key="#experimentAccession"),
             @CacheEvict(cacheNames = "speciesSummary", allEntries = true),
-            @CacheEvict(cacheNames = "jsonExperimentMetadata", key = "{#experimentAccession, 'tSnePlot'}"),
-            @CacheEvict(cacheNames = "jsonExperimentPageTabs", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "expectedClusters", key = "#experimentAccession"),
-            @CacheEvict(cacheNames = "minimumMarkerProbability", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "cellCounts", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "plotOptions", key = "#experimentAccession"),
-            @CacheEvict(cacheNames = "jsonCellMetadata", allEntries = true),
-            @CacheEvict(cacheNames = "jsonTSnePlotWithClusters", allEntries = true),
-            @CacheEvict(cacheNames = "jsonTSnePlotWithMetadata", allEntries = true),
             @CacheEvict(cacheNames = "experiment2Collections", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "jsonExperimentsList", allEntries = true),
             @CacheEvict(cacheNames = "privateExperimentAccessions", allEntries = true)})
     public void deleteExperiment(String experimentAccession) {
         super.deleteExperiment(experimentAccession);
+        experimentVisibilityService.refresh();
+        cellPlotCoordinatesStore.deleteCellPlots(experimentAccession);
+        expressionMatrixStore.deleteExpressionMatrix(experimentAccession);
+        experimentCacheEvictor.evict(experimentAccession);
+        expressedGeneService.deleteExperiment(experimentAccession);
     }
 
     @Override
@@ -152,18 +167,15 @@ public class ScxaExperimentCrud extends ExperimentCrud {
             @CacheEvict(cacheNames = "experimentAttributes", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "experiment2Collections", key="#experimentAccession"),
             @CacheEvict(cacheNames = "speciesSummary", allEntries = true),
-            @CacheEvict(cacheNames = "jsonExperimentMetadata", key = "{#experimentAccession, 'tSnePlot'}"),
-            @CacheEvict(cacheNames = "jsonExperimentPageTabs", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "expectedClusters", key = "#experimentAccession"),
-            @CacheEvict(cacheNames = "minimumMarkerProbability", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "cellCounts", key = "#experimentAccession"),
             @CacheEvict(cacheNames = "plotOptions", key = "#experimentAccession"),
-            @CacheEvict(cacheNames = "jsonCellMetadata", allEntries = true),
-            @CacheEvict(cacheNames = "jsonTSnePlotWithClusters", allEntries = true),
-            @CacheEvict(cacheNames = "jsonTSnePlotWithMetadata", allEntries = true),
             @CacheEvict(cacheNames = "jsonExperimentsList", allEntries = true),
             @CacheEvict(cacheNames = "privateExperimentAccessions", allEntries = true)})
     public void updateExperimentPrivate(String experimentAccession, boolean isPrivate) {
         super.updateExperimentPrivate(experimentAccession, isPrivate);
+        experimentVisibilityService.refresh();
+        experimentCacheEvictor.evict(experimentAccession);
+        expressedGeneService.updateExperiment(experimentAccession, isPrivate);
     }
 }
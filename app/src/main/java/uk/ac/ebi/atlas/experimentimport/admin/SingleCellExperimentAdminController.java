@@ -12,6 +12,7 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import uk.ac.ebi.atlas.experimentimport.ScxaExperimentCrud;
 import uk.ac.ebi.atlas.resource.DataFileHub;
+import uk.ac.ebi.atlas.trader.ExperimentVisibilityService;
 
 import java.util.UUID;
 
@@ -21,18 +22,24 @@ import java.util.UUID;
 public class SingleCellExperimentAdminController extends ExperimentAdminController {
     private static final Logger LOGGER = LoggerFactory.getLogger(SingleCellExperimentAdminController.class);
 
+    private final ExperimentVisibilityService experimentVisibilityService;
+
     public SingleCellExperimentAdminController(DataFileHub dataFileHub,
-                                               ScxaExperimentCrud scxaExperimentCrud) {
+                                               ScxaExperimentCrud scxaExperimentCrud,
+                                               ExperimentVisibilityService experimentVisibilityService) {
         super(
                 new ExperimentOps(
                         new ExperimentOpLogWriter(dataFileHub),
                         new SingleCellOpsExecutionService(scxaExperimentCrud)));
+        this.experimentVisibilityService = experimentVisibilityService;
     }
 
     @Caching(evict = {
             @CacheEvict(cacheNames = "privateExperimentAccessions", allEntries = true)})
     @GetMapping(value = "/private/experiments/cache/clear")
     public String fooBar() {
+        // In case the experiment table was changed by hand
+        experimentVisibilityService.refresh();
         return "";
     }
 
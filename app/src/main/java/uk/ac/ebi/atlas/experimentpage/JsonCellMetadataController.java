@@ -1,7 +1,9 @@
 package uk.ac.ebi.atlas.experimentpage;
 
+import com.google.common.collect.ImmutableSet;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
@@ -9,8 +11,12 @@ import org.springframework.web.bind.annotation.RestController;
 import uk.ac.ebi.atlas.controllers.JsonExceptionHandlingController;
 import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataJsonSerializer;
 
+import java.util.List;
+
 @RestController
 public class JsonCellMetadataController extends JsonExceptionHandlingController {
+    private static final int MAX_CELL_IDS = 100_000;
+
     private final CellMetadataJsonSerializer cellMetadataJsonSerializer;
 
     public JsonCellMetadataController(CellMetadataJsonSerializer cellMetadataJsonSerializer) {
@@ -25,4 +31,22 @@ public class JsonCellMetadataController extends JsonExceptionHandlingController
                                   @RequestParam(defaultValue = "") String accessKey) {
         return cellMetadataJsonSerializer.getCellMetadata(experimentAccession, cellId, accessKey);
     }
+
+    // Metadata of many cells at once, e.g. all the cells of a plot, so that tooltips don’t need a request per cell.
+    // Cell IDs go in the body of the request as a JSON array, e.g. ["cell_1", "cell_2"]: unlike form parameters, which
+    // servlet containers cap at a few thousand, a body has room for all the cells of a plot.
+    @RequestMapping(value = "json/experiment/{experimentAccession}/cells/metadata",
+                    method = RequestMethod.POST,
+                    consumes = MediaType.APPLICATION_JSON_VALUE,
+                    produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public String getCellsMetadata(@PathVariable String experimentAccession,
+                                   @RequestBody List<String> cellIds,
+                                   @RequestParam(defaultValue = "") String accessKey) {
+        if (cellIds.size() > MAX_CELL_IDS) {
+            throw new IllegalArgumentException(
+                    "Too many cell IDs: " + cellIds.size() + " (the maximum is " + MAX_CELL_IDS + ")");
+        }
+        return cellMetadataJsonSerializer.getCellsMetadata(
+                experimentAccession, ImmutableSet.copyOf(cellIds), accessKey);
+    }
 }
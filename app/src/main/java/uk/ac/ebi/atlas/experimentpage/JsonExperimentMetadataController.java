@@ -32,7 +32,10 @@ public class JsonExperimentMetadataController extends JsonExperimentController {
 
     // TODO In time this should be part of a larger experiment API which we can query to get useful info about it
     @Cacheable(
-            cacheNames = "jsonExperimentMetadata", key = "{#experimentAccession, 'tSnePlot'}", sync = true)
+            cacheNames = "jsonExperimentMetadata",
+            key = "{#experimentAccession, 'tSnePlot', " +
+                  "@experimentVisibilityService.snapshot.cacheScope(#experimentAccession, #accessKey)}",
+            sync = true)
     @RequestMapping(value = "json/experiments/{experimentAccession}/metadata/tsneplot",
                     method = RequestMethod.GET,
                     produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
@@ -52,7 +55,7 @@ public class JsonExperimentMetadataController extends JsonExperimentController {
     @Caching(evict = {
             @CacheEvict(cacheNames = "experimentByAccession", allEntries = true),
             @CacheEvict(cacheNames = "experimentsByType", allEntries = true),
-            @CacheEvict(cacheNames = "jsonExperimentMetadata", key = "{#experimentAccession, 'tSnePlot'}") })
+            @CacheEvict(cacheNames = "jsonExperimentMetadata", allEntries = true) })
     @RequestMapping(value = "json/experiments/{experimentAccession}/metadata/tsneplot/clearcache",
                     method = RequestMethod.GET,
                     produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
@@ -28,29 +28,58 @@ public class JsonMarkerGenesController extends JsonExceptionHandlingController {
     @GetMapping(value = "/json/experiments/{experimentAccession}/marker-genes/clusters",
                 produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public String getClusterMarkerGenes(@PathVariable String experimentAccession,
-                                        @RequestParam String k) {
+                                        @RequestParam String k,
+                                        @RequestParam(defaultValue = "0") int topN,
+                                        @RequestParam(defaultValue = "0") int page,
+                                        @RequestParam(defaultValue = "0") int pageSize) {
+        checkPage(page);
         return GSON.toJson(
-                highchartsHeatmapAdapter.getMarkerGeneHeatmapDataSortedNaturally(
-                        markerGeneService.getMarkerGenesPerCluster(experimentAccession, k)
+                highchartsHeatmapAdapter.getMarkerGeneHeatmapData(
+                        markerGeneService.getMarkerGenesPerCluster(experimentAccession, k),
+                        topN,
+                        page,
+                        pageSize
                 ));
     }
 
     @GetMapping(value = "/json/experiments/{experimentAccession}/marker-genes/cell-types",
                 produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public String getCellTypeMarkerGenes(@PathVariable String experimentAccession,
-                                         @RequestParam Set<String> organismPart) {
-        return GSON.toJson(highchartsHeatmapAdapter.getMarkerGeneHeatmapDataSortedLexicographically(
-                markerGeneService.getCellTypeMarkerGeneProfile(experimentAccession, ImmutableSet.copyOf(organismPart))
+                                         @RequestParam Set<String> organismPart,
+                                         @RequestParam(defaultValue = "0") int topN,
+                                         @RequestParam(defaultValue = "0") int page,
+                                         @RequestParam(defaultValue = "0") int pageSize) {
+        checkPage(page);
+        return GSON.toJson(highchartsHeatmapAdapter.getMarkerGeneHeatmapData(
+                markerGeneService.getCellTypeMarkerGeneProfile(experimentAccession, ImmutableSet.copyOf(organismPart)),
+                topN,
+                page,
+                pageSize
         ));
     }
 
     @GetMapping(value = "/json/experiments/{experimentAccession}/marker-genes-heatmap/cell-types",
                 produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
     public String getCellTypeMarkerGenesHeatmapData(@PathVariable String experimentAccession,
-                                                @RequestParam String cellGroupType) {
-        return GSON.toJson(highchartsHeatmapAdapter.getMarkerGeneHeatmapDataSortedLexicographically(
-                markerGeneService.getCellTypeMarkerGeneHeatmapData(experimentAccession, cellGroupType)
+                                                @RequestParam String cellGroupType,
+                                                @RequestParam(defaultValue = "0") int topN,
+                                                @RequestParam(defaultValue = "0") int page,
+                                                @RequestParam(defaultValue = "0") int pageSize) {
+        checkPage(page);
+        return GSON.toJson(highchartsHeatmapAdapter.getMarkerGeneHeatmapData(
+                markerGeneService.getCellTypeMarkerGeneHeatmapData(experimentAccession, cellGroupType),
+                topN,
+                page,
+                pageSize
         ));
     }
 
+    // topN is the number of genes of each group, and pageSize the number of groups in a page; without them (or with
+    // zero) the whole heatmap is returned, as it used to be
+    private static void checkPage(int page) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must be a non-negative number: " + page);
+        }
+    }
+
 }
@@ -0,0 +1,140 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+// All the rows of scxa_dimension_reduction of an experiment: the plot methods, their parameterisations and which one
+// is shown by default. It’s a handful of rows per experiment, small enough to be cached and used to answer every
+// question about which plots exist, e.g. to validate the parameters of each plot request, without going to Postgres.
+@AutoValue
+public abstract class CellPlotCatalogue {
+    // Options in the order of the jsonb values in Postgres, e.g. {"perplexity": 5} before {"perplexity": 10}
+    private static final Comparator<JsonObject> PLOT_OPTION_ORDER =
+            Comparator.<JsonObject, String>comparing(option -> String.join(",", option.keySet()))
+                    .thenComparing(CellPlotCatalogue::firstValue, CellPlotCatalogue::compareValues);
+
+    public abstract ImmutableList<Plot> plots();
+
+    public static CellPlotCatalogue create(List<Plot> plots) {
+        return new AutoValue_CellPlotCatalogue(ImmutableList.copyOf(plots));
+    }
+
+    public ImmutableList<String> methods() {
+        return plots().stream().map(Plot::method).distinct().sorted().collect(toImmutableList());
+    }
+
+    // Parameterisations as stored in the database, e.g. [{"n_neighbors": 15}]
+    public ImmutableList<String> parameterisations(String method) {
+        return plots().stream()
+                .filter(plot -> plot.method().equals(method))
+                .map(Plot::parameterisation)
+                .distinct()
+                .collect(toImmutableList());
+    }
+
+    // Valid values of each parameter of a plot method, e.g. {"perplexity": ["5", "10", "20"]}; empty if the experiment
+    // has no plots of that method
+    public ImmutableMap<String, ImmutableSet<String>> parameterValues(String method) {
+        var parameterValues = new LinkedHashMap<String, Set<String>>();
+        plots().stream()
+                .filter(plot -> plot.method().equals(method))
+                .flatMap(plot -> plot.options().stream())
+                .sorted(PLOT_OPTION_ORDER)
+                .forEach(option -> option.entrySet().forEach(entry ->
+                        parameterValues
+                                .computeIfAbsent(entry.getKey(), __ -> new LinkedHashSet<>())
+                                .add(entry.getValue().getAsString())));
+
+        return parameterValues.entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> ImmutableSet.copyOf(entry.getValue())));
+    }
+
+    // Options of every method with coordinates, e.g. {"tsne": [{"perplexity": 5}, ...], "umap": [...]}
+    public Map<String, List<JsonObject>> plotOptions() {
+        return optionsByMethod(Plot::hasCoordinates);
+    }
+
+    // Options of the plots with the highest priority of each method
+    public Map<String, List<JsonObject>> defaultPlotOptions() {
+        var maxPriorities = new HashMap<String, Integer>();
+        plots().forEach(plot -> maxPriorities.merge(plot.method(), plot.priority(), Math::max));
+
+        return optionsByMethod(plot -> plot.priority() == maxPriorities.get(plot.method()));
+    }
+
+    // JSON objects are mutable and the catalogue is shared, so callers get their own copies
+    private Map<String, List<JsonObject>> optionsByMethod(Predicate<Plot> predicate) {
+        var optionsByMethod = new HashMap<String, List<JsonObject>>();
+        plots().stream()
+                .filter(predicate)
+                .forEach(plot ->
+                        plot.options().forEach(option -> {
+                            var options = optionsByMethod.computeIfAbsent(plot.method(), __ -> new ArrayList<>());
+                            if (!options.contains(option)) {
+                                options.add(option.deepCopy());
+                            }
+                        }));
+        optionsByMethod.values().forEach(options -> options.sort(PLOT_OPTION_ORDER));
+        return optionsByMethod;
+    }
+
+    private static JsonElement firstValue(JsonObject option) {
+        return option.entrySet().stream().findFirst().map(Map.Entry::getValue).orElse(JsonNull.INSTANCE);
+    }
+
+    private static int compareValues(JsonElement a, JsonElement b) {
+        if (isNumber(a) && isNumber(b)) {
+            return Double.compare(a.getAsDouble(), b.getAsDouble());
+        }
+        return a.toString().compareTo(b.toString());
+    }
+
+    private static boolean isNumber(JsonElement element) {
+        return element.isJsonPrimitive() && element.getAsJsonPrimitive().isNumber();
+    }
+
+    @AutoValue
+    public abstract static class Plot {
+        public abstract String method();
+        // JSON array, e.g. [{"perplexity": 10}]
+        public abstract String parameterisation();
+        public abstract int priority();
+        public abstract boolean hasCoordinates();
+        public abstract ImmutableList<JsonObject> options();
+
+        public static Plot create(String method, String parameterisation, int priority, boolean hasCoordinates) {
+            var options = GSON.fromJson(parameterisation, JsonArray.class);
+            return new AutoValue_CellPlotCatalogue_Plot(
+                    method,
+                    parameterisation,
+                    priority,
+                    hasCoordinates,
+                    options == null ?
+                            ImmutableList.of() :
+                            ImmutableList.copyOf(options).stream()
+                                    .filter(JsonElement::isJsonObject)
+                                    .map(JsonElement::getAsJsonObject)
+                                    .collect(toImmutableList()));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+@Transactional(transactionManager = "txManager", readOnly = true)
+public class CellPlotCatalogueDao {
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public CellPlotCatalogueDao(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    private static final String SELECT_DIMENSION_REDUCTIONS_STATEMENT =
+            "SELECT sdr.method, sdr.parameterisation, sdr.priority, " +
+                    "EXISTS (SELECT 1 FROM scxa_coords c WHERE c.dimension_reduction_id = sdr.id) AS has_coordinates " +
+                    "FROM scxa_dimension_reduction sdr " +
+                    "WHERE sdr.experiment_accession = :experiment_accession";
+    // Evicted by ExperimentCacheEvictor when the experiment is loaded or updated
+    @Cacheable("cellPlotCatalogue")
+    public CellPlotCatalogue fetchCellPlotCatalogue(String experimentAccession) {
+        return CellPlotCatalogue.create(
+                namedParameterJdbcTemplate.query(
+                        SELECT_DIMENSION_REDUCTIONS_STATEMENT,
+                        ImmutableMap.of("experiment_accession", experimentAccession),
+                        (rs, rowNum) ->
+                                CellPlotCatalogue.Plot.create(
+                                        rs.getString("method"),
+                                        rs.getString("parameterisation"),
+                                        rs.getInt("priority"),
+                                        rs.getBoolean("has_coordinates"))));
+    }
+}
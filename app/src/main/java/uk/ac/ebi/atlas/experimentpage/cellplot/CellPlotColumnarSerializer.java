@@ -0,0 +1,156 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+import uk.ac.ebi.atlas.trader.ExperimentTrader;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+// Binary counterpart of CellPlotJsonSerializer: same data, same series names and order, different encoding; see
+// ColumnarCellPlotEncoder for a description of the format
+@Component
+public class CellPlotColumnarSerializer {
+    public static final String COLUMNAR_CELL_PLOT_MEDIA_TYPE = "application/vnd.ebi.atlas.cell-plot";
+
+    private final ExperimentTrader experimentTrader;
+    private final CellPlotService cellPlotService;
+    private final CellPlotGridIndexService cellPlotGridIndexService;
+
+    public CellPlotColumnarSerializer(ExperimentTrader experimentTrader,
+                                      CellPlotService cellPlotService,
+                                      CellPlotGridIndexService cellPlotGridIndexService) {
+        this.experimentTrader = experimentTrader;
+        this.cellPlotService = cellPlotService;
+        this.cellPlotGridIndexService = cellPlotGridIndexService;
+    }
+
+    @Cacheable(cacheNames = "columnarCellPlotWithK",
+               key = "{#experimentAccession, #k, #plotMethod, #plotParameters}")
+    public byte[] clusterPlotWithK(String experimentAccession,
+                                   int k,
+                                   String plotMethod,
+                                   Map<String, Integer> plotParameters,
+                                   String accessKey) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var series = ImmutableMap.<String, ImmutableSet<TSnePoint>>builder();
+        cellPlotService.clusterPlotWithK(experiment.getAccession(), k, plotMethod, plotParameters)
+                .forEach((clusterId, points) -> series.put("Cluster " + clusterId, points));
+
+        return ColumnarCellPlotEncoder.encode(series.build(), ImmutableMap.of());
+    }
+
+    @Cacheable(cacheNames = "columnarCellPlotWithMetadata",
+               key = "{#experimentAccession, #metadata, #plotMethod, #plotParameters}")
+    public byte[] clusterPlotWithMetadata(String experimentAccession,
+                                          String metadata,
+                                          String plotMethod,
+                                          Map<String, Integer> plotParameters,
+                                          String accessKey) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        return ColumnarCellPlotEncoder.encode(
+                new TreeMap<>(
+                        cellPlotService.clusterPlotWithMetadata(
+                                experiment.getAccession(), metadata, plotMethod, plotParameters)),
+                ImmutableMap.of());
+    }
+
+    public byte[] expressionPlot(String experimentAccession,
+                                 String geneId,
+                                 String plotMethod,
+                                 Map<String, Integer> plotParameters,
+                                 String accessKey) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var pointsWithExpression =
+                cellPlotService.expressionPlot(experiment.getAccession(), geneId, plotMethod, plotParameters);
+
+        return ColumnarCellPlotEncoder.encode(
+                ImmutableMap.of("Gene expression", pointsWithExpression),
+                expressionPlotProperties(experimentAccession, pointsWithExpression));
+    }
+
+    // Sampled variants, see CellPlotJsonSerializer
+    public byte[] sampledClusterPlotWithK(String experimentAccession,
+                                          int k,
+                                          String plotMethod,
+                                          Map<String, Integer> plotParameters,
+                                          String accessKey,
+                                          int maxPoints,
+                                          CellPlotGridIndex.Viewport viewport) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var gridIndex =
+                cellPlotGridIndexService.clusterPlotWithK(experiment.getAccession(), k, plotMethod, plotParameters);
+
+        var series = ImmutableMap.<String, ImmutableSet<TSnePoint>>builder();
+        gridIndex.sample(maxPoints, viewport)
+                .forEach((clusterId, points) -> series.put("Cluster " + clusterId, points));
+
+        return ColumnarCellPlotEncoder.encode(
+                series.build(), ImmutableMap.of("totalCellCount", gridIndex.count(viewport)));
+    }
+
+    public byte[] sampledClusterPlotWithMetadata(String experimentAccession,
+                                                 String metadata,
+                                                 String plotMethod,
+                                                 Map<String, Integer> plotParameters,
+                                                 String accessKey,
+                                                 int maxPoints,
+                                                 CellPlotGridIndex.Viewport viewport) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var gridIndex =
+                cellPlotGridIndexService.clusterPlotWithMetadata(
+                        experiment.getAccession(), metadata, plotMethod, plotParameters);
+
+        return ColumnarCellPlotEncoder.encode(
+                gridIndex.sample(maxPoints, viewport), ImmutableMap.of("totalCellCount", gridIndex.count(viewport)));
+    }
+
+    public byte[] sampledExpressionPlot(String experimentAccession,
+                                        String geneId,
+                                        String plotMethod,
+                                        Map<String, Integer> plotParameters,
+                                        String accessKey,
+                                        int maxPoints,
+                                        CellPlotGridIndex.Viewport viewport) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var pointsWithExpression =
+                cellPlotService.expressionPlot(experiment.getAccession(), geneId, plotMethod, plotParameters);
+        var gridIndex = CellPlotGridIndex.create(ImmutableMap.of("Gene expression", pointsWithExpression));
+
+        var properties = expressionPlotProperties(experimentAccession, pointsWithExpression);
+        properties.put("totalCellCount", gridIndex.count(viewport));
+
+        return ColumnarCellPlotEncoder.encode(gridIndex.sample(maxPoints, viewport), properties);
+    }
+
+    private Map<String, Object> expressionPlotProperties(String experimentAccession,
+                                                         Collection<TSnePoint> pointsWithExpression) {
+        var expressionLevels =
+                pointsWithExpression.stream()
+                        .map(TSnePoint::expressionLevel)
+                        .filter(Optional::isPresent)
+                        .mapToDouble(Optional::get)
+                        .filter(d -> d > 0)
+                        .summaryStatistics();
+
+        var properties = new HashMap<String, Object>();
+        properties.put("unit", cellPlotService.fetchExpressionUnitByAccession(experimentAccession));
+        if (expressionLevels.getCount() > 0) {
+            properties.put("max", expressionLevels.getMax());
+            properties.put("min", expressionLevels.getMin());
+        }
+        return properties;
+    }
+}
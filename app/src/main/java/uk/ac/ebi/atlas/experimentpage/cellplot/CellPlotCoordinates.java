@@ -0,0 +1,13 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+// Coordinates of every cell of a plot, sorted by cell ID and read by index, so that plots can be written one cell at
+// a time without building a list of points first
+public interface CellPlotCoordinates {
+    int cellCount();
+
+    double x(int index);
+
+    double y(int index);
+
+    String cellId(int index);
+}
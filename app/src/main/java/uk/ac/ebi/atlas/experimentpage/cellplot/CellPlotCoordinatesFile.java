@@ -0,0 +1,190 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableList;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.joining;
+
+// Coordinates of a single dimension reduction (i.e. method and parameterisation) of an experiment, stored as columns
+// of little-endian float32 values followed by the cell IDs, and read through a memory-mapped buffer:
+//
+//   magic            4 bytes, "SCXY"
+//   version          int32
+//   cell count       int32 (n)
+//   x                float32 × n
+//   y                float32 × n
+//   cell IDs length  int32
+//   cell IDs         UTF-8 string of n cell IDs separated by '\n'
+//
+// Points are stored sorted by cell ID, like the rows returned by the expression plot query. Coordinates are read
+// straight from the mapped buffer; the cell IDs are split once per mapping into a table of offsets, so that a single
+// cell ID can be decoded without decoding all of them.
+final class CellPlotCoordinatesFile implements CellPlotCoordinates {
+    static final int VERSION = 1;
+    private static final byte[] MAGIC = "SCXY".getBytes(US_ASCII);
+    private static final int HEADER_LENGTH = MAGIC.length + 2 * Integer.BYTES;
+
+    private final int cellCount;
+    private final FloatBuffer xs;
+    private final FloatBuffer ys;
+    private final ByteBuffer cellIds;
+    // Cell ID i spans bytes cellIdOffsets[i] to cellIdOffsets[i + 1] - 1 (the last one is followed by a virtual '\n')
+    private final int[] cellIdOffsets;
+
+    private CellPlotCoordinatesFile(int cellCount,
+                                    FloatBuffer xs,
+                                    FloatBuffer ys,
+                                    ByteBuffer cellIds,
+                                    int[] cellIdOffsets) {
+        this.cellCount = cellCount;
+        this.xs = xs;
+        this.ys = ys;
+        this.cellIds = cellIds;
+        this.cellIdOffsets = cellIdOffsets;
+    }
+
+    static CellPlotCoordinatesFile map(Path path) throws IOException {
+        try (var fileChannel = FileChannel.open(path, READ)) {
+            // The mapping remains valid after the channel is closed
+            var buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            var magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            var version = buffer.getInt();
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                throw new IOException("Unrecognised cell plot coordinates file " + path);
+            }
+            var cellCount = buffer.getInt();
+            if (cellCount < 0) {
+                throw new IOException("Invalid cell count in " + path + ": " + cellCount);
+            }
+
+            // Computed in long, a corrupted cell count would otherwise overflow into a negative or wrapped-around
+            // offset; the cell IDs length follows the coordinates even if there are no cells
+            var cellIdsLengthOffset = HEADER_LENGTH + 2L * cellCount * Float.BYTES;
+            if (cellIdsLengthOffset + Integer.BYTES > buffer.capacity()) {
+                throw new IOException(
+                        "Truncated cell plot coordinates file " + path + ": " + cellCount + " cells need " +
+                        (cellIdsLengthOffset + Integer.BYTES) + " bytes, the file has " + buffer.capacity());
+            }
+
+            var xs = slice(buffer, HEADER_LENGTH, cellCount * Float.BYTES).asFloatBuffer();
+            var ys = slice(buffer, HEADER_LENGTH + cellCount * Float.BYTES, cellCount * Float.BYTES).asFloatBuffer();
+            var cellIdsOffset = Math.toIntExact(cellIdsLengthOffset + Integer.BYTES);
+            var cellIds = slice(buffer, cellIdsOffset, buffer.getInt((int) cellIdsLengthOffset));
+
+            return new CellPlotCoordinatesFile(cellCount, xs, ys, cellIds, indexCellIds(cellIds, cellCount, path));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException |
+                 ArithmeticException e) {
+            throw new IOException("Truncated cell plot coordinates file " + path, e);
+        }
+    }
+
+    // The file is written to a temporary file first and then moved, so that readers never see a partial file
+    static void write(Path path, List<TSnePoint.Dto> points) throws IOException {
+        var sortedPoints =
+                points.stream()
+                        .sorted(comparing(TSnePoint.Dto::name))
+                        .collect(toImmutableList());
+
+        var cellIdBytes = sortedPoints.stream().map(TSnePoint.Dto::name).collect(joining("\n")).getBytes(UTF_8);
+
+        var fileLength =
+                HEADER_LENGTH + 2L * sortedPoints.size() * Float.BYTES + Integer.BYTES + cellIdBytes.length;
+        if (fileLength > Integer.MAX_VALUE) {
+            throw new IOException("Cell plot coordinates " + path + " are too large: " + fileLength + " bytes");
+        }
+
+        var buffer = ByteBuffer.allocate((int) fileLength).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(MAGIC).putInt(VERSION).putInt(sortedPoints.size());
+        sortedPoints.forEach(point -> buffer.putFloat((float) point.x()));
+        sortedPoints.forEach(point -> buffer.putFloat((float) point.y()));
+        buffer.putInt(cellIdBytes.length).put(cellIdBytes);
+
+        Files.createDirectories(path.getParent());
+        var temporaryPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temporaryPath, buffer.array());
+            Files.move(temporaryPath, path, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    @Override
+    public int cellCount() {
+        return cellCount;
+    }
+
+    @Override
+    public double x(int index) {
+        return xs.get(index);
+    }
+
+    @Override
+    public double y(int index) {
+        return ys.get(index);
+    }
+
+    @Override
+    public String cellId(int index) {
+        var offset = cellIdOffsets[index];
+        var cellIdBytes = new byte[cellIdOffsets[index + 1] - 1 - offset];
+        cellIds.duplicate().position(offset).get(cellIdBytes);
+        return new String(cellIdBytes, UTF_8);
+    }
+
+    // For plots that are kept whole, e.g. the cached coordinates of JsonCellPlotController
+    ImmutableList<TSnePoint.Dto> toDtos() {
+        var dtos = ImmutableList.<TSnePoint.Dto>builderWithExpectedSize(cellCount);
+        for (var i = 0; i < cellCount; i++) {
+            dtos.add(TSnePoint.Dto.create(x(i), y(i), cellId(i)));
+        }
+        return dtos.build();
+    }
+
+    private static int[] indexCellIds(ByteBuffer cellIds, int cellCount, Path path) throws IOException {
+        var cellIdOffsets = new int[cellCount + 1];
+        var length = cellIds.remaining();
+        var index = 1;
+        for (var position = 0; position < length && cellCount > 0; position++) {
+            if (cellIds.get(position) == '\n') {
+                if (index == cellCount) {
+                    throw new IOException("More cell IDs than cells in " + path);
+                }
+                cellIdOffsets[index++] = position + 1;
+            }
+        }
+        if (cellCount > 0 && index < cellCount) {
+            throw new IOException("Fewer cell IDs than cells in " + path);
+        }
+        cellIdOffsets[cellCount] = length + 1;
+        return cellIdOffsets;
+    }
+
+    // ByteBuffer::slice always returns a big-endian buffer
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        var duplicate = buffer.duplicate();
+        duplicate.position(offset).limit(offset + length);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+}
@@ -0,0 +1,149 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.gson.JsonArray;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static java.util.stream.Collectors.joining;
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+// Per-experiment files with the coordinates of every dimension reduction, written when the experiment is loaded and
+// read via memory-mapped buffers, so that plots don’t need to join scxa_coords and scxa_dimension_reduction in
+// Postgres. The files are a cache of the database: if a file can’t be read (e.g. an experiment loaded before the
+// store existed) we return an empty Optional and callers fall back to the database.
+@Component
+public class CellPlotCoordinatesStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CellPlotCoordinatesStore.class);
+    private static final String FILE_NAME_TEMPLATE = "%s.cell-plot.%s.%s.bin";
+
+    private final Path cellPlotCoordinatesDirPath;
+    private final CellPlotDao cellPlotDao;
+
+    private final Map<Path, MappedCoordinates> mappedFiles = new ConcurrentHashMap<>();
+
+    public CellPlotCoordinatesStore(Path cellPlotCoordinatesDirPath, CellPlotDao cellPlotDao) {
+        this.cellPlotCoordinatesDirPath = cellPlotCoordinatesDirPath;
+        this.cellPlotDao = cellPlotDao;
+    }
+
+    public Optional<ImmutableList<TSnePoint.Dto>> fetchCellPlot(String experimentAccession,
+                                                                String plotMethod,
+                                                                Map<String, ?> plotParameters) {
+        return mapCoordinatesFile(experimentAccession, plotMethod, plotParameters)
+                .map(CellPlotCoordinatesFile::toDtos);
+    }
+
+    // Same points as fetchCellPlot, in the same order, read one cell at a time from the mapped file
+    public Optional<CellPlotCoordinates> fetchCoordinates(String experimentAccession,
+                                                          String plotMethod,
+                                                          Map<String, ?> plotParameters) {
+        return mapCoordinatesFile(experimentAccession, plotMethod, plotParameters)
+                .map(coordinatesFile -> (CellPlotCoordinates) coordinatesFile);
+    }
+
+    private Optional<CellPlotCoordinatesFile> mapCoordinatesFile(String experimentAccession,
+                                                                 String plotMethod,
+                                                                 Map<String, ?> plotParameters) {
+        var path = getPath(experimentAccession, plotMethod, plotParameters);
+        if (!Files.isReadable(path)) {
+            return Optional.empty();
+        }
+
+        try {
+            var lastModifiedTime = Files.getLastModifiedTime(path);
+            var mappedCoordinates = mappedFiles.get(path);
+            if (mappedCoordinates == null || !mappedCoordinates.lastModifiedTime.equals(lastModifiedTime)) {
+                mappedCoordinates = new MappedCoordinates(lastModifiedTime, CellPlotCoordinatesFile.map(path));
+                mappedFiles.put(path, mappedCoordinates);
+            }
+            return Optional.of(mappedCoordinates.coordinatesFile);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read cell plot coordinates from {}: {}", path, e.getMessage());
+            mappedFiles.remove(path);
+            return Optional.empty();
+        }
+    }
+
+    // Called at experiment load time; a failure to write the files isn’t fatal, plots will be read from the database
+    public void writeCellPlots(String experimentAccession) {
+        invalidate(experimentAccession);
+
+        for (var dimensionReduction : cellPlotDao.fetchDimensionReductions(experimentAccession)) {
+            var path =
+                    getPath(
+                            experimentAccession,
+                            dimensionReduction.method(),
+                            flattenParameterisation(dimensionReduction.parameterisation()));
+            try {
+                CellPlotCoordinatesFile.write(path, cellPlotDao.fetchCellPlot(dimensionReduction.id()));
+                LOGGER.info("Cell plot coordinates written to {}", path);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to write cell plot coordinates to {}: {}", path, e.getMessage());
+            }
+        }
+    }
+
+    public void deleteCellPlots(String experimentAccession) {
+        invalidate(experimentAccession);
+
+        var experimentDirPath = cellPlotCoordinatesDirPath.resolve(experimentAccession);
+        if (!Files.isDirectory(experimentDirPath)) {
+            return;
+        }
+
+        try (var paths = Files.newDirectoryStream(experimentDirPath, experimentAccession + ".cell-plot.*.bin")) {
+            for (var path : paths) {
+                Files.deleteIfExists(path);
+            }
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete cell plot coordinates of {}: {}", experimentAccession, e.getMessage());
+        }
+    }
+
+    private void invalidate(String experimentAccession) {
+        mappedFiles.keySet().removeIf(path -> path.getParent().endsWith(experimentAccession));
+    }
+
+    // Parameterisations are stored as an array of objects, e.g. [{"perplexity": 10}]; plot requests send the
+    // parameters as a map, so both need to produce the same file name
+    private static Map<String, String> flattenParameterisation(String parameterisation) {
+        var flattenedParameterisation = ImmutableSortedMap.<String, String>naturalOrder();
+        GSON.fromJson(parameterisation, JsonArray.class).forEach(
+                option -> option.getAsJsonObject().entrySet().forEach(
+                        entry -> flattenedParameterisation.put(entry.getKey(), entry.getValue().getAsString())));
+        return flattenedParameterisation.build();
+    }
+
+    private Path getPath(String experimentAccession, String plotMethod, Map<String, ?> plotParameters) {
+        var parameters =
+                ImmutableSortedMap.copyOf(plotParameters).entrySet().stream()
+                        .map(entry -> entry.getKey() + "=" + entry.getValue())
+                        .collect(joining("&"));
+
+        return cellPlotCoordinatesDirPath
+                .resolve(experimentAccession)
+                .resolve(String.format(FILE_NAME_TEMPLATE, experimentAccession, plotMethod, parameters));
+    }
+
+    private static final class MappedCoordinates {
+        private final FileTime lastModifiedTime;
+        private final CellPlotCoordinatesFile coordinatesFile;
+
+        private MappedCoordinates(FileTime lastModifiedTime, CellPlotCoordinatesFile coordinatesFile) {
+            this.lastModifiedTime = lastModifiedTime;
+            this.coordinatesFile = coordinatesFile;
+        }
+    }
+}
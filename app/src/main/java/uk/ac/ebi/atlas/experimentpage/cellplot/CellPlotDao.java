@@ -1,12 +1,15 @@
 package uk.ac.ebi.atlas.experimentpage.cellplot;
 
+import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.gson.JsonObject;
-import com.google.gson.Gson;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
@@ -14,11 +17,12 @@ import uk.ac.ebi.atlas.controllers.ResourceNotFoundException;
 import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
 
 import java.sql.ResultSet;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import static java.util.Objects.requireNonNull;
 import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
 
 @Repository
@@ -26,10 +30,23 @@ import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
 public class CellPlotDao {
     private static final Logger LOGGER = LoggerFactory.getLogger(CellPlotDao.class);
 
+    // Postgres only uses a cursor (instead of reading the whole result set into memory) if a fetch size is set
+    // and the statement runs within a transaction, which is guaranteed by @Transactional
+    private static final int STREAMING_FETCH_SIZE = 10000;
+
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final NamedParameterJdbcTemplate streamingNamedParameterJdbcTemplate;
+    private final CellPlotCatalogueDao cellPlotCatalogueDao;
 
-    public CellPlotDao(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+    public CellPlotDao(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                       CellPlotCatalogueDao cellPlotCatalogueDao) {
         this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.cellPlotCatalogueDao = cellPlotCatalogueDao;
+
+        var streamingJdbcTemplate =
+                new JdbcTemplate(requireNonNull(namedParameterJdbcTemplate.getJdbcTemplate().getDataSource()));
+        streamingJdbcTemplate.setFetchSize(STREAMING_FETCH_SIZE);
+        this.streamingNamedParameterJdbcTemplate = new NamedParameterJdbcTemplate(streamingJdbcTemplate);
     }
 
     // For some reason we need to explicitly cast :parameterisation or Postgres complains with:
@@ -74,6 +91,32 @@ public class CellPlotDao {
                                 rs.getString("cell_id")));
     }
 
+    // Points are handed over one at a time in the same order as fetchCellPlotWithK (i.e. grouped by cluster)
+    public void streamCellPlotWithK(String experimentAccession,
+                                    int k,
+                                    String plotMethod,
+                                    Map<String, Integer> plotParameters,
+                                    Consumer<TSnePoint.Dto> pointConsumer) {
+        var namedParameters =
+                ImmutableMap.of(
+                        "experiment_accession", experimentAccession,
+                        "variable", String.valueOf(k),
+                        "method", plotMethod,
+                        // We wrap in a list because the parameterisation column is an array
+                        "parameterisation", GSON.toJson(ImmutableList.of(plotParameters)));
+
+        streamingNamedParameterJdbcTemplate.query(
+                SELECT_CELL_PLOT_WITH_K_STATEMENT,
+                namedParameters,
+                (RowCallbackHandler) rs ->
+                        pointConsumer.accept(
+                                TSnePoint.Dto.create(
+                                        rs.getDouble("x"),
+                                        rs.getDouble("y"),
+                                        rs.getString("cluster_id"),
+                                        rs.getString("cell_id"))));
+    }
+
     private static final String SELECT_CELL_PLOT_STATEMENT =
             "SELECT cell_id, x, y " +
                     "FROM scxa_coords AS coords " +
@@ -101,6 +144,108 @@ public class CellPlotDao {
                                 rs.getString("cell_id")));
     }
 
+    public void streamCellPlot(String experimentAccession,
+                               String plotMethod,
+                               Map<String, Integer> plotParameters,
+                               Consumer<TSnePoint.Dto> pointConsumer) {
+        var namedParameters =
+                ImmutableMap.of(
+                        "experiment_accession", experimentAccession,
+                        "method", plotMethod,
+                        // We wrap in a list because the parameterisation column is an array
+                        "parameterisation", GSON.toJson(ImmutableList.of(plotParameters)));
+
+        streamingNamedParameterJdbcTemplate.query(
+                SELECT_CELL_PLOT_STATEMENT,
+                namedParameters,
+                (RowCallbackHandler) rs ->
+                        pointConsumer.accept(
+                                TSnePoint.Dto.create(
+                                        rs.getDouble("x"),
+                                        rs.getDouble("y"),
+                                        rs.getString("cell_id"))));
+    }
+
+    private static final String SELECT_DIMENSION_REDUCTIONS_STATEMENT =
+            "SELECT id, method, parameterisation " +
+                    "FROM scxa_dimension_reduction " +
+                    "WHERE experiment_accession=:experiment_accession";
+    public List<DimensionReduction> fetchDimensionReductions(String experimentAccession) {
+        return namedParameterJdbcTemplate.query(
+                SELECT_DIMENSION_REDUCTIONS_STATEMENT,
+                ImmutableMap.of("experiment_accession", experimentAccession),
+                (rs, rowNum) ->
+                        DimensionReduction.create(
+                                rs.getInt("id"),
+                                rs.getString("method"),
+                                rs.getString("parameterisation")));
+    }
+
+    private static final String SELECT_CELL_PLOT_BY_DIMENSION_REDUCTION_STATEMENT =
+            "SELECT cell_id, x, y " +
+                    "FROM scxa_coords " +
+                    "WHERE dimension_reduction_id=:dimension_reduction_id";
+    public List<TSnePoint.Dto> fetchCellPlot(int dimensionReductionId) {
+        return namedParameterJdbcTemplate.query(
+                SELECT_CELL_PLOT_BY_DIMENSION_REDUCTION_STATEMENT,
+                ImmutableMap.of("dimension_reduction_id", dimensionReductionId),
+                (rs, rowNum) ->
+                        TSnePoint.Dto.create(
+                                rs.getDouble("x"),
+                                rs.getDouble("y"),
+                                rs.getString("cell_id")));
+    }
+
+    // Cluster membership and expression levels without coordinates, to be matched with a coordinates file
+    private static final String SELECT_CELL_CLUSTERS_STATEMENT =
+            "SELECT m.cell_id, g.value AS cluster_id " +
+                    "FROM scxa_cell_group g " +
+                    "JOIN scxa_cell_group_membership m " +
+                        "ON g.id=m.cell_group_id " +
+                        "AND m.experiment_accession=g.experiment_accession " +
+                    "WHERE g.experiment_accession=:experiment_accession " +
+                        "AND g.variable=:variable";
+    public Map<String, String> fetchCellClusters(String experimentAccession, int k) {
+        var namedParameters =
+                ImmutableMap.of(
+                        "experiment_accession", experimentAccession,
+                        "variable", String.valueOf(k));
+
+        return namedParameterJdbcTemplate.query(
+                SELECT_CELL_CLUSTERS_STATEMENT,
+                namedParameters,
+                (ResultSet resultSet) -> {
+                    var cellClusters = new HashMap<String, String>();
+                    while (resultSet.next()) {
+                        cellClusters.put(resultSet.getString("cell_id"), resultSet.getString("cluster_id"));
+                    }
+                    return cellClusters;
+                });
+    }
+
+    private static final String SELECT_EXPRESSION_LEVELS_STATEMENT =
+            "SELECT cell_id, expression_level " +
+                    "FROM scxa_analytics " +
+                    "WHERE experiment_accession=:experiment_accession " +
+                        "AND gene_id=:gene_id";
+    public Map<String, Double> fetchExpressionLevels(String experimentAccession, String geneId) {
+        var namedParameters =
+                ImmutableMap.of(
+                        "experiment_accession", experimentAccession,
+                        "gene_id", geneId);
+
+        return namedParameterJdbcTemplate.query(
+                SELECT_EXPRESSION_LEVELS_STATEMENT,
+                namedParameters,
+                (ResultSet resultSet) -> {
+                    var expressionLevels = new HashMap<String, Double>();
+                    while (resultSet.next()) {
+                        expressionLevels.put(resultSet.getString("cell_id"), resultSet.getDouble("expression_level"));
+                    }
+                    return expressionLevels;
+                });
+    }
+
     private static final String SELECT_CELL_PLOT_WITH_EXPRESSION_STATEMENT =
             "SELECT c.cell_id, c.x, c.y, a.expression_level " +
                     "FROM scxa_coords c " +
@@ -134,63 +279,42 @@ public class CellPlotDao {
                                 rs.getString("cell_id")));
     }
 
-    private static final String SELECT_DISTINCT_PLOT_METHODS_STATEMENT =
-            "SELECT DISTINCT method " +
-            "FROM scxa_dimension_reduction " +
-            "WHERE experiment_accession=:experiment_accession";
-
-    public List<String> fetchCellPlotMethods(String experimentAccession) {
-        var namedParameters = ImmutableMap.of(
-                "experiment_accession", experimentAccession);
-
-        return namedParameterJdbcTemplate.queryForList(SELECT_DISTINCT_PLOT_METHODS_STATEMENT, namedParameters,
-                String.class);
-    }
-
-    private static final String SELECT_DISTINCT_PLOT_TYPE_STATEMENT =
-            "SELECT DISTINCT parameterisation " +
-                    "FROM scxa_dimension_reduction " +
-                    "WHERE method=:method " +
-                    "AND experiment_accession=:experiment_accession";
-
-    public List<String> fetchCellPlotParameter(String experimentAccession, String method) {
+    public void streamCellPlotWithExpression(String experimentAccession,
+                                             String geneId,
+                                             String plotMethod,
+                                             Map<String, Integer> plotParameters,
+                                             Consumer<TSnePoint.Dto> pointConsumer) {
         var namedParameters = ImmutableMap.of(
                 "experiment_accession", experimentAccession,
-                "method", method);
+                "gene_id", geneId,
+                "method", plotMethod,
+                // We wrap in a list because the parameterisation column is an array
+                "parameterisation", GSON.toJson(ImmutableList.of(plotParameters)));
 
-        return namedParameterJdbcTemplate.queryForList(SELECT_DISTINCT_PLOT_TYPE_STATEMENT, namedParameters,
-                String.class);
+        streamingNamedParameterJdbcTemplate.query(
+                SELECT_CELL_PLOT_WITH_EXPRESSION_STATEMENT,
+                namedParameters,
+                (RowCallbackHandler) rs ->
+                        pointConsumer.accept(
+                                TSnePoint.Dto.create(
+                                        rs.getDouble("x"),
+                                        rs.getDouble("y"),
+                                        rs.getDouble("expression_level"),
+                                        rs.getString("cell_id"))));
     }
 
+    // Plot methods and parameterisations come from the cached catalogue, which is shared by all plot requests
+    public List<String> fetchCellPlotMethods(String experimentAccession) {
+        return cellPlotCatalogueDao.fetchCellPlotCatalogue(experimentAccession).methods();
+    }
 
-    private static final String SELECT_DEFAULT_PLOT_METHOD_AND_PARAMETERISATION =
-            "SELECT DISTINCT dr.method, jsonb_array_elements(dr.parameterisation) parameterisation " +
-                    "FROM scxa_dimension_reduction dr " +
-                    "JOIN (SELECT method,  max(priority) as prt " +
-                        "FROM scxa_dimension_reduction " +
-                        "WHERE experiment_accession=:experiment_accession " +
-                        " GROUP BY method) fi " +
-                    "ON dr.method = fi.method " +
-                    "AND dr.priority = fi.prt " +
-            "WHERE experiment_accession=:experiment_accession " +
-            "ORDER BY parameterisation";
+    public ImmutableMap<String, ImmutableSet<String>> fetchCellPlotParameterValues(String experimentAccession,
+                                                                                   String method) {
+        return cellPlotCatalogueDao.fetchCellPlotCatalogue(experimentAccession).parameterValues(method);
+    }
 
     public Map<String, List<JsonObject>> fetchDefaultPlotMethodWithParameterisation(String experimentAccession) {
-        var namedParameters = ImmutableMap.of("experiment_accession", experimentAccession);
-        Map<String, List<JsonObject>> plotTypeAndOptions = new HashMap<>();
-        return namedParameterJdbcTemplate.query(
-                SELECT_DEFAULT_PLOT_METHOD_AND_PARAMETERISATION,
-                namedParameters,
-                (ResultSet resultSet) -> {
-                    while (resultSet.next()) {
-                        var plotMethod = resultSet.getString("method");
-                        var plotOption = new Gson().fromJson(resultSet.getString("parameterisation"), JsonObject.class);
-                        var plotOptions = plotTypeAndOptions.getOrDefault(plotMethod, new ArrayList<>());
-                        plotOptions.add(plotOption);
-                        plotTypeAndOptions.put(plotMethod, plotOptions);
-                    }
-                    return plotTypeAndOptions;
-                });
+        return cellPlotCatalogueDao.fetchCellPlotCatalogue(experimentAccession).defaultPlotOptions();
     }
 
     public String fetchExpressionUnitByAccession(String experimentAccession) {
@@ -206,4 +330,16 @@ public class CellPlotDao {
             throw new ResourceNotFoundException(e);
         }
     }
+
+    @AutoValue
+    public abstract static class DimensionReduction {
+        public abstract int id();
+        public abstract String method();
+        // JSON array, e.g. [{"n_neighbors": 15}]
+        public abstract String parameterisation();
+
+        public static DimensionReduction create(int id, String method, String parameterisation) {
+            return new AutoValue_CellPlotDao_DimensionReduction(id, method, parameterisation);
+        }
+    }
 }
@@ -0,0 +1,306 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+import uk.ac.ebi.atlas.monitoring.Weighed;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+
+// A uniform grid over the bounding box of a cell plot, used to return a sample of at most a given number of points
+// that preserves the density of the plot: every grid cell contributes a number of points proportional to the number
+// of points it contains. Within a grid cell points are interleaved by series (i.e. the first point of each series,
+// then the second point of each series, and so on), so that small clusters in dense regions are not sampled away.
+// The index is built once per plot; sampling a viewport only visits the grid cells that overlap it, so zooming in on
+// a region returns a more detailed sample of that region.
+public final class CellPlotGridIndex implements Weighed {
+    private static final int GRID_SIZE = 256;
+
+    private final ImmutableList<String> seriesNames;
+    private final double minX;
+    private final double minY;
+    private final double cellWidth;
+    private final double cellHeight;
+    // Points sorted by grid cell; the points of grid cell i are points[cellOffsets[i]] to points[cellOffsets[i+1] - 1]
+    private final TSnePoint[] points;
+    private final int[] seriesIndices;
+    private final int[] cellOffsets;
+
+    private CellPlotGridIndex(ImmutableList<String> seriesNames,
+                              double minX,
+                              double minY,
+                              double cellWidth,
+                              double cellHeight,
+                              TSnePoint[] points,
+                              int[] seriesIndices,
+                              int[] cellOffsets) {
+        this.seriesNames = seriesNames;
+        this.minX = minX;
+        this.minY = minY;
+        this.cellWidth = cellWidth;
+        this.cellHeight = cellHeight;
+        this.points = points;
+        this.seriesIndices = seriesIndices;
+        this.cellOffsets = cellOffsets;
+    }
+
+    public static CellPlotGridIndex create(Map<String, ? extends Collection<TSnePoint>> series) {
+        var seriesNames = ImmutableList.copyOf(series.keySet());
+        var pointCount = series.values().stream().mapToInt(Collection::size).sum();
+
+        var minX = Double.POSITIVE_INFINITY;
+        var maxX = Double.NEGATIVE_INFINITY;
+        var minY = Double.POSITIVE_INFINITY;
+        var maxY = Double.NEGATIVE_INFINITY;
+        for (var seriesPoints : series.values()) {
+            for (var point : seriesPoints) {
+                minX = Math.min(minX, point.x());
+                maxX = Math.max(maxX, point.x());
+                minY = Math.min(minY, point.y());
+                maxY = Math.max(maxY, point.y());
+            }
+        }
+        if (pointCount == 0) {
+            minX = maxX = minY = maxY = 0;
+        }
+        // Degenerate plots (e.g. all points on a line) still need a non-zero cell size
+        var cellWidth = maxX > minX ? (maxX - minX) / GRID_SIZE : 1.0;
+        var cellHeight = maxY > minY ? (maxY - minY) / GRID_SIZE : 1.0;
+
+        // Counting sort of the points by grid cell; it’s stable, so within a cell points are grouped by series
+        var cellOffsets = new int[GRID_SIZE * GRID_SIZE + 1];
+        var pointCells = new int[pointCount];
+        var i = 0;
+        for (var seriesPoints : series.values()) {
+            for (var point : seriesPoints) {
+                var cell = gridCell(column(point.x(), minX, cellWidth), row(point.y(), minY, cellHeight));
+                pointCells[i++] = cell;
+                cellOffsets[cell + 1]++;
+            }
+        }
+        for (var cell = 0; cell < GRID_SIZE * GRID_SIZE; cell++) {
+            cellOffsets[cell + 1] += cellOffsets[cell];
+        }
+
+        var sortedPoints = new TSnePoint[pointCount];
+        var sortedSeriesIndices = new int[pointCount];
+        var nextPosition = cellOffsets.clone();
+        i = 0;
+        var seriesIndex = 0;
+        for (var seriesPoints : series.values()) {
+            for (var point : seriesPoints) {
+                var position = nextPosition[pointCells[i++]]++;
+                sortedPoints[position] = point;
+                sortedSeriesIndices[position] = seriesIndex;
+            }
+            seriesIndex++;
+        }
+
+        var points = new TSnePoint[pointCount];
+        var seriesIndices = new int[pointCount];
+        for (var cell = 0; cell < GRID_SIZE * GRID_SIZE; cell++) {
+            interleaveSeries(sortedPoints, sortedSeriesIndices, cellOffsets[cell], cellOffsets[cell + 1],
+                    points, seriesIndices);
+        }
+
+        return new CellPlotGridIndex(
+                seriesNames, minX, minY, cellWidth, cellHeight, points, seriesIndices, cellOffsets);
+    }
+
+    public int size() {
+        return points.length;
+    }
+
+    // Points are coordinates, a name and, depending on the plot, an expression level or a metadata value; metadata
+    // values are shared by all the points of a series, so only names are counted
+    @Override
+    public long estimatedBytes() {
+        var bytes =
+                OBJECT_HEADER_BYTES +
+                Weighed.estimatedBytes(seriesNames) +
+                ARRAY_HEADER_BYTES +
+                Weighed.estimatedBytes(seriesIndices) +
+                Weighed.estimatedBytes(cellOffsets);
+        for (var point : points) {
+            bytes += REFERENCE_BYTES + OBJECT_HEADER_BYTES + 2 * Double.BYTES + 3 * REFERENCE_BYTES +
+                    Weighed.estimatedBytes(point.name());
+        }
+        return bytes;
+    }
+
+    // Number of points within the viewport; grid cells fully inside the viewport aren’t scanned
+    public int count(Viewport viewport) {
+        var count = 0;
+        for (var row = firstRow(viewport); row <= lastRow(viewport); row++) {
+            for (var column = firstColumn(viewport); column <= lastColumn(viewport); column++) {
+                count += countInCell(gridCell(column, row), viewport);
+            }
+        }
+        return count;
+    }
+
+    // Returns at most maxPoints points within the viewport, grouped by series. All series are returned, even if
+    // empty, so that clients can keep series colours and legends consistent across samples.
+    public ImmutableMap<String, ImmutableSet<TSnePoint>> sample(int maxPoints, Viewport viewport) {
+        checkArgument(maxPoints >= 0, "Maximum number of points must be a non-negative number");
+
+        var seriesBuilders =
+                seriesNames.stream()
+                        .map(__ -> ImmutableSet.<TSnePoint>builder())
+                        .collect(toImmutableList());
+
+        var pointsInViewport = count(viewport);
+        var samplingRatio = pointsInViewport <= maxPoints ? 1.0 : (double) maxPoints / pointsInViewport;
+
+        // Quotas are rounded from the running total rather than per grid cell, otherwise many sparse cells would
+        // either all be rounded up (too many points) or all be rounded down (sparse regions vanish)
+        var pointsSeen = 0;
+        var pointsTaken = 0;
+        for (var row = firstRow(viewport); row <= lastRow(viewport); row++) {
+            for (var column = firstColumn(viewport); column <= lastColumn(viewport); column++) {
+                var cell = gridCell(column, row);
+                var pointsInCell = countInCell(cell, viewport);
+                if (pointsInCell == 0) {
+                    continue;
+                }
+
+                pointsSeen += pointsInCell;
+                var quota = (int) Math.round(pointsSeen * samplingRatio) - pointsTaken;
+                for (var i = cellOffsets[cell]; i < cellOffsets[cell + 1] && quota > 0; i++) {
+                    if (viewport.contains(points[i].x(), points[i].y())) {
+                        seriesBuilders.get(seriesIndices[i]).add(points[i]);
+                        pointsTaken++;
+                        quota--;
+                    }
+                }
+            }
+        }
+
+        var result = ImmutableMap.<String, ImmutableSet<TSnePoint>>builder();
+        for (var i = 0; i < seriesNames.size(); i++) {
+            result.put(seriesNames.get(i), seriesBuilders.get(i).build());
+        }
+        return result.build();
+    }
+
+    private int countInCell(int cell, Viewport viewport) {
+        var column = cell % GRID_SIZE;
+        var row = cell / GRID_SIZE;
+        var cellIsInsideViewport =
+                minX + column * cellWidth >= viewport.xMin() && minX + (column + 1) * cellWidth <= viewport.xMax() &&
+                minY + row * cellHeight >= viewport.yMin() && minY + (row + 1) * cellHeight <= viewport.yMax();
+        if (cellIsInsideViewport) {
+            return cellOffsets[cell + 1] - cellOffsets[cell];
+        }
+
+        var count = 0;
+        for (var i = cellOffsets[cell]; i < cellOffsets[cell + 1]; i++) {
+            if (viewport.contains(points[i].x(), points[i].y())) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private int firstColumn(Viewport viewport) {
+        return column(viewport.xMin(), minX, cellWidth);
+    }
+
+    private int lastColumn(Viewport viewport) {
+        return column(viewport.xMax(), minX, cellWidth);
+    }
+
+    private int firstRow(Viewport viewport) {
+        return row(viewport.yMin(), minY, cellHeight);
+    }
+
+    private int lastRow(Viewport viewport) {
+        return row(viewport.yMax(), minY, cellHeight);
+    }
+
+    private static int column(double x, double minX, double cellWidth) {
+        return clamp((x - minX) / cellWidth);
+    }
+
+    private static int row(double y, double minY, double cellHeight) {
+        return clamp((y - minY) / cellHeight);
+    }
+
+    // Points on the right or top edge of the bounding box fall in the last column or row
+    private static int clamp(double gridCoordinate) {
+        if (gridCoordinate <= 0 || Double.isNaN(gridCoordinate)) {
+            return 0;
+        }
+        return (int) Math.min(GRID_SIZE - 1, Math.floor(gridCoordinate));
+    }
+
+    private static int gridCell(int column, int row) {
+        return row * GRID_SIZE + column;
+    }
+
+    // Rewrites source[from, to), where points are grouped by series, in round-robin order of series into target
+    private static void interleaveSeries(TSnePoint[] sourcePoints,
+                                         int[] sourceSeriesIndices,
+                                         int from,
+                                         int to,
+                                         TSnePoint[] targetPoints,
+                                         int[] targetSeriesIndices) {
+        if (from == to) {
+            return;
+        }
+
+        // Start and end positions of each series run in the source range
+        var runStarts = new int[to - from];
+        var runEnds = new int[to - from];
+        var runCount = 0;
+        for (var i = from; i < to; i++) {
+            if (i == from || sourceSeriesIndices[i] != sourceSeriesIndices[i - 1]) {
+                runStarts[runCount] = i;
+                runCount++;
+            }
+            runEnds[runCount - 1] = i + 1;
+        }
+
+        var position = from;
+        while (position < to) {
+            for (var run = 0; run < runCount; run++) {
+                if (runStarts[run] < runEnds[run]) {
+                    targetPoints[position] = sourcePoints[runStarts[run]];
+                    targetSeriesIndices[position] = sourceSeriesIndices[runStarts[run]];
+                    runStarts[run]++;
+                    position++;
+                }
+            }
+        }
+    }
+
+    @AutoValue
+    public abstract static class Viewport {
+        public static final Viewport ALL =
+                create(
+                        Double.NEGATIVE_INFINITY,
+                        Double.POSITIVE_INFINITY,
+                        Double.NEGATIVE_INFINITY,
+                        Double.POSITIVE_INFINITY);
+
+        public abstract double xMin();
+        public abstract double xMax();
+        public abstract double yMin();
+        public abstract double yMax();
+
+        public static Viewport create(double xMin, double xMax, double yMin, double yMax) {
+            checkArgument(xMin <= xMax && yMin <= yMax, "Invalid viewport: minimum values must not exceed maximums");
+            return new AutoValue_CellPlotGridIndex_Viewport(xMin, xMax, yMin, yMax);
+        }
+
+        boolean contains(double x, double y) {
+            return x >= xMin() && x <= xMax() && y >= yMin() && y <= yMax();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+// Grid indices of cluster plots are cached so that successive samples of the same plot (e.g. when zooming in) don’t
+// need to fetch and index all the points again. Expression plots aren’t cached, so their index is built per request.
+@Service
+public class CellPlotGridIndexService {
+    private final CellPlotService cellPlotService;
+
+    public CellPlotGridIndexService(CellPlotService cellPlotService) {
+        this.cellPlotService = cellPlotService;
+    }
+
+    @Cacheable(cacheNames = "cellPlotGridIndexWithK",
+               key = "{#experimentAccession, #k, #plotMethod, #plotParameters}")
+    public CellPlotGridIndex clusterPlotWithK(String experimentAccession,
+                                              int k,
+                                              String plotMethod,
+                                              Map<String, Integer> plotParameters) {
+        return CellPlotGridIndex.create(
+                cellPlotService.clusterPlotWithK(experimentAccession, k, plotMethod, plotParameters));
+    }
+
+    @Cacheable(cacheNames = "cellPlotGridIndexWithMetadata",
+               key = "{#experimentAccession, #metadata, #plotMethod, #plotParameters}")
+    public CellPlotGridIndex clusterPlotWithMetadata(String experimentAccession,
+                                                     String metadata,
+                                                     String plotMethod,
+                                                     Map<String, Integer> plotParameters) {
+        return CellPlotGridIndex.create(
+                new TreeMap<>(
+                        cellPlotService.clusterPlotWithMetadata(
+                                experimentAccession, metadata, plotMethod, plotParameters)));
+    }
+}
@@ -7,7 +7,11 @@ import org.springframework.web.bind.annotation.RestController;
 import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
 import uk.ac.ebi.atlas.trader.ExperimentTrader;
 
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
@@ -20,11 +24,14 @@ import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
 public class CellPlotJsonSerializer {
     private final ExperimentTrader experimentTrader;
     private final CellPlotService cellPlotService;
+    private final CellPlotGridIndexService cellPlotGridIndexService;
 
     public CellPlotJsonSerializer(ExperimentTrader experimentTrader,
-                                  CellPlotService cellPlotService) {
+                                  CellPlotService cellPlotService,
+                                  CellPlotGridIndexService cellPlotGridIndexService) {
         this.experimentTrader = experimentTrader;
         this.cellPlotService = cellPlotService;
+        this.cellPlotGridIndexService = cellPlotGridIndexService;
     }
 
     @Cacheable(cacheNames = "jsonCellPlotWithK",
@@ -99,6 +106,199 @@ public class CellPlotJsonSerializer {
         return GSON.toJson(model);
     }
 
+    // The sampled variants below return at most maxPoints points within the viewport (see CellPlotGridIndex) and the
+    // total number of cells in the viewport, so that clients can tell whether they’re looking at a sample
+    public String sampledClusterPlotWithK(String experimentAccession,
+                                          int k,
+                                          String plotMethod,
+                                          Map<String, Integer> plotParameters,
+                                          String accessKey,
+                                          int maxPoints,
+                                          CellPlotGridIndex.Viewport viewport) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var gridIndex =
+                cellPlotGridIndexService.clusterPlotWithK(experiment.getAccession(), k, plotMethod, plotParameters);
+
+        return GSON.toJson(
+                ImmutableMap.of(
+                        "series", modelForHighcharts("Cluster ", gridIndex.sample(maxPoints, viewport)),
+                        "totalCellCount", gridIndex.count(viewport)));
+    }
+
+    public String sampledClusterPlotWithMetadata(String experimentAccession,
+                                                 String metadata,
+                                                 String plotMethod,
+                                                 Map<String, Integer> plotParameters,
+                                                 String accessKey,
+                                                 int maxPoints,
+                                                 CellPlotGridIndex.Viewport viewport) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var gridIndex =
+                cellPlotGridIndexService.clusterPlotWithMetadata(
+                        experiment.getAccession(), metadata, plotMethod, plotParameters);
+
+        return GSON.toJson(
+                ImmutableMap.of(
+                        "series", modelForHighcharts("", gridIndex.sample(maxPoints, viewport)),
+                        "totalCellCount", gridIndex.count(viewport)));
+    }
+
+    // Minimum and maximum expression levels are those of the whole plot, so that colours don’t change when zooming
+    public String sampledExpressionPlot(String experimentAccession,
+                                        String geneId,
+                                        String plotMethod,
+                                        Map<String, Integer> plotParameters,
+                                        String accessKey,
+                                        int maxPoints,
+                                        CellPlotGridIndex.Viewport viewport) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var pointsWithExpression =
+                cellPlotService.expressionPlot(experiment.getAccession(), geneId, plotMethod, plotParameters);
+        var gridIndex = CellPlotGridIndex.create(ImmutableMap.of("Gene expression", pointsWithExpression));
+
+        var expressionLevels =
+                pointsWithExpression.stream()
+                        .map(TSnePoint::expressionLevel)
+                        .filter(Optional::isPresent)
+                        .mapToDouble(Optional::get)
+                        .filter(d -> d > 0)
+                        .summaryStatistics();
+
+        var model = new HashMap<>();
+        model.put("series", modelForHighcharts("", gridIndex.sample(maxPoints, viewport)));
+        model.put("totalCellCount", gridIndex.count(viewport));
+        model.put("unit", cellPlotService.fetchExpressionUnitByAccession(experimentAccession));
+        if (expressionLevels.getCount() > 0) {
+            model.put("max", expressionLevels.getMax());
+            model.put("min", expressionLevels.getMin());
+        }
+
+        return GSON.toJson(model);
+    }
+
+    // The streaming variants below produce the same JSON as their String counterparts but write it straight to the
+    // response as rows are read from the database, so that memory usage doesn’t grow with the number of cells.
+    // They aren’t cached: the whole point is not to hold the payload in memory.
+    public void streamClusterPlotWithK(String experimentAccession,
+                                       int k,
+                                       String plotMethod,
+                                       Map<String, Integer> plotParameters,
+                                       String accessKey,
+                                       Writer writer) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        // Points are sorted by cluster ID, so series can be written as they come
+        var seriesWriter = new HighchartsSeriesJsonWriter(writer, "Cluster ").beginObject().beginSeriesArray();
+        cellPlotService.streamClusterPlotWithK(
+                experiment.getAccession(),
+                k,
+                plotMethod,
+                plotParameters,
+                pointDto ->
+                        seriesWriter.writePoint(pointDto.clusterId(), pointDto.x(), pointDto.y(), pointDto.name()));
+        seriesWriter.endSeriesArray().endObject();
+    }
+
+    public void streamClusterPlotWithMetadata(String experimentAccession,
+                                              String metadata,
+                                              String plotMethod,
+                                              Map<String, Integer> plotParameters,
+                                              String accessKey,
+                                              Writer writer) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        // Metadata values come from Solr and not from the database so we can’t have the rows sorted by group; instead
+        // we keep a compact buffer per metadata value (primitive coordinates and cell IDs) and write them in order
+        var seriesBuffers = new TreeMap<String, SeriesBuffer>();
+        cellPlotService.streamClusterPlotWithMetadata(
+                experiment.getAccession(),
+                metadata,
+                plotMethod,
+                plotParameters,
+                (metadataValue, pointDto) ->
+                        seriesBuffers.computeIfAbsent(metadataValue, __ -> new SeriesBuffer())
+                                .add(pointDto.x(), pointDto.y(), pointDto.name()));
+
+        var seriesWriter = new HighchartsSeriesJsonWriter(writer, "").beginObject().beginSeriesArray();
+        seriesBuffers.forEach(
+                (metadataValue, seriesBuffer) -> {
+                    for (var i = 0; i < seriesBuffer.size; i++) {
+                        seriesWriter.writePointWithMetadata(
+                                metadataValue,
+                                seriesBuffer.xs[i],
+                                seriesBuffer.ys[i],
+                                seriesBuffer.names.get(i),
+                                metadataValue);
+                    }
+                });
+        seriesWriter.endSeriesArray().endObject();
+    }
+
+    public void streamExpressionPlot(String experimentAccession,
+                                     String geneId,
+                                     String plotMethod,
+                                     Map<String, Integer> plotParameters,
+                                     String accessKey,
+                                     Writer writer) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+        var unit = cellPlotService.fetchExpressionUnitByAccession(experimentAccession);
+
+        // As in expressionPlot, min and max only take into account cells where the gene is expressed
+        var expressionRange = new double[] { Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY };
+
+        var seriesWriter =
+                new HighchartsSeriesJsonWriter(writer, "")
+                        .beginObject()
+                        .property("unit", unit)
+                        .beginSeriesArray();
+        cellPlotService.streamExpressionPlot(
+                experiment.getAccession(),
+                geneId,
+                plotMethod,
+                plotParameters,
+                pointDto -> {
+                    if (pointDto.expressionLevel() > 0) {
+                        expressionRange[0] = Math.min(expressionRange[0], pointDto.expressionLevel());
+                        expressionRange[1] = Math.max(expressionRange[1], pointDto.expressionLevel());
+                    }
+                    seriesWriter.writePointWithExpression(
+                            "Gene expression",
+                            pointDto.x(),
+                            pointDto.y(),
+                            pointDto.expressionLevel(),
+                            pointDto.name());
+                });
+        seriesWriter.endSeriesArray();
+
+        if (expressionRange[1] > 0) {
+            seriesWriter.property("max", expressionRange[1]).property("min", expressionRange[0]);
+        }
+        seriesWriter.endObject();
+    }
+
+    private static final class SeriesBuffer {
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private double[] xs = new double[INITIAL_CAPACITY];
+        private double[] ys = new double[INITIAL_CAPACITY];
+        private final List<String> names = new ArrayList<>(INITIAL_CAPACITY);
+        private int size = 0;
+
+        private void add(double x, double y, String name) {
+            if (size == xs.length) {
+                xs = Arrays.copyOf(xs, size * 2);
+                ys = Arrays.copyOf(ys, size * 2);
+            }
+            xs[size] = x;
+            ys[size] = y;
+            names.add(name);
+            size++;
+        }
+    }
+
     private ImmutableList<ImmutableMap<String, Object>> modelForHighcharts(String seriesNamePrefix,
                                                                            Map<?, ? extends Set<TSnePoint>> points) {
         return points.entrySet().stream()
@@ -1,20 +1,31 @@
 package uk.ac.ebi.atlas.experimentpage.cellplot;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.gson.JsonObject;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.math.util.MathUtils;
 import org.springframework.stereotype.Service;
-import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataDao;
+import uk.ac.ebi.atlas.experimentpage.expression.ExpressionMatrixStore;
+import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataService;
 import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+import uk.ac.ebi.atlas.experimentpage.tsneplot.ClustersIndexStore;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.DoubleStream;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingInt;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.mapping;
@@ -25,26 +36,43 @@ public class CellPlotService {
     static final String MISSING_METADATA_VALUE_PLACEHOLDER = "not available";
 
     private final CellPlotDao cellPlotDao;
-    private final CellMetadataDao cellMetadataDao;
+    private final CellPlotCoordinatesStore cellPlotCoordinatesStore;
+    private final ExpressionMatrixStore expressionMatrixStore;
+    private final ClustersIndexStore clustersIndexStore;
+    private final CellMetadataService cellMetadataService;
 
-    public CellPlotService(CellPlotDao cellPlotDao, CellMetadataDao cellMetadataDao) {
+    public CellPlotService(CellPlotDao cellPlotDao,
+                           CellPlotCoordinatesStore cellPlotCoordinatesStore,
+                           ExpressionMatrixStore expressionMatrixStore,
+                           ClustersIndexStore clustersIndexStore,
+                           CellMetadataService cellMetadataService) {
         this.cellPlotDao = cellPlotDao;
-        this.cellMetadataDao = cellMetadataDao;
+        this.cellPlotCoordinatesStore = cellPlotCoordinatesStore;
+        this.expressionMatrixStore = expressionMatrixStore;
+        this.clustersIndexStore = clustersIndexStore;
+        this.cellMetadataService = cellMetadataService;
     }
 
     public List<String> cellPlotMethods(String experimentAccession) {
         return cellPlotDao.fetchCellPlotMethods(experimentAccession);
     }
 
-    public List<String> cellPlotParameter(String experimentAccession, String method) {
-        return cellPlotDao.fetchCellPlotParameter(experimentAccession, method);
+    // Valid values of each parameter of a plot method, e.g. {"perplexity": ["5", "10", "20"]}
+    public ImmutableMap<String, ImmutableSet<String>> cellPlotParameterValues(String experimentAccession,
+                                                                              String method) {
+        return cellPlotDao.fetchCellPlotParameterValues(experimentAccession, method);
     }
 
     public ImmutableMap<String, ImmutableSet<TSnePoint>> clusterPlotWithK(String experimentAccession,
                                                                           int k,
                                                                           String plotMethod,
                                                                           Map<String, Integer> plotParameters) {
-        var points = cellPlotDao.fetchCellPlotWithK(experimentAccession, k, plotMethod, plotParameters);
+        var points =
+                cellPlotCoordinatesStore.fetchCellPlot(experimentAccession, plotMethod, plotParameters)
+                        .map(coordinates ->
+                                withClusters(coordinates, fetchCellClusters(experimentAccession, k)))
+                        .orElseGet(() ->
+                                cellPlotDao.fetchCellPlotWithK(experimentAccession, k, plotMethod, plotParameters));
 
         return points
                 .stream()
@@ -64,14 +92,32 @@ public class CellPlotService {
                                 .collect(toImmutableSet())));
     }
 
+    // Unlike clusterPlotWithK, points aren’t rounded or grouped: consumers are expected to do so as they are written.
+    // Points come from the same coordinates files as clusterPlotWithK, so both agree; only when they can’t be read
+    // are they streamed from the database. Each point is read from the file as it’s passed to the consumer.
+    public void streamClusterPlotWithK(String experimentAccession,
+                                       int k,
+                                       String plotMethod,
+                                       Map<String, Integer> plotParameters,
+                                       Consumer<TSnePoint.Dto> pointConsumer) {
+        cellPlotCoordinatesStore.fetchCoordinates(experimentAccession, plotMethod, plotParameters)
+                .ifPresentOrElse(
+                        coordinates ->
+                                streamWithClusters(
+                                        coordinates, fetchCellClusters(experimentAccession, k), pointConsumer),
+                        () -> cellPlotDao.streamCellPlotWithK(
+                                experimentAccession, k, plotMethod, plotParameters, pointConsumer));
+    }
+
     public ImmutableMap<String, ImmutableSet<TSnePoint>> clusterPlotWithMetadata(String experimentAccession,
                                                                                  String metadataCategory,
                                                                                  String plotMethod,
                                                                                  Map<String, Integer> plotParameters) {
-        var metadataValuesForCells = cellMetadataDao.getMetadataValues(experimentAccession, metadataCategory);
+        var metadataValuesForCells =
+                cellMetadataService.getMetadataValuesForGivenType(experimentAccession, metadataCategory);
 
         return ImmutableMap.copyOf(
-                cellPlotDao.fetchCellPlot(experimentAccession, plotMethod, plotParameters)
+                fetchCellPlot(experimentAccession, plotMethod, plotParameters)
                         .stream()
                         .map(
                                 pointDto ->
@@ -86,11 +132,49 @@ public class CellPlotService {
                         .collect(groupingBy(TSnePoint::metadata, mapping(identity(), toImmutableSet()))));
     }
 
+    // The consumer receives the (capitalised) metadata value of each point along with the point itself
+    public void streamClusterPlotWithMetadata(String experimentAccession,
+                                              String metadataCategory,
+                                              String plotMethod,
+                                              Map<String, Integer> plotParameters,
+                                              BiConsumer<String, TSnePoint.Dto> pointConsumer) {
+        var metadataValuesForCells =
+                cellMetadataService.getMetadataValuesForGivenType(experimentAccession, metadataCategory);
+
+        Consumer<TSnePoint.Dto> pointWithMetadataConsumer =
+                pointDto ->
+                        pointConsumer.accept(
+                                StringUtils.capitalize(
+                                        metadataValuesForCells.getOrDefault(
+                                                pointDto.name(), MISSING_METADATA_VALUE_PLACEHOLDER)),
+                                pointDto);
+
+        cellPlotCoordinatesStore.fetchCoordinates(experimentAccession, plotMethod, plotParameters)
+                .ifPresentOrElse(
+                        coordinates -> {
+                            for (var i = 0; i < coordinates.cellCount(); i++) {
+                                pointWithMetadataConsumer.accept(
+                                        TSnePoint.Dto.create(
+                                                coordinates.x(i), coordinates.y(i), coordinates.cellId(i)));
+                            }
+                        },
+                        () -> cellPlotDao.streamCellPlot(
+                                experimentAccession, plotMethod, plotParameters, pointWithMetadataConsumer));
+    }
+
     public ImmutableSet<TSnePoint> expressionPlot(String experimentAccession,
                                                   String geneId,
                                                   String plotMethod,
                                                   Map<String, Integer> plotParameters) {
-        return cellPlotDao.fetchCellPlotWithExpression(experimentAccession, geneId, plotMethod, plotParameters)
+        var points =
+                cellPlotCoordinatesStore.fetchCellPlot(experimentAccession, plotMethod, plotParameters)
+                        .map(coordinates ->
+                                withExpressionLevels(coordinates, fetchExpressionLevels(experimentAccession, geneId)))
+                        .orElseGet(() ->
+                                cellPlotDao.fetchCellPlotWithExpression(
+                                        experimentAccession, geneId, plotMethod, plotParameters));
+
+        return points
                 .stream()
                 .map(
                         pointDto ->
@@ -102,6 +186,98 @@ public class CellPlotService {
                 .collect(toImmutableSet());
     }
 
+    public void streamExpressionPlot(String experimentAccession,
+                                     String geneId,
+                                     String plotMethod,
+                                     Map<String, Integer> plotParameters,
+                                     Consumer<TSnePoint.Dto> pointConsumer) {
+        cellPlotCoordinatesStore.fetchCoordinates(experimentAccession, plotMethod, plotParameters)
+                .ifPresentOrElse(
+                        coordinates -> {
+                            var expressionLevels = fetchExpressionLevels(experimentAccession, geneId);
+                            for (var i = 0; i < coordinates.cellCount(); i++) {
+                                var cellId = coordinates.cellId(i);
+                                pointConsumer.accept(
+                                        TSnePoint.Dto.create(
+                                                coordinates.x(i),
+                                                coordinates.y(i),
+                                                expressionLevels.getOrDefault(cellId, 0.0),
+                                                cellId));
+                            }
+                        },
+                        () -> cellPlotDao.streamCellPlotWithExpression(
+                                experimentAccession, geneId, plotMethod, plotParameters, pointConsumer));
+    }
+
+    // Coordinates of all the cells of a plot sorted by cell ID, which is the order of the value vectors below: clients
+    // can fetch the coordinates once and then colour the plot by cluster, metadata or gene with only the values
+    public ImmutableList<TSnePoint.Dto> cellPlotCoordinates(String experimentAccession,
+                                                            String plotMethod,
+                                                            Map<String, Integer> plotParameters) {
+        return cellPlotCoordinatesStore.fetchCellPlot(experimentAccession, plotMethod, plotParameters)
+                .orElseGet(() ->
+                        cellPlotDao.fetchCellPlot(experimentAccession, plotMethod, plotParameters).stream()
+                                .sorted(comparing(TSnePoint.Dto::name))
+                                .collect(toImmutableList()));
+    }
+
+    public ImmutableList<String> cellPlotCellIds(String experimentAccession,
+                                                 String plotMethod,
+                                                 Map<String, Integer> plotParameters) {
+        var cellIds = ImmutableList.<String>builder();
+        forEachCellId(experimentAccession, plotMethod, plotParameters, cellIds::add);
+        return cellIds.build();
+    }
+
+    // Cluster ID of every cell, or null if the cell isn’t in any cluster
+    public List<String> clusterIdValues(String experimentAccession,
+                                        int k,
+                                        String plotMethod,
+                                        Map<String, Integer> plotParameters) {
+        var cellClusters = fetchCellClusters(experimentAccession, k);
+
+        var clusterIds = new ArrayList<String>();
+        forEachCellId(
+                experimentAccession, plotMethod, plotParameters, cellId -> clusterIds.add(cellClusters.get(cellId)));
+        return clusterIds;
+    }
+
+    public ImmutableList<String> metadataValues(String experimentAccession,
+                                                String metadataCategory,
+                                                String plotMethod,
+                                                Map<String, Integer> plotParameters) {
+        var metadataValuesForCells =
+                cellMetadataService.getMetadataValuesForGivenType(experimentAccession, metadataCategory);
+
+        var metadataValues = ImmutableList.<String>builder();
+        forEachCellId(
+                experimentAccession,
+                plotMethod,
+                plotParameters,
+                cellId ->
+                        metadataValues.add(
+                                StringUtils.capitalize(
+                                        metadataValuesForCells.getOrDefault(
+                                                cellId, MISSING_METADATA_VALUE_PLACEHOLDER))));
+        return metadataValues.build();
+    }
+
+    // Cells where the gene isn’t expressed have a level of 0, as in expressionPlot
+    public double[] expressionLevelValues(String experimentAccession,
+                                          String geneId,
+                                          String plotMethod,
+                                          Map<String, Integer> plotParameters) {
+        var expressionLevels = fetchExpressionLevels(experimentAccession, geneId);
+
+        var expressionLevelValues = DoubleStream.builder();
+        forEachCellId(
+                experimentAccession,
+                plotMethod,
+                plotParameters,
+                cellId -> expressionLevelValues.add(expressionLevels.getOrDefault(cellId, 0.0)));
+        return expressionLevelValues.build().toArray();
+    }
+
     public ImmutableMap<String, JsonObject> fetchDefaultPlotMethodWithParameterisation(String experimentAccession) {
 
         return cellPlotDao.fetchDefaultPlotMethodWithParameterisation(experimentAccession)
@@ -115,6 +291,96 @@ public class CellPlotService {
         return cellPlotDao.fetchExpressionUnitByAccession(experimentAccession);
     }
 
+    // Cell IDs of a plot in the order of cellPlotCoordinates, decoded one at a time from the coordinates file
+    private void forEachCellId(String experimentAccession,
+                               String plotMethod,
+                               Map<String, Integer> plotParameters,
+                               Consumer<String> cellIdConsumer) {
+        cellPlotCoordinatesStore.fetchCoordinates(experimentAccession, plotMethod, plotParameters)
+                .ifPresentOrElse(
+                        coordinates -> {
+                            for (var i = 0; i < coordinates.cellCount(); i++) {
+                                cellIdConsumer.accept(coordinates.cellId(i));
+                            }
+                        },
+                        () -> cellPlotDao.fetchCellPlot(experimentAccession, plotMethod, plotParameters).stream()
+                                .map(TSnePoint.Dto::name)
+                                .sorted()
+                                .forEach(cellIdConsumer));
+    }
+
+    private List<TSnePoint.Dto> fetchCellPlot(String experimentAccession,
+                                              String plotMethod,
+                                              Map<String, Integer> plotParameters) {
+        return cellPlotCoordinatesStore.fetchCellPlot(experimentAccession, plotMethod, plotParameters)
+                .map(coordinates -> (List<TSnePoint.Dto>) coordinates)
+                .orElseGet(() -> cellPlotDao.fetchCellPlot(experimentAccession, plotMethod, plotParameters));
+    }
+
+    // Same as CellPlotDao::fetchCellPlotWithK: points sorted numerically by cluster. Cells without a cluster would
+    // make the query above fail (TSnePoint.Dto doesn’t allow null cluster IDs), here we leave them out.
+    private static List<TSnePoint.Dto> withClusters(List<TSnePoint.Dto> coordinates,
+                                                    Map<String, String> cellClusters) {
+        return coordinates.stream()
+                .filter(pointDto -> cellClusters.containsKey(pointDto.name()))
+                .map(pointDto ->
+                        TSnePoint.Dto.create(
+                                pointDto.x(), pointDto.y(), cellClusters.get(pointDto.name()), pointDto.name()))
+                .sorted(comparingInt(pointDto -> Integer.parseInt(pointDto.clusterId())))
+                .collect(toList());
+    }
+
+    // Same as withClusters, but points are passed to the consumer as they’re read. Cells are put in cluster order by
+    // sorting their indices, each packed with its cluster number in a single long (cluster in the upper 32 bits, so
+    // that cells of the same cluster keep the order of the file), instead of sorting a list of points.
+    private static void streamWithClusters(CellPlotCoordinates coordinates,
+                                           Map<String, String> cellClusters,
+                                           Consumer<TSnePoint.Dto> pointConsumer) {
+        var clusteredCells = new long[coordinates.cellCount()];
+        var clusteredCellCount = 0;
+        for (var i = 0; i < coordinates.cellCount(); i++) {
+            var clusterId = cellClusters.get(coordinates.cellId(i));
+            if (clusterId != null) {
+                clusteredCells[clusteredCellCount++] = (long) Integer.parseInt(clusterId) << 32 | i;
+            }
+        }
+        Arrays.sort(clusteredCells, 0, clusteredCellCount);
+
+        for (var j = 0; j < clusteredCellCount; j++) {
+            var i = (int) clusteredCells[j];
+            var cellId = coordinates.cellId(i);
+            pointConsumer.accept(
+                    TSnePoint.Dto.create(coordinates.x(i), coordinates.y(i), cellClusters.get(cellId), cellId));
+        }
+    }
+
+    // Cluster memberships are loaded from clusters.tsv, so the file and the database have the same clusters
+    private Map<String, String> fetchCellClusters(String experimentAccession, int k) {
+        return clustersIndexStore.fetchClustersIndex(experimentAccession)
+                .flatMap(clustersIndex -> clustersIndex.clusterIds(k))
+                .map(cellClusters -> (Map<String, String>) cellClusters)
+                .orElseGet(() -> cellPlotDao.fetchCellClusters(experimentAccession, k));
+    }
+
+    // Same as CellPlotDao::fetchCellPlotWithExpression: cells where the gene isn’t expressed have a level of 0
+    private Map<String, Double> fetchExpressionLevels(String experimentAccession, String geneId) {
+        return expressionMatrixStore.fetchExpressionLevels(experimentAccession, geneId)
+                .map(expressionLevels -> (Map<String, Double>) expressionLevels)
+                .orElseGet(() -> cellPlotDao.fetchExpressionLevels(experimentAccession, geneId));
+    }
+
+    private static List<TSnePoint.Dto> withExpressionLevels(List<TSnePoint.Dto> coordinates,
+                                                            Map<String, Double> expressionLevels) {
+        return coordinates.stream()
+                .map(pointDto ->
+                        TSnePoint.Dto.create(
+                                pointDto.x(),
+                                pointDto.y(),
+                                expressionLevels.getOrDefault(pointDto.name(), 0.0),
+                                pointDto.name()))
+                .collect(toList());
+    }
+
     private JsonObject getMiddleElement(List plotOptions) {
             var plotOptionsSize = plotOptions.size();
             var middleOfPlotOptionsSize = plotOptionsSize % 2 == 0 ? plotOptionsSize / 2 - 1 : plotOptionsSize / 2;
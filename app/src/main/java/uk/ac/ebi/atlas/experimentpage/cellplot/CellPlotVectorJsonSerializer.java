@@ -0,0 +1,121 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableMap;
+import org.apache.commons.math.util.MathUtils;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+import uk.ac.ebi.atlas.trader.ExperimentTrader;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Comparator.comparingInt;
+import static java.util.Comparator.naturalOrder;
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+// The plots of CellPlotJsonSerializer split in geometry and attributes: the coordinates of every cell, which are the
+// same however the plot is coloured, and vectors with a value per cell in the same order as the coordinates. Changing
+// the colouring of a plot only needs the values, a few kilobytes instead of the megabytes of a whole plot.
+@Component
+public class CellPlotVectorJsonSerializer {
+    private final ExperimentTrader experimentTrader;
+    private final CellPlotService cellPlotService;
+
+    public CellPlotVectorJsonSerializer(ExperimentTrader experimentTrader, CellPlotService cellPlotService) {
+        this.experimentTrader = experimentTrader;
+        this.cellPlotService = cellPlotService;
+    }
+
+    // {"cellIds": ["cell_1", "cell_2", ...], "x": [1.5, 0.25, ...], "y": [-2.0, 3.75, ...]}, cached with its ETag
+    @Cacheable(cacheNames = "jsonCellPlotCoordinates",
+               key = "{#experimentAccession, #plotMethod, #plotParameters}")
+    public ETaggedJson coordinates(String experimentAccession,
+                              String plotMethod,
+                              Map<String, Integer> plotParameters,
+                              String accessKey) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var points = cellPlotService.cellPlotCoordinates(experiment.getAccession(), plotMethod, plotParameters);
+
+        return ETaggedJson.create(
+                GSON.toJson(
+                        ImmutableMap.of(
+                                "cellIds", points.stream().map(TSnePoint.Dto::name).collect(toImmutableList()),
+                                "x", points.stream().mapToDouble(point -> MathUtils.round(point.x(), 2)).toArray(),
+                                "y", points.stream().mapToDouble(point -> MathUtils.round(point.y(), 2)).toArray())));
+    }
+
+    public String clusterIdValues(String experimentAccession,
+                                  int k,
+                                  String plotMethod,
+                                  Map<String, Integer> plotParameters,
+                                  String accessKey) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        return GSON.toJson(
+                categorical(
+                        cellPlotService.clusterIdValues(experiment.getAccession(), k, plotMethod, plotParameters),
+                        comparingInt(Integer::parseInt)));
+    }
+
+    public String metadataValues(String experimentAccession,
+                                 String metadata,
+                                 String plotMethod,
+                                 Map<String, Integer> plotParameters,
+                                 String accessKey) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        return GSON.toJson(
+                categorical(
+                        cellPlotService.metadataValues(experiment.getAccession(), metadata, plotMethod, plotParameters),
+                        naturalOrder()));
+    }
+
+    // {"values": [0.0, 12.5, ...], "unit": "CPM", "min": 12.5, "max": 100.0}, min and max of the expressed cells
+    public String expressionLevelValues(String experimentAccession,
+                                        String geneId,
+                                        String plotMethod,
+                                        Map<String, Integer> plotParameters,
+                                        String accessKey) {
+        var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        var expressionLevels =
+                cellPlotService.expressionLevelValues(experiment.getAccession(), geneId, plotMethod, plotParameters);
+        var expressedCellStats = Arrays.stream(expressionLevels).filter(d -> d > 0).summaryStatistics();
+
+        var result = new HashMap<String, Object>();
+        result.put("values", expressionLevels);
+        result.put("unit", cellPlotService.fetchExpressionUnitByAccession(experiment.getAccession()));
+        if (expressedCellStats.getCount() > 0) {
+            result.put("max", expressedCellStats.getMax());
+            result.put("min", expressedCellStats.getMin());
+        }
+        return GSON.toJson(result);
+    }
+
+    // Values as indices into the sorted list of distinct values, -1 for cells without a value:
+    // {"categories": ["Liver", "Not available"], "codes": [0, 0, 1, ...]}
+    static ImmutableMap<String, Object> categorical(List<String> values, Comparator<String> categoryOrder) {
+        var categories =
+                values.stream()
+                        .filter(Objects::nonNull)
+                        .distinct()
+                        .sorted(categoryOrder)
+                        .collect(toImmutableList());
+
+        var codesByCategory = new HashMap<String, Integer>();
+        for (var i = 0; i < categories.size(); i++) {
+            codesByCategory.put(categories.get(i), i);
+        }
+
+        return ImmutableMap.of(
+                "categories", categories,
+                "codes", values.stream().mapToInt(value -> value == null ? -1 : codesByCategory.get(value)).toArray());
+    }
+}
@@ -0,0 +1,109 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableList;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+// Encodes cell plot series in a column-oriented binary format that browsers can read without parsing, e.g. with
+// new Float32Array(buffer, offset, cellCount). All numbers are little-endian and every section is 4-byte aligned:
+//
+//   magic             4 bytes, "SCPL"
+//   header length     int32
+//   header            UTF-8 JSON object, right-padded with spaces to a multiple of 4 bytes:
+//                     {"version": 1, "cellCount": n, "groups": [series names...], "hasExpression": bool, ...}
+//                     plus any additional properties (e.g. "unit", "min" and "max" in expression plots)
+//   x                 float32 × n
+//   y                 float32 × n
+//   group             int32 × n, index of the point’s series in the header "groups" array
+//   expression level  float32 × n, NaN if the point has no expression level (only if hasExpression is true)
+//   cell IDs          UTF-8 string of n cell IDs separated by '\n', until the end of the buffer
+//
+// Points are in the same order as in the JSON series, i.e. grouped by series.
+final class ColumnarCellPlotEncoder {
+    static final int VERSION = 1;
+    static final byte[] MAGIC = "SCPL".getBytes(US_ASCII);
+
+    private ColumnarCellPlotEncoder() {
+    }
+
+    static byte[] encode(Map<String, ? extends Collection<TSnePoint>> series, Map<String, Object> properties) {
+        var cellCount = series.values().stream().mapToInt(Collection::size).sum();
+        var hasExpression =
+                series.values().stream()
+                        .flatMap(Collection::stream)
+                        .map(TSnePoint::expressionLevel)
+                        .anyMatch(Optional::isPresent);
+
+        var header = new LinkedHashMap<String, Object>();
+        header.put("version", VERSION);
+        header.put("cellCount", cellCount);
+        header.put("groups", ImmutableList.copyOf(series.keySet()));
+        header.put("hasExpression", hasExpression);
+        header.putAll(properties);
+        var headerBytes = pad(GSON.toJson(header).getBytes(UTF_8));
+
+        var cellIds = new StringBuilder();
+        series.values().stream()
+                .flatMap(Collection::stream)
+                .forEach(point -> {
+                    if (cellIds.length() > 0) {
+                        cellIds.append('\n');
+                    }
+                    cellIds.append(point.name());
+                });
+        var cellIdBytes = cellIds.toString().getBytes(UTF_8);
+
+        var columnCount = hasExpression ? 4 : 3;
+        var buffer =
+                ByteBuffer.allocate(
+                        MAGIC.length + Integer.BYTES + headerBytes.length +
+                        columnCount * Integer.BYTES * cellCount +
+                        cellIdBytes.length)
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        buffer.put(MAGIC).putInt(headerBytes.length).put(headerBytes);
+
+        series.values().forEach(points -> points.forEach(point -> buffer.putFloat((float) point.x())));
+        series.values().forEach(points -> points.forEach(point -> buffer.putFloat((float) point.y())));
+
+        var groupIndex = 0;
+        for (var points : series.values()) {
+            for (var i = 0; i < points.size(); i++) {
+                buffer.putInt(groupIndex);
+            }
+            groupIndex++;
+        }
+
+        if (hasExpression) {
+            series.values().forEach(
+                    points -> points.forEach(
+                            point -> buffer.putFloat(
+                                    point.expressionLevel().map(Double::floatValue).orElse(Float.NaN))));
+        }
+
+        buffer.put(cellIdBytes);
+
+        return buffer.array();
+    }
+
+    // JSON allows trailing whitespace, so we can pad the header with spaces to keep the columns aligned
+    private static byte[] pad(byte[] bytes) {
+        var paddedLength = (bytes.length + Integer.BYTES - 1) / Integer.BYTES * Integer.BYTES;
+        var paddedBytes = new byte[paddedLength];
+        System.arraycopy(bytes, 0, paddedBytes, 0, bytes.length);
+        for (var i = bytes.length; i < paddedLength; i++) {
+            paddedBytes[i] = ' ';
+        }
+        return paddedBytes;
+    }
+}
@@ -0,0 +1,36 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.hash.Hashing;
+import uk.ac.ebi.atlas.monitoring.Weighed;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+// A JSON document along with the ETag of its contents. The ETag is computed once, when the document is built, and
+// cached with it, so that requests (conditional or not) don’t hash documents of several megabytes again.
+public final class ETaggedJson implements Weighed {
+    private final String json;
+    private final String eTag;
+
+    private ETaggedJson(String json, String eTag) {
+        this.json = json;
+        this.eTag = eTag;
+    }
+
+    public static ETaggedJson create(String json) {
+        return new ETaggedJson(json, "\"" + Hashing.murmur3_128().hashString(json, UTF_8) + "\"");
+    }
+
+    public String json() {
+        return json;
+    }
+
+    // A strong entity tag, quotes included
+    public String eTag() {
+        return eTag;
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return OBJECT_HEADER_BYTES + Weighed.estimatedBytes(json) + Weighed.estimatedBytes(eTag);
+    }
+}
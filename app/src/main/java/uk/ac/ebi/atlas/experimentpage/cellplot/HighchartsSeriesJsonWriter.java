@@ -0,0 +1,146 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.gson.stream.JsonWriter;
+import org.apache.commons.math.util.MathUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Objects;
+
+// Writes a JSON object of the form {"series": [{"name": ..., "data": [{"x": ..., "y": ..., "name": ...}, ...]}, ...]}
+// one point at a time. Consecutive points with the same series name are added to the same series, so points need to
+// be written grouped by series. Additional properties can be added before or after the series array.
+// IOExceptions are rethrown unchecked so that the writer can be used from within a Consumer.
+class HighchartsSeriesJsonWriter {
+    private final JsonWriter jsonWriter;
+    private final String seriesNamePrefix;
+
+    private boolean seriesArrayOpen = false;
+    private boolean seriesOpen = false;
+    private String currentSeriesName = null;
+
+    HighchartsSeriesJsonWriter(Writer writer, String seriesNamePrefix) {
+        this.jsonWriter = new JsonWriter(writer);
+        this.seriesNamePrefix = seriesNamePrefix;
+    }
+
+    HighchartsSeriesJsonWriter beginObject() {
+        try {
+            jsonWriter.beginObject();
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    HighchartsSeriesJsonWriter property(String name, String value) {
+        try {
+            jsonWriter.name(name).value(value);
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    HighchartsSeriesJsonWriter property(String name, double value) {
+        try {
+            jsonWriter.name(name).value(value);
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    HighchartsSeriesJsonWriter beginSeriesArray() {
+        try {
+            jsonWriter.name("series").beginArray();
+            seriesArrayOpen = true;
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void writePoint(String seriesName, double x, double y, String name) {
+        try {
+            beginPoint(seriesName, x, y);
+            jsonWriter.name("name").value(name);
+            jsonWriter.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void writePointWithMetadata(String seriesName, double x, double y, String name, String metadata) {
+        try {
+            beginPoint(seriesName, x, y);
+            jsonWriter.name("name").value(name);
+            jsonWriter.name("metadata").value(metadata);
+            jsonWriter.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void writePointWithExpression(String seriesName, double x, double y, double expressionLevel, String name) {
+        try {
+            beginPoint(seriesName, x, y);
+            jsonWriter.name("expressionLevel").value(expressionLevel);
+            jsonWriter.name("name").value(name);
+            jsonWriter.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    HighchartsSeriesJsonWriter endSeriesArray() {
+        try {
+            if (!seriesArrayOpen) {
+                throw new IllegalStateException("Series array hasn’t been opened");
+            }
+            endCurrentSeries();
+            jsonWriter.endArray();
+            seriesArrayOpen = false;
+            return this;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    void endObject() {
+        try {
+            jsonWriter.endObject();
+            jsonWriter.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void beginPoint(String seriesName, double x, double y) throws IOException {
+        if (!seriesArrayOpen) {
+            throw new IllegalStateException("Series array hasn’t been opened");
+        }
+
+        if (!seriesOpen || !Objects.equals(currentSeriesName, seriesName)) {
+            endCurrentSeries();
+            seriesOpen = true;
+            currentSeriesName = seriesName;
+            jsonWriter.beginObject()
+                    .name("name").value(seriesNamePrefix + seriesName)
+                    .name("data").beginArray();
+        }
+
+        jsonWriter.beginObject()
+                .name("x").value(MathUtils.round(x, 2))
+                .name("y").value(MathUtils.round(y, 2));
+    }
+
+    private void endCurrentSeries() throws IOException {
+        if (seriesOpen) {
+            jsonWriter.endArray().endObject();
+            seriesOpen = false;
+            currentSeriesName = null;
+        }
+    }
+}
@@ -1,113 +1,357 @@
 package uk.ac.ebi.atlas.experimentpage.cellplot;
 
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import uk.ac.ebi.atlas.controllers.JsonExceptionHandlingController;
-import org.apache.commons.lang3.StringUtils;
 
-import java.util.List;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
+
+import static uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotColumnarSerializer.COLUMNAR_CELL_PLOT_MEDIA_TYPE;
 
 @RestController
 @RequestMapping(value="/json/cell-plots/{experimentAccession}", method= RequestMethod.GET)
 public class
 JsonCellPlotController extends JsonExceptionHandlingController {
+    private static final MediaType COLUMNAR_CELL_PLOT = MediaType.valueOf(COLUMNAR_CELL_PLOT_MEDIA_TYPE);
+    private static final ImmutableSet<String> SAMPLING_PARAMETERS =
+            ImmutableSet.of("maxPoints", "xMin", "xMax", "yMin", "yMax");
+
     private final CellPlotJsonSerializer cellPlotJsonSerializer;
+    private final CellPlotColumnarSerializer cellPlotColumnarSerializer;
+    private final CellPlotVectorJsonSerializer cellPlotVectorJsonSerializer;
     private final CellPlotService cellPlotService;
 
     public JsonCellPlotController(CellPlotJsonSerializer cellPlotJsonSerializer,
+                                  CellPlotColumnarSerializer cellPlotColumnarSerializer,
+                                  CellPlotVectorJsonSerializer cellPlotVectorJsonSerializer,
                                   CellPlotService cellPlotService) {
         this.cellPlotJsonSerializer = cellPlotJsonSerializer;
+        this.cellPlotColumnarSerializer = cellPlotColumnarSerializer;
+        this.cellPlotVectorJsonSerializer = cellPlotVectorJsonSerializer;
         this.cellPlotService = cellPlotService;
     }
 
+    // The columnar binary format is only returned if it’s explicitly requested, e.g. with
+    // Accept: application/vnd.ebi.atlas.cell-plot; a wildcard such as */* (the default in browsers) means JSON.
+    // We can’t split JSON and binary in different handler methods with different produces values because Spring
+    // considers them equally good matches for */* and fails with an ambiguous mapping error.
+    private static boolean acceptsColumnarCellPlot(String acceptHeader) {
+        return MediaType.parseMediaTypes(acceptHeader).stream()
+                .anyMatch(mediaType -> mediaType.equalsTypeAndSubtype(COLUMNAR_CELL_PLOT));
+    }
+
+    // Optional sampling parameters, e.g. ...&maxPoints=20000&xMin=-10&xMax=10&yMin=-5&yMax=5: if any of them is present
+    // the response is a density-preserving sample of at most maxPoints cells within the viewport
+    private static boolean isSampled(Map<String, String> requestParams) {
+        return SAMPLING_PARAMETERS.stream().anyMatch(requestParams::containsKey);
+    }
+
+    private static int parseMaxPoints(Map<String, String> requestParams) {
+        var maxPoints =
+                Optional.ofNullable(requestParams.get("maxPoints")).map(Integer::parseInt).orElse(Integer.MAX_VALUE);
+        if (maxPoints <= 0) {
+            throw new IllegalArgumentException("Invalid maxPoints value " + maxPoints);
+        }
+        return maxPoints;
+    }
+
+    private static CellPlotGridIndex.Viewport parseViewport(Map<String, String> requestParams) {
+        return CellPlotGridIndex.Viewport.create(
+                parseBound(requestParams, "xMin", Double.NEGATIVE_INFINITY),
+                parseBound(requestParams, "xMax", Double.POSITIVE_INFINITY),
+                parseBound(requestParams, "yMin", Double.NEGATIVE_INFINITY),
+                parseBound(requestParams, "yMax", Double.POSITIVE_INFINITY));
+    }
+
+    private static double parseBound(Map<String, String> requestParams, String name, double defaultValue) {
+        return Optional.ofNullable(requestParams.get(name)).map(Double::parseDouble).orElse(defaultValue);
+    }
+
+    private static ResponseEntity<?> negotiatedResponse(String acceptHeader,
+                                                        Supplier<byte[]> columnarCellPlot,
+                                                        Supplier<String> jsonCellPlot) {
+        if (acceptsColumnarCellPlot(acceptHeader)) {
+            return ResponseEntity.ok().contentType(COLUMNAR_CELL_PLOT).body(columnarCellPlot.get());
+        }
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON_UTF8).body(jsonCellPlot.get());
+    }
+
     // Our only assumption is that plot parameters are all integers, but we can further generalise if needed
     private ImmutableMap<String, Integer> parsePlotParametersFromRequestParameters(String experimentAccession,
                                                                                    String plotMethod,
                                                                                    Map<String, String> requestParams) {
-        var requiredParameters =
-                Optional.ofNullable(cellPlotService.cellPlotParameter(experimentAccession, plotMethod))
-                        .orElseThrow(() -> new IllegalArgumentException("Unknown plot type " + plotMethod));
-
+        var parameterValues = cellPlotService.cellPlotParameterValues(experimentAccession, plotMethod);
+        if (parameterValues.isEmpty()) {
+            throw new IllegalArgumentException("Unknown plot type " + plotMethod);
+        }
 
         // Check that no param is missing
         var requiredParametersBuilder = ImmutableMap.<String, Integer>builder();
-        var requiredParameter = StringUtils.substringsBetween(requiredParameters.get(0) , "\"", "\"")[0];
-        var parameterisations = requiredParameters.stream().map(parameter ->
-                StringUtils.substringsBetween(parameter, " ","}")[0]).collect(Collectors.toList());
-        if (!requestParams.containsKey(requiredParameter)) {
-            throw new IllegalArgumentException("Missing parameter " + requiredParameter);
-        }
-        else if (!parameterisations.contains(requestParams.get(requiredParameter))) {
-            throw new IllegalArgumentException(
-                    "Invalid plot parameter value " +
-                            requiredParameter + "=" + requestParams.get(requiredParameter));
-        }
-        else {
-            requiredParametersBuilder.put(
-                    requiredParameter, Integer.parseInt(requestParams.get(requiredParameter)));
-        }
+        parameterValues.forEach((requiredParameter, validValues) -> {
+            if (!requestParams.containsKey(requiredParameter)) {
+                throw new IllegalArgumentException("Missing parameter " + requiredParameter);
+            } else if (!validValues.contains(requestParams.get(requiredParameter))) {
+                throw new IllegalArgumentException(
+                        "Invalid plot parameter value " +
+                                requiredParameter + "=" + requestParams.get(requiredParameter));
+            } else {
+                requiredParametersBuilder.put(
+                        requiredParameter, Integer.parseInt(requestParams.get(requiredParameter)));
+            }
+        });
         return requiredParametersBuilder.build();
     }
 
     @GetMapping(value = "/clusters/k/{k}",
+                produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, COLUMNAR_CELL_PLOT_MEDIA_TYPE})
+    public ResponseEntity<?> clusterPlotK(@PathVariable String experimentAccession,
+                                          @PathVariable int k,
+                                          @RequestParam String plotMethod,
+                                          @RequestParam Map<String,String> requestParams,
+                                          @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = "")
+                                                  String acceptHeader) {
+        var plotParameters = parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams);
+        var accessKey = requestParams.getOrDefault("accessKey", "");
+
+        if (isSampled(requestParams)) {
+            var maxPoints = parseMaxPoints(requestParams);
+            var viewport = parseViewport(requestParams);
+            return negotiatedResponse(
+                    acceptHeader,
+                    () -> cellPlotColumnarSerializer.sampledClusterPlotWithK(
+                            experimentAccession, k, plotMethod, plotParameters, accessKey, maxPoints, viewport),
+                    () -> cellPlotJsonSerializer.sampledClusterPlotWithK(
+                            experimentAccession, k, plotMethod, plotParameters, accessKey, maxPoints, viewport));
+        }
+
+        return negotiatedResponse(
+                acceptHeader,
+                () -> cellPlotColumnarSerializer.clusterPlotWithK(
+                        experimentAccession, k, plotMethod, plotParameters, accessKey),
+                () -> cellPlotJsonSerializer.clusterPlotWithK(
+                        experimentAccession, k, plotMethod, plotParameters, accessKey));
+    }
+
+    // Streaming variants of the endpoints, e.g. /clusters/k/10?plotMethod=umap&n_neighbors=15&stream=true
+    // They return the same JSON but skip the cache, so they’re suited to experiments with very many cells
+    @GetMapping(value = "/clusters/k/{k}",
+                params = "stream=true",
                 produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public String clusterPlotK(@PathVariable String experimentAccession,
-                               @PathVariable int k,
-                               @RequestParam String plotMethod,
-                               @RequestParam Map<String,String> requestParams) {
-        return cellPlotJsonSerializer.clusterPlotWithK(
+    public void streamClusterPlotK(HttpServletResponse response,
+                                   @PathVariable String experimentAccession,
+                                   @PathVariable int k,
+                                   @RequestParam String plotMethod,
+                                   @RequestParam Map<String,String> requestParams) throws IOException {
+        var plotParameters = parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams);
+
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        cellPlotJsonSerializer.streamClusterPlotWithK(
                 experimentAccession,
                 k,
                 plotMethod,
-                parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams),
-                requestParams.getOrDefault("accessKey", ""));
+                plotParameters,
+                requestParams.getOrDefault("accessKey", ""),
+                response.getWriter());
     }
 
     @GetMapping(value = "/clusters/metadata/{metadata}",
+                produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, COLUMNAR_CELL_PLOT_MEDIA_TYPE})
+    public ResponseEntity<?> clusterPlotMetadata(@PathVariable String experimentAccession,
+                                                 @PathVariable String metadata,
+                                                 @RequestParam String plotMethod,
+                                                 @RequestParam Map<String,String> requestParams,
+                                                 @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = "")
+                                                         String acceptHeader) {
+        var metadataCategory = metadata.replaceAll(" ", "_");
+        var plotParameters = parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams);
+        var accessKey = requestParams.getOrDefault("accessKey", "");
+
+        if (isSampled(requestParams)) {
+            var maxPoints = parseMaxPoints(requestParams);
+            var viewport = parseViewport(requestParams);
+            return negotiatedResponse(
+                    acceptHeader,
+                    () -> cellPlotColumnarSerializer.sampledClusterPlotWithMetadata(
+                            experimentAccession,
+                            metadataCategory,
+                            plotMethod,
+                            plotParameters,
+                            accessKey,
+                            maxPoints,
+                            viewport),
+                    () -> cellPlotJsonSerializer.sampledClusterPlotWithMetadata(
+                            experimentAccession,
+                            metadataCategory,
+                            plotMethod,
+                            plotParameters,
+                            accessKey,
+                            maxPoints,
+                            viewport));
+        }
+
+        return negotiatedResponse(
+                acceptHeader,
+                () -> cellPlotColumnarSerializer.clusterPlotWithMetadata(
+                        experimentAccession, metadataCategory, plotMethod, plotParameters, accessKey),
+                () -> cellPlotJsonSerializer.clusterPlotWithMetadata(
+                        experimentAccession, metadataCategory, plotMethod, plotParameters, accessKey));
+    }
+
+    @GetMapping(value = "/clusters/metadata/{metadata}",
+                params = "stream=true",
                 produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public String clusterPlotMetadata(@PathVariable String experimentAccession,
-                                      @PathVariable String metadata,
-                                      @RequestParam String plotMethod,
-                                      @RequestParam Map<String,String> requestParams) {
-        return cellPlotJsonSerializer.clusterPlotWithMetadata(
+    public void streamClusterPlotMetadata(HttpServletResponse response,
+                                          @PathVariable String experimentAccession,
+                                          @PathVariable String metadata,
+                                          @RequestParam String plotMethod,
+                                          @RequestParam Map<String,String> requestParams) throws IOException {
+        var plotParameters = parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams);
+
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        cellPlotJsonSerializer.streamClusterPlotWithMetadata(
                 experimentAccession,
                 metadata.replaceAll(" ", "_"),
                 plotMethod,
+                plotParameters,
+                requestParams.getOrDefault("accessKey", ""),
+                response.getWriter());
+    }
+
+    @GetMapping(value = "/expression",
+                produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, COLUMNAR_CELL_PLOT_MEDIA_TYPE})
+    public ResponseEntity<?> expressionPlot(@PathVariable String experimentAccession,
+                                            @RequestParam String plotMethod,
+                                            @RequestParam Map<String,String> requestParams,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = "")
+                                                    String acceptHeader) {
+        return expressionPlot(experimentAccession, "", plotMethod, requestParams, acceptHeader);
+    }
+
+    // Remember that gene IDs can have dots, e.g. Solyc09g014380.3 in E-ENAD-53
+    // See also JsonBioentityInformationController.java
+    @GetMapping(value = "/expression/{geneId:.+}",
+                produces = {MediaType.APPLICATION_JSON_UTF8_VALUE, COLUMNAR_CELL_PLOT_MEDIA_TYPE})
+    public ResponseEntity<?> expressionPlot(@PathVariable String experimentAccession,
+                                            @PathVariable String geneId,
+                                            @RequestParam String plotMethod,
+                                            @RequestParam Map<String,String> requestParams,
+                                            @RequestHeader(value = HttpHeaders.ACCEPT, defaultValue = "")
+                                                    String acceptHeader) {
+        var plotParameters = parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams);
+        var accessKey = requestParams.getOrDefault("accessKey", "");
+
+        if (isSampled(requestParams)) {
+            var maxPoints = parseMaxPoints(requestParams);
+            var viewport = parseViewport(requestParams);
+            return negotiatedResponse(
+                    acceptHeader,
+                    () -> cellPlotColumnarSerializer.sampledExpressionPlot(
+                            experimentAccession, geneId, plotMethod, plotParameters, accessKey, maxPoints, viewport),
+                    () -> cellPlotJsonSerializer.sampledExpressionPlot(
+                            experimentAccession, geneId, plotMethod, plotParameters, accessKey, maxPoints, viewport));
+        }
+
+        return negotiatedResponse(
+                acceptHeader,
+                () -> cellPlotColumnarSerializer.expressionPlot(
+                        experimentAccession, geneId, plotMethod, plotParameters, accessKey),
+                () -> cellPlotJsonSerializer.expressionPlot(
+                        experimentAccession, geneId, plotMethod, plotParameters, accessKey));
+    }
+
+    @GetMapping(value = "/expression/{geneId:.+}",
+                params = "stream=true",
+                produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public void streamExpressionPlot(HttpServletResponse response,
+                                     @PathVariable String experimentAccession,
+                                     @PathVariable String geneId,
+                                     @RequestParam String plotMethod,
+                                     @RequestParam Map<String,String> requestParams) throws IOException {
+        var plotParameters = parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams);
+
+        response.setContentType(MediaType.APPLICATION_JSON_UTF8_VALUE);
+        cellPlotJsonSerializer.streamExpressionPlot(
+                experimentAccession,
+                geneId,
+                plotMethod,
+                plotParameters,
+                requestParams.getOrDefault("accessKey", ""),
+                response.getWriter());
+    }
+
+    // Coordinates and value vectors, e.g. /coordinates?plotMethod=umap&n_neighbors=15 followed by
+    // /values/expression/ENSG00000111640?plotMethod=umap&n_neighbors=15: values are in the same order as the cell IDs
+    // of the coordinates. The ETag of the coordinates lets clients keep them across page loads: Spring compares it
+    // with If-None-Match (lists of tags, weak tags and * included) and returns 304 Not Modified if any matches.
+    @GetMapping(value = "/coordinates",
+                produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public ResponseEntity<String> coordinates(@PathVariable String experimentAccession,
+                                              @RequestParam String plotMethod,
+                                              @RequestParam Map<String,String> requestParams) {
+        var plotParameters = parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams);
+
+        var coordinates =
+                cellPlotVectorJsonSerializer.coordinates(
+                        experimentAccession,
+                        plotMethod,
+                        plotParameters,
+                        requestParams.getOrDefault("accessKey", ""));
+
+        return ResponseEntity.ok()
+                .eTag(coordinates.eTag())
+                .contentType(MediaType.APPLICATION_JSON_UTF8)
+                .body(coordinates.json());
+    }
+
+    @GetMapping(value = "/values/clusters/k/{k}",
+                produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public String clusterIdValues(@PathVariable String experimentAccession,
+                                  @PathVariable int k,
+                                  @RequestParam String plotMethod,
+                                  @RequestParam Map<String,String> requestParams) {
+        return cellPlotVectorJsonSerializer.clusterIdValues(
+                experimentAccession,
+                k,
+                plotMethod,
                 parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams),
                 requestParams.getOrDefault("accessKey", ""));
     }
 
-    @GetMapping(value = "/expression",
+    @GetMapping(value = "/values/metadata/{metadata}",
                 produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public String expressionPlot(@PathVariable String experimentAccession,
+    public String metadataValues(@PathVariable String experimentAccession,
+                                 @PathVariable String metadata,
                                  @RequestParam String plotMethod,
                                  @RequestParam Map<String,String> requestParams) {
-        return cellPlotJsonSerializer.expressionPlot(
+        return cellPlotVectorJsonSerializer.metadataValues(
                 experimentAccession,
-                "",
+                metadata.replaceAll(" ", "_"),
                 plotMethod,
                 parsePlotParametersFromRequestParameters(experimentAccession, plotMethod, requestParams),
                 requestParams.getOrDefault("accessKey", ""));
     }
 
-    // Remember that gene IDs can have dots, e.g. Solyc09g014380.3 in E-ENAD-53
-    // See also JsonBioentityInformationController.java
-    @GetMapping(value = "/expression/{geneId:.+}",
+    @GetMapping(value = "/values/expression/{geneId:.+}",
                 produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
-    public String expressionPlot(@PathVariable String experimentAccession,
-                                 @PathVariable String geneId,
-                                 @RequestParam String plotMethod,
-                                 @RequestParam Map<String,String> requestParams) {
-        return cellPlotJsonSerializer.expressionPlot(
+    public String expressionLevelValues(@PathVariable String experimentAccession,
+                                        @PathVariable String geneId,
+                                        @RequestParam String plotMethod,
+                                        @RequestParam Map<String,String> requestParams) {
+        return cellPlotVectorJsonSerializer.expressionLevelValues(
                 experimentAccession,
                 geneId,
                 plotMethod,
@@ -0,0 +1,362 @@
+package uk.ac.ebi.atlas.experimentpage.expression;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.StringTokenizer;
+import java.util.zip.GZIPInputStream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.stream.Collectors.joining;
+
+// The normalised expression matrix of an experiment in compressed sparse column (CSC) layout with a column per gene,
+// so that the non-zero expression levels of a gene are contiguous and can be read with a binary search for the gene
+// ID and a single slice of the memory-mapped file. All numbers are little-endian:
+//
+//   magic            4 bytes, "SCXE"
+//   version          int32
+//   gene count       int32 (g)
+//   cell count       int32 (c)
+//   non-zero count   int32 (n)
+//   gene offsets     int32 × (g + 1), gene i has the entries [offset i, offset i + 1)
+//   cell indices     int32 × n, ascending within each gene
+//   values           float32 × n
+//   gene IDs length  int32
+//   gene IDs         UTF-8 string of g gene IDs, sorted, separated by '\n'
+//   cell IDs length  int32
+//   cell IDs         UTF-8 string of c cell IDs separated by '\n'
+//
+// Files are built from the MatrixMarket files of the experiment (genes as rows, cells as columns) at load time. The
+// whole file is mapped in a single buffer, which limits it to 2 GB or about 250 million non-zero values.
+final class ExpressionMatrixFile {
+    static final int VERSION = 1;
+    private static final byte[] MAGIC = "SCXE".getBytes(US_ASCII);
+    private static final int HEADER_LENGTH = MAGIC.length + 4 * Integer.BYTES;
+
+    private final String[] geneIds;
+    private final String[] cellIds;
+    private final IntBuffer geneOffsets;
+    private final IntBuffer cellIndices;
+    private final FloatBuffer values;
+
+    private ExpressionMatrixFile(String[] geneIds,
+                                 String[] cellIds,
+                                 IntBuffer geneOffsets,
+                                 IntBuffer cellIndices,
+                                 FloatBuffer values) {
+        this.geneIds = geneIds;
+        this.cellIds = cellIds;
+        this.geneOffsets = geneOffsets;
+        this.cellIndices = cellIndices;
+        this.values = values;
+    }
+
+    static ExpressionMatrixFile map(Path path) throws IOException {
+        try (var fileChannel = FileChannel.open(path, READ)) {
+            // The mapping remains valid after the channel is closed
+            var buffer = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+            var magic = new byte[MAGIC.length];
+            buffer.get(magic);
+            var version = buffer.getInt();
+            if (!Arrays.equals(magic, MAGIC) || version != VERSION) {
+                throw new IOException("Unrecognised expression matrix file " + path);
+            }
+            var geneCount = buffer.getInt();
+            var cellCount = buffer.getInt();
+            var nonZeroCount = buffer.getInt();
+
+            var layout = Layout.create(geneCount, nonZeroCount, path);
+            var geneIdsLength = buffer.getInt(layout.geneIdsOffset);
+            var cellIdsOffset = Math.toIntExact((long) layout.geneIdsOffset + Integer.BYTES + geneIdsLength);
+
+            return new ExpressionMatrixFile(
+                    readStrings(buffer, layout.geneIdsOffset + Integer.BYTES, geneIdsLength, geneCount),
+                    readStrings(buffer, cellIdsOffset + Integer.BYTES, buffer.getInt(cellIdsOffset), cellCount),
+                    slice(buffer, layout.geneOffsetsOffset, (geneCount + 1) * Integer.BYTES).asIntBuffer(),
+                    slice(buffer, layout.cellIndicesOffset, nonZeroCount * Integer.BYTES).asIntBuffer(),
+                    slice(buffer, layout.valuesOffset, nonZeroCount * Float.BYTES).asFloatBuffer());
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException |
+                 ArithmeticException e) {
+            throw new IOException("Truncated expression matrix file " + path, e);
+        }
+    }
+
+    // Reads the MatrixMarket file twice: first to count the values of each gene, which gives the size of the file and
+    // where each gene starts, and then to place every value in the mapped file directly, so that matrices with
+    // hundreds of millions of values don’t need to fit in memory. The file is written to a temporary file and then
+    // moved, so that readers never see a partial file.
+    static void write(Path path, Path matrixMarketPath, Path geneIdsPath, Path cellIdsPath) throws IOException {
+        var geneIds = readFirstColumn(geneIdsPath);
+        var cellIds = readFirstColumn(cellIdsPath);
+
+        // Genes are stored sorted by ID; sortedIndices[row] is where the gene of a row goes
+        var rowsByGeneId = new Integer[geneIds.size()];
+        Arrays.setAll(rowsByGeneId, i -> i);
+        Arrays.sort(rowsByGeneId, (a, b) -> geneIds.get(a).compareTo(geneIds.get(b)));
+        var sortedIndices = new int[geneIds.size()];
+        for (var i = 0; i < rowsByGeneId.length; i++) {
+            sortedIndices[rowsByGeneId[i]] = i;
+        }
+
+        var nonZeroCounts = new int[geneIds.size()];
+        var nonZeroCount = forEachEntry(
+                matrixMarketPath,
+                geneIds.size(),
+                cellIds.size(),
+                (row, column, value) -> nonZeroCounts[sortedIndices[row]]++);
+        var geneOffsets = new int[geneIds.size() + 1];
+        for (var i = 0; i < nonZeroCounts.length; i++) {
+            geneOffsets[i + 1] = geneOffsets[i] + nonZeroCounts[i];
+        }
+
+        var geneIdBytes =
+                Arrays.stream(rowsByGeneId).map(geneIds::get).collect(joining("\n")).getBytes(UTF_8);
+        var cellIdBytes = String.join("\n", cellIds).getBytes(UTF_8);
+        var layout = Layout.create(geneIds.size(), nonZeroCount, matrixMarketPath);
+        var fileLength = (long) layout.geneIdsOffset + 2 * Integer.BYTES + geneIdBytes.length + cellIdBytes.length;
+        if (fileLength > Integer.MAX_VALUE) {
+            throw new IOException("Expression matrix " + matrixMarketPath + " is too large: " + fileLength + " bytes");
+        }
+
+        Files.createDirectories(path.getParent());
+        var temporaryPath = Files.createTempFile(path.getParent(), path.getFileName().toString(), ".tmp");
+        try {
+            try (var fileChannel = FileChannel.open(temporaryPath, READ, WRITE)) {
+                var buffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, fileLength);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+                buffer.put(MAGIC)
+                        .putInt(VERSION)
+                        .putInt(geneIds.size())
+                        .putInt(cellIds.size())
+                        .putInt(nonZeroCount);
+                for (var geneOffset : geneOffsets) {
+                    buffer.putInt(geneOffset);
+                }
+                buffer.position(layout.geneIdsOffset);
+                buffer.putInt(geneIdBytes.length).put(geneIdBytes);
+                buffer.putInt(cellIdBytes.length).put(cellIdBytes);
+
+                var nextPositions = Arrays.copyOf(geneOffsets, geneIds.size());
+                forEachEntry(
+                        matrixMarketPath,
+                        geneIds.size(),
+                        cellIds.size(),
+                        (row, column, value) -> {
+                            var position = nextPositions[sortedIndices[row]]++;
+                            buffer.putInt(layout.cellIndicesOffset + position * Integer.BYTES, column);
+                            buffer.putFloat(layout.valuesOffset + position * Float.BYTES, value);
+                        });
+                sortCellIndices(buffer, layout, geneOffsets);
+
+                buffer.force();
+            }
+            Files.move(temporaryPath, path, ATOMIC_MOVE, REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporaryPath);
+        }
+    }
+
+    int geneCount() {
+        return geneIds.length;
+    }
+
+    int cellCount() {
+        return cellIds.length;
+    }
+
+    // Cells where the gene isn’t expressed are left out; an unknown gene isn’t expressed anywhere
+    ImmutableMap<String, Double> expressionLevels(String geneId) {
+        var geneIndex = Arrays.binarySearch(geneIds, geneId);
+        if (geneIndex < 0) {
+            return ImmutableMap.of();
+        }
+
+        var from = geneOffsets.get(geneIndex);
+        var to = geneOffsets.get(geneIndex + 1);
+        var expressionLevels = ImmutableMap.<String, Double>builderWithExpectedSize(to - from);
+        for (var i = from; i < to; i++) {
+            expressionLevels.put(cellIds[cellIndices.get(i)], (double) values.get(i));
+        }
+        return expressionLevels.build();
+    }
+
+    // MatrixMarket doesn’t require any particular order of the entries; sorting by cell within each gene makes files
+    // of the same matrix identical and reads sequential. Cell index and value are packed in a long to sort them
+    // together.
+    private static void sortCellIndices(ByteBuffer buffer, Layout layout, int[] geneOffsets) {
+        for (var gene = 0; gene < geneOffsets.length - 1; gene++) {
+            var from = geneOffsets[gene];
+            var entries = new long[geneOffsets[gene + 1] - from];
+            for (var i = 0; i < entries.length; i++) {
+                var cellIndex = buffer.getInt(layout.cellIndicesOffset + (from + i) * Integer.BYTES);
+                var valueBits = buffer.getInt(layout.valuesOffset + (from + i) * Float.BYTES);
+                entries[i] = ((long) cellIndex << 32) | (valueBits & 0xFFFFFFFFL);
+            }
+            Arrays.sort(entries);
+            for (var i = 0; i < entries.length; i++) {
+                buffer.putInt(layout.cellIndicesOffset + (from + i) * Integer.BYTES, (int) (entries[i] >>> 32));
+                buffer.putInt(layout.valuesOffset + (from + i) * Float.BYTES, (int) entries[i]);
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface EntryConsumer {
+        // Zero-based row (gene) and column (cell)
+        void accept(int row, int column, float value);
+    }
+
+    // Parses a MatrixMarket coordinate file, e.g.
+    //   %%MatrixMarket matrix coordinate real general
+    //   % comments
+    //   3 2 4
+    //   1 1 3.5
+    //   ...
+    // and returns the number of entries
+    private static int forEachEntry(Path matrixMarketPath,
+                                    int expectedRows,
+                                    int expectedColumns,
+                                    EntryConsumer entryConsumer) throws IOException {
+        try (var reader = newBufferedReader(matrixMarketPath)) {
+            var line = reader.readLine();
+            while (line != null && (line.isBlank() || line.startsWith("%"))) {
+                line = reader.readLine();
+            }
+            if (line == null) {
+                throw new IOException("Missing size line in " + matrixMarketPath);
+            }
+
+            var size = new StringTokenizer(line);
+            var rows = Integer.parseInt(size.nextToken());
+            var columns = Integer.parseInt(size.nextToken());
+            var entries = Integer.parseInt(size.nextToken());
+            if (rows != expectedRows || columns != expectedColumns) {
+                throw new IOException(
+                        String.format(
+                                "%s is a %d x %d matrix but there are %d gene IDs and %d cell IDs",
+                                matrixMarketPath, rows, columns, expectedRows, expectedColumns));
+            }
+
+            var entryCount = 0;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                var entry = new StringTokenizer(line);
+                entryConsumer.accept(
+                        Integer.parseInt(entry.nextToken()) - 1,
+                        Integer.parseInt(entry.nextToken()) - 1,
+                        Float.parseFloat(entry.nextToken()));
+                entryCount++;
+            }
+
+            if (entryCount != entries) {
+                throw new IOException(
+                        matrixMarketPath + " should have " + entries + " entries but has " + entryCount);
+            }
+            return entryCount;
+        } catch (NumberFormatException | IndexOutOfBoundsException | NoSuchElementException e) {
+            throw new IOException("Malformed MatrixMarket file " + matrixMarketPath, e);
+        }
+    }
+
+    // Gene and cell ID files have the ID in the first column, e.g. ENSG00000000003\tTSPAN6
+    private static List<String> readFirstColumn(Path path) throws IOException {
+        try (var reader = newBufferedReader(path)) {
+            var ids = new ArrayList<String>();
+            for (var line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (!line.isBlank()) {
+                    var tabIndex = line.indexOf('\t');
+                    ids.add(tabIndex < 0 ? line.trim() : line.substring(0, tabIndex));
+                }
+            }
+            return ids;
+        }
+    }
+
+    private static BufferedReader newBufferedReader(Path path) throws IOException {
+        var inputStream = Files.newInputStream(path);
+        return new BufferedReader(
+                new InputStreamReader(
+                        path.getFileName().toString().endsWith(".gz") ? new GZIPInputStream(inputStream) : inputStream,
+                        UTF_8));
+    }
+
+    private static String[] readStrings(ByteBuffer buffer, int offset, int length, int count) {
+        if (count == 0) {
+            return new String[0];
+        }
+        var bytes = new byte[length];
+        slice(buffer, offset, length).get(bytes);
+        return new String(bytes, UTF_8).split("\n", -1);
+    }
+
+    // ByteBuffer::slice always returns a big-endian buffer
+    private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+        var duplicate = buffer.duplicate();
+        duplicate.position(offset).limit(offset + length);
+        return duplicate.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    // Offsets of the sections of a file, which only depend on the number of genes and non-zero values. Offsets are
+    // computed in long and checked before the layout is built: a matrix that doesn’t fit in a single buffer, or the
+    // counts of a corrupted header, would otherwise overflow into negative or wrapped-around offsets. Once the layout
+    // exists, every offset within the numeric sections (e.g. cellIndicesOffset + i × 4 for i < n) fits in an int.
+    private static final class Layout {
+        private final int geneOffsetsOffset;
+        private final int cellIndicesOffset;
+        private final int valuesOffset;
+        private final int geneIdsOffset;
+
+        private Layout(int geneOffsetsOffset, int cellIndicesOffset, int valuesOffset, int geneIdsOffset) {
+            this.geneOffsetsOffset = geneOffsetsOffset;
+            this.cellIndicesOffset = cellIndicesOffset;
+            this.valuesOffset = valuesOffset;
+            this.geneIdsOffset = geneIdsOffset;
+        }
+
+        private static Layout create(int geneCount, int nonZeroCount, Path path) throws IOException {
+            if (geneCount < 0 || nonZeroCount < 0) {
+                throw new IOException(
+                        "Invalid expression matrix size in " + path + ": " + geneCount + " genes and " +
+                        nonZeroCount + " non-zero values");
+            }
+
+            long geneOffsetsOffset = HEADER_LENGTH;
+            var cellIndicesOffset = geneOffsetsOffset + (geneCount + 1L) * Integer.BYTES;
+            var valuesOffset = cellIndicesOffset + (long) nonZeroCount * Integer.BYTES;
+            var geneIdsOffset = valuesOffset + (long) nonZeroCount * Float.BYTES;
+            // The gene and cell IDs lengths follow, even if there are no IDs
+            if (geneIdsOffset + 2 * Integer.BYTES > Integer.MAX_VALUE) {
+                throw new IOException(
+                        "Expression matrix " + path + " is too large: " + geneCount + " genes and " +
+                        nonZeroCount + " non-zero values need " + geneIdsOffset + " bytes");
+            }
+
+            return new Layout(
+                    (int) geneOffsetsOffset, (int) cellIndicesOffset, (int) valuesOffset, (int) geneIdsOffset);
+        }
+    }
+}
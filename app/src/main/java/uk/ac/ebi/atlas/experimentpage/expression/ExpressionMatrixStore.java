@@ -0,0 +1,108 @@
+package uk.ac.ebi.atlas.experimentpage.expression;
+
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.resource.DataFileHub;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Per-experiment sparse expression matrices, written from the normalised counts MatrixMarket files when the
+// experiment is loaded and read via memory-mapped buffers, so that expression plots don’t need to scan
+// scxa_analytics in Postgres. Like CellPlotCoordinatesStore, the files are a cache: if a file can’t be read we return
+// an empty Optional and callers fall back to the database.
+@Component
+public class ExpressionMatrixStore {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpressionMatrixStore.class);
+    private static final String FILE_NAME_TEMPLATE = "%s.expression.bin";
+
+    private final Path expressionMatrixDirPath;
+    private final DataFileHub dataFileHub;
+
+    private final Map<Path, MappedMatrix> mappedFiles = new ConcurrentHashMap<>();
+
+    public ExpressionMatrixStore(Path expressionMatrixDirPath, DataFileHub dataFileHub) {
+        this.expressionMatrixDirPath = expressionMatrixDirPath;
+        this.dataFileHub = dataFileHub;
+    }
+
+    // Expression levels of the cells where the gene is expressed
+    public Optional<ImmutableMap<String, Double>> fetchExpressionLevels(String experimentAccession, String geneId) {
+        var path = getPath(experimentAccession);
+        if (!Files.isReadable(path)) {
+            return Optional.empty();
+        }
+
+        try {
+            var lastModifiedTime = Files.getLastModifiedTime(path);
+            var mappedMatrix = mappedFiles.get(path);
+            if (mappedMatrix == null || !mappedMatrix.lastModifiedTime.equals(lastModifiedTime)) {
+                mappedMatrix = new MappedMatrix(lastModifiedTime, ExpressionMatrixFile.map(path));
+                mappedFiles.put(path, mappedMatrix);
+            }
+            return Optional.of(mappedMatrix.matrixFile.expressionLevels(geneId));
+        } catch (IOException e) {
+            LOGGER.warn("Unable to read expression matrix from {}: {}", path, e.getMessage());
+            mappedFiles.remove(path);
+            return Optional.empty();
+        }
+    }
+
+    // Called at experiment load time; a failure to write the file isn’t fatal, expression levels will be read from
+    // the database
+    public void writeExpressionMatrix(String experimentAccession) {
+        var path = getPath(experimentAccession);
+        mappedFiles.remove(path);
+
+        var experimentFiles = dataFileHub.getSingleCellExperimentFiles(experimentAccession);
+        var matrixMarketPath = experimentFiles.normalisedCountsMatrix.getPath();
+        var geneIdsPath = experimentFiles.normalisedCountsGeneIdsTsv.getPath();
+        var cellIdsPath = experimentFiles.normalisedCountsCellIdsTsv.getPath();
+        if (!Files.isReadable(matrixMarketPath) || !Files.isReadable(geneIdsPath) || !Files.isReadable(cellIdsPath)) {
+            LOGGER.info("No normalised counts for {}, expression levels will be read from the database",
+                    experimentAccession);
+            return;
+        }
+
+        try {
+            ExpressionMatrixFile.write(path, matrixMarketPath, geneIdsPath, cellIdsPath);
+            LOGGER.info("Expression matrix written to {}", path);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to write expression matrix to {}: {}", path, e.getMessage());
+        }
+    }
+
+    public void deleteExpressionMatrix(String experimentAccession) {
+        var path = getPath(experimentAccession);
+        mappedFiles.remove(path);
+
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to delete expression matrix of {}: {}", experimentAccession, e.getMessage());
+        }
+    }
+
+    private Path getPath(String experimentAccession) {
+        return expressionMatrixDirPath
+                .resolve(experimentAccession)
+                .resolve(String.format(FILE_NAME_TEMPLATE, experimentAccession));
+    }
+
+    private static final class MappedMatrix {
+        private final FileTime lastModifiedTime;
+        private final ExpressionMatrixFile matrixFile;
+
+        private MappedMatrix(FileTime lastModifiedTime, ExpressionMatrixFile matrixFile) {
+            this.lastModifiedTime = lastModifiedTime;
+            this.matrixFile = matrixFile;
+        }
+    }
+}
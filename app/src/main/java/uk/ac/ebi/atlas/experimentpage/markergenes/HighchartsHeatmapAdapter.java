@@ -2,43 +2,36 @@ package uk.ac.ebi.atlas.experimentpage.markergenes;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang3.tuple.Pair;
 import org.springframework.stereotype.Component;
-import uk.ac.ebi.atlas.bioentity.properties.BioEntityPropertyDao;
+import uk.ac.ebi.atlas.bioentity.properties.GeneSymbolService;
 
 import java.util.Collection;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.function.Function;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
-import static java.util.Comparator.comparing;
-import static java.util.stream.Collectors.groupingBy;
 
 @Component
 public class HighchartsHeatmapAdapter {
     private static final Function<MarkerGene, Pair<String, String>> MARKER_GENE_ID_TO_CELL_GROUP_VALUE_WHERE_MARKER =
             markerGene -> Pair.of(markerGene.geneId(), markerGene.cellGroupValueWhereMarker());
 
-    private static final Comparator<MarkerGene> CELL_GROUP_VALUE_WHERE_MARKER_LEXICOGRAPHICAL =
-            comparing(MarkerGene::cellGroupValueWhereMarker).thenComparing(MarkerGene::pValue);
+    private final GeneSymbolService geneSymbolService;
 
-    private static final Comparator<MarkerGene> MARKER_NATURALLY_ORDERED_BY_CELL_GROUP_VALUE =
-            new MarkerGeneComparatorByCellGroupValueByMarker();
-
-    private static final Comparator<MarkerGene> MARKER_GENE_COMPARATOR =
-            MARKER_NATURALLY_ORDERED_BY_CELL_GROUP_VALUE.thenComparing(MarkerGene::pValue);
-
-    private final BioEntityPropertyDao bioEntityPropertyDao;
-
-    public HighchartsHeatmapAdapter(BioEntityPropertyDao bioEntityPropertyDao) {
-        this.bioEntityPropertyDao = bioEntityPropertyDao;
+    public HighchartsHeatmapAdapter(GeneSymbolService geneSymbolService) {
+        this.geneSymbolService = geneSymbolService;
     }
 
     public ImmutableList<ImmutableMap<String, Object>> getMarkerGeneHeatmapDataSortedNaturally
             (Collection<MarkerGene> markerGenes) {
 
-        return getMarkerGeneHeatmapData(markerGenes, MARKER_GENE_COMPARATOR);
+        return getMarkerGeneHeatmapData(getSortedMarkerGenes(markerGenes, MarkerGeneHeatmap.MARKER_GENE_COMPARATOR));
     }
 
     /**
@@ -52,50 +45,41 @@ public class HighchartsHeatmapAdapter {
     public ImmutableList<ImmutableMap<String, Object>> getMarkerGeneHeatmapDataSortedLexicographically(
             Collection<MarkerGene> markerGenes) {
 
-        return getMarkerGeneHeatmapData(markerGenes, CELL_GROUP_VALUE_WHERE_MARKER_LEXICOGRAPHICAL);
+        return getMarkerGeneHeatmapData(
+                getSortedMarkerGenes(markerGenes, MarkerGeneHeatmap.CELL_GROUP_VALUE_WHERE_MARKER_LEXICOGRAPHICAL));
     }
 
     private ImmutableList<MarkerGene> getSortedMarkerGenes(Collection<MarkerGene> markerGenes, Comparator<MarkerGene> markerGeneComparator) {
-        return mergeSameGeneIdIntoSingleGroup(markerGenes).stream()
+        return MarkerGeneHeatmap.mergeSameGeneIdIntoSingleGroup(markerGenes).stream()
                 .parallel()
                 .sorted(markerGeneComparator)
                 .collect(toImmutableList());
     }
 
-    private static ImmutableList<Pair<String, String>> getRowsFromSortedMarkerGenes(ImmutableList<MarkerGene> sortedMarkerGenes) {
-        return sortedMarkerGenes.stream()
-                .map(MARKER_GENE_ID_TO_CELL_GROUP_VALUE_WHERE_MARKER)
-                .distinct()
-                .collect(toImmutableList());
-    }
+    // Same as above for marker genes that have already been merged and sorted, e.g. the rows of a MarkerGeneHeatmap
+    public ImmutableList<ImmutableMap<String, Object>> getMarkerGeneHeatmapData(
+            ImmutableList<MarkerGene> sortedMarkerGenes) {
+        // Rows and columns are looked up by hash rather than with indexOf, which is quadratic in the number of markers
+        var rows = new HashMap<Pair<String, String>, Integer>();
+        var cellGroupValues = new TreeSet<String>();
+        var geneIds = ImmutableSet.<String>builder();
+        for (var markerGene : sortedMarkerGenes) {
+            rows.putIfAbsent(MARKER_GENE_ID_TO_CELL_GROUP_VALUE_WHERE_MARKER.apply(markerGene), rows.size());
+            cellGroupValues.add(markerGene.cellGroupValue());
+            geneIds.add(markerGene.geneId());
+        }
 
-    private static ImmutableList<String> getColumnsFromSortedMarkerGenes(ImmutableList<MarkerGene> sortedMarkerGenes) {
-        return sortedMarkerGenes.stream()
-                .map(MarkerGene::cellGroupValue)
-                .distinct()
-                .sorted()
-                .collect(toImmutableList());
-    }
-
-    private ImmutableList<ImmutableMap<String, Object>> getMarkerGeneHeatmapData(Collection<MarkerGene> markerGenes,
-                                                                                 Comparator<MarkerGene> markerGeneComparator) {
-        var sortedMarkerGenes = getSortedMarkerGenes(markerGenes, markerGeneComparator);
+        var columns = new HashMap<String, Integer>();
+        cellGroupValues.forEach(cellGroupValue -> columns.put(cellGroupValue, columns.size()));
 
-        var rows = getRowsFromSortedMarkerGenes(sortedMarkerGenes);
-
-        var columns = getColumnsFromSortedMarkerGenes(sortedMarkerGenes);
-
-        var symbolsForGeneIds =
-                bioEntityPropertyDao.getSymbolsForGeneIds(
-                        sortedMarkerGenes.stream().map(MarkerGene::geneId).collect(toImmutableSet()));
+        var symbolsForGeneIds = geneSymbolService.getSymbols(geneIds.build());
 
         return sortedMarkerGenes.stream()
                 .map(markerGene ->
                         ImmutableMap.<String, Object>builder()
-                                // To get x co ordinates- extract all distinct cell types as a List(columns in our case)
-                                // and get index of each cell type
-                                .put("x", columns.indexOf(markerGene.cellGroupValue()))
-                                .put("y", rows.indexOf(MARKER_GENE_ID_TO_CELL_GROUP_VALUE_WHERE_MARKER.apply(markerGene)))
+                                // Columns are the distinct cell group values in lexicographical order
+                                .put("x", columns.get(markerGene.cellGroupValue()))
+                                .put("y", rows.get(MARKER_GENE_ID_TO_CELL_GROUP_VALUE_WHERE_MARKER.apply(markerGene)))
                                 .put("geneName", symbolsForGeneIds.getOrDefault(markerGene.geneId(), markerGene.geneId()))
                                 .put("value", markerGene.medianExpression())
                                 .put("cellGroupValue", markerGene.cellGroupValue())
@@ -106,31 +90,42 @@ public class HighchartsHeatmapAdapter {
                 .collect(toImmutableList());
     }
 
-    // When the same marker gene occurs in different groups, we want to see it only once in the heatmap
-    private ImmutableList<MarkerGene> mergeSameGeneIdIntoSingleGroup(Collection<MarkerGene> cellTypeMarkerGenes) {
-        return cellTypeMarkerGenes.stream()
-                .collect(groupingBy(MarkerGene::geneId))
-                .values().stream()
-                .flatMap(sameGeneIdMarkerGenesAcrossAllGroups -> {
-                    // From all the occurrences of the same gene ID across groups, we choose the group in which it has
-                    // the lowest p-value
-                    var referenceMarkerGene =
-                            sameGeneIdMarkerGenesAcrossAllGroups.stream()
-                                    .min(Comparator.comparingDouble(MarkerGene::pValue))
-                                    // This should never happen, every gene ID must have at least one entry
-                                    .orElseThrow(IllegalArgumentException::new);
-                    return sameGeneIdMarkerGenesAcrossAllGroups.stream()
-                            .map(sameGeneIdMarkerGene ->
-                                    MarkerGene.create(
-                                            sameGeneIdMarkerGene.geneId(),
-                                            sameGeneIdMarkerGene.cellGroupType(),
-                                            referenceMarkerGene.cellGroupValueWhereMarker(),
-                                            referenceMarkerGene.pValue(),
-                                            sameGeneIdMarkerGene.cellGroupValue(),
-                                            sameGeneIdMarkerGene.medianExpression(),
-                                            sameGeneIdMarkerGene.meanExpression(),
-                                            sameGeneIdMarkerGene.expressionUnit()));
-                })
-                .collect(toImmutableList());
+    // A page of the heatmap above: only the groups in the page, and only the topN genes with the lowest p-value of each
+    // group (a non-positive topN or groupsPerPage means all of them). Marker genes are only looked at once, and gene
+    // symbols are only fetched for the rows that are shown, so the first groups of a large heatmap can be rendered
+    // without building the rest.
+    public ImmutableList<ImmutableMap<String, Object>> getMarkerGeneHeatmapData(
+            ImmutableList<MarkerGene> sortedMarkerGenes, int topN, int page, int groupsPerPage) {
+        if (topN <= 0 && groupsPerPage <= 0) {
+            return getMarkerGeneHeatmapData(sortedMarkerGenes);
+        }
+
+        var firstGroup = groupsPerPage <= 0 ? 0L : (long) page * groupsPerPage;
+        var lastGroup = groupsPerPage <= 0 ? Long.MAX_VALUE : firstGroup + groupsPerPage;
+        // Rows are sorted by group and then by p-value, so the first genes of each group are its top markers
+        var markerGenesInPage = ImmutableList.<MarkerGene>builder();
+        String group = null;
+        var groupIndex = -1L;
+        Set<String> genesOfGroup = new HashSet<>();
+        for (var markerGene : sortedMarkerGenes) {
+            if (!markerGene.cellGroupValueWhereMarker().equals(group)) {
+                group = markerGene.cellGroupValueWhereMarker();
+                groupIndex++;
+                genesOfGroup = new HashSet<>();
+                if (groupIndex >= lastGroup) {
+                    break;
+                }
+            }
+            if (groupIndex < firstGroup) {
+                continue;
+            }
+
+            if (topN <= 0 || genesOfGroup.contains(markerGene.geneId()) || genesOfGroup.size() < topN) {
+                genesOfGroup.add(markerGene.geneId());
+                markerGenesInPage.add(markerGene);
+            }
+        }
+
+        return getMarkerGeneHeatmapData(markerGenesInPage.build());
     }
 }
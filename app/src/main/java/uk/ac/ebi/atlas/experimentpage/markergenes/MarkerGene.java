@@ -1,6 +1,7 @@
 package uk.ac.ebi.atlas.experimentpage.markergenes;
 
 import com.google.auto.value.AutoValue;
+import uk.ac.ebi.atlas.monitoring.Weighed;
 
 @AutoValue
 public abstract class MarkerGene {
@@ -39,5 +40,15 @@ public abstract class MarkerGene {
                 meanExpression,
                 expressionUnit);
     }
+
+    // Used by the indices that hold marker genes to estimate their size; see Weighed
+    public long estimatedBytes() {
+        return Weighed.OBJECT_HEADER_BYTES + 3 * Double.BYTES + 5 * Weighed.REFERENCE_BYTES +
+                Weighed.estimatedBytes(geneId()) +
+                Weighed.estimatedBytes(cellGroupType()) +
+                Weighed.estimatedBytes(cellGroupValueWhereMarker()) +
+                Weighed.estimatedBytes(cellGroupValue()) +
+                Weighed.estimatedBytes(expressionUnit());
+    }
 }
 
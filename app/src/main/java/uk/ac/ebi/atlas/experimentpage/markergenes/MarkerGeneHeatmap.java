@@ -0,0 +1,108 @@
+package uk.ac.ebi.atlas.experimentpage.markergenes;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import uk.ac.ebi.atlas.monitoring.Weighed;
+
+import java.util.Collection;
+import java.util.Comparator;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Comparator.comparing;
+import static java.util.stream.Collectors.groupingBy;
+
+// The marker genes of a cell group type of an experiment (e.g. a value of k, or inferred cell type), ready to be shown
+// in a heatmap: genes that are markers in more than one group are merged into the group with the lowest p-value, and
+// the rows are sorted both naturally by cluster ID and lexicographically by cell type, so that requests only need to
+// pick an ordering and, optionally, a subset of columns.
+public final class MarkerGeneHeatmap implements Weighed {
+    static final Comparator<MarkerGene> CELL_GROUP_VALUE_WHERE_MARKER_LEXICOGRAPHICAL =
+            comparing(MarkerGene::cellGroupValueWhereMarker).thenComparing(MarkerGene::pValue);
+
+    static final Comparator<MarkerGene> MARKER_GENE_COMPARATOR =
+            new MarkerGeneComparatorByCellGroupValueByMarker().thenComparing(MarkerGene::pValue);
+
+    private static final String NOT_AVAILABLE = "Not available";
+
+    private final ImmutableList<MarkerGene> sortedNaturally;
+    private final ImmutableList<MarkerGene> sortedLexicographically;
+
+    private MarkerGeneHeatmap(ImmutableList<MarkerGene> sortedNaturally,
+                              ImmutableList<MarkerGene> sortedLexicographically) {
+        this.sortedNaturally = sortedNaturally;
+        this.sortedLexicographically = sortedLexicographically;
+    }
+
+    // Marker genes in groups or columns without a value (i.e. “Not available”) are left out before merging
+    public static MarkerGeneHeatmap create(Collection<MarkerGene> markerGenes) {
+        var mergedMarkerGenes =
+                mergeSameGeneIdIntoSingleGroup(
+                        markerGenes.stream()
+                                .filter(markerGene -> !markerGene.cellGroupValue().equalsIgnoreCase(NOT_AVAILABLE))
+                                .filter(markerGene ->
+                                        !markerGene.cellGroupValueWhereMarker().equalsIgnoreCase(NOT_AVAILABLE))
+                                .collect(toImmutableList()));
+
+        return new MarkerGeneHeatmap(
+                mergedMarkerGenes.stream().sorted(MARKER_GENE_COMPARATOR).collect(toImmutableList()),
+                mergedMarkerGenes.stream()
+                        .sorted(CELL_GROUP_VALUE_WHERE_MARKER_LEXICOGRAPHICAL)
+                        .collect(toImmutableList()));
+    }
+
+    // Rows ordered by cluster ID, e.g. 1, 2, 10, as in the marker genes heatmap of each k
+    public ImmutableList<MarkerGene> sortedNaturally() {
+        return sortedNaturally;
+    }
+
+    // Rows ordered by cell type, as in the cell type marker genes heatmap
+    public ImmutableList<MarkerGene> sortedLexicographically() {
+        return sortedLexicographically;
+    }
+
+    // Same as above, restricted to the columns of the given cell group values
+    public ImmutableList<MarkerGene> sortedLexicographically(Collection<String> cellGroupValues) {
+        var columns = ImmutableSet.copyOf(cellGroupValues);
+        return sortedLexicographically.stream()
+                .filter(markerGene -> columns.contains(markerGene.cellGroupValue()))
+                .collect(toImmutableList());
+    }
+
+    // Both lists share the same marker genes
+    @Override
+    public long estimatedBytes() {
+        var bytes = OBJECT_HEADER_BYTES + 2 * (OBJECT_HEADER_BYTES + ARRAY_HEADER_BYTES);
+        for (var markerGene : sortedNaturally) {
+            bytes += 2 * REFERENCE_BYTES + markerGene.estimatedBytes();
+        }
+        return bytes;
+    }
+
+    // When the same marker gene occurs in different groups, we want to see it only once in the heatmap
+    static ImmutableList<MarkerGene> mergeSameGeneIdIntoSingleGroup(Collection<MarkerGene> cellTypeMarkerGenes) {
+        return cellTypeMarkerGenes.stream()
+                .collect(groupingBy(MarkerGene::geneId))
+                .values().stream()
+                .flatMap(sameGeneIdMarkerGenesAcrossAllGroups -> {
+                    // From all the occurrences of the same gene ID across groups, we choose the group in which it has
+                    // the lowest p-value
+                    var referenceMarkerGene =
+                            sameGeneIdMarkerGenesAcrossAllGroups.stream()
+                                    .min(Comparator.comparingDouble(MarkerGene::pValue))
+                                    // This should never happen, every gene ID must have at least one entry
+                                    .orElseThrow(IllegalArgumentException::new);
+                    return sameGeneIdMarkerGenesAcrossAllGroups.stream()
+                            .map(sameGeneIdMarkerGene ->
+                                    MarkerGene.create(
+                                            sameGeneIdMarkerGene.geneId(),
+                                            sameGeneIdMarkerGene.cellGroupType(),
+                                            referenceMarkerGene.cellGroupValueWhereMarker(),
+                                            referenceMarkerGene.pValue(),
+                                            sameGeneIdMarkerGene.cellGroupValue(),
+                                            sameGeneIdMarkerGene.medianExpression(),
+                                            sameGeneIdMarkerGene.meanExpression(),
+                                            sameGeneIdMarkerGene.expressionUnit()));
+                })
+                .collect(toImmutableList());
+    }
+}
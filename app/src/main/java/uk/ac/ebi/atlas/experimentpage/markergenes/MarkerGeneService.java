@@ -7,6 +7,8 @@ import org.springframework.stereotype.Service;
 import uk.ac.ebi.atlas.search.celltype.CellTypeSearchDao;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
+import static uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGenesDao.CELL_TYPE_AUTHOR_LABELS;
+import static uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGenesDao.CELL_TYPE_ONTOLOGY_LABELS;
 
 @Service
 public class MarkerGeneService {
@@ -29,19 +31,19 @@ public class MarkerGeneService {
                                                                   ImmutableSet<String> organismPart) {
         var ontologyLabelsCellTypeValues =
                 cellTypeSearchDao.getInferredCellTypeOntologyLabels(experimentAccession, organismPart);
+        if (!ontologyLabelsCellTypeValues.isEmpty()) {
+            return markerGenesDao
+                    .fetchMarkerGeneHeatmap(experimentAccession, CELL_TYPE_ONTOLOGY_LABELS)
+                    .sortedLexicographically(ontologyLabelsCellTypeValues);
+        }
 
-        var cellTypeMarkerGenes = ontologyLabelsCellTypeValues.isEmpty() ?
-                markerGenesDao.getCellTypeMarkerGenesAuthorsLabels(
-                        experimentAccession,
-                        cellTypeSearchDao.getInferredCellTypeAuthorsLabels(experimentAccession, organismPart)) :
-                markerGenesDao.getCellTypeMarkerGenesOntologyLabels(
-                        experimentAccession,
-                        ontologyLabelsCellTypeValues);
-
-        return cellTypeMarkerGenes.stream()
-                .filter(markerGene -> !markerGene.cellGroupValue().equalsIgnoreCase("Not available"))
-                .filter(markerGene -> !markerGene.cellGroupValueWhereMarker().equalsIgnoreCase("Not available"))
-                .collect(toImmutableList());
+        var authorsLabelsCellTypeValues =
+                cellTypeSearchDao.getInferredCellTypeAuthorsLabels(experimentAccession, organismPart);
+        var markerGeneHeatmap = markerGenesDao.fetchMarkerGeneHeatmap(experimentAccession, CELL_TYPE_AUTHOR_LABELS);
+        // No cell types in the organism part means all cell types, as in MarkerGenesDao::getCellTypeMarkerGenes
+        return authorsLabelsCellTypeValues.isEmpty() ?
+                markerGeneHeatmap.sortedLexicographically() :
+                markerGeneHeatmap.sortedLexicographically(authorsLabelsCellTypeValues);
     }
 
     public ImmutableList<String> getCellTypesWithMarkerGenes(String experimentAccession, String cellGroupType) {
@@ -53,24 +55,15 @@ public class MarkerGeneService {
 
     public ImmutableList<MarkerGene> getCellTypeMarkerGeneHeatmapData(String experimentAccession,
                                                                       String cellGroupType) {
-        var cellTypeMarkerGenes =
-                markerGenesDao
-                        .getCellTypeMarkerGenes(
-                                experimentAccession,
-                                cellGroupType);
-
-        return cellTypeMarkerGenes.stream()
-                .filter(markerGene -> !markerGene.cellGroupValue().equalsIgnoreCase("Not available"))
-                .filter(markerGene -> !markerGene.cellGroupValueWhereMarker().equalsIgnoreCase("Not available"))
-                .collect(toImmutableList());
+        return markerGenesDao.fetchMarkerGeneHeatmap(experimentAccession, cellGroupType).sortedLexicographically();
     }
+
     /**
      * @param experimentAccession - Id of the experiment
      * @param k                   - no of clusters
-     * @return Map<String, ImmutableSet < MarkerGene>> of cluster MarkerGenes
-     * Objects as a value
+     * @return ImmutableList of cluster MarkerGene objects, merged and sorted by cluster
      */
     public ImmutableList<MarkerGene> getMarkerGenesPerCluster(String experimentAccession, String k) {
-        return ImmutableList.copyOf(markerGenesDao.getMarkerGenesWithAveragesPerCluster(experimentAccession, k));
+        return markerGenesDao.fetchMarkerGeneHeatmap(experimentAccession, k).sortedNaturally();
     }
 }
@@ -2,6 +2,7 @@ package uk.ac.ebi.atlas.experimentpage.markergenes;
 
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableMap;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 
@@ -196,4 +197,12 @@ public class MarkerGenesDao {
                         resultSet.getDouble("mean_expression"),
                         resultSet.getString("expression_unit")));
     }
+
+    // The marker genes of every group of a cell group type (e.g. k or an inferred cell type variable), merged and
+    // sorted. Built lazily, by the first request for a cell group type of an experiment, and cached until the
+    // experiment is reloaded and ExperimentCacheEvictor evicts it.
+    @Cacheable(cacheNames = "markerGeneHeatmaps", key = "{#experimentAccession, #cellGroupType}")
+    public MarkerGeneHeatmap fetchMarkerGeneHeatmap(String experimentAccession, String cellGroupType) {
+        return MarkerGeneHeatmap.create(getCellTypeMarkerGenes(experimentAccession, cellGroupType));
+    }
 }
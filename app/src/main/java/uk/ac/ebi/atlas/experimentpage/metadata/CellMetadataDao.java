@@ -4,8 +4,9 @@ import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Component;
-import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
+import uk.ac.ebi.atlas.experimentimport.CachedExperimentFilesParser;
 import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
 import uk.ac.ebi.atlas.solr.cloud.TupleStreamer;
 import uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy;
@@ -18,6 +19,8 @@ import uk.ac.ebi.atlas.utils.StringUtil;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
@@ -29,7 +32,9 @@ import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollecti
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CHARACTERISTIC_NAME;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CHARACTERISTIC_VALUE;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.EXPERIMENT_ACCESSION;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_CHARACTERISTIC_NAME;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_CHARACTERISTIC_VALUE;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_FACTOR_NAME;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_FACTOR_VALUE;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACTOR_NAME;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACTOR_VALUE;
@@ -40,17 +45,17 @@ public class CellMetadataDao {
     private static final Logger LOGGER = LoggerFactory.getLogger(CellMetadataDao.class);
 
     private final SingleCellAnalyticsCollectionProxy singleCellAnalyticsCollectionProxy;
-    private final IdfParser idfParser;
+    private final CachedExperimentFilesParser cachedExperimentFilesParser;
 
     private final static String INFERRED_CELL_TYPE_SOLR_VALUE = "inferred_cell_type_-_ontology_labels";
     private final static String SINGLE_CELL_IDENTIFIER_SOLR_VALUE = "single_cell_identifier";
     private final static String METADATA_VALUE_TARGET_FIELD_NAME = "metadata_value";
 
     public CellMetadataDao(SolrCloudCollectionProxyFactory solrCloudCollectionProxyFactory,
-                           IdfParser idfParser) {
+                           CachedExperimentFilesParser cachedExperimentFilesParser) {
         this.singleCellAnalyticsCollectionProxy =
                 solrCloudCollectionProxyFactory.create(SingleCellAnalyticsCollectionProxy.class);
-        this.idfParser = idfParser;
+        this.cachedExperimentFilesParser = cachedExperimentFilesParser;
     }
 
     // Returns a list of available factor types for a given experiment
@@ -77,7 +82,7 @@ public class CellMetadataDao {
             characteristics.add(INFERRED_CELL_TYPE_SOLR_VALUE);
         }
 
-        var idfParserOutput = idfParser.parse(experimentAccession);
+        var idfParserOutput = cachedExperimentFilesParser.parseIdf(experimentAccession);
         if (idfParserOutput.getMetadataFieldsOfInterest().isEmpty()) {
             return characteristics.build();
         }
@@ -185,6 +190,60 @@ public class CellMetadataDao {
         }
     }
 
+    // All the metadata of interest of the cells of an experiment, from a single streaming query sorted by cell ID.
+    // As in getMetadataValues, the first value of a type is kept if a cell has more than one, and missing values are
+    // “Not available”. Evicted by ExperimentCacheEvictor when the experiment is loaded or updated.
+    @Cacheable("cellMetadataTable")
+    public CellMetadataTable getMetadataTable(String experimentAccession) {
+        var metadataTypes =
+                ImmutableSet.<String>builder()
+                        .addAll(getFactorTypes(experimentAccession))
+                        .addAll(getCharacteristicTypes(experimentAccession))
+                        .build();
+        if (metadataTypes.isEmpty()) {
+            return CellMetadataTable.create(metadataTypes, ImmutableMap.of());
+        }
+
+        var solrQueryBuilder =
+                new SolrQueryBuilder<SingleCellAnalyticsCollectionProxy>()
+                        .addQueryFieldByTerm(EXPERIMENT_ACCESSION, experimentAccession)
+                        .addQueryFieldByTerm(ImmutableMap.of(
+                                FACTOR_NAME, metadataTypes,
+                                CHARACTERISTIC_NAME, metadataTypes))
+                        .sortBy(CELL_ID, asc)
+                        .setFieldList(ImmutableSet.of(
+                                CELL_ID,
+                                FACET_FACTOR_NAME, FACET_FACTOR_VALUE,
+                                FACET_CHARACTERISTIC_NAME, FACET_CHARACTERISTIC_VALUE));
+
+        var metadataValues = new HashMap<String, Map<String, String>>();
+        try (var tupleStreamer =
+                     TupleStreamer.of(
+                             new SearchStreamBuilder<>(singleCellAnalyticsCollectionProxy, solrQueryBuilder)
+                                     .returnAllDocs()
+                                     .build())) {
+            tupleStreamer.get().forEach(tuple -> {
+                var isFactor = tuple.getString(FACET_FACTOR_NAME.name()) != null;
+                var metadataType =
+                        tuple.getString(isFactor ? FACET_FACTOR_NAME.name() : FACET_CHARACTERISTIC_NAME.name());
+                if (!metadataTypes.contains(metadataType)) {
+                    return;
+                }
+
+                var cellId = tuple.getString(CELL_ID.name());
+                var value = tuple.getString(isFactor ? FACET_FACTOR_VALUE.name() : FACET_CHARACTERISTIC_VALUE.name());
+                if (isBlank(value)) {
+                    // See getMetadataValues
+                    LOGGER.error("Missing metadata value for {} – {}", cellId, metadataType);
+                    value = "Not available";
+                }
+                metadataValues.computeIfAbsent(metadataType, __ -> new HashMap<>()).putIfAbsent(cellId, value);
+            });
+        }
+
+        return CellMetadataTable.create(metadataTypes, metadataValues);
+    }
+
     private SolrQueryBuilder<SingleCellAnalyticsCollectionProxy> buildFactorTypeQuery(String experimentAccession) {
         var facetBuilder =
                 new SolrJsonFacetBuilder<SingleCellAnalyticsCollectionProxy>()
@@ -8,6 +8,8 @@ import uk.ac.ebi.atlas.model.experiment.Experiment;
 import uk.ac.ebi.atlas.trader.ExperimentTrader;
 import uk.ac.ebi.atlas.utils.StringUtil;
 
+import java.util.Collection;
+
 @Component
 public class CellMetadataJsonSerializer {
     private final ExperimentTrader experimentTrader;
@@ -18,7 +20,10 @@ public class CellMetadataJsonSerializer {
         this.cellMetadataService = cellMetadataService;
     }
 
-    @Cacheable(cacheNames = "jsonCellMetadata", key="{#experimentAccession, #cellId}")
+    @Cacheable(
+            cacheNames = "jsonCellMetadata",
+            key = "{#experimentAccession, #cellId, " +
+                  "@experimentVisibilityService.snapshot.cacheScope(#experimentAccession, #accessKey)}")
     public String getCellMetadata(String experimentAccession, String cellId, String accessKey) {
         Experiment experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
 
@@ -31,6 +36,24 @@ public class CellMetadataJsonSerializer {
         return result.toString();
     }
 
+    // Map of cell ID to the same array as getCellMetadata; not cached because batches of cells seldom repeat, and the
+    // metadata of the experiment is already in memory after the first request
+    public String getCellsMetadata(String experimentAccession, Collection<String> cellIds, String accessKey) {
+        Experiment experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
+
+        JsonObject result = new JsonObject();
+
+        cellMetadataService.getMetadataValues(experiment.getAccession(), cellIds)
+                .forEach((cellId, metadataValues) -> {
+                    JsonArray cellMetadata = new JsonArray();
+                    metadataValues.forEach((metadataName, metadataValue) ->
+                            cellMetadata.add(createMetadataJson(metadataName, metadataValue)));
+                    result.add(cellId, cellMetadata);
+                });
+
+        return result.toString();
+    }
+
     private JsonObject createMetadataJson(String name, String value) {
         JsonObject result = new JsonObject();
 
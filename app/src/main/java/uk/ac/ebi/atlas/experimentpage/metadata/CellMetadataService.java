@@ -1,12 +1,11 @@
 package uk.ac.ebi.atlas.experimentpage.metadata;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.springframework.stereotype.Component;
 
+import java.util.Collection;
 import java.util.Map;
-import java.util.stream.Stream;
-
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 @Component
 public class CellMetadataService {
@@ -18,18 +17,34 @@ public class CellMetadataService {
 
     // Retrieves all metadata values of interest (factors and characteristics) for a given cell ID
     public Map<String, String> getMetadataValues(String experimentAccession, String cellId) {
-        var factorTypes = cellMetadataDao.getFactorTypes(experimentAccession);
-        var characteristicTypes = cellMetadataDao.getCharacteristicTypes(experimentAccession);
-
-        return cellMetadataDao.getMetadataValuesForCellId(
-                experimentAccession,
-                cellId,
-                factorTypes,
-                characteristicTypes);
+        return cellMetadataDao.getMetadataTable(experimentAccession).metadataValuesOfCell(cellId);
+    }
+
+    // Same as above for many cells, with a single lookup of the metadata table; cells without metadata are left out
+    public ImmutableMap<String, ImmutableMap<String, String>> getMetadataValues(String experimentAccession,
+                                                                              Collection<String> cellIds) {
+        var metadataTable = cellMetadataDao.getMetadataTable(experimentAccession);
+        var metadataValues = ImmutableMap.<String, ImmutableMap<String, String>>builder();
+        for (var cellId : ImmutableSet.copyOf(cellIds)) {
+            var metadataValuesOfCell = metadataTable.metadataValuesOfCell(cellId);
+            if (!metadataValuesOfCell.isEmpty()) {
+                metadataValues.put(cellId, metadataValuesOfCell);
+            }
+        }
+        return metadataValues.build();
     }
 
+    // Types of interest come from the metadata table of the experiment; any other type, e.g. a characteristic that
+    // isn’t curated in the IDF file, is streamed from Solr
     public Map<String, String> getMetadataValuesForGivenType(String experimentAccession, String metadataType) {
-        return cellMetadataDao.getMetadataValues(experimentAccession, metadataType);
+        return cellMetadataDao.getMetadataTable(experimentAccession)
+                .metadataValues(metadataType)
+                .orElseGet(() -> cellMetadataDao.getMetadataValues(experimentAccession, metadataType));
+    }
+
+    // Number of distinct values of a metadata type of interest, 0 if the experiment doesn’t have it
+    public int getMetadataCardinality(String experimentAccession, String metadataType) {
+        return cellMetadataDao.getMetadataTable(experimentAccession).cardinality(metadataType);
     }
 
     /*
@@ -38,9 +53,6 @@ public class CellMetadataService {
      * characteristic.
      */
     public ImmutableSet<String> getMetadataTypes(String experimentAccession) {
-        return Stream.concat(
-                cellMetadataDao.getFactorTypes(experimentAccession).stream(),
-                cellMetadataDao.getCharacteristicTypes(experimentAccession).stream())
-                .collect(toImmutableSet());
+        return cellMetadataDao.getMetadataTable(experimentAccession).metadataTypes();
     }
 }
@@ -0,0 +1,126 @@
+package uk.ac.ebi.atlas.experimentpage.metadata;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import uk.ac.ebi.atlas.monitoring.Weighed;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+// All the metadata of interest of the cells of an experiment (factors, curated characteristics and inferred cell type)
+// as one column per metadata type. Cells are sorted by ID and each column stores the distinct values of its type once,
+// sorted, and an int code per cell, so that plots coloured by metadata, cell tooltips and the metadata menu of the
+// experiment page read from the same table instead of running a streaming query per type or a query per cell.
+public final class CellMetadataTable implements Weighed {
+    private final String[] cellIds;
+    private final ImmutableMap<String, Column> columns;
+
+    private static final class Column {
+        private final String[] values;
+        // Index in values of the value of each cell, or -1 if the cell has no value of this type
+        private final int[] codes;
+
+        private Column(String[] values, int[] codes) {
+            this.values = values;
+            this.codes = codes;
+        }
+    }
+
+    private CellMetadataTable(String[] cellIds, ImmutableMap<String, Column> columns) {
+        this.cellIds = cellIds;
+        this.columns = columns;
+    }
+
+    // Takes Map<Metadata type, Map<Cell ID, Metadata value>>; metadata types without values are kept as empty columns,
+    // and values of types that aren’t in metadataTypes are left out
+    public static CellMetadataTable create(Collection<String> metadataTypes,
+                                           Map<String, ? extends Map<String, String>> metadataValues) {
+        var cellIds =
+                metadataTypes.stream()
+                        .flatMap(metadataType ->
+                                metadataValues.containsKey(metadataType) ?
+                                        metadataValues.get(metadataType).keySet().stream() :
+                                        Stream.empty())
+                        .distinct()
+                        .sorted()
+                        .toArray(String[]::new);
+
+        var columns = ImmutableMap.<String, Column>builder();
+        for (var metadataType : ImmutableSet.copyOf(metadataTypes)) {
+            var valuesOfCells = metadataValues.containsKey(metadataType) ?
+                    metadataValues.get(metadataType) :
+                    ImmutableMap.<String, String>of();
+            var values = valuesOfCells.values().stream().distinct().sorted().toArray(String[]::new);
+
+            var codes = new int[cellIds.length];
+            Arrays.fill(codes, -1);
+            valuesOfCells.forEach((cellId, value) ->
+                    codes[Arrays.binarySearch(cellIds, cellId)] = Arrays.binarySearch(values, value));
+
+            columns.put(metadataType, new Column(values, codes));
+        }
+
+        return new CellMetadataTable(cellIds, columns.build());
+    }
+
+    public ImmutableSet<String> metadataTypes() {
+        return columns.keySet();
+    }
+
+    public int cellCount() {
+        return cellIds.length;
+    }
+
+    // Number of distinct values of a metadata type, 0 if the type isn’t in the table
+    public int cardinality(String metadataType) {
+        return columns.containsKey(metadataType) ? columns.get(metadataType).values.length : 0;
+    }
+
+    // Map of cell ID to metadata value, as in CellMetadataDao::getMetadataValues, or empty if the type isn’t in the
+    // table
+    public Optional<ImmutableMap<String, String>> metadataValues(String metadataType) {
+        var column = columns.get(metadataType);
+        if (column == null) {
+            return Optional.empty();
+        }
+
+        var metadataValues = ImmutableMap.<String, String>builderWithExpectedSize(cellIds.length);
+        for (var i = 0; i < cellIds.length; i++) {
+            if (column.codes[i] >= 0) {
+                metadataValues.put(cellIds[i], column.values[column.codes[i]]);
+            }
+        }
+        return Optional.of(metadataValues.build());
+    }
+
+    // Map of metadata type to value of a single cell; empty if the cell isn’t in the table
+    public ImmutableMap<String, String> metadataValuesOfCell(String cellId) {
+        var ordinal = Arrays.binarySearch(cellIds, cellId);
+        if (ordinal < 0) {
+            return ImmutableMap.of();
+        }
+
+        var metadataValues = ImmutableMap.<String, String>builder();
+        columns.forEach((metadataType, column) -> {
+            if (column.codes[ordinal] >= 0) {
+                metadataValues.put(metadataType, column.values[column.codes[ordinal]]);
+            }
+        });
+        return metadataValues.build();
+    }
+
+    @Override
+    public long estimatedBytes() {
+        var bytes = OBJECT_HEADER_BYTES + Weighed.estimatedBytes(cellIds);
+        for (var column : columns.entrySet()) {
+            bytes += Weighed.estimatedBytes(column.getKey()) +
+                    OBJECT_HEADER_BYTES +
+                    Weighed.estimatedBytes(column.getValue().values) +
+                    Weighed.estimatedBytes(column.getValue().codes);
+        }
+        return bytes;
+    }
+}
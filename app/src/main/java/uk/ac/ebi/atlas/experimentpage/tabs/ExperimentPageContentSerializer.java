@@ -19,7 +19,10 @@ public class ExperimentPageContentSerializer {
         this.experimentPageContentService = experimentPageContentService;
     }
 
-    @Cacheable(cacheNames = "jsonExperimentPageTabs", key = "#experimentAccession")
+    @Cacheable(
+            cacheNames = "jsonExperimentPageTabs",
+            key = "{#experimentAccession, " +
+                  "@experimentVisibilityService.snapshot.cacheScope(#experimentAccession, #accessKey)}")
     public String experimentPageContentForExperiment(String experimentAccession, final String accessKey) {
         var experiment = experimentTrader.getExperiment(experimentAccession, accessKey);
         var result = new JsonObject();
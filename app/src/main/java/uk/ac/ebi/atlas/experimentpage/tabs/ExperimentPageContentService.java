@@ -175,12 +175,8 @@ public class ExperimentPageContentService {
         cellMetadataService
                 .getMetadataTypes(experimentAccession)
                 .stream()
-                .filter(type -> cellMetadataService
-                        .getMetadataValuesForGivenType(experimentAccession, type)
-                        .values()
-                        .stream()
-                        .distinct()
-                        .count() > 1)   // show only metadata types with more than 1 value
+                // show only metadata types with more than 1 value
+                .filter(type -> cellMetadataService.getMetadataCardinality(experimentAccession, type) > 1)
                 .map(x -> ImmutableMap.of("value", x, "label", StringUtil.snakeCaseToDisplayName(x)))
                 .collect(Collectors.toSet())
                 .forEach(metadata -> metadataArray.add(GSON.toJsonTree(metadata)));
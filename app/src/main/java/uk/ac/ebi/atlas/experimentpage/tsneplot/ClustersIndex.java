@@ -0,0 +1,111 @@
+package uk.ac.ebi.atlas.experimentpage.tsneplot;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import uk.ac.ebi.atlas.monitoring.Weighed;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.IntStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+// The contents of an experiment’s clusters.tsv file, which has a row per k and a column per cell:
+//   sel.K   K   cell_1  cell_2  ...
+//   FALSE   3   1       3       ...
+//   TRUE    4   2       4       ...
+// Cluster IDs are packed in an int array per k, with cells sorted by ID, so that big droplet experiments with hundreds
+// of thousands of cells are parsed once and take a few megabytes instead of being streamed on every request.
+public final class ClustersIndex implements Weighed {
+    private final ImmutableList<Integer> ks;
+    private final Optional<Integer> selectedK;
+    private final String[] cellIds;
+    // -1 for cells without a cluster in a row, which would be a malformed file
+    private final int[][] clusterIds;
+
+    private ClustersIndex(ImmutableList<Integer> ks,
+                          Optional<Integer> selectedK,
+                          String[] cellIds,
+                          int[][] clusterIds) {
+        this.ks = ks;
+        this.selectedK = selectedK;
+        this.cellIds = cellIds;
+        this.clusterIds = clusterIds;
+    }
+
+    public static ClustersIndex create(Iterator<String[]> lines) {
+        checkArgument(lines.hasNext(), "Clusters file is empty");
+        var header = lines.next();
+
+        // Columns of the cells sorted by cell ID
+        var columns =
+                IntStream.range(2, header.length).boxed()
+                        .sorted(Comparator.comparing(column -> header[column]))
+                        .mapToInt(Integer::intValue)
+                        .toArray();
+        var cellIds = Arrays.stream(columns).mapToObj(column -> header[column]).toArray(String[]::new);
+
+        var ks = ImmutableList.<Integer>builder();
+        Optional<Integer> selectedK = Optional.empty();
+        List<int[]> clusterIds = new ArrayList<>();
+        while (lines.hasNext()) {
+            var line = lines.next();
+            var k = Integer.parseInt(line[1]);
+            ks.add(k);
+            if (selectedK.isEmpty() && line[0].equalsIgnoreCase("true")) {
+                selectedK = Optional.of(k);
+            }
+
+            var clusterIdsOfK = new int[columns.length];
+            for (var i = 0; i < columns.length; i++) {
+                clusterIdsOfK[i] = columns[i] < line.length ? Integer.parseInt(line[columns[i]]) : -1;
+            }
+            clusterIds.add(clusterIdsOfK);
+        }
+
+        return new ClustersIndex(ks.build(), selectedK, cellIds, clusterIds.toArray(new int[0][]));
+    }
+
+    // In the same order as the rows of the file
+    public ImmutableList<Integer> ks() {
+        return ks;
+    }
+
+    // The first k marked as selected in the file, if any
+    public Optional<Integer> selectedK() {
+        return selectedK;
+    }
+
+    public int cellCount() {
+        return cellIds.length;
+    }
+
+    // Map of cell ID to cluster ID, as in CellPlotDao::fetchCellClusters, or empty if k isn’t in the file
+    public Optional<ImmutableMap<String, String>> clusterIds(int k) {
+        var row = ks.indexOf(k);
+        if (row < 0) {
+            return Optional.empty();
+        }
+
+        var clusterIdsOfK = ImmutableMap.<String, String>builderWithExpectedSize(cellIds.length);
+        for (var i = 0; i < cellIds.length; i++) {
+            if (clusterIds[row][i] >= 0) {
+                clusterIdsOfK.put(cellIds[i], String.valueOf(clusterIds[row][i]));
+            }
+        }
+        return Optional.of(clusterIdsOfK.build());
+    }
+
+    @Override
+    public long estimatedBytes() {
+        var bytes = OBJECT_HEADER_BYTES + Weighed.estimatedBytes(cellIds) + ARRAY_HEADER_BYTES;
+        for (var clusterIdsOfK : clusterIds) {
+            bytes += REFERENCE_BYTES + Weighed.estimatedBytes(clusterIdsOfK);
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,70 @@
+package uk.ac.ebi.atlas.experimentpage.tsneplot;
+
+import com.google.common.collect.ImmutableList;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.commons.readers.TsvStreamer;
+import uk.ac.ebi.atlas.resource.DataFileHub;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Optional;
+
+// Parsed clusters.tsv files, kept in the clustersIndex cache. Entries are keyed by the experiment accession and the
+// last modified time and size of the file, so a file that’s been replaced is parsed again on the next request even if
+// the experiment isn’t reloaded. Without a cache manager (i.e. in the dev profile and in tests) files are parsed on
+// every call, like they used to be.
+@Component
+public class ClustersIndexStore {
+    private static final String CACHE_NAME = "clustersIndex";
+
+    private final DataFileHub dataFileHub;
+    private final ObjectProvider<CacheManager> cacheManagerProvider;
+
+    public ClustersIndexStore(DataFileHub dataFileHub, ObjectProvider<CacheManager> cacheManagerProvider) {
+        this.dataFileHub = dataFileHub;
+        this.cacheManagerProvider = cacheManagerProvider;
+    }
+
+    // Throws UncheckedIOException if the file can’t be read, e.g. if the experiment doesn’t exist
+    public ClustersIndex getClustersIndex(String experimentAccession) {
+        var clustersTsv = dataFileHub.getSingleCellExperimentFiles(experimentAccession).clustersTsv;
+
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(clustersTsv.getPath(), BasicFileAttributes.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        var cache =
+                Optional.ofNullable(cacheManagerProvider.getIfAvailable())
+                        .map(cacheManager -> cacheManager.getCache(CACHE_NAME));
+        if (cache.isEmpty()) {
+            return parse(experimentAccession);
+        }
+
+        // A list starting with the accession, so that ExperimentCacheEvictor can find the entries of an experiment
+        var key =
+                ImmutableList.of(experimentAccession, attributes.lastModifiedTime().toMillis(), attributes.size());
+        return cache.get().get(key, () -> parse(experimentAccession));
+    }
+
+    // Empty if the experiment has no clusters file
+    public Optional<ClustersIndex> fetchClustersIndex(String experimentAccession) {
+        var clustersTsvPath = dataFileHub.getSingleCellExperimentFiles(experimentAccession).clustersTsv.getPath();
+        return Files.isReadable(clustersTsvPath) ?
+                Optional.of(getClustersIndex(experimentAccession)) :
+                Optional.empty();
+    }
+
+    private ClustersIndex parse(String experimentAccession) {
+        try (TsvStreamer clustersTsvStreamer =
+                     dataFileHub.getSingleCellExperimentFiles(experimentAccession).clustersTsv.get()) {
+            return ClustersIndex.create(clustersTsvStreamer.get().iterator());
+        }
+    }
+}
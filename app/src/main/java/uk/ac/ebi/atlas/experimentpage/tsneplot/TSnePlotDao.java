@@ -1,16 +1,13 @@
 package uk.ac.ebi.atlas.experimentpage.tsneplot;
 
 import com.google.common.collect.ImmutableMap;
-import com.google.gson.Gson;
 import com.google.gson.JsonObject;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotCatalogueDao;
 import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
 
-import java.sql.ResultSet;
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -20,10 +17,13 @@ import java.util.stream.Collectors;
 @Transactional(transactionManager = "txManager", readOnly = true)
 public class TSnePlotDao {
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final CellPlotCatalogueDao cellPlotCatalogueDao;
     private final String TSNE_METHOD = "tsne";
 
-    public TSnePlotDao(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+    public TSnePlotDao(NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                       CellPlotCatalogueDao cellPlotCatalogueDao) {
         this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        this.cellPlotCatalogueDao = cellPlotCatalogueDao;
     }
 
     private static final String SELECT_T_SNE_PLOT_WITH_EXPRESSION_STATEMENT =
@@ -146,15 +146,6 @@ public class TSnePlotDao {
                 Integer.class);
     }
 
-    private static final String SELECT_DISTINCT_CELL_METHOD_AND_PARAMETERISATION =
-            "SELECT DISTINCT sdr.method, option " +
-                    "FROM scxa_coords AS coords " +
-                    "INNER JOIN scxa_dimension_reduction AS sdr " +
-                        "ON coords.dimension_reduction_id = sdr.id, " +
-                        "jsonb_array_elements(sdr.parameterisation) option " +
-                    "WHERE sdr.experiment_accession = :experiment_accession " +
-                    "ORDER BY option";
-
     /**
      * Get projection methods and  corresponding PlotOptions for the experiment accession
      *
@@ -166,20 +157,6 @@ public class TSnePlotDao {
      * }
      */
     public Map<String, List<JsonObject>> fetchTSnePlotTypesAndOptions(String experimentAccession) {
-        var namedParameters = ImmutableMap.of("experiment_accession", experimentAccession);
-
-        return namedParameterJdbcTemplate.query(SELECT_DISTINCT_CELL_METHOD_AND_PARAMETERISATION, namedParameters,
-                (ResultSet resultSet) -> {
-            Map<String, List<JsonObject>> plotTypeAndOptions = new HashMap<>();
-            while (resultSet.next()) {
-                var projectionMethod = resultSet.getString("method");
-                var plotOption = resultSet.getString("option");
-                var plotOptionObject = new Gson().fromJson(plotOption, JsonObject.class);
-                var plotOptions = plotTypeAndOptions.getOrDefault(projectionMethod, new ArrayList<>());
-                plotOptions.add(plotOptionObject);
-                plotTypeAndOptions.put(projectionMethod, plotOptions);
-            }
-            return plotTypeAndOptions;
-        });
+        return cellPlotCatalogueDao.fetchCellPlotCatalogue(experimentAccession).plotOptions();
     }
 }
@@ -5,9 +5,12 @@ import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.math.util.MathUtils;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotCoordinatesStore;
+import uk.ac.ebi.atlas.experimentpage.expression.ExpressionMatrixStore;
 import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
-import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataDao;
+import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataService;
 
+import java.util.List;
 import java.util.Map;
 
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
@@ -15,24 +18,43 @@ import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static java.util.function.Function.identity;
 import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
 
 @Component
 public class TSnePlotService {
     static final String MISSING_METADATA_VALUE_PLACEHOLDER = "not available";
 
     private final TSnePlotDao tSnePlotDao;
-    private final CellMetadataDao cellMetadataDao;
+    private final CellPlotCoordinatesStore cellPlotCoordinatesStore;
+    private final ExpressionMatrixStore expressionMatrixStore;
+    private final CellMetadataService cellMetadataService;
 
-    public TSnePlotService(TSnePlotDao tSnePlotDao, CellMetadataDao cellMetadataDao) {
+    public TSnePlotService(TSnePlotDao tSnePlotDao,
+                           CellPlotCoordinatesStore cellPlotCoordinatesStore,
+                           ExpressionMatrixStore expressionMatrixStore,
+                           CellMetadataService cellMetadataService) {
         this.tSnePlotDao = tSnePlotDao;
-        this.cellMetadataDao = cellMetadataDao;
+        this.cellPlotCoordinatesStore = cellPlotCoordinatesStore;
+        this.expressionMatrixStore = expressionMatrixStore;
+        this.cellMetadataService = cellMetadataService;
     }
 
     public ImmutableSet<TSnePoint> fetchTSnePlotWithExpression(String experimentAccession,
                                                                String plotType,
                                                                int plotOption,
                                                                String geneId) {
-        return tSnePlotDao.fetchTSnePlotWithExpression(experimentAccession, plotType, plotOption, geneId).stream()
+        var parameterName = plotType.equals("tsne") ? "perplexity" : "n_neighbors";
+        var points =
+                cellPlotCoordinatesStore
+                        .fetchCellPlot(experimentAccession, plotType, ImmutableMap.of(parameterName, plotOption))
+                        .flatMap(coordinates ->
+                                expressionMatrixStore.fetchExpressionLevels(experimentAccession, geneId)
+                                        .map(expressionLevels -> withExpressionLevels(coordinates, expressionLevels)))
+                        .orElseGet(() ->
+                                tSnePlotDao.fetchTSnePlotWithExpression(
+                                        experimentAccession, plotType, plotOption, geneId));
+
+        return points.stream()
                 .map(
                         pointDto ->
                                 TSnePoint.create(
@@ -67,10 +89,17 @@ public class TSnePlotService {
     public ImmutableMap<String, ImmutableSet<TSnePoint>> fetchTSnePlotWithMetadata(String experimentAccession,
                                                                                    int parameter,
                                                                                    String metadataCategory) {
-        var metadataValuesForCells = cellMetadataDao.getMetadataValues(experimentAccession, metadataCategory);
+        var metadataValuesForCells =
+                cellMetadataService.getMetadataValuesForGivenType(experimentAccession, metadataCategory);
+
+        var points =
+                cellPlotCoordinatesStore
+                        .fetchCellPlot(experimentAccession, "tsne", ImmutableMap.of("perplexity", parameter))
+                        .map(coordinates -> (List<TSnePoint.Dto>) coordinates)
+                        .orElseGet(() -> tSnePlotDao.fetchTSnePlotForPerplexity(experimentAccession, parameter));
 
         return ImmutableMap.copyOf(
-                tSnePlotDao.fetchTSnePlotForPerplexity(experimentAccession, parameter).stream()
+                points.stream()
                         .map(
                                 pointDto ->
                                         TSnePoint.create(
@@ -83,4 +112,17 @@ public class TSnePlotService {
                                                                 MISSING_METADATA_VALUE_PLACEHOLDER))))
                         .collect(groupingBy(TSnePoint::metadata, mapping(identity(), toImmutableSet()))));
     }
-}
\ No newline at end of file
+
+    // Cells where the gene isn’t expressed have a level of 0, like the LEFT JOIN with scxa_analytics in TSnePlotDao
+    private static List<TSnePoint.Dto> withExpressionLevels(List<TSnePoint.Dto> coordinates,
+                                                            Map<String, Double> expressionLevels) {
+        return coordinates.stream()
+                .map(pointDto ->
+                        TSnePoint.Dto.create(
+                                pointDto.x(),
+                                pointDto.y(),
+                                expressionLevels.getOrDefault(pointDto.name(), 0.0),
+                                pointDto.name()))
+                .collect(toList());
+    }
+}
@@ -3,42 +3,33 @@ package uk.ac.ebi.atlas.experimentpage.tsneplot;
 import com.google.gson.JsonObject;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
-import uk.ac.ebi.atlas.commons.readers.TsvStreamer;
-import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
+import uk.ac.ebi.atlas.experimentimport.CachedExperimentFilesParser;
 import uk.ac.ebi.atlas.experimentimport.idf.IdfParserOutput;
 import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGenesDao;
-import uk.ac.ebi.atlas.resource.DataFileHub;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @Service
 public class TSnePlotSettingsService {
-    private final DataFileHub dataFileHub;
-    private final IdfParser idfParser;
+    private final ClustersIndexStore clustersIndexStore;
+    private final CachedExperimentFilesParser cachedExperimentFilesParser;
     private final TSnePlotDao tSnePlotDao;
     private final MarkerGenesDao markerGenesDao;
 
-    public TSnePlotSettingsService(DataFileHub dataFileHub,
-                                   IdfParser idfParser,
+    public TSnePlotSettingsService(ClustersIndexStore clustersIndexStore,
+                                   CachedExperimentFilesParser cachedExperimentFilesParser,
                                    TSnePlotDao tSnePlotDao,
                                    MarkerGenesDao markerGenesDao) {
-        this.dataFileHub = dataFileHub;
-        this.idfParser = idfParser;
+        this.clustersIndexStore = clustersIndexStore;
+        this.cachedExperimentFilesParser = cachedExperimentFilesParser;
         this.tSnePlotDao = tSnePlotDao;
         this.markerGenesDao = markerGenesDao;
     }
 
     public List<Integer> getAvailableKs(String experimentAccession) {
-        try (TsvStreamer clustersTsvStreamer =
-                     dataFileHub.getSingleCellExperimentFiles(experimentAccession).clustersTsv.get()) {
-            return clustersTsvStreamer.get()
-                    .skip(1)
-                    .map(line -> Integer.parseInt(line[1]))
-                    .collect(Collectors.toList());
-        }
+        return clustersIndexStore.getClustersIndex(experimentAccession).ks();
     }
 
     public List<String> getKsWithMarkerGenes(String experimentAccession) {
@@ -51,21 +42,15 @@ public class TSnePlotSettingsService {
 
     @Cacheable("expectedClusters")
     public Optional<Integer> getExpectedClusters(String experimentAccession) {
-        IdfParserOutput idfParserOutput = idfParser.parse(experimentAccession);
+        IdfParserOutput idfParserOutput = cachedExperimentFilesParser.parseIdf(experimentAccession);
+        var clustersIndex = clustersIndexStore.getClustersIndex(experimentAccession);
 
         // Only add preferred cluster property if it exists in the idf file and it is one of the available k values
         if (idfParserOutput.getExpectedClusters() != 0 &&
-                getAvailableKs(experimentAccession).contains(idfParserOutput.getExpectedClusters())) {
+                clustersIndex.ks().contains(idfParserOutput.getExpectedClusters())) {
             return Optional.of(idfParserOutput.getExpectedClusters());
         } else {
-            try (TsvStreamer clustersTsvStreamer =
-                         dataFileHub.getSingleCellExperimentFiles(experimentAccession).clustersTsv.get()) {
-                return clustersTsvStreamer.get()
-                        .skip(1)
-                        .filter(line -> line[0].equalsIgnoreCase("true"))
-                        .map(line -> Integer.parseInt(line[1]))
-                        .findFirst();
-            }
+            return clustersIndex.selectedK();
         }
     }
 
@@ -0,0 +1,86 @@
+package uk.ac.ebi.atlas.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+// Counters of a single cache. Hits, misses and loads are recorded by MeteredCache; evictions are reported by the cache
+// implementation itself, since they happen when the cache runs out of budget and not as a result of a cache operation.
+public class CacheMetrics {
+    private final String budgetUnit;
+    private final long budget;
+    private final ToLongFunction<Object> weigher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder totalLoadNanos = new LongAdder();
+    private final LongAccumulator maxLoadNanos = new LongAccumulator(Long::max, 0);
+
+    private CacheMetrics(String budgetUnit, long budget, ToLongFunction<Object> weigher) {
+        this.budgetUnit = budgetUnit;
+        this.budget = budget;
+        this.weigher = weigher;
+    }
+
+    public static CacheMetrics withEntryBudget(long maximumEntries) {
+        return new CacheMetrics("entries", maximumEntries, __ -> 1);
+    }
+
+    public static CacheMetrics withByteBudget(long maximumBytes, ToLongFunction<Object> weigher) {
+        return new CacheMetrics("bytes", maximumBytes, weigher);
+    }
+
+    public void recordHit() {
+        hits.increment();
+    }
+
+    public void recordMiss() {
+        misses.increment();
+    }
+
+    public void recordLoad(long nanos) {
+        loads.increment();
+        totalLoadNanos.add(nanos);
+        maxLoadNanos.accumulate(nanos);
+    }
+
+    public void recordEviction() {
+        evictions.increment();
+    }
+
+    // Values are weighed when stats are requested, not on every write: it’s only a walk over at most budget entries
+    public ImmutableMap<String, Object> getStats(Iterable<?> values) {
+        var entries = 0L;
+        var weight = 0L;
+        for (var value : values) {
+            entries++;
+            weight += weigher.applyAsLong(value);
+        }
+
+        var hitCount = hits.sum();
+        var requests = hitCount + misses.sum();
+        var loadCount = loads.sum();
+        return ImmutableMap.<String, Object>builder()
+                .put("entries", entries)
+                .put("weight", weight)
+                .put("budget", budget)
+                .put("budgetUnit", budgetUnit)
+                .put("hits", hitCount)
+                .put("misses", requests - hitCount)
+                .put("hitRate", requests == 0 ? 0.0 : (double) hitCount / requests)
+                .put("loads", loadCount)
+                .put("evictions", evictions.sum())
+                .put("meanLoadMillis", loadCount == 0 ? 0 : nanosToMillis(totalLoadNanos.sum() / loadCount))
+                .put("maxLoadMillis", nanosToMillis(maxLoadNanos.get()))
+                .build();
+    }
+
+    private static long nanosToMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
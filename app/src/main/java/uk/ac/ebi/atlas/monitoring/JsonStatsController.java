@@ -0,0 +1,37 @@
+package uk.ac.ebi.atlas.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ebi.atlas.controllers.JsonExceptionHandlingController;
+import uk.ac.ebi.atlas.search.GeneSearchExecutor;
+
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+@RestController
+public class JsonStatsController extends JsonExceptionHandlingController {
+    private final GeneSearchExecutor geneSearchExecutor;
+    // Caching is disabled in the dev profile
+    private final ObjectProvider<MeteredCacheManager> cacheManagerProvider;
+
+    public JsonStatsController(GeneSearchExecutor geneSearchExecutor,
+                               ObjectProvider<MeteredCacheManager> cacheManagerProvider) {
+        this.geneSearchExecutor = geneSearchExecutor;
+        this.cacheManagerProvider = cacheManagerProvider;
+    }
+
+    @GetMapping(value = "/admin/stats/gene-search",
+                produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public String getGeneSearchStats() {
+        return GSON.toJson(geneSearchExecutor.getStats());
+    }
+
+    @GetMapping(value = "/admin/stats/caches",
+                produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public String getCacheStats() {
+        var cacheManager = cacheManagerProvider.getIfAvailable();
+        return GSON.toJson(cacheManager == null ? ImmutableMap.of() : cacheManager.getStats());
+    }
+}
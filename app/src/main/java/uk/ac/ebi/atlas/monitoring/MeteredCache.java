@@ -0,0 +1,122 @@
+package uk.ac.ebi.atlas.monitoring;
+
+import org.springframework.cache.Cache;
+import org.springframework.lang.Nullable;
+
+import java.util.Objects;
+import java.util.concurrent.Callable;
+
+// Records hits, misses and load times of a cache. Methods annotated with @Cacheable(sync = false), which is most of
+// them, look up the key and, on a miss, put the computed value in the same thread; load time is the time in between.
+public class MeteredCache implements Cache {
+    private final Cache delegate;
+    private final CacheMetrics metrics;
+    private final ThreadLocal<PendingLoad> pendingLoad = new ThreadLocal<>();
+
+    public MeteredCache(Cache delegate, CacheMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    public CacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper get(Object key) {
+        var valueWrapper = delegate.get(key);
+        recordLookup(key, valueWrapper != null);
+        return valueWrapper;
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(Object key, @Nullable Class<T> type) {
+        var value = delegate.get(key, type);
+        // A cached null is counted as a miss, which is close enough for stats
+        recordLookup(key, value != null);
+        return value;
+    }
+
+    @Override
+    @Nullable
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        var loaded = new boolean[1];
+        var startNanos = System.nanoTime();
+        var value = delegate.get(key, () -> {
+            loaded[0] = true;
+            return valueLoader.call();
+        });
+
+        if (loaded[0]) {
+            metrics.recordMiss();
+            metrics.recordLoad(System.nanoTime() - startNanos);
+        } else {
+            metrics.recordHit();
+        }
+        return value;
+    }
+
+    @Override
+    public void put(Object key, @Nullable Object value) {
+        delegate.put(key, value);
+        loaded(key);
+    }
+
+    @Override
+    @Nullable
+    public ValueWrapper putIfAbsent(Object key, @Nullable Object value) {
+        var existingValue = delegate.putIfAbsent(key, value);
+        loaded(key);
+        return existingValue;
+    }
+
+    @Override
+    public void evict(Object key) {
+        delegate.evict(key);
+    }
+
+    @Override
+    public void clear() {
+        delegate.clear();
+    }
+
+    private void recordLookup(Object key, boolean hit) {
+        if (hit) {
+            metrics.recordHit();
+        } else {
+            metrics.recordMiss();
+            pendingLoad.set(new PendingLoad(key, System.nanoTime()));
+        }
+    }
+
+    private void loaded(Object key) {
+        var load = pendingLoad.get();
+        // Values put without a previous miss (e.g. @CachePut) aren’t loads
+        if (load != null && Objects.equals(load.key, key)) {
+            metrics.recordLoad(System.nanoTime() - load.startNanos);
+            pendingLoad.remove();
+        }
+    }
+
+    private static final class PendingLoad {
+        private final Object key;
+        private final long startNanos;
+
+        private PendingLoad(Object key, long startNanos) {
+            this.key = key;
+            this.startNanos = startNanos;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package uk.ac.ebi.atlas.monitoring;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Wraps the caches of another cache manager in a MeteredCache, if there are metrics for them
+public class MeteredCacheManager implements CacheManager {
+    private final CacheManager delegate;
+    private final ImmutableMap<String, CacheMetrics> metricsByCacheName;
+    private final Map<String, Cache> caches = new ConcurrentHashMap<>();
+
+    public MeteredCacheManager(CacheManager delegate, Map<String, CacheMetrics> metricsByCacheName) {
+        this.delegate = delegate;
+        this.metricsByCacheName = ImmutableMap.copyOf(metricsByCacheName);
+    }
+
+    @Override
+    @Nullable
+    public Cache getCache(String name) {
+        var cache = caches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+
+        var delegateCache = delegate.getCache(name);
+        if (delegateCache == null) {
+            return null;
+        }
+        return caches.computeIfAbsent(
+                name,
+                __ -> metricsByCacheName.containsKey(name) ?
+                        new MeteredCache(delegateCache, metricsByCacheName.get(name)) :
+                        delegateCache);
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    public ImmutableMap<String, ImmutableMap<String, Object>> getStats() {
+        var stats = ImmutableMap.<String, ImmutableMap<String, Object>>builder();
+        metricsByCacheName.forEach((name, metrics) -> {
+            var cache = getCache(name);
+            if (cache != null) {
+                stats.put(name, metrics.getStats(values(cache.getNativeCache())));
+            }
+        });
+        return stats.build();
+    }
+
+    private static Iterable<?> values(Object nativeCache) {
+        if (nativeCache instanceof org.cache2k.Cache) {
+            return ((org.cache2k.Cache<?, ?>) nativeCache).asMap().values();
+        } else if (nativeCache instanceof Map) {
+            return ((Map<?, ?>) nativeCache).values();
+        }
+        return ImmutableList.of();
+    }
+}
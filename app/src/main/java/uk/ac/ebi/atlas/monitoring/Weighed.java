@@ -0,0 +1,40 @@
+package uk.ac.ebi.atlas.monitoring;
+
+import java.util.Collection;
+
+// Cached values that estimate their own size on the heap, so that caches of in-memory indices can have a budget in
+// bytes like caches of serialized plots (see CacheConfig). Estimates assume a 64-bit JVM with compressed references
+// and compact strings (one byte per character of mostly ASCII cell IDs, gene IDs and labels); they needn’t be exact,
+// only in the right order of magnitude.
+public interface Weighed {
+    long OBJECT_HEADER_BYTES = 16;
+    long ARRAY_HEADER_BYTES = 16;
+    long REFERENCE_BYTES = 4;
+
+    long estimatedBytes();
+
+    // String object plus its byte array
+    static long estimatedBytes(String string) {
+        return string == null ? 0 : OBJECT_HEADER_BYTES + 8 + ARRAY_HEADER_BYTES + string.length();
+    }
+
+    static long estimatedBytes(String[] strings) {
+        var bytes = ARRAY_HEADER_BYTES + REFERENCE_BYTES * strings.length;
+        for (var string : strings) {
+            bytes += estimatedBytes(string);
+        }
+        return bytes;
+    }
+
+    static long estimatedBytes(Collection<String> strings) {
+        var bytes = OBJECT_HEADER_BYTES + ARRAY_HEADER_BYTES + REFERENCE_BYTES * strings.size();
+        for (var string : strings) {
+            bytes += estimatedBytes(string);
+        }
+        return bytes;
+    }
+
+    static long estimatedBytes(int[] ints) {
+        return ARRAY_HEADER_BYTES + (long) Integer.BYTES * ints.length;
+    }
+}
@@ -0,0 +1,149 @@
+package uk.ac.ebi.atlas.search;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+// A thread pool shared by all gene searches to run per-gene queries in parallel. Every task holds a database
+// connection while it runs, so the number of threads caps the connections that gene searches can take from the
+// DataSource pool, however many searches run concurrently; it should be set comfortably below the size of the pool.
+// Tasks beyond that wait in a bounded queue, and a search that doesn’t finish before its deadline is cancelled.
+@Component
+public class GeneSearchExecutor implements DisposableBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(GeneSearchExecutor.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Duration defaultTimeout;
+
+    private final LongAdder submittedTasks = new LongAdder();
+    private final LongAdder rejectedTasks = new LongAdder();
+    private final LongAdder timedOutSearches = new LongAdder();
+    private final LongAdder finishedTasks = new LongAdder();
+    private final LongAdder totalQueueWaitNanos = new LongAdder();
+    private final LongAdder totalRunNanos = new LongAdder();
+    private final LongAccumulator maxQueueWaitNanos = new LongAccumulator(Long::max, 0);
+    private final LongAccumulator maxRunNanos = new LongAccumulator(Long::max, 0);
+
+    public GeneSearchExecutor(@Value("${gene.search.threads:8}") int threads,
+                              @Value("${gene.search.queue.capacity:1000}") int queueCapacity,
+                              @Value("${gene.search.timeout.seconds:60}") long timeoutSeconds) {
+        this.executor =
+                new ThreadPoolExecutor(
+                        threads,
+                        threads,
+                        0L,
+                        TimeUnit.MILLISECONDS,
+                        new LinkedBlockingQueue<>(queueCapacity),
+                        new ThreadFactoryBuilder().setNameFormat("gene-search-%d").setDaemon(true).build(),
+                        new ThreadPoolExecutor.AbortPolicy());
+        this.defaultTimeout = Duration.ofSeconds(timeoutSeconds);
+    }
+
+    public <T> ImmutableMap<String, T> invokeAll(Collection<String> keys, Function<String, T> task) {
+        return invokeAll(keys, task, defaultTimeout);
+    }
+
+    // Applies the task to every key in parallel; if the deadline expires, the pool is full or any of the tasks fails,
+    // the remaining tasks are cancelled
+    public <T> ImmutableMap<String, T> invokeAll(Collection<String> keys, Function<String, T> task, Duration timeout) {
+        var deadlineNanos = System.nanoTime() + timeout.toNanos();
+        var futures = new LinkedHashMap<String, Future<T>>();
+
+        try {
+            for (var key : keys) {
+                if (!futures.containsKey(key)) {
+                    futures.put(key, executor.submit(timed(() -> task.apply(key))));
+                    submittedTasks.increment();
+                }
+            }
+
+            var result = ImmutableMap.<String, T>builder();
+            for (var keyAndFuture : futures.entrySet()) {
+                var remainingNanos = Math.max(0, deadlineNanos - System.nanoTime());
+                result.put(keyAndFuture.getKey(), keyAndFuture.getValue().get(remainingNanos, NANOSECONDS));
+            }
+            return result.build();
+        } catch (RejectedExecutionException e) {
+            rejectedTasks.increment();
+            LOGGER.warn("Gene search rejected, {} tasks queued", executor.getQueue().size());
+            throw e;
+        } catch (TimeoutException e) {
+            timedOutSearches.increment();
+            throw new UncheckedTimeoutException("Gene search didn’t finish in " + timeout.toMillis() + " ms", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e);
+        } finally {
+            // No-op for finished tasks; queued tasks are discarded and running ones interrupted
+            futures.values().forEach(future -> future.cancel(true));
+        }
+    }
+
+    public ImmutableMap<String, Number> getStats() {
+        var finished = finishedTasks.sum();
+        return ImmutableMap.<String, Number>builder()
+                .put("threads", executor.getMaximumPoolSize())
+                .put("activeThreads", executor.getActiveCount())
+                .put("queueDepth", executor.getQueue().size())
+                .put("queueRemainingCapacity", executor.getQueue().remainingCapacity())
+                .put("submittedTasks", submittedTasks.sum())
+                .put("finishedTasks", finished)
+                .put("rejectedTasks", rejectedTasks.sum())
+                .put("timedOutSearches", timedOutSearches.sum())
+                .put("meanQueueWaitMillis", finished == 0 ? 0 : nanosToMillis(totalQueueWaitNanos.sum() / finished))
+                .put("maxQueueWaitMillis", nanosToMillis(maxQueueWaitNanos.get()))
+                .put("meanRunMillis", finished == 0 ? 0 : nanosToMillis(totalRunNanos.sum() / finished))
+                .put("maxRunMillis", nanosToMillis(maxRunNanos.get()))
+                .build();
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private <T> Callable<T> timed(Callable<T> task) {
+        var submittedAtNanos = System.nanoTime();
+        return () -> {
+            var startedAtNanos = System.nanoTime();
+            try {
+                return task.call();
+            } finally {
+                var finishedAtNanos = System.nanoTime();
+                totalQueueWaitNanos.add(startedAtNanos - submittedAtNanos);
+                maxQueueWaitNanos.accumulate(startedAtNanos - submittedAtNanos);
+                totalRunNanos.add(finishedAtNanos - startedAtNanos);
+                maxRunNanos.accumulate(finishedAtNanos - startedAtNanos);
+                finishedTasks.increment();
+            }
+        };
+    }
+
+    private static long nanosToMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -1,23 +1,22 @@
 package uk.ac.ebi.atlas.search;
 
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.atlas.experimentpage.tsneplot.TSnePlotSettingsService;
+import uk.ac.ebi.atlas.search.cellindex.CellIdDictionaryDao;
+import uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexService;
+import uk.ac.ebi.atlas.search.cellindex.CellPostingList;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.ForkJoinPool;
 import java.util.function.Function;
 
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexDao.FACET_CHARACTERISTIC_NAMES;
 
 @Component
 public class GeneSearchService {
@@ -25,85 +24,67 @@ public class GeneSearchService {
 
     private final GeneSearchDao geneSearchDao;
     private final TSnePlotSettingsService tsnePlotSettingsService;
+    private final GeneSearchExecutor geneSearchExecutor;
+    private final CellMetadataBitmapIndexService cellMetadataBitmapIndexService;
+    private final CellIdDictionaryDao cellIdDictionaryDao;
 
     public GeneSearchService(GeneSearchDao geneSearchDao,
-                             TSnePlotSettingsService tsnePlotSettingsService) {
+                             TSnePlotSettingsService tsnePlotSettingsService,
+                             GeneSearchExecutor geneSearchExecutor,
+                             CellMetadataBitmapIndexService cellMetadataBitmapIndexService,
+                             CellIdDictionaryDao cellIdDictionaryDao) {
         this.geneSearchDao = geneSearchDao;
         this.tsnePlotSettingsService = tsnePlotSettingsService;
+        this.geneSearchExecutor = geneSearchExecutor;
+        this.cellMetadataBitmapIndexService = cellMetadataBitmapIndexService;
+        this.cellIdDictionaryDao = cellIdDictionaryDao;
     }
 
-    // Map<Gene ID, Map<Experiment accession, List<Cell IDs>>>
-    public Map<String, Map<String, List<String>>> getCellIdsInExperiments(ImmutableCollection<String> geneIds) {
-        return fetchInParallel(geneIds, geneSearchDao::fetchCellIds);
+    // Map<Gene ID, Map<Experiment accession, Cells>>
+    public ImmutableMap<String, ImmutableMap<String, CellPostingList>>
+    getCellIdsInExperiments(ImmutableCollection<String> geneIds) {
+        return geneSearchExecutor.invokeAll(
+                geneIds,
+                geneId -> geneSearchDao.fetchCellPostingLists(geneId, cellIdDictionaryDao::fetchDictionary));
     }
 
-    // Returns inferred cell types and organism parts for each experiment accession
-    public ImmutableMap<String, Map<String, List<String>>> getFacets(List<String> cellIds) {
-        return geneSearchDao.getFacets(
-                cellIds,
-                "inferred_cell_type_-_ontology_labels", "organism", "organism_part");
+    // Returns inferred cell types, organisms and organism parts of the given cells in an experiment
+    public ImmutableMap<String, List<String>> getFacets(String experimentAccession, CellPostingList cells) {
+        return ImmutableMap.copyOf(
+                cellMetadataBitmapIndexService.getValues(experimentAccession, cells, FACET_CHARACTERISTIC_NAMES));
     }
 
     // Map<Gene ID, Map<Experiment accession, Map<K, Cluster ID>>>
+    // Two statements regardless of the number of genes and experiments: one to find the experiments where any of the
+    // genes is a marker, and another to fetch the clusters with preferred K or minimum p-value in all of them
     public ImmutableMap<String, Map<String, Map<Integer, List<Integer>>>>
     getMarkerGeneProfile(ImmutableCollection<String> geneIds) {
-        return fetchInParallel(
-                geneIds,
-                geneId -> fetchClusterIDWithPreferredKAndMinPForGeneID(
-                        geneSearchDao.fetchExperimentAccessionsWhereGeneIsMarker(geneId),
-                        geneId));
-    }
+        var experimentAccessions = geneSearchDao.fetchExperimentAccessionsWhereGenesAreMarkers(geneIds);
 
-    public ImmutableSet<String> getCellIdsFromGeneIds(ImmutableSet<String> geneIds) {
-        return geneIds.stream()
-                .map(geneSearchDao::fetchCellIds)
-                .flatMap(geneIdsToCellIds -> geneIdsToCellIds.values().stream())
-                .flatMap(Collection::stream)
-                .collect(toImmutableSet());
-    }
+        var preferredKs =
+                experimentAccessions.stream()
+                        .collect(toImmutableMap(
+                                Function.identity(),
+                                // If there’s no preferred k we use 0, which won’t match any row
+                                experimentAccession ->
+                                        tsnePlotSettingsService.getExpectedClusters(experimentAccession).orElse(0)));
 
-    private <T> ImmutableMap<String, T>
-    fetchInParallel(ImmutableCollection<String> geneIds, Function<String, T> geneIdInfoProvider) {
-        // If this becomes a resource hog, consider having the pool as a member of the class and reuse it every time
-        var forkJoinPool = new ForkJoinPool();
-        try {
+        var clusterIds = geneSearchDao.fetchClusterIdsWithPreferredKAndMinP(geneIds, preferredKs);
 
-            return
-                    forkJoinPool.submit(
-                            () -> geneIds.stream().parallel()
-                                    .map(geneId -> ImmutableMap.of(geneId, geneIdInfoProvider.apply(geneId)))
-                                    .map(Map::entrySet)
-                                    .flatMap(Set::stream)
-                                    .collect(toImmutableMap(Map.Entry::getKey, Map.Entry::getValue)))
-                            .get();
-
-        } catch (InterruptedException | ExecutionException e) {
-            throw new RuntimeException(e);
-        } finally {
-            forkJoinPool.shutdown();
-        }
+        return geneIds.stream()
+                .distinct()
+                .collect(toImmutableMap(
+                        Function.identity(),
+                        geneId -> ImmutableMap.copyOf(clusterIds.getOrDefault(geneId, ImmutableMap.of()))));
     }
 
-    private ImmutableMap<String, Map<Integer, List<Integer>>> fetchClusterIDWithPreferredKAndMinPForGeneID(
-            List<String> experimentAccessions, String geneId) {
-        var result = ImmutableMap.<String, Map<Integer, List<Integer>>>builder();
-
-        for (var experimentAccession : experimentAccessions) {
-            var geneIds2MinimumProbability = geneSearchDao.fetchMinimumMarkerProbability(experimentAccession);
-            var preferredK = tsnePlotSettingsService.getExpectedClusters(experimentAccession);
-
-            var clusterIDWithPreferredKAndMinP =
-                    geneSearchDao.fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(
-                            geneId,
-                            experimentAccession,
-                            // If there’s no preferred k we use 0, which won’t match any row
-                            preferredK.orElse(0),
-                            geneIds2MinimumProbability.getOrDefault(geneId, 0.0));
-            if (!clusterIDWithPreferredKAndMinP.isEmpty()) {
-                result.put(experimentAccession, clusterIDWithPreferredKAndMinP);
-            }
-        }
+    // Map<Experiment accession, Cells> of the cells where any of the genes is expressed
+    public ImmutableMap<String, CellPostingList> getCellIdsInExperimentsFromGeneIds(
+            ImmutableCollection<String> geneIds) {
+        var cells = ArrayListMultimap.<String, CellPostingList>create();
+        getCellIdsInExperiments(geneIds).values().forEach(experimentsToCells -> experimentsToCells.forEach(cells::put));
 
-        return result.build();
+        return cells.asMap().entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> CellPostingList.union(entry.getValue())));
     }
 }
@@ -17,6 +17,7 @@ import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 import uk.ac.ebi.atlas.controllers.JsonExceptionHandlingController;
 import uk.ac.ebi.atlas.experimentpage.ExperimentAttributesService;
 import uk.ac.ebi.atlas.model.experiment.singlecell.SingleCellBaselineExperiment;
+import uk.ac.ebi.atlas.search.cellindex.CellPostingList;
 import uk.ac.ebi.atlas.search.celltype.CellTypeSearchService;
 import uk.ac.ebi.atlas.search.geneids.GeneIdSearchService;
 import uk.ac.ebi.atlas.search.geneids.QueryParsingException;
@@ -103,9 +104,7 @@ public class JsonGeneSearchController extends JsonExceptionHandlingController {
                     var facets =
                             ImmutableList.<Map<String, String>>builder()
                                     .addAll(
-                                            unfoldFacets(
-                                                    geneSearchService.getFacets(cellIds)
-                                                            .getOrDefault(experimentAccession, ImmutableMap.of())));
+                                            unfoldFacets(geneSearchService.getFacets(experimentAccession, cellIds)));
 
                     facets.add(
                             ImmutableMap.of(
@@ -284,7 +283,8 @@ public class JsonGeneSearchController extends JsonExceptionHandlingController {
         return speciesSearchService.search(queryTerm, category);
     }
 
-    private ImmutableList<Map.Entry<String, Map<String, List<String>>>> getMarkerGeneProfileByGeneIds(Optional<ImmutableSet<String>> geneIds) {
+    private ImmutableList<Map.Entry<String, ImmutableMap<String, CellPostingList>>> getMarkerGeneProfileByGeneIds(
+            Optional<ImmutableSet<String>> geneIds) {
         // We found expressed gene IDs, let’s get to it now...
         var geneIds2ExperimentAndCellIds =
                 geneSearchService.getCellIdsInExperiments(geneIds.orElse(null));
@@ -27,26 +27,6 @@ public class AnalyticsSearchDao {
                 collectionProxyFactory.create(SingleCellAnalyticsCollectionProxy.class);
     }
 
-    public ImmutableSet<String> searchFieldByCellIds(
-            SingleCellAnalyticsCollectionProxy.SingleCellAnalyticsSchemaField schemaField,
-            ImmutableSet<String> cellIDs) {
-//        Streaming query for getting the organism_part provided by set of cell IDs
-//        unique(
-//            search(scxa-analytics-v6, q=cell_id:<SET_OF_CELL_IDS>,
-//            fl="schemaField", // could be : ctw_organism_part, ctw_cell_type
-//            sort="schemaField asc"
-//            ),
-//            over="schemaField"
-//        )
-        return getSchemaFieldFromStreamQuery(
-                new UniqueStreamBuilder(
-                        getStreamBuilderByCellIdsForSchemaField(cellIDs, schemaField),
-                        schemaField.name()
-                ),
-                schemaField.name()
-        );
-    }
-
     public ImmutableSet<String> searchOrganismPartsByCellIdsAndSpecies(ImmutableSet<String> cellIDs,
                                                                        ImmutableSet<String> species) {
         var inputParams = ImmutableMap.of(
@@ -128,17 +108,6 @@ public class AnalyticsSearchDao {
         ).returnAllDocs();
     }
 
-    private SearchStreamBuilder<SingleCellAnalyticsCollectionProxy> getStreamBuilderByCellIdsForSchemaField(
-            ImmutableSet<String> cellIDs, SingleCellAnalyticsCollectionProxy.SingleCellAnalyticsSchemaField schemaField) {
-        return new SearchStreamBuilder<>(
-                singleCellAnalyticsCollectionProxy,
-                new SolrQueryBuilder<SingleCellAnalyticsCollectionProxy>()
-                        .addQueryFieldByTerm(CELL_ID, cellIDs)
-                        .setFieldList(schemaField)
-                        .sortBy(schemaField, SolrQuery.ORDER.asc)
-        ).returnAllDocs();
-    }
-
     private ImmutableSet<String> getSchemaFieldFromStreamQuery(UniqueStreamBuilder uniqueOrganismPartStreamBuilder,
             String schemaField) {
         try (TupleStreamer tupleStreamer = TupleStreamer.of(uniqueOrganismPartStreamBuilder.build())) {
@@ -1,11 +1,13 @@
 package uk.ac.ebi.atlas.search.analytics;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.atlas.search.GeneSearchService;
+import uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexService;
 import uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy;
 
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_CELL_TYPE;
@@ -15,7 +17,7 @@ import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollecti
 @RequiredArgsConstructor
 public class AnalyticsSearchService {
 
-    private final AnalyticsSearchDao analyticsSearchDao;
+    private final CellMetadataBitmapIndexService cellMetadataBitmapIndexService;
     private final GeneSearchService geneSearchService;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(AnalyticsSearchService.class);
@@ -38,7 +40,8 @@ public class AnalyticsSearchService {
 
         LOGGER.info("Searching {} for these gene ids: {}", schemaField.name(), geneIds.asList());
 
-        return analyticsSearchDao.searchFieldByCellIds(schemaField, geneSearchService.getCellIdsFromGeneIds(geneIds));
+        return cellMetadataBitmapIndexService.getValues(
+                geneSearchService.getCellIdsInExperimentsFromGeneIds(geneIds), schemaField.name(), ImmutableMap.of());
     }
 
 }
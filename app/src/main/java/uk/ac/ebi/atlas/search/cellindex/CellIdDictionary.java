@@ -0,0 +1,39 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import uk.ac.ebi.atlas.monitoring.Weighed;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// Numbers the cells of an experiment from 0 to size() - 1 in order of cell ID, so that sets of cells can be stored
+// as posting lists or bitmaps of ordinals rather than as collections of strings
+public final class CellIdDictionary implements Weighed {
+    private final String[] cellIds;
+
+    private CellIdDictionary(String[] cellIds) {
+        this.cellIds = cellIds;
+    }
+
+    public static CellIdDictionary create(Collection<String> cellIds) {
+        return new CellIdDictionary(cellIds.stream().distinct().sorted().toArray(String[]::new));
+    }
+
+    public int size() {
+        return cellIds.length;
+    }
+
+    // Returns -1 if the cell isn’t in the experiment
+    public int ordinal(String cellId) {
+        var ordinal = Arrays.binarySearch(cellIds, cellId);
+        return ordinal >= 0 ? ordinal : -1;
+    }
+
+    public String cellId(int ordinal) {
+        return cellIds[ordinal];
+    }
+
+    @Override
+    public long estimatedBytes() {
+        return OBJECT_HEADER_BYTES + Weighed.estimatedBytes(cellIds);
+    }
+}
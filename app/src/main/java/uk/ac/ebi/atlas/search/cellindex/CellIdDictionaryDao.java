@@ -0,0 +1,35 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.ImmutableMap;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public class CellIdDictionaryDao {
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    public CellIdDictionaryDao(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+    }
+
+    // Cells that we count (same source as ExperimentCellCountDao) and cells where genes are expressed (same source as
+    // GeneSearchDao): neither table is guaranteed to have all the cells of the other, and a cell without an ordinal
+    // would be left out of gene search results and facets. The statement runs once per experiment, the dictionary
+    // is cached.
+    private static final String SELECT_CELL_IDS_STATEMENT =
+            "SELECT cell_id FROM scxa_cell_group_membership WHERE experiment_accession=:experiment_accession " +
+                    "UNION " +
+                    "SELECT cell_id FROM scxa_analytics WHERE experiment_accession=:experiment_accession";
+
+    @Cacheable("cellIdDictionary")
+    @Transactional(transactionManager = "txManager", readOnly = true)
+    public CellIdDictionary fetchDictionary(String experimentAccession) {
+        return CellIdDictionary.create(
+                namedParameterJdbcTemplate.queryForList(
+                        SELECT_CELL_IDS_STATEMENT,
+                        ImmutableMap.of("experiment_accession", experimentAccession),
+                        String.class));
+    }
+}
@@ -0,0 +1,103 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Multimap;
+import uk.ac.ebi.atlas.monitoring.Weighed;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+// Metadata of the cells of an experiment, e.g. organism part or cell type, as one bitmap per metadata value. Cells are
+// numbered by their ordinal in the cell ID dictionary of the experiment, so a set of cells is a bitmap too, and
+// finding the values of a set of cells is a matter of intersecting bitmaps. Bitmaps are never handed out, so an index
+// can be shared by any number of threads.
+public final class CellMetadataBitmapIndex implements Weighed {
+    private final int cellCount;
+    // Map<Metadata type, Map<Metadata value, Cells>>
+    private final ImmutableMap<String, ImmutableMap<String, BitSet>> bitmaps;
+
+    private CellMetadataBitmapIndex(int cellCount, ImmutableMap<String, ImmutableMap<String, BitSet>> bitmaps) {
+        this.cellCount = cellCount;
+        this.bitmaps = bitmaps;
+    }
+
+    // Takes Map<Metadata type, Multimap<Cell ID, Metadata value>>; a cell may have any number of values of a metadata
+    // type, including none, and cells that aren’t in the dictionary are left out
+    public static CellMetadataBitmapIndex create(CellIdDictionary cellIdDictionary,
+                                                 Map<String, ? extends Multimap<String, String>> metadataValues) {
+        var bitmaps = ImmutableMap.<String, ImmutableMap<String, BitSet>>builder();
+        for (var metadataType : metadataValues.entrySet()) {
+            var valueBitmaps = new HashMap<String, BitSet>();
+            metadataType.getValue().forEach((cellId, value) -> {
+                var ordinal = cellIdDictionary.ordinal(cellId);
+                if (value != null && ordinal >= 0) {
+                    valueBitmaps
+                            .computeIfAbsent(value, __ -> new BitSet(cellIdDictionary.size()))
+                            .set(ordinal);
+                }
+            });
+            bitmaps.put(metadataType.getKey(), ImmutableMap.copyOf(valueBitmaps));
+        }
+
+        return new CellMetadataBitmapIndex(cellIdDictionary.size(), bitmaps.build());
+    }
+
+    public int cellCount() {
+        return cellCount;
+    }
+
+    // Cells with any of the given values of a metadata type
+    public BitSet cellsWithValues(String metadataType, Collection<String> values) {
+        var valueBitmaps = bitmaps.getOrDefault(metadataType, ImmutableMap.of());
+        var cells = new BitSet(cellCount);
+        for (var value : values) {
+            if (valueBitmaps.containsKey(value)) {
+                cells.or(valueBitmaps.get(value));
+            }
+        }
+        return cells;
+    }
+
+    // Values of a metadata type found in the given cells, sorted by number of cells in descending order
+    public ImmutableList<String> values(String metadataType, BitSet cells) {
+        var cellCounts =
+                bitmaps.getOrDefault(metadataType, ImmutableMap.of()).entrySet().stream()
+                        .filter(valueBitmap -> valueBitmap.getValue().intersects(cells))
+                        .collect(toImmutableMap(
+                                Map.Entry::getKey,
+                                valueBitmap -> intersectionSize(valueBitmap.getValue(), cells)));
+
+        return cellCounts.keySet().stream()
+                .sorted(Comparator.<String>comparingInt(cellCounts::get)
+                        .reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .collect(toImmutableList());
+    }
+
+    // Every bitmap is as long as the highest ordinal of its values, at most cellCount bits
+    @Override
+    public long estimatedBytes() {
+        var bytes = OBJECT_HEADER_BYTES;
+        for (var metadataType : bitmaps.entrySet()) {
+            bytes += Weighed.estimatedBytes(metadataType.getKey());
+            for (var valueBitmap : metadataType.getValue().entrySet()) {
+                bytes += Weighed.estimatedBytes(valueBitmap.getKey()) +
+                        OBJECT_HEADER_BYTES + ARRAY_HEADER_BYTES + valueBitmap.getValue().size() / Byte.SIZE;
+            }
+        }
+        return bytes;
+    }
+
+    private static int intersectionSize(BitSet bitmap, BitSet cells) {
+        var intersection = (BitSet) bitmap.clone();
+        intersection.and(cells);
+        return intersection.cardinality();
+    }
+}
@@ -0,0 +1,128 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Repository;
+import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
+import uk.ac.ebi.atlas.solr.cloud.TupleStreamer;
+import uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy;
+import uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.SingleCellAnalyticsSchemaField;
+import uk.ac.ebi.atlas.solr.cloud.search.SolrQueryBuilder;
+import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.decorator.UniqueStreamBuilder;
+import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.source.SearchStreamBuilder;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CELL_ID;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_CELL_TYPE;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_ORGANISM;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_ORGANISM_PART;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.EXPERIMENT_ACCESSION;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_CHARACTERISTIC_NAME;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_CHARACTERISTIC_VALUE;
+
+// Builds the bitmap index of an experiment from two streaming queries: one for the cell type wheel fields, which are
+// indexed by their field name (e.g. ctw_organism_part), and another for the characteristics shown as facets in the
+// gene search results, indexed by characteristic name (e.g. organism_part). Cells are numbered as in the cell ID
+// dictionary of the experiment, the same as the posting lists of gene search.
+@Repository
+public class CellMetadataBitmapIndexDao {
+    public static final ImmutableSet<String> FACET_CHARACTERISTIC_NAMES =
+            ImmutableSet.of("inferred_cell_type_-_ontology_labels", "organism", "organism_part");
+    private static final ImmutableSet<SingleCellAnalyticsSchemaField> CELL_TYPE_WHEEL_FIELDS =
+            ImmutableSet.of(CTW_ORGANISM, CTW_ORGANISM_PART, CTW_CELL_TYPE);
+
+    private final SingleCellAnalyticsCollectionProxy singleCellAnalyticsCollectionProxy;
+    private final CellIdDictionaryDao cellIdDictionaryDao;
+
+    public CellMetadataBitmapIndexDao(SolrCloudCollectionProxyFactory collectionProxyFactory,
+                                      CellIdDictionaryDao cellIdDictionaryDao) {
+        this.singleCellAnalyticsCollectionProxy =
+                collectionProxyFactory.create(SingleCellAnalyticsCollectionProxy.class);
+        this.cellIdDictionaryDao = cellIdDictionaryDao;
+    }
+
+    @Cacheable("cellMetadataBitmapIndex")
+    public CellMetadataBitmapIndex fetchIndex(String experimentAccession) {
+        var metadataValues = new HashMap<String, SetMultimap<String, String>>();
+        fetchCellTypeWheelValues(experimentAccession, metadataValues);
+        fetchCharacteristicValues(experimentAccession, metadataValues);
+        return CellMetadataBitmapIndex.create(cellIdDictionaryDao.fetchDictionary(experimentAccession), metadataValues);
+    }
+
+    private void fetchCellTypeWheelValues(String experimentAccession,
+                                          Map<String, SetMultimap<String, String>> metadataValues) {
+        var queryBuilder =
+                new SolrQueryBuilder<SingleCellAnalyticsCollectionProxy>()
+                        .addQueryFieldByTerm(EXPERIMENT_ACCESSION, experimentAccession)
+                        .setFieldList(
+                                ImmutableSet.<SingleCellAnalyticsSchemaField>builder()
+                                        .add(CELL_ID)
+                                        .addAll(CELL_TYPE_WHEEL_FIELDS)
+                                        .build())
+                        .sortBy(CELL_ID, SolrQuery.ORDER.asc);
+        var uniqueStreamBuilder =
+                new UniqueStreamBuilder(
+                        new SearchStreamBuilder<>(singleCellAnalyticsCollectionProxy, queryBuilder).returnAllDocs(),
+                        CELL_ID.name());
+
+        try (var tupleStreamer = TupleStreamer.of(uniqueStreamBuilder.build())) {
+            tupleStreamer.get().forEach(tuple -> {
+                for (var field : CELL_TYPE_WHEEL_FIELDS) {
+                    var value = tuple.getString(field.name());
+                    if (value != null) {
+                        metadataValues
+                                .computeIfAbsent(field.name(), __ -> HashMultimap.create())
+                                .put(tuple.getString(CELL_ID.name()), value);
+                    }
+                }
+            });
+        }
+    }
+
+    private void fetchCharacteristicValues(String experimentAccession,
+                                           Map<String, SetMultimap<String, String>> metadataValues) {
+        var queryBuilder =
+                new SolrQueryBuilder<SingleCellAnalyticsCollectionProxy>()
+                        .addQueryFieldByTerm(EXPERIMENT_ACCESSION, experimentAccession)
+                        .addQueryFieldByTerm(FACET_CHARACTERISTIC_NAME, FACET_CHARACTERISTIC_NAMES)
+                        .setFieldList(ImmutableSet.of(CELL_ID, FACET_CHARACTERISTIC_NAME, FACET_CHARACTERISTIC_VALUE))
+                        .sortBy(CELL_ID, SolrQuery.ORDER.asc);
+
+        try (var tupleStreamer =
+                     TupleStreamer.of(
+                             new SearchStreamBuilder<>(singleCellAnalyticsCollectionProxy, queryBuilder)
+                                     .returnAllDocs()
+                                     .build())) {
+            addCharacteristicValues(tupleStreamer.get(), metadataValues);
+        }
+    }
+
+    // A cell may have more than one value of a characteristic (e.g. a sample taken from two organism parts), either in
+    // separate documents or as a multi-valued field, and every one of them is indexed
+    static void addCharacteristicValues(Stream<Tuple> tuples, Map<String, SetMultimap<String, String>> metadataValues) {
+        tuples.forEach(tuple -> {
+            var value = tuple.get(FACET_CHARACTERISTIC_VALUE.name());
+            if (value == null) {
+                return;
+            }
+
+            var cellValues =
+                    metadataValues.computeIfAbsent(
+                            tuple.getString(FACET_CHARACTERISTIC_NAME.name()), __ -> HashMultimap.create());
+            var cellId = tuple.getString(CELL_ID.name());
+            if (value instanceof Collection) {
+                ((Collection<?>) value).forEach(element -> cellValues.put(cellId, element.toString()));
+            } else {
+                cellValues.put(cellId, value.toString());
+            }
+        });
+    }
+}
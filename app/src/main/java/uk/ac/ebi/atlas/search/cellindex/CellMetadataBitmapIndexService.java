@@ -0,0 +1,58 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.Map;
+
+// Answers metadata queries about sets of cells (e.g. the organism parts of the cells where a gene is expressed) with
+// the bitmap index of each experiment, instead of sending the cell IDs to Solr
+@Service
+public class CellMetadataBitmapIndexService {
+    private final CellMetadataBitmapIndexDao cellMetadataBitmapIndexDao;
+
+    public CellMetadataBitmapIndexService(CellMetadataBitmapIndexDao cellMetadataBitmapIndexDao) {
+        this.cellMetadataBitmapIndexDao = cellMetadataBitmapIndexDao;
+    }
+
+    // Map<Metadata type, Values>; metadata types without any value in the cells are left out
+    public ImmutableMap<String, ImmutableList<String>> getValues(String experimentAccession,
+                                                                 CellPostingList cells,
+                                                                 Collection<String> metadataTypes) {
+        var index = cellMetadataBitmapIndexDao.fetchIndex(experimentAccession);
+        var cellBitmap = cells.toBitSet();
+
+        var values = ImmutableMap.<String, ImmutableList<String>>builder();
+        for (var metadataType : ImmutableSet.copyOf(metadataTypes)) {
+            var metadataValues = index.values(metadataType, cellBitmap);
+            if (!metadataValues.isEmpty()) {
+                values.put(metadataType, metadataValues);
+            }
+        }
+        return values.build();
+    }
+
+    // Values of a metadata type across the cells of all experiments, restricted to the cells that have any of the
+    // values of each filter (Map<Metadata type, Values>); filters with no values are ignored
+    public ImmutableSet<String> getValues(Map<String, CellPostingList> cellsByExperiment,
+                                          String metadataType,
+                                          Map<String, ? extends Collection<String>> filters) {
+        var values = ImmutableSet.<String>builder();
+
+        for (var experimentCells : cellsByExperiment.entrySet()) {
+            var index = cellMetadataBitmapIndexDao.fetchIndex(experimentCells.getKey());
+            var cells = experimentCells.getValue().toBitSet();
+            for (var filter : filters.entrySet()) {
+                if (filter.getValue() != null && !filter.getValue().isEmpty()) {
+                    cells.and(index.cellsWithValues(filter.getKey(), filter.getValue()));
+                }
+            }
+            values.addAll(index.values(metadataType, cells));
+        }
+
+        return values.build();
+    }
+}
@@ -0,0 +1,102 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.function.IntConsumer;
+
+// An immutable, sorted list of cell ordinals (see CellIdDictionary) stored as the differences between consecutive
+// ordinals in a variable-length encoding: seven bits per byte, with the high bit set in all but the last byte of each
+// number. Cells of an experiment where a gene is expressed are usually close to each other, so most of them take a
+// single byte, in contrast to the tens of bytes of a cell ID string.
+public final class CellPostingList {
+    public static final CellPostingList EMPTY = new CellPostingList(new byte[0], 0);
+
+    private final byte[] deltas;
+    private final int size;
+
+    private CellPostingList(byte[] deltas, int size) {
+        this.deltas = deltas;
+        this.size = size;
+    }
+
+    public static CellPostingList of(BitSet ordinals) {
+        // Up to five bytes per number, but with a single byte per cell being the most common case it’s cheaper to
+        // grow the buffer than to allocate the worst case
+        var buffer = new byte[Math.max(16, ordinals.cardinality())];
+        var length = 0;
+        var previous = 0;
+        for (var ordinal = ordinals.nextSetBit(0); ordinal >= 0; ordinal = ordinals.nextSetBit(ordinal + 1)) {
+            if (buffer.length - length < 5) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            var delta = ordinal - previous;
+            while ((delta & ~0x7F) != 0) {
+                buffer[length++] = (byte) ((delta & 0x7F) | 0x80);
+                delta >>>= 7;
+            }
+            buffer[length++] = (byte) delta;
+            previous = ordinal;
+        }
+
+        return new CellPostingList(Arrays.copyOf(buffer, length), ordinals.cardinality());
+    }
+
+    public static CellPostingList union(Collection<CellPostingList> postingLists) {
+        if (postingLists.size() == 1) {
+            return postingLists.iterator().next();
+        }
+
+        var ordinals = new BitSet();
+        postingLists.forEach(postingList -> postingList.forEach(ordinals::set));
+        return of(ordinals);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    // Visits the ordinals in ascending order
+    public void forEach(IntConsumer action) {
+        var ordinal = 0;
+        var position = 0;
+        while (position < deltas.length) {
+            var delta = 0;
+            var shift = 0;
+            byte b;
+            do {
+                b = deltas[position++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            ordinal += delta;
+            action.accept(ordinal);
+        }
+    }
+
+    public BitSet toBitSet() {
+        var ordinals = new BitSet();
+        forEach(ordinals::set);
+        return ordinals;
+    }
+
+    // Size of the encoded ordinals, in bytes
+    public int encodedSize() {
+        return deltas.length;
+    }
+
+    // The encoding of a set of ordinals is unique, so posting lists are equal if their bytes are
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof CellPostingList && Arrays.equals(deltas, ((CellPostingList) other).deltas);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(deltas);
+    }
+}
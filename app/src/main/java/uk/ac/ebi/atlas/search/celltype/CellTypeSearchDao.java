@@ -19,8 +19,6 @@ import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.source.SearchStrea
 
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CELL_ID;
-import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_CELL_TYPE;
-import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_ORGANISM_PART;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.EXPERIMENT_ACCESSION;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_CHARACTERISTIC_NAME;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_CHARACTERISTIC_VALUE;
@@ -164,45 +162,4 @@ public class CellTypeSearchDao {
                     .collect(toImmutableSet());
         }
     }
-
-    public ImmutableSet<String> searchCellTypes(ImmutableSet<String> cellIds, ImmutableSet<String> organismParts) {
-//        Streaming query for getting the cell types provided by set of cell IDs and organism parts
-//        unique(
-//            search(scxa-analytics-v6, q=cell_id:<SET_OF_CELL_IDS> AND ctw_organism_part:<SET_OF_ORGANISM_PART>,
-//            fl="ctw_cell_type",
-//            sort="ctw_cell_type asc"
-//            ),
-//            over="ctw_cell_type"
-//        )
-        return getCellTypeFromStreamQuery(
-                new UniqueStreamBuilder(getStreamBuilderForCellTypeByCellIdsAndOrganismParts(
-                        cellIds, organismParts), CTW_CELL_TYPE.name()));
-    }
-
-    private SearchStreamBuilder<SingleCellAnalyticsCollectionProxy> getStreamBuilderForCellTypeByCellIdsAndOrganismParts(
-            ImmutableSet<String> cellIDs, ImmutableSet<String> organismParts) {
-        var cellTypeQueryBuilder = new SolrQueryBuilder<SingleCellAnalyticsCollectionProxy>()
-                .addQueryFieldByTerm(CELL_ID, cellIDs)
-                .setFieldList(CTW_CELL_TYPE)
-                .sortBy(CTW_CELL_TYPE, SolrQuery.ORDER.asc);
-
-        if (organismParts != null && !organismParts.isEmpty()) {
-            cellTypeQueryBuilder.addQueryFieldByTerm(CTW_ORGANISM_PART, organismParts);
-        }
-
-        return new SearchStreamBuilder<>(
-                singleCellAnalyticsCollectionProxy,
-                cellTypeQueryBuilder
-        ).returnAllDocs();
-    }
-
-    private ImmutableSet<String> getCellTypeFromStreamQuery(UniqueStreamBuilder uniqueCellTypeStreamBuilder) {
-        try (TupleStreamer tupleStreamer = TupleStreamer.of(uniqueCellTypeStreamBuilder.build())) {
-            return tupleStreamer.get()
-                    .filter(tuple -> !tuple.getFields().isEmpty())
-                    .map(tuple -> tuple.getString(CTW_CELL_TYPE.name()))
-                    .collect(toImmutableSet()
-                    );
-        }
-    }
-}
\ No newline at end of file
+}
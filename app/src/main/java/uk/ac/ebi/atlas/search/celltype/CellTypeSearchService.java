@@ -1,17 +1,22 @@
 package uk.ac.ebi.atlas.search.celltype;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.atlas.search.GeneSearchService;
+import uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexService;
+
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_CELL_TYPE;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_ORGANISM_PART;
 
 @Component
 @RequiredArgsConstructor
 public class CellTypeSearchService {
 
-    private final CellTypeSearchDao cellTypeSearchDao;
+    private final CellMetadataBitmapIndexService cellMetadataBitmapIndexService;
     private final GeneSearchService geneSearchService;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(CellTypeSearchService.class);
@@ -24,6 +29,9 @@ public class CellTypeSearchService {
 
         LOGGER.info("Searching organism parts for this gene ids: {}", geneIds.asList());
 
-        return cellTypeSearchDao.searchCellTypes(geneSearchService.getCellIdsFromGeneIds(geneIds), organismParts);
+        return cellMetadataBitmapIndexService.getValues(
+                geneSearchService.getCellIdsInExperimentsFromGeneIds(geneIds),
+                CTW_CELL_TYPE.name(),
+                ImmutableMap.of(CTW_ORGANISM_PART.name(), organismParts));
     }
 }
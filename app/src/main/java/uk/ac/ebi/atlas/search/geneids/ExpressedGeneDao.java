@@ -0,0 +1,71 @@
+package uk.ac.ebi.atlas.search.geneids;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Interners;
+import org.apache.solr.client.solrj.SolrQuery;
+import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
+import uk.ac.ebi.atlas.solr.cloud.TupleStreamer;
+import uk.ac.ebi.atlas.solr.cloud.collections.Gene2ExperimentCollectionProxy;
+import uk.ac.ebi.atlas.solr.cloud.search.SolrQueryBuilder;
+import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.source.SearchStreamBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static uk.ac.ebi.atlas.solr.cloud.collections.Gene2ExperimentCollectionProxy.BIOENTITY_IDENTIFIER;
+import static uk.ac.ebi.atlas.solr.cloud.collections.Gene2ExperimentCollectionProxy.EXPERIMENT_ACCESSION;
+
+@Component
+public class ExpressedGeneDao {
+    private final Gene2ExperimentCollectionProxy gene2ExperimentCollectionProxy;
+
+    public ExpressedGeneDao(SolrCloudCollectionProxyFactory collectionProxyFactory) {
+        gene2ExperimentCollectionProxy = collectionProxyFactory.create(Gene2ExperimentCollectionProxy.class);
+    }
+
+    // All of scxa-gene2experiment in a single stream: Map<Experiment accession, Gene IDs>. Gene IDs are interned, so
+    // that a gene expressed in many experiments is a single String instance shared by all of their lists.
+    public ImmutableMap<String, ImmutableList<String>> fetchGeneIdsByExperimentAccession() {
+        var g2eQueryBuilder =
+                new SolrQueryBuilder<Gene2ExperimentCollectionProxy>()
+                        .setFieldList(ImmutableSet.of(BIOENTITY_IDENTIFIER, EXPERIMENT_ACCESSION))
+                        .sortBy(BIOENTITY_IDENTIFIER, SolrQuery.ORDER.asc);
+        var g2eSearchBuilder =
+                new SearchStreamBuilder<>(gene2ExperimentCollectionProxy, g2eQueryBuilder).returnAllDocs();
+
+        var geneIdInterner = Interners.<String>newStrongInterner();
+        var geneIdsByExperimentAccession = new HashMap<String, List<String>>();
+        try (var tupleStreamer = TupleStreamer.of(g2eSearchBuilder.build())) {
+            tupleStreamer.get().forEach(tuple ->
+                    geneIdsByExperimentAccession
+                            .computeIfAbsent(tuple.getString(EXPERIMENT_ACCESSION.name()), __ -> new ArrayList<>())
+                            .add(geneIdInterner.intern(tuple.getString(BIOENTITY_IDENTIFIER.name()))));
+        }
+
+        return geneIdsByExperimentAccession.entrySet().stream()
+                .collect(toImmutableMap(Map.Entry::getKey, entry -> ImmutableList.copyOf(entry.getValue())));
+    }
+
+    public ImmutableList<String> fetchGeneIds(String experimentAccession) {
+        var g2eQueryBuilder =
+                new SolrQueryBuilder<Gene2ExperimentCollectionProxy>()
+                        .addFilterFieldByTerm(EXPERIMENT_ACCESSION, experimentAccession)
+                        .setFieldList(BIOENTITY_IDENTIFIER)
+                        .sortBy(BIOENTITY_IDENTIFIER, SolrQuery.ORDER.asc);
+        var g2eSearchBuilder =
+                new SearchStreamBuilder<>(gene2ExperimentCollectionProxy, g2eQueryBuilder).returnAllDocs();
+
+        try (var tupleStreamer = TupleStreamer.of(g2eSearchBuilder.build())) {
+            return tupleStreamer.get()
+                    .map(tuple -> tuple.getString(BIOENTITY_IDENTIFIER.name()))
+                    .collect(toImmutableList());
+        }
+    }
+}
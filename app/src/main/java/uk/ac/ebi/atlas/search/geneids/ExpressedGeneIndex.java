@@ -0,0 +1,103 @@
+package uk.ac.ebi.atlas.search.geneids;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// Genes expressed in at least one experiment, as found in scxa-gene2experiment: a sorted array of gene IDs, and for
+// each of them the number of public and private experiments where it’s expressed. Counting experiments instead of
+// keeping a public/private flag lets us add or take out a single experiment without going over all the others. It’s
+// immutable, updates return a new index, so readers never need to lock.
+public final class ExpressedGeneIndex {
+    private static final ExpressedGeneIndex EMPTY = new ExpressedGeneIndex(new String[0], new int[0], new int[0]);
+
+    private final String[] geneIds;
+    private final int[] publicExperimentCounts;
+    private final int[] privateExperimentCounts;
+
+    private ExpressedGeneIndex(String[] geneIds, int[] publicExperimentCounts, int[] privateExperimentCounts) {
+        this.geneIds = geneIds;
+        this.publicExperimentCounts = publicExperimentCounts;
+        this.privateExperimentCounts = privateExperimentCounts;
+    }
+
+    public static ExpressedGeneIndex empty() {
+        return EMPTY;
+    }
+
+    public int size() {
+        return geneIds.length;
+    }
+
+    public boolean isExpressedInPublicExperiments(String geneId) {
+        var i = Arrays.binarySearch(geneIds, geneId);
+        return i >= 0 && publicExperimentCounts[i] > 0;
+    }
+
+    // Public or private
+    public boolean isExpressedInAnyExperiment(String geneId) {
+        return Arrays.binarySearch(geneIds, geneId) >= 0;
+    }
+
+    // The genes of an experiment that has been loaded
+    public ExpressedGeneIndex add(Collection<String> experimentGeneIds, boolean isPrivate) {
+        return merge(experimentGeneIds, isPrivate, 1);
+    }
+
+    // The genes of an experiment that was previously added with the same privacy; genes that are left without any
+    // experiment are dropped from the index
+    public ExpressedGeneIndex remove(Collection<String> experimentGeneIds, boolean isPrivate) {
+        return merge(experimentGeneIds, isPrivate, -1);
+    }
+
+    private ExpressedGeneIndex merge(Collection<String> experimentGeneIds, boolean isPrivate, int delta) {
+        var changedGeneIds = experimentGeneIds.stream().distinct().sorted().toArray(String[]::new);
+
+        var maxSize = geneIds.length + changedGeneIds.length;
+        var mergedGeneIds = new String[maxSize];
+        var mergedPublicExperimentCounts = new int[maxSize];
+        var mergedPrivateExperimentCounts = new int[maxSize];
+
+        var size = 0;
+        var i = 0;
+        var j = 0;
+        while (i < geneIds.length || j < changedGeneIds.length) {
+            var comparison =
+                    i == geneIds.length ? 1 :
+                    j == changedGeneIds.length ? -1 :
+                    geneIds[i].compareTo(changedGeneIds[j]);
+
+            String geneId;
+            int publicExperimentCount;
+            int privateExperimentCount;
+            if (comparison < 0) {
+                geneId = geneIds[i];
+                publicExperimentCount = publicExperimentCounts[i];
+                privateExperimentCount = privateExperimentCounts[i];
+                i++;
+            } else {
+                geneId = changedGeneIds[j];
+                publicExperimentCount = comparison == 0 ? publicExperimentCounts[i] : 0;
+                privateExperimentCount = comparison == 0 ? privateExperimentCounts[i] : 0;
+                if (isPrivate) {
+                    privateExperimentCount = Math.max(0, privateExperimentCount + delta);
+                } else {
+                    publicExperimentCount = Math.max(0, publicExperimentCount + delta);
+                }
+                i += comparison == 0 ? 1 : 0;
+                j++;
+            }
+
+            if (publicExperimentCount + privateExperimentCount > 0) {
+                mergedGeneIds[size] = geneId;
+                mergedPublicExperimentCounts[size] = publicExperimentCount;
+                mergedPrivateExperimentCounts[size] = privateExperimentCount;
+                size++;
+            }
+        }
+
+        return new ExpressedGeneIndex(
+                Arrays.copyOf(mergedGeneIds, size),
+                Arrays.copyOf(mergedPublicExperimentCounts, size),
+                Arrays.copyOf(mergedPrivateExperimentCounts, size));
+    }
+}
@@ -0,0 +1,274 @@
+package uk.ac.ebi.atlas.search.geneids;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import uk.ac.ebi.atlas.trader.ExperimentVisibility;
+import uk.ac.ebi.atlas.trader.ExperimentVisibilityService;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Which genes are expressed in public or private experiments, kept in memory so that gene and species searches can
+// intersect their results locally instead of streaming the whole of scxa-gene2experiment on every request. The index
+// is built in the background at startup (or on first use, whatever comes first), experiments are added or taken out
+// as they’re loaded, deleted or made private/public, and it can be rebuilt after scxa-gene2experiment is reindexed
+// (see JsonExpressedGeneIndexController). Experiments loaded or changed by the CLI in another process aren’t seen by
+// ScxaExperimentCrud here, so every few seconds the index is checked against the experiment table (through the
+// ExperimentVisibility version) and, if it has changed since, built again in the background while requests are still
+// served with the current one.
+@Service
+public class ExpressedGeneService implements InitializingBean {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExpressedGeneService.class);
+
+    private final ExpressedGeneDao expressedGeneDao;
+    private final ExperimentVisibilityService experimentVisibilityService;
+    private final boolean preload;
+    private final long stalenessCheckIntervalNanos;
+
+    // Held for the whole of a build, while scxa-gene2experiment is streamed; taken before this, never after
+    private final Object buildLock = new Object();
+
+    // What each experiment added to the index, to take it out when it’s updated or deleted; guarded by this
+    private final Map<String, ImmutableList<String>> geneIdsByExperimentAccession = new HashMap<>();
+    private final Set<String> privateExperimentAccessions = new HashSet<>();
+
+    // Version of the ExperimentVisibility snapshot the index is consistent with; guarded by this
+    private long indexedVersion;
+    // Experiments updated or deleted while the index is being built, null otherwise; guarded by this
+    private Set<String> experimentAccessionsUpdatedDuringBuild;
+    // Whether a staleness check has started a build that hasn’t finished yet; guarded by this
+    private boolean isBuildingInBackground;
+
+    private volatile ExpressedGeneIndex index;
+    private volatile long nextStalenessCheckNanos;
+
+    public ExpressedGeneService(ExpressedGeneDao expressedGeneDao,
+                                ExperimentVisibilityService experimentVisibilityService,
+                                @Value("${expressed.genes.preload:true}") boolean preload,
+                                @Value("${expressed.genes.staleness.check.seconds:10}") long stalenessCheckSeconds) {
+        this.expressedGeneDao = expressedGeneDao;
+        this.experimentVisibilityService = experimentVisibilityService;
+        this.preload = preload;
+        this.stalenessCheckIntervalNanos = TimeUnit.SECONDS.toNanos(stalenessCheckSeconds);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (preload) {
+            startInBackground(this::warmUp);
+        }
+    }
+
+    public boolean isExpressedInPublicExperiments(String geneId) {
+        return getIndex().isExpressedInPublicExperiments(geneId);
+    }
+
+    public boolean isExpressedInAnyExperiment(String geneId) {
+        return getIndex().isExpressedInAnyExperiment(geneId);
+    }
+
+    // The genes of the experiment are fetched again from scxa-gene2experiment and replace its previous ones, if any.
+    // Called by ScxaExperimentCrud right after it refreshes the ExperimentVisibility snapshot. If the index hasn’t been
+    // loaded yet (e.g. in the CLI) there’s nothing to update, it’ll include the experiment when it’s first used.
+    public synchronized void updateExperiment(String experimentAccession, boolean isPrivate) {
+        if (index == null) {
+            return;
+        }
+
+        var updatedIndex = removeExperiment(index, experimentAccession);
+        markUpdatedDuringBuild(experimentAccession);
+
+        var geneIds = expressedGeneDao.fetchGeneIds(experimentAccession);
+        if (!geneIds.isEmpty()) {
+            geneIdsByExperimentAccession.put(experimentAccession, geneIds);
+            if (isPrivate) {
+                privateExperimentAccessions.add(experimentAccession);
+            }
+            updatedIndex = updatedIndex.add(geneIds, isPrivate);
+        }
+
+        index = updatedIndex;
+        advanceIndexedVersion();
+        LOGGER.info(
+                "{} genes expressed in {}, {} in all experiments", geneIds.size(), experimentAccession, index.size());
+    }
+
+    public synchronized void deleteExperiment(String experimentAccession) {
+        if (index == null) {
+            return;
+        }
+
+        index = removeExperiment(index, experimentAccession);
+        markUpdatedDuringBuild(experimentAccession);
+        advanceIndexedVersion();
+    }
+
+    // Builds the index from scratch; requests are served with the previous one until the new one is ready. Returns
+    // the number of experiments and genes.
+    public ImmutableMap<String, Integer> refresh() {
+        synchronized (buildLock) {
+            build();
+        }
+        synchronized (this) {
+            return ImmutableMap.of(
+                    "experiments", geneIdsByExperimentAccession.size(),
+                    "genes", index.size());
+        }
+    }
+
+    // Package-private so that tests can choose when background tasks run
+    void startInBackground(Runnable task) {
+        var thread = new Thread(task, "expressed-gene-index");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void warmUp() {
+        try {
+            getIndex();
+        } catch (Exception e) {
+            // It’ll be loaded on first use
+            LOGGER.error("Error loading expressed genes: {}", e.getMessage());
+        }
+    }
+
+    // Only the first read waits for the index to be built; a stale index is served until the new one is ready
+    private ExpressedGeneIndex getIndex() {
+        var index = this.index;
+        if (index == null) {
+            synchronized (buildLock) {
+                if (this.index == null) {
+                    build();
+                }
+            }
+            index = this.index;
+        } else if (isTimeToCheckStaleness()) {
+            checkStaleness();
+        }
+        return index;
+    }
+
+    private void checkStaleness() {
+        var experimentVisibility = experimentVisibilityService.getSnapshot();
+        synchronized (this) {
+            if (!isTimeToCheckStaleness()) {
+                return;
+            }
+            nextStalenessCheckNanos = System.nanoTime() + stalenessCheckIntervalNanos;
+            if (isBuildingInBackground || indexedVersion == experimentVisibility.getVersion()) {
+                return;
+            }
+            isBuildingInBackground = true;
+        }
+
+        startInBackground(() -> {
+            try {
+                synchronized (buildLock) {
+                    build();
+                }
+            } catch (Exception e) {
+                // It’ll be tried again on the next staleness check
+                LOGGER.error("Error rebuilding the expressed gene index: {}", e.getMessage());
+            } finally {
+                synchronized (this) {
+                    isBuildingInBackground = false;
+                }
+            }
+        });
+    }
+
+    private boolean isTimeToCheckStaleness() {
+        return System.nanoTime() - nextStalenessCheckNanos >= 0;
+    }
+
+    // Called while holding the lock. ScxaExperimentCrud refreshes the snapshot, i.e. adds one to its version, before
+    // updating the experiment here; any other change in between (e.g. by the CLI) means the index must be built again.
+    private void advanceIndexedVersion() {
+        var version = experimentVisibilityService.getSnapshot().getVersion();
+        if (indexedVersion == version - 1) {
+            indexedVersion = version;
+        }
+    }
+
+    // Called while holding the lock
+    private ExpressedGeneIndex removeExperiment(ExpressedGeneIndex index, String experimentAccession) {
+        var geneIds = geneIdsByExperimentAccession.remove(experimentAccession);
+        var isPrivate = privateExperimentAccessions.remove(experimentAccession);
+        return geneIds == null ? index : index.remove(geneIds, isPrivate);
+    }
+
+    // Called while holding the lock
+    private void markUpdatedDuringBuild(String experimentAccession) {
+        if (experimentAccessionsUpdatedDuringBuild != null) {
+            experimentAccessionsUpdatedDuringBuild.add(experimentAccession);
+        }
+    }
+
+    // Called while holding buildLock. scxa-gene2experiment is streamed without holding the lock, so reads and
+    // updates go on with the current index in the meantime; experiments updated or deleted meanwhile keep what those
+    // updates did, since the stream may have read them before. Experiments not in the snapshot yet (loaded after it
+    // was read) are taken as private until the index is built again.
+    private void build() {
+        synchronized (this) {
+            experimentAccessionsUpdatedDuringBuild = new HashSet<>();
+        }
+        try {
+            var experimentVisibility = experimentVisibilityService.getSnapshot();
+            var allGeneIdsByExperimentAccession = expressedGeneDao.fetchGeneIdsByExperimentAccession();
+
+            synchronized (this) {
+                var nextGeneIdsByExperimentAccession = new HashMap<String, ImmutableList<String>>();
+                var nextPrivateExperimentAccessions = new HashSet<String>();
+                for (var experimentAccessionAndGeneIds : allGeneIdsByExperimentAccession.entrySet()) {
+                    var experimentAccession = experimentAccessionAndGeneIds.getKey();
+                    if (!experimentAccessionsUpdatedDuringBuild.contains(experimentAccession)) {
+                        nextGeneIdsByExperimentAccession.put(
+                                experimentAccession, experimentAccessionAndGeneIds.getValue());
+                        if (!experimentVisibility.isPublic(experimentAccession)) {
+                            nextPrivateExperimentAccessions.add(experimentAccession);
+                        }
+                    }
+                }
+                for (var experimentAccession : experimentAccessionsUpdatedDuringBuild) {
+                    if (geneIdsByExperimentAccession.containsKey(experimentAccession)) {
+                        nextGeneIdsByExperimentAccession.put(
+                                experimentAccession, geneIdsByExperimentAccession.get(experimentAccession));
+                        if (privateExperimentAccessions.contains(experimentAccession)) {
+                            nextPrivateExperimentAccessions.add(experimentAccession);
+                        }
+                    }
+                }
+
+                var index = ExpressedGeneIndex.empty();
+                for (var experimentAccessionAndGeneIds : nextGeneIdsByExperimentAccession.entrySet()) {
+                    index = index.add(
+                            experimentAccessionAndGeneIds.getValue(),
+                            nextPrivateExperimentAccessions.contains(experimentAccessionAndGeneIds.getKey()));
+                }
+
+                geneIdsByExperimentAccession.clear();
+                geneIdsByExperimentAccession.putAll(nextGeneIdsByExperimentAccession);
+                privateExperimentAccessions.clear();
+                privateExperimentAccessions.addAll(nextPrivateExperimentAccessions);
+                indexedVersion = experimentVisibility.getVersion();
+                this.index = index;
+                nextStalenessCheckNanos = System.nanoTime() + stalenessCheckIntervalNanos;
+                LOGGER.info(
+                        "Loaded {} genes expressed in {} experiments",
+                        index.size(), geneIdsByExperimentAccession.size());
+            }
+        } finally {
+            synchronized (this) {
+                experimentAccessionsUpdatedDuringBuild = null;
+            }
+        }
+    }
+}
@@ -9,34 +9,35 @@ import org.springframework.stereotype.Component;
 import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
 import uk.ac.ebi.atlas.solr.cloud.TupleStreamer;
 import uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy;
-import uk.ac.ebi.atlas.solr.cloud.collections.Gene2ExperimentCollectionProxy;
 import uk.ac.ebi.atlas.solr.cloud.search.SolrQueryBuilder;
-import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.decorator.IntersectStreamBuilder;
-import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.decorator.SelectStreamBuilder;
 import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.source.SearchStreamBuilder;
-import uk.ac.ebi.atlas.trader.ExperimentTraderDao;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.PROPERTY_NAME;
 import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.PROPERTY_VALUE;
 import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.SPECIES;
 
-// Search gene IDs in scxa-gene2experiment by gene property name/value and species (bioentities collection)
+// Search gene IDs expressed in experiments (see ExpressedGeneService) by gene property name/value and species
+// (bioentities collection)
 @Component
 public class GeneIdSearchDao {
     private static final Logger LOGGER = LoggerFactory.getLogger(GeneIdSearchDao.class);
 
     private final BioentitiesCollectionProxy bioentitiesCollectionProxy;
-    private final Gene2ExperimentCollectionProxy gene2ExperimentCollectionProxy;
-    private final ExperimentTraderDao experimentTraderDao;
+    private final ExpressedGeneService expressedGeneService;
 
     public GeneIdSearchDao(SolrCloudCollectionProxyFactory collectionProxyFactory,
-                           ExperimentTraderDao experimentTraderDao) {
+                           ExpressedGeneService expressedGeneService) {
         bioentitiesCollectionProxy = collectionProxyFactory.create(BioentitiesCollectionProxy.class);
-        gene2ExperimentCollectionProxy = collectionProxyFactory.create(Gene2ExperimentCollectionProxy.class);
-        this.experimentTraderDao = experimentTraderDao;
+        this.expressedGeneService = expressedGeneService;
     }
 
     // This is one of the few cases where an empty optional is semantically different from an empty collection. The
@@ -61,6 +62,30 @@ public class GeneIdSearchDao {
         return searchInTwoSteps(bioentitiesQueryBuilder);
     }
 
+    // Same as above for several property names at once, e.g. all ID properties when searching free text. Returns
+    // Map<Property name, Gene IDs>, with an entry for each property name that matches any gene in the bioentities
+    // collection (like a non-empty optional above), with the matching gene IDs expressed in experiments, if any. The
+    // bioentities collection is searched only once, no matter how many property names there are.
+    public ImmutableMap<String, ImmutableSet<String>> searchGeneIdsByPropertyName(String propertyValue,
+                                                                               Collection<String> propertyNames,
+                                                                               String species) {
+        var bioentitiesQueryBuilder =
+                new SolrQueryBuilder<BioentitiesCollectionProxy>()
+                        .addFilterFieldByTerm(SPECIES, species)
+                        .addQueryFieldByTerm(PROPERTY_VALUE, propertyValue)
+                        .addQueryFieldByTerm(PROPERTY_NAME, propertyNames);
+        return searchByPropertyName(bioentitiesQueryBuilder);
+    }
+
+    public ImmutableMap<String, ImmutableSet<String>> searchGeneIdsByPropertyName(String propertyValue,
+                                                                               Collection<String> propertyNames) {
+        var bioentitiesQueryBuilder =
+                new SolrQueryBuilder<BioentitiesCollectionProxy>()
+                        .addQueryFieldByTerm(PROPERTY_VALUE, propertyValue)
+                        .addQueryFieldByTerm(PROPERTY_NAME, propertyNames);
+        return searchByPropertyName(bioentitiesQueryBuilder);
+    }
+
     private Optional<ImmutableSet<String>> searchInTwoSteps(
             SolrQueryBuilder<BioentitiesCollectionProxy> bioentitiesQueryBuilder) {
         bioentitiesQueryBuilder
@@ -82,43 +107,49 @@ public class GeneIdSearchDao {
 
     }
 
-    // A set since we don’t care about the order, we might want a list if results are ranked somehow
-    private ImmutableSet<String> searchWithinGeneIdsExpressedInExperiments(
+    private ImmutableMap<String, ImmutableSet<String>> searchByPropertyName(
             SolrQueryBuilder<BioentitiesCollectionProxy> bioentitiesQueryBuilder) {
-        var privateExperimentAccessions = experimentTraderDao.fetchPrivateExperimentAccessions();
-        var g2eQueryBuilder =
-                new SolrQueryBuilder<Gene2ExperimentCollectionProxy>()
-                        .setFieldList(Gene2ExperimentCollectionProxy.BIOENTITY_IDENTIFIER)
-                        .sortBy(Gene2ExperimentCollectionProxy.BIOENTITY_IDENTIFIER, SolrQuery.ORDER.asc);
-
-        // Skip negative filter if we don't have any private experiments
-        if(!privateExperimentAccessions.isEmpty()){
-            g2eQueryBuilder.addNegativeFilterFieldByTerm(Gene2ExperimentCollectionProxy.EXPERIMENT_ACCESSION,
-                    experimentTraderDao.fetchPrivateExperimentAccessions());
+        // First, the genes that match under each property name, whether they’re expressed or not. All of them: very
+        // common terms of free text searches match hundreds of thousands of documents, so they’re streamed...
+        bioentitiesQueryBuilder
+                .setFieldList(ImmutableSet.of(BioentitiesCollectionProxy.BIOENTITY_IDENTIFIER_DV, PROPERTY_NAME))
+                .sortBy(BioentitiesCollectionProxy.BIOENTITY_IDENTIFIER_DV, SolrQuery.ORDER.asc);
+        var bioentitiesSearchBuilder =
+                new SearchStreamBuilder<>(bioentitiesCollectionProxy, bioentitiesQueryBuilder).returnAllDocs();
+
+        LOGGER.debug("Searching bioentities collection: [{}]", bioentitiesQueryBuilder.build().getQuery());
+        var geneIdsByPropertyName = new LinkedHashMap<String, Set<String>>();
+        try (var tupleStreamer = TupleStreamer.of(bioentitiesSearchBuilder.build())) {
+            tupleStreamer.get().forEach(tuple ->
+                    geneIdsByPropertyName
+                            .computeIfAbsent(tuple.getString(PROPERTY_NAME.name()), __ -> new HashSet<>())
+                            .add(tuple.getString(BioentitiesCollectionProxy.BIOENTITY_IDENTIFIER_DV.name())));
         }
 
+        // ... then which of them are expressed, which we can tell without going back to Solr
+        return geneIdsByPropertyName.entrySet().stream()
+                .collect(toImmutableMap(
+                        Map.Entry::getKey,
+                        entry -> entry.getValue().stream()
+                                .filter(expressedGeneService::isExpressedInPublicExperiments)
+                                .collect(toImmutableSet())));
+    }
+
+    // A set since we don’t care about the order, we might want a list if results are ranked somehow
+    private ImmutableSet<String> searchWithinGeneIdsExpressedInExperiments(
+            SolrQueryBuilder<BioentitiesCollectionProxy> bioentitiesQueryBuilder) {
         // IMPORTANT TO RETURN ALL DOCS!
         var bioentitiesSearchBuilder =
-                new SelectStreamBuilder(
-                        new SearchStreamBuilder<>(bioentitiesCollectionProxy, bioentitiesQueryBuilder).returnAllDocs())
-                        .addFieldMapping(
-                                ImmutableMap.of(
-                                        BioentitiesCollectionProxy.BIOENTITY_IDENTIFIER_DV.name(),
-                                        Gene2ExperimentCollectionProxy.BIOENTITY_IDENTIFIER.name()));
-
-        var g2eSearchBuilder =
-                new SearchStreamBuilder<>(gene2ExperimentCollectionProxy, g2eQueryBuilder).returnAllDocs();
-
-        var sortField = BioentitiesCollectionProxy.BIOENTITY_IDENTIFIER.name();
-        var intersectBuilder = new IntersectStreamBuilder(bioentitiesSearchBuilder, g2eSearchBuilder, sortField);
-
-        // There’s no easy way to get a string representation of a streaming expression unless we set up a
-        // StreamFactory, add all functions, equalitors, comparators, collection, etc. :(
-        LOGGER.debug("Matching documents in bioentities found, retrieving intersection with gene2experiment");
-        try (TupleStreamer tupleStreamer = TupleStreamer.of(intersectBuilder.build())) {
+                new SearchStreamBuilder<>(bioentitiesCollectionProxy, bioentitiesQueryBuilder).returnAllDocs();
+
+        // Genes expressed in public experiments are kept in memory, so we only need to stream the matching bioentities
+        // instead of intersecting them with all of scxa-gene2experiment
+        LOGGER.debug("Matching documents in bioentities found, retrieving those expressed in public experiments");
+        try (TupleStreamer tupleStreamer = TupleStreamer.of(bioentitiesSearchBuilder.build())) {
             return tupleStreamer.get()
-                    .map(tuple -> tuple.getString(sortField))
+                    .map(tuple -> tuple.getString(BioentitiesCollectionProxy.BIOENTITY_IDENTIFIER_DV.name()))
+                    .filter(expressedGeneService::isExpressedInPublicExperiments)
                     .collect(toImmutableSet());
         }
     }
-}
\ No newline at end of file
+}
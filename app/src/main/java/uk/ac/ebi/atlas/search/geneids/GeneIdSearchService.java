@@ -1,5 +1,6 @@
 package uk.ac.ebi.atlas.search.geneids;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
@@ -12,10 +13,11 @@ import uk.ac.ebi.atlas.species.Species;
 import uk.ac.ebi.atlas.species.SpeciesFactory;
 
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.Function;
 import java.util.stream.Stream;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.BIOENTITY_PROPERTY_NAMES;
 
@@ -32,6 +34,12 @@ public class GeneIdSearchService {
                                     .map(propertyName -> propertyName.name)
                                     .collect(toImmutableSet()))
                     .build();
+
+    private static final ImmutableList<String> ID_PROPERTY_NAMES =
+            BIOENTITY_PROPERTY_NAMES.stream()
+                    .map(propertyName -> propertyName.name)
+                    .collect(toImmutableList());
+
     private final GeneIdSearchDao geneIdSearchDao;
 
     private final SpeciesFactory speciesFactory;
@@ -71,31 +79,32 @@ public class GeneIdSearchService {
                 geneQuery.queryTerm(),
                 geneQuery.species().map(Species::getEnsemblName).orElse("(none provided)"));
 
-        return geneQuery.species().isPresent() ?
-                searchIds(propertyName ->
-                        geneIdSearchDao.searchGeneIds(
+        var geneIdsByPropertyName =
+                geneQuery.species().isPresent() ?
+                        geneIdSearchDao.searchGeneIdsByPropertyName(
                                 geneQuery.queryTerm(),
-                                propertyName,
-                                geneQuery.species().get().getEnsemblName())) :
-                searchIds(propertyName -> geneIdSearchDao.searchGeneIds(geneQuery.queryTerm(), propertyName));
-    }
+                                ID_PROPERTY_NAMES,
+                                geneQuery.species().get().getEnsemblName()) :
+                        geneIdSearchDao.searchGeneIdsByPropertyName(geneQuery.queryTerm(), ID_PROPERTY_NAMES);
 
-    private Optional<ImmutableSet<String>> searchIds(Function<String, Optional<ImmutableSet<String>>> idSearcher) {
-        boolean queryMatchesKnownIds = false;
-
-        for (BioentityPropertyName propertyName : BioentitiesCollectionProxy.BIOENTITY_PROPERTY_NAMES) {
-            Optional<ImmutableSet<String>> matchingGeneIds = idSearcher.apply(propertyName.name);
+        return searchIds(geneIdsByPropertyName);
+    }
 
-            if (matchingGeneIds.isPresent()) {
-                if (!matchingGeneIds.get().isEmpty()) {
-                    return matchingGeneIds;
-                }
+    // All property names are searched at once, the gene IDs of the first one in BIOENTITY_PROPERTY_NAMES with any
+    // expressed genes are returned
+    private Optional<ImmutableSet<String>> searchIds(Map<String, ImmutableSet<String>> geneIdsByPropertyName) {
+        if (geneIdsByPropertyName.isEmpty()) {
+            return Optional.empty();
+        }
 
-                queryMatchesKnownIds = true;
+        for (var propertyName : ID_PROPERTY_NAMES) {
+            var matchingGeneIds = geneIdsByPropertyName.getOrDefault(propertyName, ImmutableSet.of());
+            if (!matchingGeneIds.isEmpty()) {
+                return Optional.of(matchingGeneIds);
             }
         }
 
-        return queryMatchesKnownIds ? Optional.of(ImmutableSet.of()) : Optional.empty();
+        return Optional.of(ImmutableSet.of());
     }
 
     public GeneQuery getGeneQueryByRequestParams(MultiValueMap<String, String> requestParams) {
@@ -0,0 +1,26 @@
+package uk.ac.ebi.atlas.search.geneids;
+
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import uk.ac.ebi.atlas.controllers.JsonExceptionHandlingController;
+
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+@Profile("!cli")
+@RestController
+public class JsonExpressedGeneIndexController extends JsonExceptionHandlingController {
+    private final ExpressedGeneService expressedGeneService;
+
+    public JsonExpressedGeneIndexController(ExpressedGeneService expressedGeneService) {
+        this.expressedGeneService = expressedGeneService;
+    }
+
+    // To be called after the scxa-gene2experiment collection has been reindexed
+    @GetMapping(value = "/admin/expressed-genes/refresh",
+                produces = MediaType.APPLICATION_JSON_UTF8_VALUE)
+    public String refreshExpressedGenes() {
+        return GSON.toJson(expressedGeneService.refresh());
+    }
+}
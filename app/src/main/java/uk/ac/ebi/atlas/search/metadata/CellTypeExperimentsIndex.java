@@ -0,0 +1,39 @@
+package uk.ac.ebi.atlas.search.metadata;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.Multimap;
+
+import java.util.Comparator;
+
+import static uk.ac.ebi.atlas.search.metadata.CellTypeMarkerGenesIndex.normalise;
+
+// The experiments where each cell type has marker genes, by normalised label. Together with the marker genes index of
+// each experiment it makes up a cross-experiment index: searches without an experiment filter find the experiments of
+// a cell type here and then its ranked marker genes in their indices, so no statement has to match labels by text.
+public final class CellTypeExperimentsIndex {
+    private final ImmutableSetMultimap<String, String> experimentAccessions;
+
+    private CellTypeExperimentsIndex(ImmutableSetMultimap<String, String> experimentAccessions) {
+        this.experimentAccessions = experimentAccessions;
+    }
+
+    // Takes Multimap<Cell type, Experiment accession>; labels that normalise to the same key are merged
+    public static CellTypeExperimentsIndex create(Multimap<String, String> experimentAccessionsByCellType) {
+        var experimentAccessions =
+                ImmutableSetMultimap.<String, String>builder().orderValuesBy(Comparator.naturalOrder());
+        experimentAccessionsByCellType.forEach((cellType, experimentAccession) ->
+                experimentAccessions.put(normalise(cellType), experimentAccession));
+
+        return new CellTypeExperimentsIndex(experimentAccessions.build());
+    }
+
+    public int cellTypeCount() {
+        return experimentAccessions.keySet().size();
+    }
+
+    // Sorted by accession
+    public ImmutableSet<String> experimentAccessions(String cellType) {
+        return experimentAccessions.get(normalise(cellType));
+    }
+}
@@ -0,0 +1,68 @@
+package uk.ac.ebi.atlas.search.metadata;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGene;
+import uk.ac.ebi.atlas.monitoring.Weighed;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+
+// The marker genes of each cell type of an experiment, with their mean and median expression in the cells of that same
+// type, ranked by p-value. Cell types are looked up by their normalised label (see normalise), so the marker genes of
+// a cell type are found with a single hash lookup instead of filtering all marker genes by the text of the label.
+public final class CellTypeMarkerGenesIndex implements Weighed {
+    private static final Comparator<MarkerGene> BY_P_VALUE = Comparator.comparingDouble(MarkerGene::pValue);
+
+    private final ImmutableMap<String, ImmutableList<MarkerGene>> markerGenes;
+
+    private CellTypeMarkerGenesIndex(ImmutableMap<String, ImmutableList<MarkerGene>> markerGenes) {
+        this.markerGenes = markerGenes;
+    }
+
+    // Takes Map<Cell type, Marker genes>; labels that normalise to the same key are merged
+    public static CellTypeMarkerGenesIndex create(Map<String, ? extends Iterable<MarkerGene>> markerGenesByCellType) {
+        var markerGenes = new LinkedHashMap<String, ImmutableList.Builder<MarkerGene>>();
+        markerGenesByCellType.forEach((cellType, cellTypeMarkerGenes) ->
+                markerGenes.computeIfAbsent(normalise(cellType), __ -> ImmutableList.builder())
+                        .addAll(cellTypeMarkerGenes));
+
+        return new CellTypeMarkerGenesIndex(
+                markerGenes.entrySet().stream()
+                        .collect(toImmutableMap(
+                                Map.Entry::getKey,
+                                entry -> entry.getValue().build().stream()
+                                        .sorted(BY_P_VALUE)
+                                        .collect(toImmutableList()))));
+    }
+
+    // Lower case and without leading, trailing or repeated whitespace, e.g. “ T  cell” and “t cell” are the same
+    public static String normalise(String cellType) {
+        return cellType.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    public int cellTypeCount() {
+        return markerGenes.size();
+    }
+
+    public ImmutableList<MarkerGene> markerGenes(String cellType) {
+        return markerGenes.getOrDefault(normalise(cellType), ImmutableList.of());
+    }
+
+    @Override
+    public long estimatedBytes() {
+        var bytes = OBJECT_HEADER_BYTES;
+        for (var cellType : markerGenes.entrySet()) {
+            bytes += Weighed.estimatedBytes(cellType.getKey()) + OBJECT_HEADER_BYTES + ARRAY_HEADER_BYTES;
+            for (var markerGene : cellType.getValue()) {
+                bytes += REFERENCE_BYTES + markerGene.estimatedBytes();
+            }
+        }
+        return bytes;
+    }
+}
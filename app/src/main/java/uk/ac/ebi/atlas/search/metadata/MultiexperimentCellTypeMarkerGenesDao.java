@@ -1,117 +1,111 @@
 package uk.ac.ebi.atlas.search.metadata;
 
-import com.google.common.collect.ImmutableCollection;
+import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.ImmutableSet;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.jdbc.core.RowCallbackHandler;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.stereotype.Repository;
 import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGene;
+import uk.ac.ebi.atlas.trader.ExperimentVisibility;
 
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 
 @Repository
 public class MultiexperimentCellTypeMarkerGenesDao {
     private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
-	public MultiexperimentCellTypeMarkerGenesDao(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
+    public MultiexperimentCellTypeMarkerGenesDao(NamedParameterJdbcTemplate namedParameterJdbcTemplate) {
         this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
     }
 
-	private static final String SELECT_MARKER_GENES_WITH_AVERAGES_PER_CELL_TYPE_ALL_EXPS =
-			"SELECT " +
-					"g.experiment_accession, " +
-					"m.gene_id, " +
-					"g.variable AS cell_group_type, " +
-					"h.value AS cell_group_value_where_marker, " +
-					"g.value AS cell_group_value," +
-					"m.marker_probability AS marker_p_value, " +
-					"s.mean_expression, " +
-					"s.median_expression, " +
-					"e.expression_unit " +
-			"FROM " +
-					"scxa_cell_group_marker_gene_stats s, " +
-					"scxa_cell_group_marker_genes m, " +
-					"scxa_cell_group g, " +
-					"scxa_cell_group h, " +
-					"experiment e " +
-			"WHERE " +
-					"s.cell_group_id = g.id AND " +
-					"s.marker_id = m.id AND " +
-					"m.cell_group_id = h.id AND " +
-					"m.marker_probability < 0.05 AND " +
-					"h.value = :cell_type AND " +
-					"g.value = :cell_type AND " +
-					"s.expression_type = 0 AND " +
-					"e.accession = g.experiment_accession " +
-			"ORDER BY " +
-					"experiment_accession, " +
-					"marker_p_value";
-
+    // Marker genes of every cell type of an experiment, with their expression in the cells of that same type
     private static final String SELECT_MARKER_GENES_WITH_AVERAGES_PER_CELL_TYPE =
             "SELECT " +
-					"g.experiment_accession, " +
-					"m.gene_id, " +
-					"g.variable AS cell_group_type, " +
-					"h.value AS cell_group_value_where_marker, " +
-					"g.value AS cell_group_value," +
-					"m.marker_probability AS marker_p_value, " +
-					"s.mean_expression, " +
-					"s.median_expression, " +
-					"e.expression_unit " +
-			"FROM " +
-					"scxa_cell_group_marker_gene_stats s, " +
-					"scxa_cell_group_marker_genes m, " +
-					"scxa_cell_group g, " +
-					"scxa_cell_group h, " +
-					"experiment e " +
-			"WHERE " +
-					"s.cell_group_id = g.id AND " +
-					"s.marker_id = m.id AND " +
-					"m.cell_group_id = h.id AND " +
-					"g.experiment_accession IN (:experiment_accessions) AND " +
-					"m.marker_probability < 0.05 AND " +
-					"h.value = :cell_type AND " +
-					"g.value = :cell_type AND " +
-					"s.expression_type = 0 AND " +
-					"e.accession = g.experiment_accession " +
-			"ORDER BY " +
-					"experiment_accession, " +
-					"marker_p_value";
+                    "g.experiment_accession, " +
+                    "m.gene_id, " +
+                    "g.variable AS cell_group_type, " +
+                    "g.value AS cell_group_value, " +
+                    "m.marker_probability AS marker_p_value, " +
+                    "s.mean_expression, " +
+                    "s.median_expression, " +
+                    "e.expression_unit " +
+            "FROM " +
+                    "scxa_cell_group_marker_gene_stats s, " +
+                    "scxa_cell_group_marker_genes m, " +
+                    "scxa_cell_group g, " +
+                    "scxa_cell_group h, " +
+                    "experiment e " +
+            "WHERE " +
+                    "s.cell_group_id = g.id AND " +
+                    "s.marker_id = m.id AND " +
+                    "m.cell_group_id = h.id AND " +
+                    "g.experiment_accession = :experiment_accession AND " +
+                    "m.marker_probability < 0.05 AND " +
+                    "h.value = g.value AND " +
+                    "s.expression_type = 0 AND " +
+                    "e.accession = g.experiment_accession " +
+            "ORDER BY " +
+                    "marker_p_value";
+
+    // Cell type labels with marker genes in each experiment; there are only as many rows as cell groups
+    private static final String SELECT_CELL_TYPES_WITH_MARKER_GENES =
+            "SELECT DISTINCT g.experiment_accession, g.value AS cell_group_value " +
+            "FROM " +
+                    "scxa_cell_group g " +
+            "WHERE " +
+                    "EXISTS (" +
+                            "SELECT 1 FROM scxa_cell_group_marker_genes m " +
+                            "WHERE m.cell_group_id = g.id AND m.marker_probability < 0.05)";
+
+    // Built once per experiment, by the first search that needs it, and evicted by ExperimentCacheEvictor
+    @Cacheable("cellTypeMarkerGenesIndex")
+    public CellTypeMarkerGenesIndex fetchCellTypeMarkerGenesIndex(String experimentAccession) {
+        var markerGenesByCellType = new LinkedHashMap<String, List<MarkerGene>>();
+
+        namedParameterJdbcTemplate.query(
+                SELECT_MARKER_GENES_WITH_AVERAGES_PER_CELL_TYPE,
+                ImmutableMap.of("experiment_accession", experimentAccession),
+                (RowCallbackHandler) resultSet ->
+                        markerGenesByCellType
+                                .computeIfAbsent(resultSet.getString("cell_group_value"), __ -> new ArrayList<>())
+                                .add(createMarkerGene(resultSet)));
 
-	public List<MarkerGene> getCellTypeMarkerGenes(ImmutableCollection<String> experimentAccessions, String cellType) {
-		var namedParameters =
-				ImmutableMap.of(
-						"experiment_accessions", experimentAccessions,
-						"cell_type", cellType);
+        return CellTypeMarkerGenesIndex.create(markerGenesByCellType);
+    }
+
+    // Built once per visibility snapshot, i.e. again after any experiment is loaded, updated, deleted or made
+    // private/public, and only with the public experiments of the snapshot
+    @Cacheable(cacheNames = "cellTypeExperimentsIndex", key = "#experimentVisibility.version")
+    public CellTypeExperimentsIndex fetchCellTypeExperimentsIndex(ExperimentVisibility experimentVisibility) {
+        var experimentAccessionsByCellType = HashMultimap.<String, String>create();
 
-		return namedParameterJdbcTemplate.query(
-				SELECT_MARKER_GENES_WITH_AVERAGES_PER_CELL_TYPE,
-				namedParameters,
-				(resultSet, rowNumber) -> MarkerGene.create(
-						resultSet.getString("gene_id"),
-						resultSet.getString("cell_group_type"),
-						resultSet.getString("experiment_accession"),
-						resultSet.getDouble("marker_p_value"),
-						resultSet.getString("experiment_accession"),
-						resultSet.getDouble("median_expression"),
-						resultSet.getDouble("mean_expression"),
-						resultSet.getString("expression_unit")));
-	}
+        namedParameterJdbcTemplate.query(
+                SELECT_CELL_TYPES_WITH_MARKER_GENES,
+                (RowCallbackHandler) resultSet -> {
+                    var experimentAccession = resultSet.getString("experiment_accession");
+                    if (experimentVisibility.isPublic(experimentAccession)) {
+                        experimentAccessionsByCellType.put(
+                                resultSet.getString("cell_group_value"), experimentAccession);
+                    }
+                });
 
-	public List<MarkerGene> getCellTypeMarkerGenes(String cellType) {
-		var namedParameters = ImmutableMap.of("cell_type", cellType);
+        return CellTypeExperimentsIndex.create(experimentAccessionsByCellType);
+    }
 
-		return namedParameterJdbcTemplate.query(
-				SELECT_MARKER_GENES_WITH_AVERAGES_PER_CELL_TYPE_ALL_EXPS,
-				namedParameters,
-				(resultSet, rowNumber) -> MarkerGene.create(
-						resultSet.getString("gene_id"),
-						resultSet.getString("cell_group_type"),
-						resultSet.getString("experiment_accession"),
-						resultSet.getDouble("marker_p_value"),
-						resultSet.getString("experiment_accession"),
-						resultSet.getDouble("median_expression"),
-						resultSet.getDouble("mean_expression"),
-						resultSet.getString("expression_unit")));
-	}
+    private static MarkerGene createMarkerGene(ResultSet resultSet) throws SQLException {
+        return MarkerGene.create(
+                resultSet.getString("gene_id"),
+                resultSet.getString("cell_group_type"),
+                resultSet.getString("experiment_accession"),
+                resultSet.getDouble("marker_p_value"),
+                resultSet.getString("experiment_accession"),
+                resultSet.getDouble("median_expression"),
+                resultSet.getDouble("mean_expression"),
+                resultSet.getString("expression_unit"));
+    }
 }
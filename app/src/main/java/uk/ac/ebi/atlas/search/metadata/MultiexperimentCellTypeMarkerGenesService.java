@@ -2,35 +2,50 @@ package uk.ac.ebi.atlas.search.metadata;
 
 import com.google.common.collect.ImmutableCollection;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSortedSet;
 import org.springframework.stereotype.Service;
 import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGene;
+import uk.ac.ebi.atlas.trader.ExperimentVisibilityService;
+
+import java.util.stream.Stream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 
 @Service
 public class MultiexperimentCellTypeMarkerGenesService {
     private final MultiexperimentCellTypeMarkerGenesDao multiexperimentCellTypeMarkerGenesDao;
+    private final ExperimentVisibilityService experimentVisibilityService;
 
     public MultiexperimentCellTypeMarkerGenesService(
-            MultiexperimentCellTypeMarkerGenesDao multiexperimentCellTypeMarkerGenesDao) {
+            MultiexperimentCellTypeMarkerGenesDao multiexperimentCellTypeMarkerGenesDao,
+            ExperimentVisibilityService experimentVisibilityService) {
         this.multiexperimentCellTypeMarkerGenesDao = multiexperimentCellTypeMarkerGenesDao;
+        this.experimentVisibilityService = experimentVisibilityService;
     }
 
+    // Marker genes sorted by experiment accession and p-value, looked up in the index of each experiment
     public ImmutableList<MarkerGene> getCellTypeMarkerGeneProfile(ImmutableCollection<String> experimentAccessions,
                                                                   String cellType) {
-        var cellTypeMarkerGenes =
-                multiexperimentCellTypeMarkerGenesDao.getCellTypeMarkerGenes(experimentAccessions, cellType);
-
-        return cellTypeMarkerGenes.stream()
-                .filter(markerGene -> !markerGene.cellGroupValue().equalsIgnoreCase("Not available"))
-                .filter(markerGene -> !markerGene.cellGroupValueWhereMarker().equalsIgnoreCase("Not available"))
-                .collect(toImmutableList());
+        return withoutNotAvailable(
+                ImmutableSortedSet.copyOf(experimentAccessions).stream()
+                        .flatMap(experimentAccession ->
+                                multiexperimentCellTypeMarkerGenesDao.fetchCellTypeMarkerGenesIndex(experimentAccession)
+                                        .markerGenes(cellType)
+                                        .stream()));
     }
 
+    // Marker genes of all public experiments, sorted by experiment accession and p-value; only the indices of the
+    // experiments where the cell type has marker genes are looked up
     public ImmutableList<MarkerGene> getCellTypeMarkerGeneProfile(String cellType) {
-        var cellTypeMarkerGenes = multiexperimentCellTypeMarkerGenesDao.getCellTypeMarkerGenes(cellType);
+        return getCellTypeMarkerGeneProfile(
+                multiexperimentCellTypeMarkerGenesDao
+                        .fetchCellTypeExperimentsIndex(experimentVisibilityService.getSnapshot())
+                        .experimentAccessions(cellType),
+                cellType);
+    }
 
-        return cellTypeMarkerGenes.stream()
+    private static ImmutableList<MarkerGene> withoutNotAvailable(Stream<MarkerGene> markerGenes) {
+        return markerGenes
                 .filter(markerGene -> !markerGene.cellGroupValue().equalsIgnoreCase("Not available"))
                 .filter(markerGene -> !markerGene.cellGroupValueWhereMarker().equalsIgnoreCase("Not available"))
                 .collect(toImmutableList());
@@ -1,17 +1,22 @@
 package uk.ac.ebi.atlas.search.organismpart;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import lombok.RequiredArgsConstructor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 import uk.ac.ebi.atlas.search.GeneSearchService;
+import uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexService;
+
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_CELL_TYPE;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_ORGANISM_PART;
 
 @Component
 @RequiredArgsConstructor
 public class OrganismPartSearchService {
 
-    private final OrganismPartSearchDao organismPartSearchDao;
+    private final CellMetadataBitmapIndexService cellMetadataBitmapIndexService;
     private final GeneSearchService geneSearchService;
 
     private static final Logger LOGGER = LoggerFactory.getLogger(OrganismPartSearchService.class);
@@ -24,7 +29,10 @@ public class OrganismPartSearchService {
 
         LOGGER.info("Searching organism parts for this gene ids: {}", geneIds.asList());
 
-        return organismPartSearchDao.searchOrganismPart(geneSearchService.getCellIdsFromGeneIds(geneIds), cellTypes);
+        return cellMetadataBitmapIndexService.getValues(
+                geneSearchService.getCellIdsInExperimentsFromGeneIds(geneIds),
+                CTW_ORGANISM_PART.name(),
+                ImmutableMap.of(CTW_CELL_TYPE.name(), cellTypes));
     }
 
 }
@@ -7,12 +7,11 @@ import org.apache.solr.client.solrj.SolrQuery;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
+import uk.ac.ebi.atlas.search.geneids.ExpressedGeneService;
 import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
 import uk.ac.ebi.atlas.solr.cloud.TupleStreamer;
 import uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy;
-import uk.ac.ebi.atlas.solr.cloud.collections.Gene2ExperimentCollectionProxy;
 import uk.ac.ebi.atlas.solr.cloud.search.SolrQueryBuilder;
-import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.decorator.InnerJoinStreamBuilder;
 import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.decorator.SelectStreamBuilder;
 import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.decorator.UniqueStreamBuilder;
 import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.source.SearchStreamBuilder;
@@ -31,11 +30,12 @@ public class SpeciesSearchDao {
     private static final Logger LOGGER = LoggerFactory.getLogger(SpeciesSearchDao.class);
 
     private final BioentitiesCollectionProxy bioentitiesCollectionProxy;
-    private final Gene2ExperimentCollectionProxy gene2ExperimentCollectionProxy;
+    private final ExpressedGeneService expressedGeneService;
 
-    public SpeciesSearchDao(SolrCloudCollectionProxyFactory collectionProxyFactory) {
+    public SpeciesSearchDao(SolrCloudCollectionProxyFactory collectionProxyFactory,
+                            ExpressedGeneService expressedGeneService) {
         bioentitiesCollectionProxy = collectionProxyFactory.create(BioentitiesCollectionProxy.class);
-        gene2ExperimentCollectionProxy = collectionProxyFactory.create(Gene2ExperimentCollectionProxy.class);
+        this.expressedGeneService = expressedGeneService;
     }
 
     public ImmutableSet<String> searchSpecies(String searchTerm) {
@@ -43,64 +43,41 @@ public class SpeciesSearchDao {
     }
 
     public ImmutableSet<String> searchSpecies(String searchTerm, String category) {
-        // innerJoin(
-        //      unique(
-        //          select(
-        //              search(bioentities-v1, q=property_value:ASPM AND property_name:symbol,
-        //                              fl="species_dv,bioentity_identifier_dv",
-        //                              sort="bioentity_identifier_dv asc",
-        //                              qt="/export"
-        //              ),
-        //              bioentity_identifier_dv as bioentity_identifier, species_dv as species
+        // unique(
+        //      select(
+        //          search(bioentities-v1, q=property_value:ASPM AND property_name:symbol,
+        //                          fl="species_dv,bioentity_identifier_dv",
+        //                          sort="bioentity_identifier_dv asc",
+        //                          qt="/export"
         //          ),
-        //          over="bioentity_identifier"
+        //          bioentity_identifier_dv as bioentity_identifier, species_dv as species
         //      ),
-        //      unique(
-        //          search(scxa-gene2experiment-v1, q=*:*,
-        //                                          fl="bioentity_identifier",
-        //                                          sort="bioentity_identifier asc",
-        //                                          qt="/export"
-        //          ),
-        //          over="bioentity_identifier"
-        //      ),
-        //  on="bioentity_identifier"
+        //      over="bioentity_identifier"
         // )
+        // Genes that aren’t expressed in any experiment are filtered out in memory (see ExpressedGeneService)
 
         if (StringUtils.isBlank(searchTerm)) {
             LOGGER.info("We can't conduct a search with an empty search term.");
             return ImmutableSet.of();
         }
 
-        var streamBuilderForSpecies = new InnerJoinStreamBuilder(
-                getStreamBuilderForUniqueSpeciesFromBioEntities(searchTerm, category),
-                getStreamBuilderForUniqueBioEntityIDFromGene2Experiment(),
-                BIOENTITY_IDENTIFIER.name()
-        );
+        var streamBuilderForSpecies = getStreamBuilderForUniqueSpeciesFromBioEntities(searchTerm, category);
 
         LOGGER.info("Searching species by the given search term: {} and category: {}", searchTerm, category);
         return getSpeciesFromStreamBuilder(streamBuilderForSpecies);
     }
 
-    private ImmutableSet<String> getSpeciesFromStreamBuilder(InnerJoinStreamBuilder speciesStreamBuilder) {
+    private ImmutableSet<String> getSpeciesFromStreamBuilder(UniqueStreamBuilder speciesStreamBuilder) {
         try (TupleStreamer tupleStreamer = TupleStreamer.of(speciesStreamBuilder.build())) {
             return tupleStreamer.get()
+                    .filter(tuple -> expressedGeneService.isExpressedInAnyExperiment(
+                            tuple.getString(BIOENTITY_IDENTIFIER.name())))
                     .map(tuple -> tuple.getString(SPECIES.name()))
                     .collect(toImmutableSet()
             );
         }
     }
 
-    private UniqueStreamBuilder getStreamBuilderForUniqueBioEntityIDFromGene2Experiment() {
-        var bioEntitiesFromGene2Experiment =
-                new SolrQueryBuilder<Gene2ExperimentCollectionProxy>()
-                        .setFieldList(Gene2ExperimentCollectionProxy.BIOENTITY_IDENTIFIER)
-                        .sortBy(Gene2ExperimentCollectionProxy.BIOENTITY_IDENTIFIER, SolrQuery.ORDER.asc);
-        var searchBuilderForBioEntities =
-                new SearchStreamBuilder<>(
-                        gene2ExperimentCollectionProxy, bioEntitiesFromGene2Experiment).returnAllDocs();
-        return new UniqueStreamBuilder(searchBuilderForBioEntities, BIOENTITY_IDENTIFIER.name());
-    }
-
     private UniqueStreamBuilder getStreamBuilderForUniqueSpeciesFromBioEntities(String searchText, String category) {
         var bioEntitiesByTextAndCategory = new SolrQueryBuilder<BioentitiesCollectionProxy>()
                 .addQueryFieldByTerm(PROPERTY_VALUE, searchText)
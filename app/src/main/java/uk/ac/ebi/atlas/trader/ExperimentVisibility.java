@@ -0,0 +1,101 @@
+package uk.ac.ebi.atlas.trader;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.Collection;
+import java.util.Map;
+
+// An immutable snapshot of which experiments are public and which are private, with the access keys of the latter.
+// Every snapshot has a version, and each experiment keeps the version of the snapshot where its visibility last
+// changed; cache keys of responses that depend on the access key include it (see cacheScope), so that nothing cached
+// before an experiment was made private, or before its access key changed, can be served afterwards.
+public final class ExperimentVisibility {
+    private static final ExperimentVisibility EMPTY =
+            new ExperimentVisibility(0, ImmutableSet.of(), ImmutableMap.of(), ImmutableMap.of());
+
+    private final long version;
+    private final ImmutableSet<String> publicExperimentAccessions;
+    // Map<Experiment accession, Access key>
+    private final ImmutableMap<String, String> privateExperimentAccessKeys;
+    // Map<Experiment accession, Version>
+    private final ImmutableMap<String, Long> experimentVersions;
+
+    private ExperimentVisibility(long version,
+                                 ImmutableSet<String> publicExperimentAccessions,
+                                 ImmutableMap<String, String> privateExperimentAccessKeys,
+                                 ImmutableMap<String, Long> experimentVersions) {
+        this.version = version;
+        this.publicExperimentAccessions = publicExperimentAccessions;
+        this.privateExperimentAccessKeys = privateExperimentAccessKeys;
+        this.experimentVersions = experimentVersions;
+    }
+
+    public static ExperimentVisibility empty() {
+        return EMPTY;
+    }
+
+    // The next version, where experiments whose visibility or access key is the same as in this one keep their version
+    public ExperimentVisibility update(Collection<String> publicExperimentAccessions,
+                                       Map<String, String> privateExperimentAccessKeys) {
+        var nextVersion = version + 1;
+
+        var nextExperimentVersions = ImmutableMap.<String, Long>builder();
+        for (var experimentAccession : publicExperimentAccessions) {
+            nextExperimentVersions.put(
+                    experimentAccession,
+                    isPublic(experimentAccession) ? experimentVersions.get(experimentAccession) : nextVersion);
+        }
+        for (var experimentAccessionAndAccessKey : privateExperimentAccessKeys.entrySet()) {
+            var experimentAccession = experimentAccessionAndAccessKey.getKey();
+            nextExperimentVersions.put(
+                    experimentAccession,
+                    experimentAccessionAndAccessKey.getValue().equals(
+                            this.privateExperimentAccessKeys.get(experimentAccession)) ?
+                            experimentVersions.get(experimentAccession) :
+                            nextVersion);
+        }
+
+        return new ExperimentVisibility(
+                nextVersion,
+                ImmutableSet.copyOf(publicExperimentAccessions),
+                ImmutableMap.copyOf(privateExperimentAccessKeys),
+                nextExperimentVersions.build());
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public ImmutableSet<String> getPublicExperimentAccessions() {
+        return publicExperimentAccessions;
+    }
+
+    public ImmutableSet<String> getPrivateExperimentAccessions() {
+        return privateExperimentAccessKeys.keySet();
+    }
+
+    public boolean isPublic(String experimentAccession) {
+        return publicExperimentAccessions.contains(experimentAccession);
+    }
+
+    public boolean isPrivate(String experimentAccession) {
+        return privateExperimentAccessKeys.containsKey(experimentAccession);
+    }
+
+    // Public experiments can be seen by anyone, private ones only with their access key
+    public boolean isAccessible(String experimentAccession, String accessKey) {
+        return isPublic(experimentAccession) ||
+                (isPrivate(experimentAccession) &&
+                        privateExperimentAccessKeys.get(experimentAccession).equals(accessKey));
+    }
+
+    // To be added to the cache key of methods that check the access key, after the experiment accession, e.g.
+    // "{#experimentAccession, @experimentVisibilityService.snapshot.cacheScope(#experimentAccession, #accessKey)}"
+    // Denied requests get a different key, otherwise they’d be served what was cached for allowed ones; they throw,
+    // so that key is never filled.
+    public String cacheScope(String experimentAccession, String accessKey) {
+        return experimentVersions.getOrDefault(experimentAccession, 0L) +
+                (isAccessible(experimentAccession, accessKey) ? "" : "-denied");
+    }
+}
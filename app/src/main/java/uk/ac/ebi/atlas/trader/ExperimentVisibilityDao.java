@@ -0,0 +1,49 @@
+package uk.ac.ebi.atlas.trader;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.ResultSet;
+import java.util.HashMap;
+import java.util.HashSet;
+
+@Component
+public class ExperimentVisibilityDao {
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExperimentVisibilityDao(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // A hash of the rows of the experiment table, which changes whenever an experiment is loaded, updated, deleted or
+    // made private/public; the table has one row per experiment, so it’s cheap enough to compute every few seconds
+    @Transactional(transactionManager = "txManager", readOnly = true)
+    public String fetchFingerprint() {
+        return jdbcTemplate.queryForObject(
+                "SELECT coalesce(md5(string_agg(" +
+                        "concat_ws(' ', accession, private, access_key, last_update), ',' ORDER BY accession)), '') " +
+                        "FROM experiment",
+                String.class);
+    }
+
+    // All experiments with a single statement, the table has one row per experiment
+    @Transactional(transactionManager = "txManager", readOnly = true)
+    public ExperimentVisibility fetchNextVisibility(ExperimentVisibility currentVisibility) {
+        return jdbcTemplate.query(
+                "SELECT accession, access_key, private FROM experiment",
+                (ResultSet resultSet) -> {
+                    var publicExperimentAccessions = new HashSet<String>();
+                    var privateExperimentAccessKeys = new HashMap<String, String>();
+                    while (resultSet.next()) {
+                        if (resultSet.getBoolean("private")) {
+                            privateExperimentAccessKeys.put(
+                                    resultSet.getString("accession"), resultSet.getString("access_key"));
+                        } else {
+                            publicExperimentAccessions.add(resultSet.getString("accession"));
+                        }
+                    }
+                    return currentVisibility.update(publicExperimentAccessions, privateExperimentAccessKeys);
+                });
+    }
+}
@@ -0,0 +1,83 @@
+package uk.ac.ebi.atlas.trader;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.TimeUnit;
+
+// Holds the current ExperimentVisibility snapshot. Readers get the whole snapshot at once, so the public and private
+// experiments they see are always consistent with each other. Experiments can also be loaded, deleted or made
+// private/public by the CLI in another process, so every few seconds a read compares a fingerprint of the experiment
+// table with the one the snapshot was read with, and reads the table again if they differ; all other reads, e.g. the
+// cache keys of every request, are served from memory.
+@Service
+public class ExperimentVisibilityService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExperimentVisibilityService.class);
+
+    private final ExperimentVisibilityDao experimentVisibilityDao;
+    private final long checkIntervalNanos;
+
+    private volatile FingerprintedVisibility current;
+    private volatile long nextCheckNanos;
+
+    public ExperimentVisibilityService(ExperimentVisibilityDao experimentVisibilityDao,
+                                       @Value("${experiment.visibility.check.seconds:5}") long checkSeconds) {
+        this.experimentVisibilityDao = experimentVisibilityDao;
+        this.checkIntervalNanos = TimeUnit.SECONDS.toNanos(checkSeconds);
+    }
+
+    public ExperimentVisibility getSnapshot() {
+        var current = this.current;
+        if (current == null || isTimeToCheck()) {
+            synchronized (this) {
+                if (this.current == null || isTimeToCheck()) {
+                    var fingerprint = experimentVisibilityDao.fetchFingerprint();
+                    if (this.current == null || !this.current.fingerprint.equals(fingerprint)) {
+                        load(fingerprint);
+                    }
+                    nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+                }
+                current = this.current;
+            }
+        }
+        return current.visibility;
+    }
+
+    // Reads the experiment table again and swaps the snapshot; requests are served with the previous one until the
+    // new one is ready
+    public synchronized ExperimentVisibility refresh() {
+        var visibility = load(experimentVisibilityDao.fetchFingerprint()).visibility;
+        nextCheckNanos = System.nanoTime() + checkIntervalNanos;
+        return visibility;
+    }
+
+    private boolean isTimeToCheck() {
+        return System.nanoTime() - nextCheckNanos >= 0;
+    }
+
+    // Called while holding the lock. The fingerprint is read before the table: if the table changes in between, the
+    // next check loads it once more.
+    private FingerprintedVisibility load(String fingerprint) {
+        var visibility = experimentVisibilityDao.fetchNextVisibility(
+                current == null ? ExperimentVisibility.empty() : current.visibility);
+        current = new FingerprintedVisibility(fingerprint, visibility);
+        LOGGER.info(
+                "Experiment visibility version {}: {} public and {} private experiments",
+                visibility.getVersion(),
+                visibility.getPublicExperimentAccessions().size(),
+                visibility.getPrivateExperimentAccessions().size());
+        return current;
+    }
+
+    private static final class FingerprintedVisibility {
+        private final String fingerprint;
+        private final ExperimentVisibility visibility;
+
+        private FingerprintedVisibility(String fingerprint, ExperimentVisibility visibility) {
+            this.fingerprint = fingerprint;
+            this.visibility = visibility;
+        }
+    }
+}
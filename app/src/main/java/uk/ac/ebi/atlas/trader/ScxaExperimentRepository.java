@@ -5,9 +5,8 @@ import org.slf4j.LoggerFactory;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Repository;
 import uk.ac.ebi.atlas.controllers.ResourceNotFoundException;
+import uk.ac.ebi.atlas.experimentimport.CachedExperimentFilesParser;
 import uk.ac.ebi.atlas.experimentimport.ExperimentCrudDao;
-import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
-import uk.ac.ebi.atlas.experimentimport.sdrf.SdrfParser;
 import uk.ac.ebi.atlas.model.experiment.Experiment;
 import uk.ac.ebi.atlas.model.experiment.ExperimentDesign;
 import uk.ac.ebi.atlas.trader.factory.SingleCellBaselineExperimentFactory;
@@ -17,21 +16,15 @@ public class ScxaExperimentRepository implements ExperimentRepository {
     private static final Logger LOGGER = LoggerFactory.getLogger(ScxaExperimentRepository.class);
 
     private final ExperimentCrudDao experimentCrudDao;
-    private final ExperimentDesignParser experimentDesignParser;
-    private final IdfParser idfParser;
-    private final SdrfParser sdrfParser;
+    private final CachedExperimentFilesParser cachedExperimentFilesParser;
     private final SingleCellBaselineExperimentFactory singleCellBaselineExperimentFactory;
 
     public ScxaExperimentRepository(ExperimentCrudDao experimentCrudDao,
-                                    ExperimentDesignParser experimentDesignParser,
-                                    IdfParser idfParser,
-                                    SingleCellBaselineExperimentFactory singleCellBaselineExperimentFactory,
-                                    SdrfParser sdrfParser) {
+                                    CachedExperimentFilesParser cachedExperimentFilesParser,
+                                    SingleCellBaselineExperimentFactory singleCellBaselineExperimentFactory) {
         this.experimentCrudDao = experimentCrudDao;
-        this.experimentDesignParser = experimentDesignParser;
-        this.idfParser = idfParser;
+        this.cachedExperimentFilesParser = cachedExperimentFilesParser;
         this.singleCellBaselineExperimentFactory = singleCellBaselineExperimentFactory;
-        this.sdrfParser = sdrfParser;
     }
 
     @Override
@@ -55,8 +48,8 @@ public class ScxaExperimentRepository implements ExperimentRepository {
         return singleCellBaselineExperimentFactory.create(
                 experimentDto,
                 getExperimentDesign(experimentAccession),
-                idfParser.parse(experimentDto.getExperimentAccession()),
-                sdrfParser.parseSingleCellTechnologyType(experimentDto.getExperimentAccession()));
+                cachedExperimentFilesParser.parseIdf(experimentDto.getExperimentAccession()),
+                cachedExperimentFilesParser.parseSingleCellTechnologyType(experimentDto.getExperimentAccession()));
     }
 
     @Override
@@ -66,6 +59,6 @@ public class ScxaExperimentRepository implements ExperimentRepository {
 
     @Override
     public ExperimentDesign getExperimentDesign(String experimentAccession) {
-        return experimentDesignParser.parse(experimentAccession);
+        return cachedExperimentFilesParser.parseExperimentDesign(experimentAccession);
     }
 }
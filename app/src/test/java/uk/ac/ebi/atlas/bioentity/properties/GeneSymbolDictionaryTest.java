@@ -0,0 +1,43 @@
+package uk.ac.ebi.atlas.bioentity.properties;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomEnsemblGeneIds;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomGeneSymbols;
+
+class GeneSymbolDictionaryTest {
+    @Test
+    void everyGeneHasItsSymbol() {
+        var geneIds = generateRandomEnsemblGeneIds(100);
+        var symbols = generateRandomGeneSymbols(100);
+        var symbolsByGeneId = new HashMap<String, String>();
+        for (var i = 0; i < 100; i++) {
+            symbolsByGeneId.put(geneIds.get(i), symbols.get(i));
+        }
+
+        var subject = GeneSymbolDictionary.create(symbolsByGeneId);
+
+        assertThat(subject.size()).isEqualTo(symbolsByGeneId.size());
+        symbolsByGeneId.forEach((geneId, symbol) -> assertThat(subject.symbol(geneId)).hasValue(symbol));
+    }
+
+    @Test
+    void genesWithoutSymbolAreNotFound() {
+        var subject = GeneSymbolDictionary.create(ImmutableMap.of("ENSG00000066279", "ASPM"));
+
+        assertThat(subject.symbol("ENSG00000066279")).hasValue("ASPM");
+        assertThat(subject.symbol("ENSG00000000000")).isEmpty();
+    }
+
+    @Test
+    void emptyDictionary() {
+        var subject = GeneSymbolDictionary.create(ImmutableMap.of());
+
+        assertThat(subject.size()).isZero();
+        assertThat(subject.symbol("ENSG00000066279")).isEmpty();
+    }
+}
@@ -0,0 +1,104 @@
+package uk.ac.ebi.atlas.bioentity.properties;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import uk.ac.ebi.atlas.species.Species;
+import uk.ac.ebi.atlas.species.SpeciesFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class GeneSymbolServiceTest {
+    @Mock
+    private GeneSymbolDictionaryDao geneSymbolDictionaryDaoMock;
+
+    @Mock
+    private SpeciesFactory speciesFactoryMock;
+
+    @Mock
+    private Species humanMock;
+
+    @Mock
+    private Species mouseMock;
+
+    private GeneSymbolService subject;
+
+    @BeforeEach
+    void setUp() {
+        when(humanMock.getEnsemblName()).thenReturn("homo_sapiens");
+        when(mouseMock.getEnsemblName()).thenReturn("mus_musculus");
+        when(speciesFactoryMock.create("Homo sapiens")).thenReturn(humanMock);
+        when(speciesFactoryMock.create("homo_sapiens")).thenReturn(humanMock);
+        when(speciesFactoryMock.create("Mus musculus")).thenReturn(mouseMock);
+
+        when(geneSymbolDictionaryDaoMock.fetchExperimentSpecies())
+                .thenReturn(ImmutableList.of("Homo sapiens", "homo_sapiens", "Mus musculus"));
+        when(geneSymbolDictionaryDaoMock.fetchDictionary("homo_sapiens"))
+                .thenReturn(GeneSymbolDictionary.create(ImmutableMap.of("ENSG00000066279", "ASPM")));
+        when(geneSymbolDictionaryDaoMock.fetchDictionary("mus_musculus"))
+                .thenReturn(GeneSymbolDictionary.create(ImmutableMap.of("ENSMUSG00000033952", "Aspm")));
+
+        subject = new GeneSymbolService(geneSymbolDictionaryDaoMock, speciesFactoryMock, false);
+    }
+
+    @Test
+    void symbolsAreLookedUpInAllSpecies() {
+        assertThat(subject.getSymbols(ImmutableSet.of("ENSG00000066279", "ENSMUSG00000033952", "ENSG00000000000")))
+                .containsExactly(
+                        entry("ENSG00000066279", "ASPM"),
+                        entry("ENSMUSG00000033952", "Aspm"));
+    }
+
+    @Test
+    void dictionariesAreLoadedOncePerSpecies() {
+        subject.getSymbols(ImmutableSet.of("ENSG00000066279"));
+        subject.getSymbols(ImmutableSet.of("ENSMUSG00000033952"));
+
+        verify(geneSymbolDictionaryDaoMock, times(1)).fetchDictionary("homo_sapiens");
+        verify(geneSymbolDictionaryDaoMock, times(1)).fetchDictionary("mus_musculus");
+    }
+
+    @Test
+    void speciesOfNewExperimentsAreLoadedOnDemand() {
+        subject.getSymbols(ImmutableSet.of("ENSG00000066279"));
+
+        var zebrafishMock = mock(Species.class);
+        when(zebrafishMock.getEnsemblName()).thenReturn("danio_rerio");
+        when(speciesFactoryMock.create("Danio rerio")).thenReturn(zebrafishMock);
+        when(geneSymbolDictionaryDaoMock.fetchExperimentSpecies())
+                .thenReturn(ImmutableList.of("Homo sapiens", "Mus musculus", "Danio rerio"));
+        when(geneSymbolDictionaryDaoMock.fetchDictionary("danio_rerio"))
+                .thenReturn(GeneSymbolDictionary.create(ImmutableMap.of("ENSDARG00000002968", "aspm")));
+
+        assertThat(subject.getSymbols(ImmutableSet.of("ENSDARG00000002968")))
+                .containsOnly(entry("ENSDARG00000002968", "aspm"));
+        verify(geneSymbolDictionaryDaoMock, times(1)).fetchDictionary("homo_sapiens");
+        verify(geneSymbolDictionaryDaoMock, times(1)).fetchDictionary("mus_musculus");
+    }
+
+    @Test
+    void refreshReloadsTheDictionaries() {
+        subject.getSymbols(ImmutableSet.of("ENSG00000066279"));
+        when(geneSymbolDictionaryDaoMock.fetchDictionary("homo_sapiens"))
+                .thenReturn(GeneSymbolDictionary.create(ImmutableMap.of("ENSG00000066279", "ASPM-AS1")));
+
+        assertThat(subject.refresh())
+                .containsOnly(entry("homo_sapiens", 1), entry("mus_musculus", 1));
+        assertThat(subject.getSymbols(ImmutableSet.of("ENSG00000066279")))
+                .containsOnly(entry("ENSG00000066279", "ASPM-AS1"));
+    }
+}
@@ -0,0 +1,77 @@
+package uk.ac.ebi.atlas.experimentimport;
+
+import com.google.common.collect.ImmutableMap;
+import org.cache2k.extra.spring.SpringCache2kCacheManager;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.ebi.atlas.experimentimport.ExperimentCacheEvictor.EXPERIMENT_SCOPED_CACHE_NAMES;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomExperimentAccession;
+
+class ExperimentCacheEvictorTest {
+    private static ExperimentCacheEvictor createSubject(CacheManager cacheManager) {
+        return new ExperimentCacheEvictor(
+                new StaticListableBeanFactory(ImmutableMap.of("cacheManager", cacheManager))
+                        .getBeanProvider(CacheManager.class));
+    }
+
+    private static Stream<CacheManager> cacheManagerProvider() {
+        var cache2kCacheManager = new SpringCache2kCacheManager(ExperimentCacheEvictorTest.class.getSimpleName());
+        EXPERIMENT_SCOPED_CACHE_NAMES.forEach(cacheName ->
+                cache2kCacheManager.addCaches(builder -> builder.name(cacheName)));
+
+        return Stream.of(
+                cache2kCacheManager,
+                new ConcurrentMapCacheManager(EXPERIMENT_SCOPED_CACHE_NAMES.toArray(String[]::new)));
+    }
+
+    @ParameterizedTest
+    @MethodSource("cacheManagerProvider")
+    void onlyEntriesOfTheExperimentAreEvicted(CacheManager cacheManager) {
+        var experimentAccession = generateRandomExperimentAccession();
+        var otherExperimentAccession = generateRandomExperimentAccession() + "0";
+
+        for (var cacheName : EXPERIMENT_SCOPED_CACHE_NAMES) {
+            var cache = cacheManager.getCache(cacheName);
+            cache.put(experimentAccession, "foo");
+            cache.put(List.of(experimentAccession, 10, "umap", ImmutableMap.of("n_neighbors", 15)), "foo");
+            cache.put(otherExperimentAccession, "bar");
+            cache.put(List.of(otherExperimentAccession, 10, "umap", ImmutableMap.of("n_neighbors", 15)), "bar");
+        }
+
+        createSubject(cacheManager).evict(experimentAccession);
+
+        for (var cacheName : EXPERIMENT_SCOPED_CACHE_NAMES) {
+            var cache = cacheManager.getCache(cacheName);
+            assertThat(cache.get(experimentAccession)).isNull();
+            assertThat(cache.get(List.of(experimentAccession, 10, "umap", ImmutableMap.of("n_neighbors", 15))))
+                    .isNull();
+            assertThat(cache.get(otherExperimentAccession, String.class)).isEqualTo("bar");
+            assertThat(cache.get(
+                    List.of(otherExperimentAccession, 10, "umap", ImmutableMap.of("n_neighbors", 15)), String.class))
+                    .isEqualTo("bar");
+        }
+    }
+
+    @Test
+    void keysThatStartWithTheAccessionButBelongToOtherExperimentsAreKept() {
+        assertThat(ExperimentCacheEvictor.belongsToExperiment("E-MTAB-55", "E-MTAB-5")).isFalse();
+        assertThat(ExperimentCacheEvictor.belongsToExperiment(List.of("E-MTAB-55", "umap"), "E-MTAB-5")).isFalse();
+        assertThat(ExperimentCacheEvictor.belongsToExperiment(List.of(), "E-MTAB-5")).isFalse();
+        assertThat(ExperimentCacheEvictor.belongsToExperiment(List.of("E-MTAB-5", "umap"), "E-MTAB-5")).isTrue();
+    }
+
+    @Test
+    void doesNothingWithoutCacheManager() {
+        new ExperimentCacheEvictor(new StaticListableBeanFactory().getBeanProvider(CacheManager.class))
+                .evict(generateRandomExperimentAccession());
+    }
+}
@@ -0,0 +1,60 @@
+package uk.ac.ebi.atlas.experimentimport;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.after;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomExperimentAccession;
+
+@ExtendWith(MockitoExtension.class)
+class ExperimentFilesWatcherTest {
+    // Some watch services poll the file system every few seconds
+    private static final long TIMEOUT_MILLIS = 30_000;
+
+    @Mock
+    private ExperimentCacheEvictor experimentCacheEvictorMock;
+
+    private ExperimentFilesWatcher subject;
+
+    @BeforeEach
+    void setUp() {
+        subject = new ExperimentFilesWatcher(experimentCacheEvictorMock);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        subject.destroy();
+    }
+
+    @Test
+    void modifiedFilesEvictTheExperiment(@TempDir Path experimentDirectory) throws IOException {
+        var experimentAccession = generateRandomExperimentAccession();
+        var idf = Files.writeString(experimentDirectory.resolve(experimentAccession + ".idf.txt"), "Title\tFoo\n");
+
+        subject.watch(experimentAccession, idf);
+        Files.writeString(idf, "Title\tBar\n");
+
+        verify(experimentCacheEvictorMock, timeout(TIMEOUT_MILLIS).atLeastOnce()).evict(experimentAccession);
+    }
+
+    @Test
+    void unwatchedDirectoriesAreIgnored(@TempDir Path experimentDirectory) throws IOException {
+        var idf = Files.writeString(experimentDirectory.resolve("E-FOO-1.idf.txt"), "Title\tFoo\n");
+
+        Files.writeString(idf, "Title\tBar\n");
+
+        verify(experimentCacheEvictorMock, after(1_000).never()).evict(anyString());
+    }
+}
@@ -24,14 +24,18 @@ import uk.ac.ebi.atlas.testutils.JdbcUtils;
 import javax.inject.Inject;
 import javax.sql.DataSource;
 
+import java.util.List;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.hamcrest.Matchers.greaterThanOrEqualTo;
 import static org.hamcrest.Matchers.hasSize;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
 
 @ExtendWith(SpringExtension.class)
 @WebAppConfiguration
@@ -108,6 +112,42 @@ class JsonCellMetadataControllerWIT {
                 .andExpect(status().is4xxClientError());
     }
 
+    @ParameterizedTest
+    @MethodSource("experimentsWithMetadataProvider")
+    void validJsonForManyCellIds(String experimentAccession) throws Exception {
+        var cellId = jdbcTestUtils.fetchRandomCellFromExperiment(experimentAccession);
+
+        this.mockMvc
+                .perform(post("/json/experiment/" + experimentAccession + "/cells/metadata")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(GSON.toJson(List.of(cellId, "FOO"))))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(jsonPath("$.FOO").doesNotExist())
+                .andExpect(jsonPath("$['" + cellId + "']", hasSize(greaterThanOrEqualTo(1))));
+    }
+
+    @Test
+    void manyCellIdsForInvalidExperimentAccession() throws Exception {
+        this.mockMvc
+                .perform(post("/json/experiment/FOO/cells/metadata")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(GSON.toJson(List.of("BAR"))))
+                .andExpect(status().is4xxClientError());
+    }
+
+    @Test
+    void tooManyCellIds() throws Exception {
+        var experimentAccession = jdbcTestUtils.fetchRandomExperimentAccession();
+        var cellIds = IntStream.rangeClosed(0, 100_000).mapToObj(i -> "cell_" + i).collect(Collectors.toList());
+
+        this.mockMvc
+                .perform(post("/json/experiment/" + experimentAccession + "/cells/metadata")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(GSON.toJson(cellIds)))
+                .andExpect(status().isBadRequest());
+    }
+
     private Iterable<String> experimentsWithMetadataProvider() {
         // E-GEOD-99058 does not have any metadata (factors or inferred cell types)
         return jdbcTestUtils.fetchPublicExperimentAccessions()
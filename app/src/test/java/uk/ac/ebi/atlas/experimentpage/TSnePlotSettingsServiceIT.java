@@ -17,11 +17,11 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import uk.ac.ebi.atlas.configuration.TestConfig;
-import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
+import uk.ac.ebi.atlas.experimentimport.CachedExperimentFilesParser;
 import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGenesDao;
+import uk.ac.ebi.atlas.experimentpage.tsneplot.ClustersIndexStore;
 import uk.ac.ebi.atlas.experimentpage.tsneplot.TSnePlotDao;
 import uk.ac.ebi.atlas.experimentpage.tsneplot.TSnePlotSettingsService;
-import uk.ac.ebi.atlas.resource.DataFileHub;
 import uk.ac.ebi.atlas.testutils.JdbcUtils;
 
 import javax.inject.Inject;
@@ -47,10 +47,10 @@ class TSnePlotSettingsServiceIT {
     private JdbcUtils jdbcTestUtils;
 
     @Inject
-    private DataFileHub dataFileHub;
+    private ClustersIndexStore clustersIndexStore;
 
     @Inject
-    private IdfParser idfParser;
+    private CachedExperimentFilesParser cachedExperimentFilesParser;
 
     @Inject
     private TSnePlotDao tSnePlotDao;
@@ -92,7 +92,8 @@ class TSnePlotSettingsServiceIT {
 
     @BeforeEach
     void setUp() {
-        this.subject = new TSnePlotSettingsService(dataFileHub, idfParser, tSnePlotDao, markerGenesDao);
+        this.subject = new TSnePlotSettingsService(
+                clustersIndexStore, cachedExperimentFilesParser, tSnePlotDao, markerGenesDao);
     }
 
     @Test
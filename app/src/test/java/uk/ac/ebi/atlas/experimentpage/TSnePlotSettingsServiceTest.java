@@ -9,9 +9,12 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.CacheManager;
+import uk.ac.ebi.atlas.experimentimport.CachedExperimentFilesParser;
 import uk.ac.ebi.atlas.experimentimport.idf.IdfParserOutput;
 import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGenesDao;
+import uk.ac.ebi.atlas.experimentpage.tsneplot.ClustersIndexStore;
 import uk.ac.ebi.atlas.experimentpage.tsneplot.TSnePlotDao;
 import uk.ac.ebi.atlas.experimentpage.tsneplot.TSnePlotSettingsService;
 import uk.ac.ebi.atlas.testutils.MockDataFileHub;
@@ -28,7 +31,7 @@ import static org.mockito.Mockito.when;
 @ExtendWith(MockitoExtension.class)
 class TSnePlotSettingsServiceTest {
     @Mock
-    private IdfParser idfParserMock;
+    private CachedExperimentFilesParser cachedExperimentFilesParserMock;
 
     @Mock
     private TSnePlotDao tSnePlotDaoMock;
@@ -72,7 +75,12 @@ class TSnePlotSettingsServiceTest {
     @BeforeEach
     void setUp() {
         dataFileHubMock = MockDataFileHub.create();
-        subject = new TSnePlotSettingsService(dataFileHubMock, idfParserMock, tSnePlotDaoMock, markerGenesDaoMock);
+        var clustersIndexStore =
+                new ClustersIndexStore(
+                        dataFileHubMock, new StaticListableBeanFactory().getBeanProvider(CacheManager.class));
+        subject =
+                new TSnePlotSettingsService(
+                        clustersIndexStore, cachedExperimentFilesParserMock, tSnePlotDaoMock, markerGenesDaoMock);
     }
 
     @Test
@@ -80,7 +88,7 @@ class TSnePlotSettingsServiceTest {
     void expectedClustersOnlyInIdf() {
         dataFileHubMock.addClustersFile(
                 EXPERIMENT_ACCESSION, Arrays.asList(CLUSTERS_TSV_WITHOUT_PREFFERED_K_WITH_IDF_K));
-        when(idfParserMock.parse(EXPERIMENT_ACCESSION))
+        when(cachedExperimentFilesParserMock.parseIdf(EXPERIMENT_ACCESSION))
                 .thenReturn(
                         new IdfParserOutput(
                                 "Title",
@@ -100,7 +108,7 @@ class TSnePlotSettingsServiceTest {
     @DisplayName("Valid expected clusters in idf and clusters.tsv")
     void expectedClustersInIdfAndClustersTsv() {
         dataFileHubMock.addClustersFile(EXPERIMENT_ACCESSION, Arrays.asList(CLUSTERS_TSV_WITH_PREFFERED_K_WITH_IDF_K));
-        when(idfParserMock.parse(EXPERIMENT_ACCESSION))
+        when(cachedExperimentFilesParserMock.parseIdf(EXPERIMENT_ACCESSION))
                 .thenReturn(
                         new IdfParserOutput(
                                 "Title",
@@ -121,7 +129,7 @@ class TSnePlotSettingsServiceTest {
     void invalidExpectedClustersInIdf() {
         dataFileHubMock.addClustersFile(
                 EXPERIMENT_ACCESSION, Arrays.asList(CLUSTERS_TSV_WITHOUT_PREFFERED_K_WITHOUT_IDF_K));
-        when(idfParserMock.parse(EXPERIMENT_ACCESSION))
+        when(cachedExperimentFilesParserMock.parseIdf(EXPERIMENT_ACCESSION))
                 .thenReturn(
                         new IdfParserOutput(
                                 "Title",
@@ -139,7 +147,7 @@ class TSnePlotSettingsServiceTest {
     void invalidIdfValueValidClustersTsv() {
         dataFileHubMock.addClustersFile(
                 EXPERIMENT_ACCESSION, Arrays.asList(CLUSTERS_TSV_WITH_PREFFERED_K_WITHOUT_IDF_K));
-        when(idfParserMock.parse(EXPERIMENT_ACCESSION))
+        when(cachedExperimentFilesParserMock.parseIdf(EXPERIMENT_ACCESSION))
                 .thenReturn(
                         new IdfParserOutput(
                                 "Title",
@@ -160,7 +168,7 @@ class TSnePlotSettingsServiceTest {
     void noIdfValueValidClustersTsv() {
         dataFileHubMock.addClustersFile(
                 EXPERIMENT_ACCESSION, Arrays.asList(CLUSTERS_TSV_WITH_PREFFERED_K_WITHOUT_IDF_K));
-        when(idfParserMock.parse(EXPERIMENT_ACCESSION))
+        when(cachedExperimentFilesParserMock.parseIdf(EXPERIMENT_ACCESSION))
                 .thenReturn(
                         new IdfParserOutput(
                                 "Title",
@@ -181,7 +189,7 @@ class TSnePlotSettingsServiceTest {
     void noExpectedClusters() {
         dataFileHubMock.addClustersFile(
                 EXPERIMENT_ACCESSION, Arrays.asList(CLUSTERS_TSV_WITHOUT_PREFFERED_K_WITHOUT_IDF_K));
-        when(idfParserMock.parse(EXPERIMENT_ACCESSION))
+        when(cachedExperimentFilesParserMock.parseIdf(EXPERIMENT_ACCESSION))
                 .thenReturn(
                         new IdfParserOutput(
                                 "Title",
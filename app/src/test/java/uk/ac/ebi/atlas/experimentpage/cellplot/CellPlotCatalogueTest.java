@@ -0,0 +1,60 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+class CellPlotCatalogueTest {
+    private static final CellPlotCatalogue SUBJECT = CellPlotCatalogue.create(
+            ImmutableList.of(
+                    CellPlotCatalogue.Plot.create("tsne", "[{\"perplexity\": 20}]", 1, true),
+                    CellPlotCatalogue.Plot.create("tsne", "[{\"perplexity\": 5}]", 1, true),
+                    CellPlotCatalogue.Plot.create("tsne", "[{\"perplexity\": 10}]", 0, true),
+                    CellPlotCatalogue.Plot.create("umap", "[{\"n_neighbors\": 15}]", 2, true),
+                    CellPlotCatalogue.Plot.create("umap", "[{\"n_neighbors\": 3}]", 0, false)));
+
+    @Test
+    void methodsAreSortedAndDistinct() {
+        assertThat(SUBJECT.methods()).containsExactly("tsne", "umap");
+    }
+
+    @Test
+    void parameterValuesAreSortedNumerically() {
+        assertThat(SUBJECT.parameterValues("tsne"))
+                .containsOnlyKeys("perplexity")
+                .extractingByKey("perplexity")
+                .satisfies(values -> assertThat(values).containsExactly("5", "10", "20"));
+        assertThat(SUBJECT.parameterValues("foo")).isEmpty();
+    }
+
+    @Test
+    void parameterisationsAreKeptAsStored() {
+        assertThat(SUBJECT.parameterisations("umap"))
+                .containsExactly("[{\"n_neighbors\": 15}]", "[{\"n_neighbors\": 3}]");
+    }
+
+    @Test
+    void plotOptionsOnlyIncludePlotsWithCoordinates() {
+        assertThat(GSON.toJson(SUBJECT.plotOptions().get("tsne")))
+                .isEqualTo("[{\"perplexity\":5},{\"perplexity\":10},{\"perplexity\":20}]");
+        assertThat(GSON.toJson(SUBJECT.plotOptions().get("umap")))
+                .isEqualTo("[{\"n_neighbors\":15}]");
+    }
+
+    @Test
+    void defaultPlotOptionsHaveTheHighestPriority() {
+        assertThat(GSON.toJson(SUBJECT.defaultPlotOptions().get("tsne")))
+                .isEqualTo("[{\"perplexity\":5},{\"perplexity\":20}]");
+        assertThat(GSON.toJson(SUBJECT.defaultPlotOptions().get("umap")))
+                .isEqualTo("[{\"n_neighbors\":15}]");
+    }
+
+    @Test
+    void callersCannotModifyTheCatalogue() {
+        SUBJECT.plotOptions().get("tsne").get(0).addProperty("perplexity", 50);
+
+        assertThat(GSON.toJson(SUBJECT.plotOptions().get("tsne").get(0))).isEqualTo("{\"perplexity\":5}");
+    }
+}
@@ -0,0 +1,117 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.tuple;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomCellId;
+
+class CellPlotCoordinatesFileTest {
+    @Test
+    void pointsCanBeReadBackSortedByCellId(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve("E-MTAB-5061").resolve("E-MTAB-5061.cell-plot.umap.n_neighbors=5.bin");
+        var points = ImmutableList.of(
+                TSnePoint.Dto.create(1.5, -2.25, "cell_2"),
+                TSnePoint.Dto.create(3.0, 4.0, "cell_3"),
+                TSnePoint.Dto.create(0.5, 0.75, "cell_1"));
+
+        CellPlotCoordinatesFile.write(path, points);
+        var result = CellPlotCoordinatesFile.map(path);
+
+        assertThat(result.cellCount()).isEqualTo(3);
+        assertThat(result.toDtos())
+                .extracting("name", "x", "y")
+                .containsExactly(
+                        tuple("cell_1", 0.5, 0.75),
+                        tuple("cell_2", 1.5, -2.25),
+                        tuple("cell_3", 3.0, 4.0));
+        assertThat(result.cellId(1)).isEqualTo("cell_2");
+        assertThat(result.x(2)).isEqualTo(3.0);
+        assertThat(result.y(0)).isEqualTo(0.75);
+    }
+
+    @Test
+    void cellIdsCanHaveMultiByteCharacters(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve(generateRandomCellId());
+
+        CellPlotCoordinatesFile.write(
+                path,
+                ImmutableList.of(TSnePoint.Dto.create(1.0, 2.0, "célula_1"), TSnePoint.Dto.create(3.0, 4.0, "")));
+        var result = CellPlotCoordinatesFile.map(path);
+
+        assertThat(result.cellId(0)).isEmpty();
+        assertThat(result.cellId(1)).isEqualTo("célula_1");
+    }
+
+    @Test
+    void emptyPlot(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve(generateRandomCellId());
+
+        CellPlotCoordinatesFile.write(path, ImmutableList.of());
+
+        assertThat(CellPlotCoordinatesFile.map(path).toDtos()).isEmpty();
+        assertThat(CellPlotCoordinatesFile.map(path).cellCount()).isZero();
+    }
+
+    @Test
+    void throwsIfFileIsNotACoordinatesFile(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve(generateRandomCellId());
+        Files.write(path, "foobar, not a coordinates file".getBytes());
+
+        assertThatIOException().isThrownBy(() -> CellPlotCoordinatesFile.map(path));
+    }
+
+    @Test
+    void throwsIfHeaderCellCountDoesNotFitInTheFile(@TempDir Path tempDirPath) throws Exception {
+        // 2^31 - 1 cells need 16 GB of coordinates, whose offsets overflow an int
+        var path = tempDirPath.resolve(generateRandomCellId());
+        Files.write(path, header(Integer.MAX_VALUE).array());
+
+        assertThatIOException()
+                .isThrownBy(() -> CellPlotCoordinatesFile.map(path))
+                .withMessageContaining(path.toString());
+    }
+
+    @Test
+    void throwsIfFileIsTruncated(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve(generateRandomCellId());
+        CellPlotCoordinatesFile.write(
+                path,
+                ImmutableList.of(TSnePoint.Dto.create(1.0, 2.0, "cell_1"), TSnePoint.Dto.create(3.0, 4.0, "cell_2")));
+        var bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - 3));
+
+        assertThatIOException()
+                .isThrownBy(() -> CellPlotCoordinatesFile.map(path))
+                .withMessageContaining(path.toString());
+    }
+
+    @Test
+    void throwsIfThereAreMoreCellsThanCellIds(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve(generateRandomCellId());
+        var cellIdBytes = "cell_1".getBytes(US_ASCII);
+        var buffer = header(2).putFloat(1).putFloat(3).putFloat(2).putFloat(4);
+        buffer.putInt(cellIdBytes.length).put(cellIdBytes);
+        Files.write(path, Arrays.copyOf(buffer.array(), buffer.position()));
+
+        assertThatIOException().isThrownBy(() -> CellPlotCoordinatesFile.map(path));
+    }
+
+    private static ByteBuffer header(int cellCount) {
+        return ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN)
+                .put("SCXY".getBytes(US_ASCII))
+                .putInt(CellPlotCoordinatesFile.VERSION)
+                .putInt(cellCount);
+    }
+}
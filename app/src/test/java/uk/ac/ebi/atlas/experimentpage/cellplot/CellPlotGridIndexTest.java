@@ -0,0 +1,92 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+
+import java.util.Collection;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomCellId;
+
+class CellPlotGridIndexTest {
+    private static final ThreadLocalRandom RNG = ThreadLocalRandom.current();
+
+    private static ImmutableSet<TSnePoint> randomPoints(int n, double minX, double maxX, double minY, double maxY) {
+        return IntStream.range(0, n)
+                .mapToObj(__ ->
+                        TSnePoint.create(
+                                RNG.nextDouble(minX, maxX), RNG.nextDouble(minY, maxY), generateRandomCellId()))
+                .collect(toImmutableSet());
+    }
+
+    @Test
+    void plotsSmallerThanMaxPointsAreReturnedWhole() {
+        var series = ImmutableMap.of(
+                "1", randomPoints(100, -10, 10, -10, 10),
+                "2", randomPoints(50, 0, 20, 0, 20));
+
+        var subject = CellPlotGridIndex.create(series);
+
+        assertThat(subject.size()).isEqualTo(150);
+        assertThat(subject.sample(1000, CellPlotGridIndex.Viewport.ALL)).isEqualTo(series);
+    }
+
+    @Test
+    void samplePreservesDensity() {
+        // A dense region with 9000 points and a sparse region, ten times larger, with 1000 points
+        var dense = randomPoints(9000, 0, 1, 0, 1);
+        var sparse = randomPoints(1000, 5, 15, 5, 15);
+
+        var result = CellPlotGridIndex.create(ImmutableMap.of("1", dense, "2", sparse))
+                .sample(1000, CellPlotGridIndex.Viewport.ALL);
+
+        assertThat(result.values().stream().mapToInt(Collection::size).sum()).isEqualTo(1000);
+        assertThat(dense).containsAll(result.get("1"));
+        assertThat(result.get("1")).hasSizeBetween(880, 920);
+        assertThat(result.get("2")).hasSizeBetween(80, 120);
+    }
+
+    @Test
+    void smallSeriesInDenseRegionsAreKept() {
+        var large = randomPoints(10000, 0, 1, 0, 1);
+        var small = randomPoints(20, 0, 1, 0, 1);
+
+        var result = CellPlotGridIndex.create(ImmutableMap.of("large", large, "small", small))
+                .sample(100, CellPlotGridIndex.Viewport.ALL);
+
+        assertThat(result.get("small")).isNotEmpty();
+    }
+
+    @Test
+    void sampleIsRestrictedToViewport() {
+        var inside = randomPoints(500, 0, 1, 0, 1);
+        var outside = randomPoints(500, 2, 3, 2, 3);
+        var viewport = CellPlotGridIndex.Viewport.create(0, 1, 0, 1);
+
+        var subject = CellPlotGridIndex.create(ImmutableMap.of("inside", inside, "outside", outside));
+
+        assertThat(subject.count(viewport)).isEqualTo(500);
+        assertThat(subject.sample(100, viewport).get("inside")).hasSize(100);
+        assertThat(subject.sample(100, viewport).get("outside")).isEmpty();
+        assertThat(subject.sample(1000, viewport).get("inside")).isEqualTo(inside);
+    }
+
+    @Test
+    void emptyPlot() {
+        var subject = CellPlotGridIndex.create(ImmutableMap.of());
+
+        assertThat(subject.size()).isZero();
+        assertThat(subject.sample(100, CellPlotGridIndex.Viewport.ALL)).isEmpty();
+    }
+
+    @Test
+    void invalidViewportThrows() {
+        assertThatIllegalArgumentException().isThrownBy(() -> CellPlotGridIndex.Viewport.create(1, 0, 0, 1));
+    }
+}
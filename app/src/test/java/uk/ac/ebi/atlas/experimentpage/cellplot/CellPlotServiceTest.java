@@ -12,21 +12,33 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import uk.ac.ebi.atlas.controllers.ResourceNotFoundException;
-import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataDao;
+import uk.ac.ebi.atlas.experimentpage.expression.ExpressionMatrixStore;
+import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataService;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+import uk.ac.ebi.atlas.experimentpage.tsneplot.ClustersIndexStore;
 import uk.ac.ebi.atlas.testutils.RandomDataTestUtils;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.stream.IntStream;
 
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Comparator.comparing;
+import static java.util.Comparator.comparingInt;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomExperimentAccession;
 
@@ -42,13 +54,28 @@ class CellPlotServiceTest {
     private CellPlotDao cellPlotDaoMock;
 
     @Mock
-    private CellMetadataDao cellMetadataDaoMock;
+    private CellPlotCoordinatesStore cellPlotCoordinatesStoreMock;
+
+    @Mock
+    private ExpressionMatrixStore expressionMatrixStoreMock;
+
+    @Mock
+    private ClustersIndexStore clustersIndexStoreMock;
+
+    @Mock
+    private CellMetadataService cellMetadataServiceMock;
 
     private CellPlotService subject;
 
     @BeforeEach
     void setUp() {
-        subject = new CellPlotService(cellPlotDaoMock, cellMetadataDaoMock);
+        subject =
+                new CellPlotService(
+                        cellPlotDaoMock,
+                        cellPlotCoordinatesStoreMock,
+                        expressionMatrixStoreMock,
+                        clustersIndexStoreMock,
+                        cellMetadataServiceMock);
     }
 
     @Test
@@ -68,6 +95,108 @@ class CellPlotServiceTest {
                 .isEqualTo(cellCount);
     }
 
+    @Test
+    void clusterPlotWithKReadsCoordinatesFromStoreIfAvailable() {
+        var experimentAccession = RandomDataTestUtils.generateRandomExperimentAccession();
+        var cellCount = RNG.nextInt(MAX_CELL_COUNT) + 1;
+        var k = RNG.nextInt(MAX_K) + 1;
+
+        var points = RandomDataTestUtils.generateRandomTSnePointDtos(cellCount);
+        when(cellPlotCoordinatesStoreMock.fetchCellPlot(experimentAccession, "umap", ImmutableMap.of()))
+                .thenReturn(Optional.of(ImmutableList.copyOf(points)));
+        when(cellPlotDaoMock.fetchCellClusters(experimentAccession, k))
+                .thenReturn(points.stream()
+                        .collect(toImmutableMap(
+                                point -> point.name(),
+                                __ -> Integer.toString(RNG.nextInt(k) + 1))));
+
+        var result = subject.clusterPlotWithK(experimentAccession, k, "umap", ImmutableMap.of());
+        assertThat(result.values().stream().mapToInt(Collection::size).sum())
+                .isEqualTo(cellCount);
+        verify(cellPlotDaoMock, never()).fetchCellPlotWithK(experimentAccession, k, "umap", ImmutableMap.of());
+    }
+
+    @Test
+    void streamClusterPlotWithKReadsCoordinatesFromStoreIfAvailable() {
+        var experimentAccession = RandomDataTestUtils.generateRandomExperimentAccession();
+        when(cellPlotCoordinatesStoreMock.fetchCoordinates(experimentAccession, "umap", ImmutableMap.of()))
+                .thenReturn(Optional.of(new LazyCoordinates(
+                        TSnePoint.Dto.create(1.0, 2.0, "cell_1"),
+                        TSnePoint.Dto.create(3.0, 4.0, "cell_2"),
+                        TSnePoint.Dto.create(5.0, 6.0, "cell_3"))));
+        when(cellPlotDaoMock.fetchCellClusters(experimentAccession, 2))
+                .thenReturn(ImmutableMap.of("cell_1", "2", "cell_2", "1"));
+
+        var points = new ArrayList<TSnePoint.Dto>();
+        subject.streamClusterPlotWithK(experimentAccession, 2, "umap", ImmutableMap.of(), points::add);
+
+        assertThat(points)
+                .containsExactly(
+                        TSnePoint.Dto.create(3.0, 4.0, "1", "cell_2"),
+                        TSnePoint.Dto.create(1.0, 2.0, "2", "cell_1"));
+        verify(cellPlotDaoMock, never())
+                .streamCellPlotWithK(eq(experimentAccession), eq(2), eq("umap"), eq(ImmutableMap.of()), any());
+    }
+
+    @Test
+    void streamedPointsAreReadFromTheStoreAsTheyAreConsumed() {
+        var experimentAccession = RandomDataTestUtils.generateRandomExperimentAccession();
+        var cellCount = RNG.nextInt(MAX_CELL_COUNT) + 1;
+        var k = RNG.nextInt(MAX_K) + 1;
+
+        var coordinates =
+                new LazyCoordinates(
+                        RandomDataTestUtils.generateRandomTSnePointDtos(cellCount).toArray(TSnePoint.Dto[]::new));
+        when(cellPlotCoordinatesStoreMock.fetchCoordinates(experimentAccession, "umap", ImmutableMap.of()))
+                .thenReturn(Optional.of(coordinates));
+        var cellClusters =
+                IntStream.range(0, coordinates.cellCount()).boxed()
+                        .collect(toImmutableMap(
+                                coordinates::cellId,
+                                __ -> Integer.toString(RNG.nextInt(k) + 1)));
+        when(cellPlotDaoMock.fetchCellClusters(experimentAccession, k)).thenReturn(cellClusters);
+
+        // If the points were collected before being passed on, all coordinates would be read before the first one
+        var consumedPoints = new ArrayList<TSnePoint.Dto>();
+        subject.streamClusterPlotWithK(
+                experimentAccession,
+                k,
+                "umap",
+                ImmutableMap.of(),
+                pointDto -> {
+                    consumedPoints.add(pointDto);
+                    assertThat(coordinates.coordinateReads).isEqualTo(consumedPoints.size());
+                });
+
+        assertThat(consumedPoints)
+                .hasSize(cellCount)
+                .isSortedAccordingTo(comparingInt((TSnePoint.Dto pointDto) -> Integer.parseInt(pointDto.clusterId())))
+                .allSatisfy(pointDto -> assertThat(pointDto.clusterId()).isEqualTo(cellClusters.get(pointDto.name())));
+    }
+
+    @Test
+    void streamExpressionPlotReadsCoordinatesFromStoreIfAvailable() {
+        var experimentAccession = RandomDataTestUtils.generateRandomExperimentAccession();
+        var geneId = RandomDataTestUtils.generateRandomEnsemblGeneId();
+        when(cellPlotCoordinatesStoreMock.fetchCoordinates(experimentAccession, "umap", ImmutableMap.of()))
+                .thenReturn(Optional.of(new LazyCoordinates(
+                        TSnePoint.Dto.create(1.0, 2.0, "cell_1"),
+                        TSnePoint.Dto.create(3.0, 4.0, "cell_2"))));
+        when(expressionMatrixStoreMock.fetchExpressionLevels(experimentAccession, geneId))
+                .thenReturn(Optional.of(ImmutableMap.of("cell_2", 7.5)));
+
+        var points = new ArrayList<TSnePoint.Dto>();
+        subject.streamExpressionPlot(experimentAccession, geneId, "umap", ImmutableMap.of(), points::add);
+
+        assertThat(points)
+                .containsExactly(
+                        TSnePoint.Dto.create(1.0, 2.0, 0.0, "cell_1"),
+                        TSnePoint.Dto.create(3.0, 4.0, 7.5, "cell_2"));
+        verify(cellPlotDaoMock, never())
+                .streamCellPlotWithExpression(
+                        eq(experimentAccession), eq(geneId), eq("umap"), eq(ImmutableMap.of()), any());
+    }
+
     @Test
     void clusterPlotWithMetadata() {
         var experimentAccession = RandomDataTestUtils.generateRandomExperimentAccession();
@@ -87,7 +216,7 @@ class CellPlotServiceTest {
                 .collect(toImmutableMap(
                         point -> point.name(),
                         __ -> metadataValues.get(RNG.nextInt(metadataValues.size()))));
-        when(cellMetadataDaoMock.getMetadataValues(experimentAccession, metadataCategory))
+        when(cellMetadataServiceMock.getMetadataValuesForGivenType(experimentAccession, metadataCategory))
                 .thenReturn(metadataMapping);
 
         var result = subject.clusterPlotWithMetadata(experimentAccession, metadataCategory, "umap", ImmutableMap.of());
@@ -115,6 +244,59 @@ class CellPlotServiceTest {
                 .hasSize(points.size());
     }
 
+    @Test
+    void cellPlotCoordinatesFromDatabaseAreSortedByCellId() {
+        var experimentAccession = RandomDataTestUtils.generateRandomExperimentAccession();
+        var cellCount = RNG.nextInt(MAX_CELL_COUNT) + 1;
+
+        var points = RandomDataTestUtils.generateRandomTSnePointDtos(cellCount);
+        when(cellPlotDaoMock.fetchCellPlot(experimentAccession, "umap", ImmutableMap.of()))
+                .thenReturn(ImmutableList.copyOf(points));
+
+        assertThat(subject.cellPlotCoordinates(experimentAccession, "umap", ImmutableMap.of()))
+                .hasSize(cellCount)
+                .isSortedAccordingTo(comparing(TSnePoint.Dto::name));
+        assertThat(subject.cellPlotCellIds(experimentAccession, "umap", ImmutableMap.of()))
+                .hasSize(cellCount)
+                .isSorted();
+    }
+
+    @Test
+    void valuesAreInTheOrderOfTheCellIds() {
+        var experimentAccession = RandomDataTestUtils.generateRandomExperimentAccession();
+        var geneId = RandomDataTestUtils.generateRandomEnsemblGeneId();
+        when(cellPlotCoordinatesStoreMock.fetchCoordinates(experimentAccession, "umap", ImmutableMap.of()))
+                .thenReturn(Optional.of(new LazyCoordinates("cell_1", "cell_2", "cell_3")));
+        when(cellPlotDaoMock.fetchCellClusters(experimentAccession, 2))
+                .thenReturn(ImmutableMap.of("cell_3", "1", "cell_1", "2"));
+        when(cellMetadataServiceMock.getMetadataValuesForGivenType(experimentAccession, "organism_part"))
+                .thenReturn(ImmutableMap.of("cell_2", "liver", "cell_3", "pancreas"));
+        when(cellPlotDaoMock.fetchExpressionLevels(experimentAccession, geneId))
+                .thenReturn(ImmutableMap.of("cell_2", 12.5));
+
+        assertThat(subject.clusterIdValues(experimentAccession, 2, "umap", ImmutableMap.of()))
+                .containsExactly("2", null, "1");
+        assertThat(subject.metadataValues(experimentAccession, "organism_part", "umap", ImmutableMap.of()))
+                .containsExactly("Not available", "Liver", "Pancreas");
+        assertThat(subject.expressionLevelValues(experimentAccession, geneId, "umap", ImmutableMap.of()))
+                .containsExactly(0.0, 12.5, 0.0);
+        verify(cellPlotDaoMock, never()).fetchCellPlot(experimentAccession, "umap", ImmutableMap.of());
+    }
+
+    @Test
+    void expressionLevelsAreReadFromTheExpressionMatrixStoreIfAvailable() {
+        var experimentAccession = RandomDataTestUtils.generateRandomExperimentAccession();
+        var geneId = RandomDataTestUtils.generateRandomEnsemblGeneId();
+        when(cellPlotCoordinatesStoreMock.fetchCoordinates(experimentAccession, "umap", ImmutableMap.of()))
+                .thenReturn(Optional.of(new LazyCoordinates("cell_1", "cell_2", "cell_3")));
+        when(expressionMatrixStoreMock.fetchExpressionLevels(experimentAccession, geneId))
+                .thenReturn(Optional.of(ImmutableMap.of("cell_3", 7.5)));
+
+        assertThat(subject.expressionLevelValues(experimentAccession, geneId, "umap", ImmutableMap.of()))
+                .containsExactly(0.0, 0.0, 7.5);
+        verify(cellPlotDaoMock, never()).fetchExpressionLevels(experimentAccession, geneId);
+    }
+
     @Test
     void getCellPlotParameter() {
         var cellCount = RNG.nextInt(MAX_CELL_COUNT) + 1;
@@ -197,4 +379,42 @@ class CellPlotServiceTest {
         assertThat(subject.fetchExpressionUnitByAccession(experimentAccession))
                 .isEqualTo(expressionUnit);
     }
-}
\ No newline at end of file
+
+    // Points read by index like those of a coordinates file, sorted by cell ID, counting how many have been read
+    private static final class LazyCoordinates implements CellPlotCoordinates {
+        private final TSnePoint.Dto[] points;
+        private int coordinateReads = 0;
+
+        private LazyCoordinates(TSnePoint.Dto... points) {
+            this.points = points.clone();
+            Arrays.sort(this.points, comparing(TSnePoint.Dto::name));
+        }
+
+        // Cells at the origin
+        private LazyCoordinates(String... cellIds) {
+            this(Arrays.stream(cellIds).map(cellId -> TSnePoint.Dto.create(0.0, 0.0, cellId))
+                    .toArray(TSnePoint.Dto[]::new));
+        }
+
+        @Override
+        public int cellCount() {
+            return points.length;
+        }
+
+        @Override
+        public double x(int index) {
+            coordinateReads++;
+            return points[index].x();
+        }
+
+        @Override
+        public double y(int index) {
+            return points[index].y();
+        }
+
+        @Override
+        public String cellId(int index) {
+            return points[index].name();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomCellId;
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+class ColumnarCellPlotEncoderTest {
+    @Test
+    void pointsAreEncodedAsColumnsGroupedBySeries() {
+        var cellId1 = generateRandomCellId();
+        var cellId2 = generateRandomCellId();
+        var cellId3 = generateRandomCellId();
+
+        var result = ByteBuffer.wrap(
+                ColumnarCellPlotEncoder.encode(
+                        ImmutableMap.of(
+                                "Cluster 1", ImmutableSet.of(
+                                        TSnePoint.create(1.5, -2.25, cellId1),
+                                        TSnePoint.create(3.0, 4.0, cellId2)),
+                                "Cluster 2", ImmutableSet.of(
+                                        TSnePoint.create(0.5, 0.75, cellId3))),
+                        ImmutableMap.of()))
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        var magic = new byte[4];
+        result.get(magic);
+        assertThat(magic).isEqualTo(ColumnarCellPlotEncoder.MAGIC);
+
+        var headerLength = result.getInt();
+        assertThat(headerLength % 4).isZero();
+        var headerBytes = new byte[headerLength];
+        result.get(headerBytes);
+        var header = GSON.fromJson(new String(headerBytes, UTF_8), JsonObject.class);
+        assertThat(header.get("version").getAsInt()).isEqualTo(ColumnarCellPlotEncoder.VERSION);
+        assertThat(header.get("cellCount").getAsInt()).isEqualTo(3);
+        assertThat(header.get("hasExpression").getAsBoolean()).isFalse();
+        assertThat(header.getAsJsonArray("groups")).hasSize(2);
+        assertThat(header.getAsJsonArray("groups").get(1).getAsString()).isEqualTo("Cluster 2");
+
+        assertThat(new float[] { result.getFloat(), result.getFloat(), result.getFloat() })
+                .containsExactly(1.5F, 3.0F, 0.5F);
+        assertThat(new float[] { result.getFloat(), result.getFloat(), result.getFloat() })
+                .containsExactly(-2.25F, 4.0F, 0.75F);
+        assertThat(new int[] { result.getInt(), result.getInt(), result.getInt() })
+                .containsExactly(0, 0, 1);
+
+        var cellIdBytes = Arrays.copyOfRange(result.array(), result.position(), result.limit());
+        assertThat(new String(cellIdBytes, UTF_8).split("\n"))
+                .containsExactly(cellId1, cellId2, cellId3);
+    }
+
+    @Test
+    void expressionLevelsAndAdditionalPropertiesAreIncludedIfPresent() {
+        var result = ByteBuffer.wrap(
+                ColumnarCellPlotEncoder.encode(
+                        ImmutableMap.of(
+                                "Gene expression", ImmutableSet.of(
+                                        TSnePoint.create(1.0, 1.0, 0.0, generateRandomCellId()),
+                                        TSnePoint.create(2.0, 2.0, 42.0, generateRandomCellId()))),
+                        ImmutableMap.of("unit", "CPM")))
+                .order(ByteOrder.LITTLE_ENDIAN);
+
+        result.position(4);
+        var headerBytes = new byte[result.getInt()];
+        result.get(headerBytes);
+        var header = GSON.fromJson(new String(headerBytes, UTF_8), JsonObject.class);
+        assertThat(header.get("hasExpression").getAsBoolean()).isTrue();
+        assertThat(header.get("unit").getAsString()).isEqualTo("CPM");
+
+        // Skip x, y and group columns
+        result.position(result.position() + 3 * 2 * Integer.BYTES);
+        assertThat(new float[] { result.getFloat(), result.getFloat() })
+                .containsExactly(0.0F, 42.0F);
+    }
+
+    @Test
+    void emptyPlot() {
+        var result = ColumnarCellPlotEncoder.encode(ImmutableMap.of(), ImmutableMap.of());
+
+        var buffer = ByteBuffer.wrap(result).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(4);
+        var headerLength = buffer.getInt();
+        assertThat(result).hasSize(4 + 4 + headerLength);
+    }
+}
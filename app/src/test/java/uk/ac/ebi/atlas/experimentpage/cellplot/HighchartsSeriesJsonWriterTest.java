@@ -0,0 +1,76 @@
+package uk.ac.ebi.atlas.experimentpage.cellplot;
+
+import com.google.gson.JsonObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.StringWriter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+import static uk.ac.ebi.atlas.utils.GsonProvider.GSON;
+
+class HighchartsSeriesJsonWriterTest {
+    @Test
+    void consecutivePointsWithTheSameSeriesNameAreGroupedTogether() {
+        var stringWriter = new StringWriter();
+        var subject = new HighchartsSeriesJsonWriter(stringWriter, "Cluster ");
+
+        subject.beginObject().beginSeriesArray();
+        subject.writePoint("1", 1.234, 5.678, "cell_1");
+        subject.writePoint("1", 2.0, 3.0, "cell_2");
+        subject.writePoint("2", -1.0, -2.005, "cell_3");
+        subject.endSeriesArray().endObject();
+
+        var result = GSON.fromJson(stringWriter.toString(), JsonObject.class);
+        var series = result.getAsJsonArray("series");
+        assertThat(series).hasSize(2);
+
+        assertThat(series.get(0).getAsJsonObject().get("name").getAsString()).isEqualTo("Cluster 1");
+        assertThat(series.get(0).getAsJsonObject().getAsJsonArray("data")).hasSize(2);
+        assertThat(series.get(1).getAsJsonObject().get("name").getAsString()).isEqualTo("Cluster 2");
+        assertThat(series.get(1).getAsJsonObject().getAsJsonArray("data")).hasSize(1);
+
+        var firstPoint = series.get(0).getAsJsonObject().getAsJsonArray("data").get(0).getAsJsonObject();
+        assertThat(firstPoint.get("x").getAsDouble()).isEqualTo(1.23);
+        assertThat(firstPoint.get("y").getAsDouble()).isEqualTo(5.68);
+        assertThat(firstPoint.get("name").getAsString()).isEqualTo("cell_1");
+    }
+
+    @Test
+    void propertiesCanBeWrittenBeforeAndAfterTheSeries() {
+        var stringWriter = new StringWriter();
+        var subject = new HighchartsSeriesJsonWriter(stringWriter, "");
+
+        subject.beginObject().property("unit", "CPM").beginSeriesArray();
+        subject.writePointWithExpression("Gene expression", 1.0, 1.0, 0.0, "cell_1");
+        subject.writePointWithExpression("Gene expression", 1.0, 1.0, 42.0, "cell_2");
+        subject.endSeriesArray().property("max", 42.0).property("min", 42.0).endObject();
+
+        var result = GSON.fromJson(stringWriter.toString(), JsonObject.class);
+        assertThat(result.get("unit").getAsString()).isEqualTo("CPM");
+        assertThat(result.get("max").getAsDouble()).isEqualTo(42.0);
+        assertThat(result.getAsJsonArray("series")).hasSize(1);
+        assertThat(
+                result.getAsJsonArray("series").get(0).getAsJsonObject().getAsJsonArray("data").get(1)
+                        .getAsJsonObject().get("expressionLevel").getAsDouble())
+                .isEqualTo(42.0);
+    }
+
+    @Test
+    void emptySeriesArray() {
+        var stringWriter = new StringWriter();
+        var subject = new HighchartsSeriesJsonWriter(stringWriter, "");
+
+        subject.beginObject().beginSeriesArray().endSeriesArray().endObject();
+
+        assertThat(stringWriter.toString()).isEqualTo("{\"series\":[]}");
+    }
+
+    @Test
+    void pointsCannotBeWrittenOutsideTheSeriesArray() {
+        var subject = new HighchartsSeriesJsonWriter(new StringWriter(), "");
+
+        assertThatIllegalStateException().isThrownBy(
+                () -> subject.beginObject().writePoint("foo", 0.0, 0.0, "bar"));
+    }
+}
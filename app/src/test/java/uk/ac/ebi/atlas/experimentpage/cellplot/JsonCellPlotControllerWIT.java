@@ -9,6 +9,7 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
 import org.springframework.test.context.ContextConfiguration;
@@ -26,6 +27,7 @@ import javax.sql.DataSource;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -54,6 +56,8 @@ class JsonCellPlotControllerWIT {
 
     private String endpoint_url;
 
+    private String experimentAccession;
+
 
     ResourceDatabasePopulator populator = new ResourceDatabasePopulator();
 
@@ -83,7 +87,7 @@ class JsonCellPlotControllerWIT {
 
     @BeforeEach
     void setUp() {
-        var experimentAccession = jdbcUtils.fetchRandomPublicExperimentAccession();
+        experimentAccession = jdbcUtils.fetchRandomPublicExperimentAccession();
         jdbcUtils.updatePublicExperimentAccessionToPrivate(experimentAccession);
         accessKey = jdbcUtils.fetchExperimentAccessKey(experimentAccession);
 
@@ -103,9 +107,60 @@ class JsonCellPlotControllerWIT {
                 .andExpect(jsonPath("$.series").isNotEmpty());
     }
 
+    @Test
+    void returnsSampleIfMaxPointsIsRequested() throws Exception {
+        mockMvc.perform(get(endpoint_url + "?accessKey=" + accessKey + "&n_neighbors=5&maxPoints=10"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(jsonPath("$.series").isArray())
+                .andExpect(jsonPath("$.totalCellCount").isNumber());
+    }
+
+    @Test
+    void returnsErrorWithInvalidMaxPoints() throws Exception {
+        mockMvc.perform(get(endpoint_url + "?accessKey=" + accessKey + "&n_neighbors=5&maxPoints=0"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void returnsErrorWithInValidAccessKey() throws Exception {
         mockMvc.perform(get(endpoint_url + "?accessKey=foo_bar&n_neighbors=5"))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void coordinatesHaveETag() throws Exception {
+        var coordinatesUrl =
+                "/json/cell-plots/" + experimentAccession + "/coordinates" +
+                        "?plotMethod=umap&accessKey=" + accessKey + "&n_neighbors=5";
+
+        var eTag =
+                mockMvc.perform(get(coordinatesUrl))
+                        .andExpect(status().isOk())
+                        .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
+                        .andExpect(jsonPath("$.cellIds").isArray())
+                        .andExpect(jsonPath("$.x").isArray())
+                        .andExpect(jsonPath("$.y").isArray())
+                        .andExpect(header().exists(HttpHeaders.ETAG))
+                        .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get(coordinatesUrl).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(coordinatesUrl).header(HttpHeaders.IF_NONE_MATCH, "\"foo\", W/" + eTag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get(coordinatesUrl).header(HttpHeaders.IF_NONE_MATCH, "\"foo\""))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void clusterValuesAreCategorical() throws Exception {
+        var k = tSnePlotSettingsService.getExpectedClusters(experimentAccession);
+        mockMvc.perform(
+                get("/json/cell-plots/" + experimentAccession + "/values/clusters/k/" + k.get() +
+                        "?plotMethod=umap&accessKey=" + accessKey + "&n_neighbors=5"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8))
+                .andExpect(jsonPath("$.categories").isNotEmpty())
+                .andExpect(jsonPath("$.codes").isArray());
+    }
+}
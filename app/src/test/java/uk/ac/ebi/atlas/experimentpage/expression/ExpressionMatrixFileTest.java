@@ -0,0 +1,111 @@
+package uk.ac.ebi.atlas.experimentpage.expression;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.entry;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomCellId;
+
+class ExpressionMatrixFileTest {
+    private static final String MATRIX_MARKET =
+            "%%MatrixMarket matrix coordinate real general\n" +
+            "% genes as rows, cells as columns\n" +
+            "3 4 5\n" +
+            "3 2 1.5\n" +
+            "1 4 12.25\n" +
+            "3 1 0.5\n" +
+            "2 3 100\n" +
+            "1 1 3\n";
+    private static final String GENE_IDS = "ENSG00000000003\tTSPAN6\nENSG00000000005\tTNMD\nENSG00000000001\tFOO\n";
+    private static final String CELL_IDS = "cell_1\ncell_2\ncell_3\ncell_4\n";
+
+    @Test
+    void expressionLevelsOfEachGeneCanBeReadBack(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve("E-MTAB-5061").resolve("E-MTAB-5061.expression.bin");
+
+        ExpressionMatrixFile.write(
+                path,
+                write(tempDirPath.resolve("matrix.mtx"), MATRIX_MARKET),
+                write(tempDirPath.resolve("genes.tsv"), GENE_IDS),
+                write(tempDirPath.resolve("barcodes.tsv"), CELL_IDS));
+        var result = ExpressionMatrixFile.map(path);
+
+        assertThat(result.geneCount()).isEqualTo(3);
+        assertThat(result.cellCount()).isEqualTo(4);
+        assertThat(result.expressionLevels("ENSG00000000003"))
+                .containsExactly(entry("cell_1", 3.0), entry("cell_4", 12.25));
+        assertThat(result.expressionLevels("ENSG00000000005"))
+                .containsExactly(entry("cell_3", 100.0));
+        assertThat(result.expressionLevels("ENSG00000000001"))
+                .containsExactly(entry("cell_1", 0.5), entry("cell_2", 1.5));
+        assertThat(result.expressionLevels("ENSG00000000002")).isEmpty();
+    }
+
+    @Test
+    void gzippedMatrixMarketFilesAreSupported(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve(generateRandomCellId());
+        var matrixMarketPath = tempDirPath.resolve("matrix.mtx.gz");
+        try (var outputStream = new GZIPOutputStream(Files.newOutputStream(matrixMarketPath))) {
+            outputStream.write(MATRIX_MARKET.getBytes());
+        }
+
+        ExpressionMatrixFile.write(
+                path,
+                matrixMarketPath,
+                write(tempDirPath.resolve("genes.tsv"), GENE_IDS),
+                write(tempDirPath.resolve("barcodes.tsv"), CELL_IDS));
+
+        assertThat(ExpressionMatrixFile.map(path).expressionLevels("ENSG00000000005"))
+                .containsExactly(entry("cell_3", 100.0));
+    }
+
+    @Test
+    void throwsIfMatrixAndIdsDoNotMatch(@TempDir Path tempDirPath) throws Exception {
+        var path = tempDirPath.resolve(generateRandomCellId());
+        var matrixMarketPath = write(tempDirPath.resolve("matrix.mtx"), MATRIX_MARKET);
+        var geneIdsPath = write(tempDirPath.resolve("genes.tsv"), GENE_IDS);
+        var cellIdsPath = write(tempDirPath.resolve("barcodes.tsv"), "cell_1\ncell_2\n");
+
+        assertThatIOException()
+                .isThrownBy(() -> ExpressionMatrixFile.write(path, matrixMarketPath, geneIdsPath, cellIdsPath));
+        assertThat(path).doesNotExist();
+    }
+
+    @Test
+    void throwsIfFileIsNotAnExpressionMatrixFile(@TempDir Path tempDirPath) throws Exception {
+        var path = write(tempDirPath.resolve(generateRandomCellId()), "foobar, not an expression matrix file");
+
+        assertThatIOException().isThrownBy(() -> ExpressionMatrixFile.map(path));
+    }
+
+    @Test
+    void throwsIfHeaderCountsDoNotFitInAFile(@TempDir Path tempDirPath) throws Exception {
+        // 2^31 - 1 non-zero values need more than 16 GB, whose offsets overflow an int
+        var header =
+                ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN)
+                        .put("SCXE".getBytes(US_ASCII))
+                        .putInt(ExpressionMatrixFile.VERSION)
+                        .putInt(3)
+                        .putInt(4)
+                        .putInt(Integer.MAX_VALUE);
+        var path = Files.write(tempDirPath.resolve(generateRandomCellId()), header.array());
+
+        assertThatIOException()
+                .isThrownBy(() -> ExpressionMatrixFile.map(path))
+                .withMessageContaining("too large");
+    }
+
+    private static Path write(Path path, String content) throws IOException {
+        return Files.write(path, content.getBytes());
+    }
+}
@@ -10,11 +10,13 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
-import uk.ac.ebi.atlas.bioentity.properties.BioEntityPropertyDao;
+import uk.ac.ebi.atlas.bioentity.properties.GeneSymbolService;
 
 import java.util.concurrent.ThreadLocalRandom;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.Mockito.when;
 import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomEnsemblGeneId;
 import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomEnsemblGeneIds;
@@ -27,13 +29,13 @@ class HighchartsHeatmapAdapterTest {
     public static final String EXPRESSION_UNIT = "CPM";
 
     @Mock
-    private BioEntityPropertyDao bioEntityPropertyDaoMock;
+    private GeneSymbolService geneSymbolServiceMock;
 
     private HighchartsHeatmapAdapter subject;
 
     @BeforeEach
     void setUp() {
-        subject = new HighchartsHeatmapAdapter(bioEntityPropertyDaoMock);
+        subject = new HighchartsHeatmapAdapter(geneSymbolServiceMock);
     }
 
     @Test
@@ -41,7 +43,7 @@ class HighchartsHeatmapAdapterTest {
         var randomGeneIds = generateRandomEnsemblGeneIds(3);
         var randomGeneSymbols = generateRandomGeneSymbols(2);
 
-        when(bioEntityPropertyDaoMock.getSymbolsForGeneIds(ImmutableSet.copyOf(randomGeneIds)))
+        when(geneSymbolServiceMock.getSymbols(ImmutableSet.copyOf(randomGeneIds)))
                 .thenReturn(
                         ImmutableMap.of(
                                 randomGeneIds.get(0), randomGeneSymbols.get(0),
@@ -68,7 +70,7 @@ class HighchartsHeatmapAdapterTest {
         var randomGeneIds = generateRandomEnsemblGeneIds(3);
         var randomGeneSymbols = generateRandomGeneSymbols(2);
 
-        when(bioEntityPropertyDaoMock.getSymbolsForGeneIds(ImmutableSet.copyOf(randomGeneIds)))
+        when(geneSymbolServiceMock.getSymbols(ImmutableSet.copyOf(randomGeneIds)))
                 .thenReturn(
                         ImmutableMap.of(
                                 randomGeneIds.get(0), randomGeneSymbols.get(0),
@@ -128,7 +130,7 @@ class HighchartsHeatmapAdapterTest {
                 RNG.nextInt(1000000),
                 EXPRESSION_UNIT);
 
-        when(bioEntityPropertyDaoMock.getSymbolsForGeneIds(ImmutableSet.of(geneId)))
+        when(geneSymbolServiceMock.getSymbols(ImmutableSet.of(geneId)))
                 .thenReturn(ImmutableMap.of(geneId, geneId));
 
         assertThat(subject.getMarkerGeneHeatmapDataSortedLexicographically(ImmutableSet.of(markerGene1, markerGene2)))
@@ -151,7 +153,7 @@ class HighchartsHeatmapAdapterTest {
 
         var cellGroupValueWhereMarkers = new String[] {"1", "11", "9"};
 
-        when(bioEntityPropertyDaoMock.getSymbolsForGeneIds(ImmutableSet.copyOf(randomGeneIds)))
+        when(geneSymbolServiceMock.getSymbols(ImmutableSet.copyOf(randomGeneIds)))
                 .thenReturn(
                         ImmutableMap.of(
                                 randomGeneIds.get(0), randomGeneSymbols.get(0),
@@ -185,7 +187,7 @@ class HighchartsHeatmapAdapterTest {
 
         var cellGroupValueWhereMarkers = new String[] {"1", "abc", "aaa", "2"};
 
-        when(bioEntityPropertyDaoMock.getSymbolsForGeneIds(ImmutableSet.copyOf(randomGeneIds)))
+        when(geneSymbolServiceMock.getSymbols(ImmutableSet.copyOf(randomGeneIds)))
                 .thenReturn(
                         ImmutableMap.of(
                                 randomGeneIds.get(0), randomGeneSymbols.get(0),
@@ -224,7 +226,7 @@ class HighchartsHeatmapAdapterTest {
 
         var cellGroupValueWhereMarkers = new String[] {"x", "abc", "aaa", "y"};
 
-        when(bioEntityPropertyDaoMock.getSymbolsForGeneIds(ImmutableSet.copyOf(randomGeneIds)))
+        when(geneSymbolServiceMock.getSymbols(ImmutableSet.copyOf(randomGeneIds)))
                 .thenReturn(
                         ImmutableMap.of(
                                 randomGeneIds.get(0), randomGeneSymbols.get(0),
@@ -255,4 +257,47 @@ class HighchartsHeatmapAdapterTest {
         assertThat(result).element(3).extracting("cellGroupValueWhereMarker")
                 .containsOnly(cellGroupValueWhereMarkers[3]);
     }
+
+    @Test
+    void topNKeepsTheGenesWithTheLowestPValueOfEachGroup() {
+        var randomGeneIds = generateRandomEnsemblGeneIds(4);
+        when(geneSymbolServiceMock.getSymbols(anySet())).thenReturn(ImmutableMap.of());
+
+        var markerGenes = ImmutableList.of(
+                MarkerGene.create(randomGeneIds.get(0), "2", "1", 0.001, "1", 1, 1, EXPRESSION_UNIT),
+                MarkerGene.create(randomGeneIds.get(0), "2", "1", 0.001, "2", 1, 1, EXPRESSION_UNIT),
+                MarkerGene.create(randomGeneIds.get(1), "2", "1", 0.01, "1", 1, 1, EXPRESSION_UNIT),
+                MarkerGene.create(randomGeneIds.get(2), "2", "2", 0.001, "2", 1, 1, EXPRESSION_UNIT),
+                MarkerGene.create(randomGeneIds.get(3), "2", "2", 0.01, "2", 1, 1, EXPRESSION_UNIT));
+
+        var result = subject.getMarkerGeneHeatmapData(markerGenes, 1, 0, 0);
+
+        assertThat(result)
+                .extracting("geneName", "x", "y")
+                .containsExactly(
+                        tuple(randomGeneIds.get(0), 0, 0),
+                        tuple(randomGeneIds.get(0), 1, 0),
+                        tuple(randomGeneIds.get(2), 1, 1));
+    }
+
+    @Test
+    void pagesContainWholeGroups() {
+        var randomGeneIds = generateRandomEnsemblGeneIds(3);
+        when(geneSymbolServiceMock.getSymbols(anySet())).thenReturn(ImmutableMap.of());
+
+        var markerGenes = ImmutableList.of(
+                MarkerGene.create(randomGeneIds.get(0), "3", "1", 0.001, "1", 1, 1, EXPRESSION_UNIT),
+                MarkerGene.create(randomGeneIds.get(1), "3", "2", 0.001, "2", 1, 1, EXPRESSION_UNIT),
+                MarkerGene.create(randomGeneIds.get(1), "3", "2", 0.001, "3", 1, 1, EXPRESSION_UNIT),
+                MarkerGene.create(randomGeneIds.get(2), "3", "3", 0.001, "3", 1, 1, EXPRESSION_UNIT));
+
+        assertThat(subject.getMarkerGeneHeatmapData(markerGenes, 0, 1, 1))
+                .extracting("cellGroupValueWhereMarker", "x", "y")
+                .containsExactly(tuple("2", 0, 0), tuple("2", 1, 0));
+        assertThat(subject.getMarkerGeneHeatmapData(markerGenes, 0, 1, 2))
+                .extracting("cellGroupValueWhereMarker")
+                .containsExactly("3");
+        assertThat(subject.getMarkerGeneHeatmapData(markerGenes, 0, 2, 2))
+                .isEmpty();
+    }
 }
@@ -0,0 +1,65 @@
+package uk.ac.ebi.atlas.experimentpage.markergenes;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class MarkerGeneHeatmapTest {
+    private static final String EXPRESSION_UNIT = "CPM";
+
+    private static final MarkerGeneHeatmap SUBJECT = MarkerGeneHeatmap.create(
+            ImmutableList.of(
+                    MarkerGene.create("gene_1", "10", "10", 0.01, "10", 1, 1, EXPRESSION_UNIT),
+                    MarkerGene.create("gene_1", "10", "2", 0.001, "2", 2, 2, EXPRESSION_UNIT),
+                    MarkerGene.create("gene_2", "10", "2", 0.02, "2", 3, 3, EXPRESSION_UNIT),
+                    MarkerGene.create("gene_2", "10", "2", 0.02, "Not available", 4, 4, EXPRESSION_UNIT),
+                    MarkerGene.create("gene_3", "10", "Not available", 0.0001, "10", 5, 5, EXPRESSION_UNIT)));
+
+    @Test
+    void markerGenesInSeveralGroupsAreMergedIntoTheGroupWithTheLowestPValue() {
+        assertThat(SUBJECT.sortedNaturally())
+                .extracting("geneId", "cellGroupValueWhereMarker", "pValue", "cellGroupValue")
+                .containsExactlyInAnyOrder(
+                        tuple("gene_1", "2", 0.001, "10"),
+                        tuple("gene_1", "2", 0.001, "2"),
+                        tuple("gene_2", "2", 0.02, "2"));
+    }
+
+    @Test
+    void rowsAreSortedNaturallyByClusterId() {
+        assertThat(
+                MarkerGeneHeatmap.create(
+                        ImmutableList.of(
+                                MarkerGene.create("gene_1", "10", "10", 0.01, "10", 1, 1, EXPRESSION_UNIT),
+                                MarkerGene.create("gene_2", "10", "2", 0.02, "2", 1, 1, EXPRESSION_UNIT),
+                                MarkerGene.create("gene_3", "10", "2", 0.01, "2", 1, 1, EXPRESSION_UNIT)))
+                        .sortedNaturally())
+                .extracting("geneId")
+                .containsExactly("gene_3", "gene_2", "gene_1");
+    }
+
+    @Test
+    void rowsAreSortedLexicographicallyByCellType() {
+        assertThat(
+                MarkerGeneHeatmap.create(
+                        ImmutableList.of(
+                                MarkerGene.create("gene_1", "10", "2", 0.01, "2", 1, 1, EXPRESSION_UNIT),
+                                MarkerGene.create("gene_2", "10", "10", 0.02, "10", 1, 1, EXPRESSION_UNIT),
+                                MarkerGene.create("gene_3", "10", "10", 0.01, "10", 1, 1, EXPRESSION_UNIT)))
+                        .sortedLexicographically())
+                .extracting("geneId")
+                .containsExactly("gene_3", "gene_2", "gene_1");
+    }
+
+    @Test
+    void columnsCanBeRestrictedToSomeCellGroupValues() {
+        assertThat(SUBJECT.sortedLexicographically(ImmutableSet.of("2")))
+                .extracting("cellGroupValue")
+                .containsOnly("2");
+        assertThat(SUBJECT.sortedLexicographically(ImmutableSet.of()))
+                .isEmpty();
+    }
+}
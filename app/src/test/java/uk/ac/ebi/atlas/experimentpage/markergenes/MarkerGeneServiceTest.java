@@ -16,6 +16,8 @@ import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
+import static uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGenesDao.CELL_TYPE_AUTHOR_LABELS;
+import static uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGenesDao.CELL_TYPE_ONTOLOGY_LABELS;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -35,8 +37,8 @@ public class MarkerGeneServiceTest {
     @Test
     @DisplayName("Fetch marker gene profile expression from ontology label cell types")
     void getMarkerGeneProfileWhenOntologyLabelsHasCellTypes() {
-        when(markerGenesDaoMock.getCellTypeMarkerGenesOntologyLabels("E-EHCA-2", ImmutableSet.of("T cell", "B cell")))
-                .thenReturn(mockTestData());
+        when(markerGenesDaoMock.fetchMarkerGeneHeatmap("E-EHCA-2", CELL_TYPE_ONTOLOGY_LABELS))
+                .thenReturn(MarkerGeneHeatmap.create(mockTestData()));
         when(cellTypeSearchDaoMock.getInferredCellTypeOntologyLabels("E-EHCA-2", ImmutableSet.of("http://purl.obolibrary.org/obo/UBERON_0000006")))
                 .thenReturn(ImmutableSet.of("T cell", "B cell"));
         assertThat(subject.getCellTypeMarkerGeneProfile("E-EHCA-2", ImmutableSet.of("http://purl.obolibrary.org/obo/UBERON_0000006")))
@@ -46,8 +48,8 @@ public class MarkerGeneServiceTest {
     @Test
     @DisplayName("Fetch marker gene profile expression from authors label cell types")
     void getMarkerGeneProfileWhenAuthorsLabelsHasCellTypes() {
-        when(markerGenesDaoMock.getCellTypeMarkerGenesAuthorsLabels("E-EHCA-2", ImmutableSet.of("T cell", "B cell")))
-                .thenReturn(mockTestData());
+        when(markerGenesDaoMock.fetchMarkerGeneHeatmap("E-EHCA-2", CELL_TYPE_AUTHOR_LABELS))
+                .thenReturn(MarkerGeneHeatmap.create(mockTestData()));
         when(cellTypeSearchDaoMock.getInferredCellTypeAuthorsLabels("E-EHCA-2", ImmutableSet.of("http://purl.obolibrary.org/obo/UBERON_0000006")))
                 .thenReturn(ImmutableSet.of("T cell", "B cell"));
         when(cellTypeSearchDaoMock.getInferredCellTypeOntologyLabels("E-EHCA-2", ImmutableSet.of("http://purl.obolibrary.org/obo/UBERON_0000006")))
@@ -63,6 +65,19 @@ public class MarkerGeneServiceTest {
                 .thenReturn(ImmutableSet.of());
         when(cellTypeSearchDaoMock.getInferredCellTypeAuthorsLabels("E-EHCA-2", ImmutableSet.of("skin")))
                 .thenReturn(ImmutableSet.of());
+        when(markerGenesDaoMock.fetchMarkerGeneHeatmap("E-EHCA-2", CELL_TYPE_AUTHOR_LABELS))
+                .thenReturn(MarkerGeneHeatmap.create(ImmutableList.of()));
+
+        assertThat(subject.getCellTypeMarkerGeneProfile("E-EHCA-2", ImmutableSet.of("skin"))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Marker gene profile only includes the cell types of the organism part")
+    void markerGeneProfileIsRestrictedToTheCellTypesOfTheOrganismPart() {
+        when(markerGenesDaoMock.fetchMarkerGeneHeatmap("E-EHCA-2", CELL_TYPE_ONTOLOGY_LABELS))
+                .thenReturn(MarkerGeneHeatmap.create(mockTestData()));
+        when(cellTypeSearchDaoMock.getInferredCellTypeOntologyLabels("E-EHCA-2", ImmutableSet.of("skin")))
+                .thenReturn(ImmutableSet.of("B cell"));
 
         assertThat(subject.getCellTypeMarkerGeneProfile("E-EHCA-2", ImmutableSet.of("skin"))).isEmpty();
     }
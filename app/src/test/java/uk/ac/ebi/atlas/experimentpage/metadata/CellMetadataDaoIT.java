@@ -19,8 +19,8 @@ import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.util.StringUtils;
 import uk.ac.ebi.atlas.commons.readers.TsvStreamer;
 import uk.ac.ebi.atlas.configuration.TestConfig;
+import uk.ac.ebi.atlas.experimentimport.CachedExperimentFilesParser;
 import uk.ac.ebi.atlas.experimentimport.condensedSdrf.CondensedSdrfParser;
-import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
 import uk.ac.ebi.atlas.resource.DataFileHub;
 import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
 import uk.ac.ebi.atlas.testutils.JdbcUtils;
@@ -54,7 +54,7 @@ class CellMetadataDaoIT {
     private JdbcUtils jdbcUtils;
 
     @Inject
-    private IdfParser idfParser;
+    private CachedExperimentFilesParser cachedExperimentFilesParser;
 
     @Inject
     private CondensedSdrfParser condensedSdrfParser;
@@ -86,7 +86,7 @@ class CellMetadataDaoIT {
 
     @BeforeEach
     void setUp() {
-        this.subject = new CellMetadataDao(solrCloudCollectionProxyFactory, idfParser);
+        this.subject = new CellMetadataDao(solrCloudCollectionProxyFactory, cachedExperimentFilesParser);
     }
 
     @ParameterizedTest
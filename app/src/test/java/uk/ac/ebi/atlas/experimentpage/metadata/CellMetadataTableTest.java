@@ -0,0 +1,84 @@
+package uk.ac.ebi.atlas.experimentpage.metadata;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.function.Function.identity;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+class CellMetadataTableTest {
+    private static final CellMetadataTable SUBJECT = CellMetadataTable.create(
+            ImmutableList.of("organism_part", "inferred_cell_type_-_ontology_labels", "sex"),
+            ImmutableMap.of(
+                    "organism_part", ImmutableMap.of("cell_3", "pancreas", "cell_1", "liver", "cell_2", "pancreas"),
+                    "inferred_cell_type_-_ontology_labels", ImmutableMap.of("cell_2", "beta cell"),
+                    "individual", ImmutableMap.of("cell_4", "donor 1")));
+
+    @Test
+    void metadataTypesAreInTheGivenOrder() {
+        assertThat(SUBJECT.metadataTypes())
+                .containsExactly("organism_part", "inferred_cell_type_-_ontology_labels", "sex");
+    }
+
+    @Test
+    void valuesOfTypesThatAreNotOfInterestAreLeftOut() {
+        assertThat(SUBJECT.cellCount()).isEqualTo(3);
+        assertThat(SUBJECT.metadataValues("individual")).isEmpty();
+        assertThat(SUBJECT.metadataValuesOfCell("cell_4")).isEmpty();
+    }
+
+    @Test
+    void cardinalityIsTheNumberOfDistinctValues() {
+        assertThat(SUBJECT.cardinality("organism_part")).isEqualTo(2);
+        assertThat(SUBJECT.cardinality("inferred_cell_type_-_ontology_labels")).isEqualTo(1);
+        assertThat(SUBJECT.cardinality("sex")).isZero();
+        assertThat(SUBJECT.cardinality("foo")).isZero();
+    }
+
+    @Test
+    void metadataValuesOfAType() {
+        assertThat(SUBJECT.metadataValues("organism_part"))
+                .hasValueSatisfying(metadataValues ->
+                        assertThat(metadataValues)
+                                .containsOnly(
+                                        entry("cell_1", "liver"),
+                                        entry("cell_2", "pancreas"),
+                                        entry("cell_3", "pancreas")));
+        assertThat(SUBJECT.metadataValues("inferred_cell_type_-_ontology_labels"))
+                .hasValueSatisfying(metadataValues ->
+                        assertThat(metadataValues).containsOnly(entry("cell_2", "beta cell")));
+        assertThat(SUBJECT.metadataValues("sex")).hasValueSatisfying(metadataValues ->
+                assertThat(metadataValues).isEmpty());
+    }
+
+    @Test
+    void metadataValuesOfACell() {
+        assertThat(SUBJECT.metadataValuesOfCell("cell_2"))
+                .containsOnly(
+                        entry("organism_part", "pancreas"),
+                        entry("inferred_cell_type_-_ontology_labels", "beta cell"));
+        assertThat(SUBJECT.metadataValuesOfCell("cell_1")).containsOnly(entry("organism_part", "liver"));
+        assertThat(SUBJECT.metadataValuesOfCell("foo")).isEmpty();
+    }
+
+    @Test
+    void estimatedSizeGrowsWithTheNumberOfCells() {
+        var cellIds = IntStream.range(0, 1_000).mapToObj(i -> "cell_" + i).collect(toImmutableList());
+        var largerTable =
+                CellMetadataTable.create(
+                        ImmutableList.of("organism_part"),
+                        ImmutableMap.of(
+                                "organism_part", cellIds.stream().collect(toImmutableMap(identity(), __ -> "liver"))));
+
+        assertThat(SUBJECT.estimatedBytes()).isPositive();
+        // At least the cell ID and the code of every cell
+        assertThat(largerTable.estimatedBytes())
+                .isGreaterThan(cellIds.stream().mapToLong(cellId -> cellId.length() + Integer.BYTES).sum());
+    }
+}
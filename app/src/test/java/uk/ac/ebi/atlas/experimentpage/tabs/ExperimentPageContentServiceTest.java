@@ -125,8 +125,8 @@ class ExperimentPageContentServiceTest {
                 .thenReturn(ImmutableList.of(1, 2, 3));
         when(cellMetadataServiceMock.getMetadataTypes(NON_ANATOMOGRAM_EXPERIMENT_ACCESSION))
                 .thenReturn(ImmutableSet.of("foo"));
-        when(cellMetadataServiceMock.getMetadataValuesForGivenType(NON_ANATOMOGRAM_EXPERIMENT_ACCESSION, "foo"))
-                .thenReturn(ImmutableMap.of());
+        when(cellMetadataServiceMock.getMetadataCardinality(NON_ANATOMOGRAM_EXPERIMENT_ACCESSION, "foo"))
+                .thenReturn(0);
 
         subject = new ExperimentPageContentService(
                 experimentFileLocationServiceMock,
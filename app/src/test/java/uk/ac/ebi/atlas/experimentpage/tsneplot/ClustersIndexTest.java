@@ -0,0 +1,50 @@
+package uk.ac.ebi.atlas.experimentpage.tsneplot;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+import static org.assertj.core.api.Assertions.entry;
+
+class ClustersIndexTest {
+    private static final ImmutableList<String[]> CLUSTERS_TSV = ImmutableList.of(
+            new String[]{"sel.K", "K", "cell_3", "cell_1", "cell_2"},
+            new String[]{"FALSE", "2", "1", "2", "2"},
+            new String[]{"TRUE", "3", "3", "1", "2"},
+            new String[]{"TRUE", "5", "5", "4", "1"});
+
+    @Test
+    void ksAreInTheOrderOfTheFile() {
+        var subject = ClustersIndex.create(CLUSTERS_TSV.iterator());
+
+        assertThat(subject.ks()).containsExactly(2, 3, 5);
+        assertThat(subject.cellCount()).isEqualTo(3);
+    }
+
+    @Test
+    void selectedKIsTheFirstMarkedRow() {
+        assertThat(ClustersIndex.create(CLUSTERS_TSV.iterator()).selectedK()).hasValue(3);
+        assertThat(ClustersIndex.create(CLUSTERS_TSV.subList(0, 2).iterator()).selectedK()).isEmpty();
+    }
+
+    @Test
+    void clusterIdsOfEachCell() {
+        var subject = ClustersIndex.create(CLUSTERS_TSV.iterator());
+
+        assertThat(subject.clusterIds(3))
+                .hasValueSatisfying(clusterIds ->
+                        assertThat(clusterIds)
+                                .containsOnly(
+                                        entry("cell_1", "1"),
+                                        entry("cell_2", "2"),
+                                        entry("cell_3", "3")));
+        assertThat(subject.clusterIds(4)).isEmpty();
+    }
+
+    @Test
+    void emptyFileThrows() {
+        assertThatIllegalArgumentException()
+                .isThrownBy(() -> ClustersIndex.create(ImmutableList.<String[]>of().iterator()));
+    }
+}
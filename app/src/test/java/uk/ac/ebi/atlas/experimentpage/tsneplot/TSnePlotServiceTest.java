@@ -9,7 +9,9 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataDao;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotCoordinatesStore;
+import uk.ac.ebi.atlas.experimentpage.expression.ExpressionMatrixStore;
+import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataService;
 import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
 import uk.ac.ebi.atlas.testutils.RandomDataTestUtils;
 
@@ -35,13 +37,22 @@ class TSnePlotServiceTest {
     @Mock
     private TSnePlotDao tSnePlotDaoMock;
     @Mock
-    private CellMetadataDao cellMetadataDaoMock;
+    private CellPlotCoordinatesStore cellPlotCoordinatesStoreMock;
+    @Mock
+    private ExpressionMatrixStore expressionMatrixStoreMock;
+    @Mock
+    private CellMetadataService cellMetadataServiceMock;
 
     private TSnePlotService subject;
 
     @BeforeEach
     void setUp() {
-        subject = new TSnePlotService(tSnePlotDaoMock, cellMetadataDaoMock);
+        subject =
+                new TSnePlotService(
+                        tSnePlotDaoMock,
+                        cellPlotCoordinatesStoreMock,
+                        expressionMatrixStoreMock,
+                        cellMetadataServiceMock);
     }
 
     @Test
@@ -122,7 +133,7 @@ class TSnePlotServiceTest {
                         value -> metadataValues.get(ThreadLocalRandom.current().nextInt(0, metadataValues.size()))));
 
         when(
-                cellMetadataDaoMock.getMetadataValues(eq(experimentAccession), anyString()))
+                cellMetadataServiceMock.getMetadataValuesForGivenType(eq(experimentAccession), anyString()))
                 .thenReturn(cellMetadata);
 
         var results = subject.fetchTSnePlotWithMetadata(experimentAccession, perplexity, metadataCategory);
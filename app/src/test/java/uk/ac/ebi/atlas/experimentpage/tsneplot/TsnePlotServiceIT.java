@@ -13,7 +13,9 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import uk.ac.ebi.atlas.configuration.TestConfig;
-import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataDao;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotCoordinatesStore;
+import uk.ac.ebi.atlas.experimentpage.expression.ExpressionMatrixStore;
+import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataService;
 import uk.ac.ebi.atlas.testutils.JdbcUtils;
 
 import javax.inject.Inject;
@@ -37,7 +39,13 @@ public class TsnePlotServiceIT {
     private TSnePlotDao tsnePlotDao;
 
     @Inject
-    private CellMetadataDao cellMetadataDao;
+    private CellPlotCoordinatesStore cellPlotCoordinatesStore;
+
+    @Inject
+    private ExpressionMatrixStore expressionMatrixStore;
+
+    @Inject
+    private CellMetadataService cellMetadataService;
 
     private TSnePlotService subject;
 
@@ -63,7 +71,9 @@ public class TsnePlotServiceIT {
 
     @BeforeEach
     void setUp() {
-        this.subject = new TSnePlotService(tsnePlotDao, cellMetadataDao);
+        this.subject =
+                new TSnePlotService(
+                        tsnePlotDao, cellPlotCoordinatesStore, expressionMatrixStore, cellMetadataService);
     }
 
     @Test
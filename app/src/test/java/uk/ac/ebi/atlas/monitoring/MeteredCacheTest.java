@@ -0,0 +1,82 @@
+package uk.ac.ebi.atlas.monitoring;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MeteredCacheTest {
+    private static final String CACHE_NAME = "jsonCellPlotWithK";
+
+    private CacheMetrics metrics;
+    private MeteredCacheManager subject;
+
+    @BeforeEach
+    void setUp() {
+        metrics = CacheMetrics.withByteBudget(1024, value -> ((String) value).length());
+        subject =
+                new MeteredCacheManager(
+                        new ConcurrentMapCacheManager(CACHE_NAME), ImmutableMap.of(CACHE_NAME, metrics));
+    }
+
+    @Test
+    void missesFollowedByPutAreLoads() {
+        var cache = subject.getCache(CACHE_NAME);
+
+        assertThat(cache.get("foo")).isNull();
+        cache.put("foo", "foobar");
+        assertThat(cache.get("foo", String.class)).isEqualTo("foobar");
+
+        assertThat(subject.getStats().get(CACHE_NAME))
+                .containsEntry("entries", 1L)
+                .containsEntry("weight", 6L)
+                .containsEntry("budget", 1024L)
+                .containsEntry("hits", 1L)
+                .containsEntry("misses", 1L)
+                .containsEntry("hitRate", 0.5)
+                .containsEntry("loads", 1L);
+    }
+
+    @Test
+    void putsWithoutMissAreNotLoads() {
+        var cache = subject.getCache(CACHE_NAME);
+
+        assertThat(cache.get("foo")).isNull();
+        cache.put("bar", "barfoo");
+
+        assertThat(subject.getStats().get(CACHE_NAME))
+                .containsEntry("misses", 1L)
+                .containsEntry("loads", 0L);
+    }
+
+    @Test
+    void valueLoaderIsTimed() {
+        var cache = subject.getCache(CACHE_NAME);
+
+        assertThat(cache.get("foo", () -> "foobar")).isEqualTo("foobar");
+        assertThat(cache.get("foo", () -> "barfoo")).isEqualTo("foobar");
+
+        assertThat(subject.getStats().get(CACHE_NAME))
+                .containsEntry("hits", 1L)
+                .containsEntry("misses", 1L)
+                .containsEntry("loads", 1L);
+    }
+
+    @Test
+    void evictionsAreReportedByTheCache() {
+        metrics.recordEviction();
+
+        assertThat(subject.getStats().get(CACHE_NAME)).containsEntry("evictions", 1L);
+    }
+
+    @Test
+    void cachesWithoutMetricsAreNotWrapped() {
+        var cacheManager = new ConcurrentMapCacheManager("foo");
+        subject = new MeteredCacheManager(cacheManager, ImmutableMap.of());
+
+        assertThat(subject.getCache("foo")).isSameAs(cacheManager.getCache("foo"));
+        assertThat(subject.getStats()).isEmpty();
+    }
+}
@@ -2,6 +2,7 @@ package uk.ac.ebi.atlas.search;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
@@ -10,9 +11,7 @@ import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.TestInstance.Lifecycle;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.params.ParameterizedTest;
-import org.junit.jupiter.params.provider.CsvSource;
 import org.junit.jupiter.params.provider.MethodSource;
-import org.junit.jupiter.params.provider.ValueSource;
 import org.springframework.core.io.ClassPathResource;
 import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
 import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
@@ -20,17 +19,20 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import uk.ac.ebi.atlas.configuration.TestConfig;
-import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
+import uk.ac.ebi.atlas.search.cellindex.CellIdDictionary;
 import uk.ac.ebi.atlas.testutils.JdbcUtils;
+import uk.ac.ebi.atlas.trader.ExperimentVisibilityService;
 
 import javax.inject.Inject;
 import javax.sql.DataSource;
 import java.util.List;
-import java.util.Random;
-import java.util.concurrent.ThreadLocalRandom;
+import java.util.Map;
 import java.util.stream.Stream;
 
-import static java.util.Collections.emptyList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.stream.Collectors.groupingBy;
+import static java.util.stream.Collectors.mapping;
+import static java.util.stream.Collectors.toList;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
@@ -38,8 +40,6 @@ import static org.assertj.core.api.Assertions.assertThat;
 @ContextConfiguration(classes = TestConfig.class)
 @TestInstance(Lifecycle.PER_CLASS)
 class GeneSearchDaoIT {
-    private final static Random RNG = ThreadLocalRandom.current();
-
     @Inject
     private DataSource dataSource;
 
@@ -47,10 +47,10 @@ class GeneSearchDaoIT {
     private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
 
     @Inject
-    private SolrCloudCollectionProxyFactory solrCloudCollectionProxyFactory;
+    private JdbcUtils jdbcTestUtils;
 
     @Inject
-    private JdbcUtils jdbcTestUtils;
+    private ExperimentVisibilityService experimentVisibilityService;
 
     private GeneSearchDao subject;
 
@@ -64,6 +64,7 @@ class GeneSearchDaoIT {
                 new ClassPathResource("fixtures/scxa_cell_group_membership.sql"),
                 new ClassPathResource("fixtures/scxa_cell_group_marker_genes.sql"));
         populator.execute(dataSource);
+        experimentVisibilityService.refresh();
     }
 
     @AfterAll
@@ -80,113 +81,81 @@ class GeneSearchDaoIT {
 
     @BeforeEach
     void setUp() {
-        subject = new GeneSearchDao(namedParameterJdbcTemplate, solrCloudCollectionProxyFactory);
+        subject = new GeneSearchDao(namedParameterJdbcTemplate, experimentVisibilityService);
     }
 
     @ParameterizedTest
     @MethodSource("randomGeneIdProvider")
-    void validGeneIdReturnsAtLeastOneCellId(String geneId) {
-        assertThat(subject.fetchCellIds(geneId))
-                .isNotEmpty();
-    }
+    void cellPostingListsHaveTheOrdinalsOfCellIds(String geneId) {
+        var cellIds = fetchCellIds(geneId);
+        var cellIdDictionaries =
+                cellIds.entrySet().stream()
+                        .collect(toImmutableMap(Map.Entry::getKey, entry -> CellIdDictionary.create(entry.getValue())));
 
-    // Any gene with marker_probability < 0.05, see scxa_cell_group_marker_genes.sql
-    @ParameterizedTest
-    @ValueSource(strings = {"AT1G62480"})
-    void validGeneIdReturnsExperimentAccessions(String geneId) {
-        var result = subject.fetchExperimentAccessionsWhereGeneIsMarker(geneId);
+        var result = subject.fetchCellPostingLists(geneId, cellIdDictionaries::get);
 
         assertThat(result)
-                .containsOnly("E-CURD-4");
+                .isNotEmpty()
+                .containsOnlyKeys(cellIds.keySet());
+        result.forEach((experimentAccession, cells) -> {
+            assertThat(cells.size()).isEqualTo(ImmutableSet.copyOf(cellIds.get(experimentAccession)).size());
+            cells.forEach(ordinal ->
+                    assertThat(cellIds.get(experimentAccession))
+                            .contains(cellIdDictionaries.get(experimentAccession).cellId(ordinal)));
+        });
     }
 
     @ParameterizedTest
-    @ValueSource(strings = {"FOO"})
-    void invalidGeneIdReturnsEmpty(String geneId) {
-        assertThat(subject.fetchExperimentAccessionsWhereGeneIsMarker(geneId))
+    @MethodSource("randomGeneIdProvider")
+    void cellsNotInDictionaryAreSkipped(String geneId) {
+        assertThat(subject.fetchCellPostingLists(geneId, __ -> CellIdDictionary.create(ImmutableList.of())))
+                .isEmpty();
+    }
+
+    @Test
+    void validGeneIdsReturnExperimentAccessions() {
+        assertThat(subject.fetchExperimentAccessionsWhereGenesAreMarkers(ImmutableList.of("AT1G62480", "FOO")))
+                .containsOnly("E-CURD-4");
+        assertThat(subject.fetchExperimentAccessionsWhereGenesAreMarkers(ImmutableList.of()))
                 .isEmpty();
     }
 
     // Look for the cell group IDs that match an experiment and its preferred K variable, then find a gene in that cell
     // group that has marker_probability < 0.05
-    @ParameterizedTest
-    @CsvSource({"'ENSMUSG00000023224', 'E-EHCA-2', 24"})
-    void validExperimentAccessionReturnsClusterIDsWithPreferredKAndMinP(String geneId,
-                                                                        String experimentAccession,
-                                                                        Integer preferredK) {
-        var minimumMarkerProbability = subject.fetchMinimumMarkerProbability(experimentAccession).get(geneId);
+    @Test
+    void batchedClusterIdsWithPreferredKAndMinPMatchPerExperimentResults() {
         var result =
-                subject.fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(
-                        geneId, experimentAccession, preferredK, minimumMarkerProbability);
-
-        assertThat(result)
-                .isNotEmpty()
-                .containsAllEntriesOf(
-                        ImmutableMap.of(
-                                24, ImmutableList.of(11)));
+                subject.fetchClusterIdsWithPreferredKAndMinP(
+                        ImmutableList.of("ENSMUSG00000023224", "AT1G52060"),
+                        ImmutableMap.of("E-EHCA-2", 24, "E-CURD-4", 17));
+
+        assertThat(result.get("ENSMUSG00000023224").get("E-EHCA-2"))
+                .containsAllEntriesOf(ImmutableMap.of(24, ImmutableList.of(11)));
+        assertThat(result.get("AT1G52060").get("E-CURD-4"))
+                .containsAllEntriesOf(ImmutableMap.of(17, ImmutableList.of(10)));
     }
 
-    // Use any value from scxa_cell_group_marker_gene_stats.sql
-    @ParameterizedTest
-    @CsvSource({"'AT1G52060', 'E-CURD-4', 17"})
-    void validExperimentAccessionReturnsOnlyOneClusterIDWithBothPreferredKAndMinP(String geneId,
-                                                                                  String experimentAccession,
-                                                                                  Integer preferredK) {
+    @Test
+    void batchedClusterIdsOfUnknownGenesAreEmpty() {
         var result =
-                subject.fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(
-                        geneId, experimentAccession, preferredK, 0);
-
-        assertThat(result)
-                .isNotEmpty()
-                .containsAllEntriesOf(
-                        ImmutableMap.of(
-                                17, ImmutableList.of(10)));
-    }
-
-    @ParameterizedTest
-    @MethodSource("randomCellIdsProvider")
-    void getFacetsForValidCellIds(List<String> cellIds) {
-        var result = subject.getFacets(cellIds, "inferred_cell_type_-_ontology_labels", "organism_part", "organism");
-        assertThat(result).isNotEmpty();
-    }
+                subject.fetchClusterIdsWithPreferredKAndMinP(ImmutableList.of("FOO"), ImmutableMap.of("E-CURD-4", 17));
 
-    @Test
-    void getForEmptyListOfCellIdsReturnsEmpty() {
-        var result = subject.getFacets(emptyList(), "inferred_cell_type_-_ontology_labels", "organism_part", "organism");
         assertThat(result).isEmpty();
     }
 
-    @ParameterizedTest
-    @MethodSource("randomExperimentAccessionProvider")
-    void fetchMinimumMarkerProbabilityReturnsTheMinimum(String experimentAccession) {
-        var minimumMarkerProbabilities = subject.fetchMinimumMarkerProbability(experimentAccession);
-        var randomGeneId =
-                minimumMarkerProbabilities.keySet().asList().get(RNG.nextInt(minimumMarkerProbabilities.size()));
-
-        var markerProbabilities = namedParameterJdbcTemplate.queryForList(
-                "SELECT mg.marker_probability " +
-                    "FROM scxa_cell_group_marker_genes mg " +
-                        "JOIN scxa_cell_group cg " +
-                        "ON mg.cell_group_id=cg.id " +
-                "WHERE mg.gene_id=:gene_id AND cg.experiment_accession=:experiment_accession",
-                ImmutableMap.of(
-                        "gene_id", randomGeneId,
-                        "experiment_accession", experimentAccession),
-                Double.class);
-
-        assertThat(markerProbabilities.stream().mapToDouble(Double::valueOf).min())
-                .hasValue(minimumMarkerProbabilities.get(randomGeneId));
-    }
-
     private Stream<String> randomGeneIdProvider() {
         return Stream.of(jdbcTestUtils.fetchRandomGene());
     }
 
-    private Stream<String> randomExperimentAccessionProvider() {
-        return Stream.of(jdbcTestUtils.fetchRandomExperimentAccession());
-    }
-
-    private Stream<List<String>> randomCellIdsProvider() {
-        return Stream.of(jdbcTestUtils.fetchRandomListOfCells(ThreadLocalRandom.current().nextInt(1, 100)));
+    private Map<String, List<String>> fetchCellIds(String geneId) {
+        return namedParameterJdbcTemplate.queryForList(
+                "SELECT experiment_accession, cell_id FROM scxa_analytics AS analytics " +
+                        "JOIN experiment AS experiments ON analytics.experiment_accession = experiments.accession " +
+                        "WHERE gene_id=:gene_id AND private=FALSE",
+                ImmutableMap.of("gene_id", geneId))
+                .stream()
+                .collect(groupingBy(
+                        row -> (String) row.get("experiment_accession"),
+                        mapping(row -> (String) row.get("cell_id"), toList())));
     }
 }
@@ -0,0 +1,82 @@
+package uk.ac.ebi.atlas.search;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.UncheckedTimeoutException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+class GeneSearchExecutorTest {
+    private GeneSearchExecutor subject = new GeneSearchExecutor(2, 2, 10);
+
+    @AfterEach
+    void tearDown() {
+        subject.destroy();
+    }
+
+    @Test
+    void tasksAreAppliedToEveryKeyOnce() {
+        assertThat(subject.invokeAll(ImmutableList.of("foo", "bar", "foo"), String::length))
+                .containsOnlyKeys("foo", "bar")
+                .containsEntry("foo", 3);
+        assertThat(subject.getStats())
+                .containsEntry("submittedTasks", 2L)
+                .containsEntry("finishedTasks", 2L);
+    }
+
+    @Test
+    void searchesThatExceedTheirDeadlineAreCancelled() throws Exception {
+        var interrupted = new AtomicBoolean(false);
+        var taskStarted = new CountDownLatch(1);
+        var taskFinished = new CountDownLatch(1);
+
+        assertThatExceptionOfType(UncheckedTimeoutException.class).isThrownBy(
+                () -> subject.invokeAll(
+                        ImmutableList.of("foo"),
+                        key -> {
+                            taskStarted.countDown();
+                            try {
+                                Thread.sleep(10_000);
+                            } catch (InterruptedException e) {
+                                interrupted.set(true);
+                            }
+                            taskFinished.countDown();
+                            return key;
+                        },
+                        Duration.ofMillis(100)));
+
+        assertThat(taskStarted.await(1, SECONDS)).isTrue();
+        assertThat(taskFinished.await(1, SECONDS)).isTrue();
+        assertThat(interrupted).isTrue();
+        assertThat(subject.getStats()).containsEntry("timedOutSearches", 1L);
+    }
+
+    @Test
+    void searchesAreRejectedWhenTheQueueIsFull() {
+        var release = new CountDownLatch(1);
+
+        // Two threads and a queue of two: the fifth task can’t be accepted
+        assertThatExceptionOfType(RejectedExecutionException.class).isThrownBy(
+                () -> subject.invokeAll(
+                        ImmutableList.of("1", "2", "3", "4", "5"),
+                        key -> {
+                            try {
+                                release.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            return key;
+                        }));
+        release.countDown();
+
+        assertThat(subject.getStats()).containsEntry("rejectedTasks", 1L);
+    }
+}
@@ -9,24 +9,25 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import uk.ac.ebi.atlas.experimentpage.tsneplot.TSnePlotSettingsService;
+import uk.ac.ebi.atlas.search.cellindex.CellIdDictionaryDao;
+import uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexService;
+import uk.ac.ebi.atlas.search.cellindex.CellPostingList;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-import java.util.Map;
+import java.util.BitSet;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
-import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomCellId;
 import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomEnsemblGeneId;
 import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomExperimentAccession;
 
@@ -38,11 +39,29 @@ class GeneSearchServiceTest {
     @Mock
     private TSnePlotSettingsService tSnePlotSettingsServiceMock;
 
+    @Mock
+    private CellMetadataBitmapIndexService cellMetadataBitmapIndexServiceMock;
+
+    @Mock
+    private CellIdDictionaryDao cellIdDictionaryDaoMock;
+
     private GeneSearchService subject;
 
     @BeforeEach
     void setUp() {
-        subject = new GeneSearchService(geneSearchDaoMock, tSnePlotSettingsServiceMock);
+        subject =
+                new GeneSearchService(
+                        geneSearchDaoMock,
+                        tSnePlotSettingsServiceMock,
+                        new GeneSearchExecutor(2, 100, 10),
+                        cellMetadataBitmapIndexServiceMock,
+                        cellIdDictionaryDaoMock);
+    }
+
+    private static CellPostingList cells(int... ordinals) {
+        var bitSet = new BitSet();
+        Arrays.stream(ordinals).forEach(bitSet::set);
+        return CellPostingList.of(bitSet);
     }
 
     @Test
@@ -53,15 +72,12 @@ class GeneSearchServiceTest {
         var geneId = generateRandomEnsemblGeneId();
 
         var ensg00000104957Cells =
-                    ImmutableMap.<String, List<String>>of(
-                            experimentAccession1,
-                            ImmutableList.of("cell_id_1", "cell_id_2", "cell_id_3", "cell_id_4", "cell_id_5"),
-                            experimentAccession2,
-                            ImmutableList.of("cell_id_6", "cell_id_7", "cell_id_8"),
-                            experimentAccession3 ,
-                            ImmutableList.of("cell_id_9", "cell_id_10"));
+                    ImmutableMap.of(
+                            experimentAccession1, cells(0, 1, 2, 3, 4),
+                            experimentAccession2, cells(5, 6, 7),
+                            experimentAccession3, cells(8, 9));
 
-        when(geneSearchDaoMock.fetchCellIds(geneId)).thenReturn(ensg00000104957Cells);
+        when(geneSearchDaoMock.fetchCellPostingLists(eq(geneId), any())).thenReturn(ensg00000104957Cells);
 
         var result = subject.getCellIdsInExperiments(ImmutableList.of(geneId));
 
@@ -80,20 +96,17 @@ class GeneSearchServiceTest {
         var geneId1 = generateRandomEnsemblGeneId();
         var geneId2 = generateRandomEnsemblGeneId();
 
-        var ensfoobar1Cells = ImmutableMap.<String, List<String>>of(
-                experimentAccession1,
-                ImmutableList.of("cell_id_1", "cell_id_2", "cell_id_3", "cell_id_4", "cell_id_5"),
-                experimentAccession2,
-                ImmutableList.of("cell_id_6", "cell_id_7", "cell_id_8"),
-                experimentAccession3,
-                ImmutableList.of("cell_id_9", "cell_id_10"));
+        var ensfoobar1Cells = ImmutableMap.of(
+                experimentAccession1, cells(0, 1, 2, 3, 4),
+                experimentAccession2, cells(5, 6, 7),
+                experimentAccession3, cells(8, 9));
 
-        var ensfoobar2Cells = ImmutableMap.<String, List<String>>of(
-                experimentAccession4, ImmutableList.of("cell_id_11", "cell_id_12", "cell_id_13"),
-                experimentAccession5, ImmutableList.of("cell_id_14", "cell_id_15"));
+        var ensfoobar2Cells = ImmutableMap.of(
+                experimentAccession4, cells(10, 11, 12),
+                experimentAccession5, cells(13, 14));
 
-        when(geneSearchDaoMock.fetchCellIds(geneId1)).thenReturn(ensfoobar1Cells);
-        when(geneSearchDaoMock.fetchCellIds(geneId2)).thenReturn(ensfoobar2Cells);
+        when(geneSearchDaoMock.fetchCellPostingLists(eq(geneId1), any())).thenReturn(ensfoobar1Cells);
+        when(geneSearchDaoMock.fetchCellPostingLists(eq(geneId2), any())).thenReturn(ensfoobar2Cells);
 
         assertThat(subject.getCellIdsInExperiments(ImmutableSet.of(geneId1, geneId2)))
                 .containsAllEntriesOf(ImmutableMap.of(geneId1, ensfoobar1Cells, geneId2, ensfoobar2Cells));
@@ -105,23 +118,19 @@ class GeneSearchServiceTest {
         var experimentAccession2 = generateRandomExperimentAccession();
         var geneId = generateRandomEnsemblGeneId();
 
-        when(geneSearchDaoMock.fetchMinimumMarkerProbability(experimentAccession1))
-                .thenReturn(ImmutableMap.of(geneId, 0.0));
+        when(geneSearchDaoMock.fetchExperimentAccessionsWhereGenesAreMarkers(ImmutableList.of(geneId)))
+                .thenReturn(ImmutableSet.of(experimentAccession1, experimentAccession2));
         when(tSnePlotSettingsServiceMock.getExpectedClusters(experimentAccession1)).thenReturn(Optional.of(5));
-        when(geneSearchDaoMock.fetchMinimumMarkerProbability(experimentAccession2))
-                .thenReturn(ImmutableMap.of(geneId, 0.0));
         when(tSnePlotSettingsServiceMock.getExpectedClusters(experimentAccession2)).thenReturn(Optional.of(10));
 
-        when(geneSearchDaoMock
-                .fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(geneId, experimentAccession1, 5, 0))
-                .thenReturn(ImmutableMap.of(5, ImmutableList.of(1)));
-        when(geneSearchDaoMock
-                .fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(geneId, experimentAccession2, 10, 0))
-                .thenReturn(ImmutableMap.of(10, ImmutableList.of(1)));
-
-        when(geneSearchDaoMock
-                .fetchExperimentAccessionsWhereGeneIsMarker(geneId))
-                .thenReturn(ImmutableList.of(experimentAccession1, experimentAccession2));
+        when(geneSearchDaoMock.fetchClusterIdsWithPreferredKAndMinP(
+                ImmutableList.of(geneId),
+                ImmutableMap.of(experimentAccession1, 5, experimentAccession2, 10)))
+                .thenReturn(ImmutableMap.of(
+                        geneId,
+                        ImmutableMap.of(
+                                experimentAccession1, ImmutableMap.of(5, ImmutableList.of(1)),
+                                experimentAccession2, ImmutableMap.of(10, ImmutableList.of(1)))));
 
         var result = subject.getMarkerGeneProfile(ImmutableList.of(geneId));
 
@@ -142,45 +151,38 @@ class GeneSearchServiceTest {
         var experimentAccession4 = generateRandomExperimentAccession();
         var geneId1 = generateRandomEnsemblGeneId();
         var geneId2 = generateRandomEnsemblGeneId();
+        var geneIds = ImmutableSet.of(geneId1, geneId2);
 
-        when(geneSearchDaoMock.fetchMinimumMarkerProbability(experimentAccession1))
-                .thenReturn(ImmutableMap.of(geneId1, 0.0));
+        when(geneSearchDaoMock.fetchExperimentAccessionsWhereGenesAreMarkers(geneIds))
+                .thenReturn(ImmutableSet.of(
+                        experimentAccession1, experimentAccession2, experimentAccession3, experimentAccession4));
         when(tSnePlotSettingsServiceMock.getExpectedClusters(experimentAccession1))
                 .thenReturn(Optional.of(5));
-        when(geneSearchDaoMock.fetchMinimumMarkerProbability(experimentAccession2))
-                .thenReturn(ImmutableMap.of(geneId1, 0.0));
         when(tSnePlotSettingsServiceMock.getExpectedClusters(experimentAccession2))
                 .thenReturn(Optional.of(10));
-
-        when(geneSearchDaoMock
-                .fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(geneId1, experimentAccession1, 5, 0))
-                .thenReturn(ImmutableMap.of(5, ImmutableList.of(1)));
-        when(geneSearchDaoMock
-                .fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(geneId1, experimentAccession2, 10, 0))
-                .thenReturn(ImmutableMap.of(10, ImmutableList.of(1)));
-
-        when(geneSearchDaoMock.fetchMinimumMarkerProbability(experimentAccession3))
-                .thenReturn(ImmutableMap.of(geneId2, 0.0));
         when(tSnePlotSettingsServiceMock.getExpectedClusters(experimentAccession3))
                 .thenReturn(Optional.of(2));
-        when(geneSearchDaoMock.fetchMinimumMarkerProbability(experimentAccession4))
-                .thenReturn(ImmutableMap.of(geneId2, 0.0));
         when(tSnePlotSettingsServiceMock.getExpectedClusters(experimentAccession4))
-                .thenReturn(Optional.of(4));
-
-        when(geneSearchDaoMock
-                .fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(geneId2, experimentAccession3, 2, 0))
-                .thenReturn(ImmutableMap.of(2, ImmutableList.of(1)));
-        when(geneSearchDaoMock
-                .fetchClusterIdsWithPreferredKAndMinPForExperimentAccession(geneId2, experimentAccession4, 4, 0))
-                .thenReturn(ImmutableMap.of(4, ImmutableList.of(1)));
-
-        when(geneSearchDaoMock.fetchExperimentAccessionsWhereGeneIsMarker(geneId1))
-                .thenReturn(ImmutableList.of(experimentAccession1, experimentAccession2));
-        when(geneSearchDaoMock.fetchExperimentAccessionsWhereGeneIsMarker(geneId2))
-                .thenReturn(ImmutableList.of(experimentAccession3, experimentAccession4));
+                .thenReturn(Optional.empty());
+
+        when(geneSearchDaoMock.fetchClusterIdsWithPreferredKAndMinP(
+                geneIds,
+                ImmutableMap.of(
+                        experimentAccession1, 5,
+                        experimentAccession2, 10,
+                        experimentAccession3, 2,
+                        experimentAccession4, 0)))
+                .thenReturn(ImmutableMap.of(
+                        geneId1,
+                        ImmutableMap.of(
+                                experimentAccession1, ImmutableMap.of(5, ImmutableList.of(1)),
+                                experimentAccession2, ImmutableMap.of(10, ImmutableList.of(1))),
+                        geneId2,
+                        ImmutableMap.of(
+                                experimentAccession3, ImmutableMap.of(2, ImmutableList.of(1)),
+                                experimentAccession4, ImmutableMap.of(4, ImmutableList.of(1)))));
 
-        assertThat(subject.getMarkerGeneProfile(ImmutableSet.of(geneId1, geneId2)))
+        assertThat(subject.getMarkerGeneProfile(geneIds))
                 .containsAllEntriesOf(
                         ImmutableMap.of(
                                 geneId1,
@@ -193,33 +195,43 @@ class GeneSearchServiceTest {
                                         experimentAccession4, ImmutableMap.of(4, ImmutableList.of(1)))));
     }
 
+    @Test
+    void markerGeneProfileIsEmptyForGenesThatAreNotMarkers() {
+        var geneId = generateRandomEnsemblGeneId();
+
+        when(geneSearchDaoMock.fetchExperimentAccessionsWhereGenesAreMarkers(ImmutableList.of(geneId)))
+                .thenReturn(ImmutableSet.of());
+        when(geneSearchDaoMock.fetchClusterIdsWithPreferredKAndMinP(ImmutableList.of(geneId), ImmutableMap.of()))
+                .thenReturn(ImmutableMap.of());
+
+        assertThat(subject.getMarkerGeneProfile(ImmutableList.of(geneId)))
+                .containsOnlyKeys(geneId)
+                .containsEntry(geneId, ImmutableMap.of());
+    }
+
     @Test
     void returnsFacets() {
-        var experimentAccession1 = generateRandomExperimentAccession();
-        var experimentAccession2 = generateRandomExperimentAccession();
+        var experimentAccession = generateRandomExperimentAccession();
+        var cells = cells(0, 1);
 
-        when(geneSearchDaoMock.getFacets(anyList(), any(String[].class)))
+        when(cellMetadataBitmapIndexServiceMock.getValues(
+                eq(experimentAccession), eq(cells), anyCollection()))
                 .thenReturn(ImmutableMap.of(
-                        experimentAccession1, ImmutableMap.of(
-                                "inferred_cell_type_-_ontology_labels", Arrays.asList("neuron", "stem cell"),
-                                "species", Collections.singletonList("homo sapiens")),
-                        experimentAccession2, ImmutableMap.of(
-                                "inferred_cell_type_-_ontology_labels", Arrays.asList("immune cell", "liver cell", "stem cell"),
-                                "organism_part", Collections.singletonList("liver"),
-                                "species", Arrays.asList("homo sapiens", "mus musculus"))));
+                        "inferred_cell_type_-_ontology_labels", ImmutableList.of("immune cell", "liver cell"),
+                        "organism_part", ImmutableList.of("liver"),
+                        "organism", ImmutableList.of("homo sapiens", "mus musculus")));
 
-        var result = subject.getFacets(Arrays.asList("cell_id_1", "cell_id_2"));
+        var result = subject.getFacets(experimentAccession, cells);
 
         assertThat(result)
-                .isNotEmpty()
-                .containsOnlyKeys(experimentAccession1, experimentAccession2);
-        assertThat(result.get(experimentAccession1)).containsKeys("species");
-        assertThat(result.get(experimentAccession2)).containsKeys("species");
+                .containsOnlyKeys("inferred_cell_type_-_ontology_labels", "organism_part", "organism")
+                .containsEntry("organism", ImmutableList.of("homo sapiens", "mus musculus"));
     }
 
     @Test
     void exceptionsThrownInParallelTasksAreWrapped() {
-        doThrow(new UncheckedIOException(new IOException())).when(geneSearchDaoMock).fetchCellIds(anyString());
+        doThrow(new UncheckedIOException(new IOException()))
+                .when(geneSearchDaoMock).fetchCellPostingLists(anyString(), any());
 
         assertThatExceptionOfType(RuntimeException.class).isThrownBy(
                 () -> subject.getCellIdsInExperiments(ImmutableSet.of(generateRandomExperimentAccession())))
@@ -227,22 +239,26 @@ class GeneSearchServiceTest {
     }
 
     @Test
-    void whenGeneIdsExistsThenReturnSetOfCellIds() {
+    void whenGeneIdsExistsThenReturnCellIdsPerExperiment() {
         var existingGeneId1 = generateRandomEnsemblGeneId();
         var existingGeneId2 = generateRandomEnsemblGeneId();
         var validGeneIds = ImmutableSet.of(existingGeneId1, existingGeneId2);
-        var existingCellId1 = generateRandomCellId();
-        var existingCellId2 = generateRandomCellId();
-        var experimentAccession = generateRandomExperimentAccession();
-        var expectedCellIds = ImmutableSet.of(existingCellId1, existingCellId2);
+        var experimentAccession1 = generateRandomExperimentAccession();
+        var experimentAccession2 = generateRandomExperimentAccession();
 
-        when(geneSearchDaoMock.fetchCellIds(anyString()))
+        when(geneSearchDaoMock.fetchCellPostingLists(eq(existingGeneId1), any()))
+                .thenReturn(ImmutableMap.of(experimentAccession1, cells(0, 1)));
+        when(geneSearchDaoMock.fetchCellPostingLists(eq(existingGeneId2), any()))
                 .thenReturn(
-                        Map.of(experimentAccession, List.of(existingCellId1)),
-                        Map.of(experimentAccession, List.of(existingCellId2)));
+                        ImmutableMap.of(
+                                experimentAccession1, cells(1, 300),
+                                experimentAccession2, cells(2)));
 
-        var actualCellIds = subject.getCellIdsFromGeneIds(validGeneIds);
+        var actualCells = subject.getCellIdsInExperimentsFromGeneIds(validGeneIds);
 
-        assertThat(actualCellIds).containsSequence(expectedCellIds);
+        assertThat(actualCells)
+                .containsOnlyKeys(experimentAccession1, experimentAccession2)
+                .containsEntry(experimentAccession1, cells(0, 1, 300))
+                .containsEntry(experimentAccession2, cells(2));
     }
 }
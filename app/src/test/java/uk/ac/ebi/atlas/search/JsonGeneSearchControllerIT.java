@@ -14,6 +14,7 @@ import org.springframework.test.context.web.WebAppConfiguration;
 import org.springframework.util.LinkedMultiValueMap;
 import uk.ac.ebi.atlas.configuration.TestConfig;
 import uk.ac.ebi.atlas.experimentpage.ExperimentAttributesService;
+import uk.ac.ebi.atlas.search.cellindex.CellPostingList;
 import uk.ac.ebi.atlas.search.celltype.CellTypeSearchService;
 import uk.ac.ebi.atlas.search.geneids.GeneIdSearchService;
 import uk.ac.ebi.atlas.search.geneids.GeneQuery;
@@ -23,6 +24,7 @@ import uk.ac.ebi.atlas.search.species.SpeciesSearchService;
 import uk.ac.ebi.atlas.trader.ExperimentTrader;
 
 import javax.inject.Inject;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -32,7 +34,6 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
-import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomCellId;
 import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomEnsemblGeneId;
 
 @WebAppConfiguration
@@ -154,7 +155,6 @@ class JsonGeneSearchControllerIT {
         var requestParams = new LinkedMultiValueMap<String, String>();
         final String geneId = generateRandomEnsemblGeneId();
         final String experimentAccession = "E-CURD-4";
-        final String cellId = generateRandomCellId();
         final int kValue = 101;
         final List<Integer> clusterIds = List.of(1, 2, 3, 4);
         requestParams.add("q", geneId);
@@ -166,7 +166,11 @@ class JsonGeneSearchControllerIT {
         when(geneIdSearchServiceMock.search(geneQuery))
                 .thenReturn(Optional.of(ImmutableSet.of(geneId)));
         when(geneSearchServiceMock.getCellIdsInExperiments(ImmutableSet.of(geneId)))
-                .thenReturn(Map.of(geneId, Map.of(experimentAccession, List.of(cellId))));
+                .thenReturn(
+                        ImmutableMap.of(
+                                geneId,
+                                ImmutableMap.of(
+                                        experimentAccession, CellPostingList.of(BitSet.valueOf(new long[]{1})))));
         when(geneSearchServiceMock.getMarkerGeneProfile(ImmutableSet.of(geneId)))
                 .thenReturn(ImmutableMap.of(geneId, Map.of(experimentAccession, Map.of(kValue, clusterIds))));
 
@@ -1,5 +1,6 @@
 package uk.ac.ebi.atlas.search.analytics;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,20 +10,24 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import uk.ac.ebi.atlas.search.GeneSearchService;
+import uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexService;
+import uk.ac.ebi.atlas.search.cellindex.CellPostingList;
+
+import java.util.BitSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_CELL_TYPE;
 import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_ORGANISM_PART;
-import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomCellId;
 import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomEnsemblGeneId;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomExperimentAccession;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class AnalyticsSearchServiceTest {
 
     @Mock
-    private AnalyticsSearchDao analyticsSearchDao;
+    private CellMetadataBitmapIndexService cellMetadataBitmapIndexService;
 
     @Mock
     private GeneSearchService geneSearchService;
@@ -31,7 +36,7 @@ public class AnalyticsSearchServiceTest {
 
     @BeforeEach
     void setup() {
-        subject = new AnalyticsSearchService(analyticsSearchDao, geneSearchService);
+        subject = new AnalyticsSearchService(cellMetadataBitmapIndexService, geneSearchService);
     }
 
     @Test
@@ -48,9 +53,9 @@ public class AnalyticsSearchServiceTest {
         var nonExistentGeneId = generateRandomEnsemblGeneId();
         var invalidGeneIds = ImmutableSet.of(nonExistentGeneId);
 
-        when(geneSearchService.getCellIdsFromGeneIds(invalidGeneIds))
-                .thenReturn(ImmutableSet.of());
-        when(analyticsSearchDao.searchFieldByCellIds(CTW_ORGANISM_PART, ImmutableSet.of()))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(invalidGeneIds))
+                .thenReturn(ImmutableMap.of());
+        when(cellMetadataBitmapIndexService.getValues(ImmutableMap.of(), CTW_ORGANISM_PART.name(), ImmutableMap.of()))
                 .thenReturn(ImmutableSet.of());
 
         var emptySetOfOrganismParts = subject.searchOrganismPart(invalidGeneIds);
@@ -64,15 +69,16 @@ public class AnalyticsSearchServiceTest {
         var existingGeneId1 = generateRandomEnsemblGeneId();
         var existingGeneId2 = generateRandomEnsemblGeneId();
         var validGeneIds = ImmutableSet.of(existingGeneId1, existingGeneId2);
-        var existingCellId1 = generateRandomCellId();
-        var existingCellId2 = generateRandomCellId();
-        var validCellIds = ImmutableSet.of(existingCellId1, existingCellId2);
+        var cellIdsInExperiments =
+                ImmutableMap.of(
+                        generateRandomExperimentAccession(), CellPostingList.of(BitSet.valueOf(new long[]{0b11})));
 
         var expectedOrganismPart = "primary visual cortex";
 
-        when(geneSearchService.getCellIdsFromGeneIds(validGeneIds))
-                .thenReturn(validCellIds);
-        when(analyticsSearchDao.searchFieldByCellIds(CTW_ORGANISM_PART, validCellIds))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(validGeneIds))
+                .thenReturn(cellIdsInExperiments);
+        when(cellMetadataBitmapIndexService.getValues(
+                cellIdsInExperiments, CTW_ORGANISM_PART.name(), ImmutableMap.of()))
                 .thenReturn(ImmutableSet.of(expectedOrganismPart));
 
         var actualSetOfOrganismParts = subject.searchOrganismPart(validGeneIds);
@@ -94,9 +100,9 @@ public class AnalyticsSearchServiceTest {
         var nonExistentGeneId = generateRandomEnsemblGeneId();
         var invalidGeneIds = ImmutableSet.of(nonExistentGeneId);
 
-        when(geneSearchService.getCellIdsFromGeneIds(invalidGeneIds))
-                .thenReturn(ImmutableSet.of());
-        when(analyticsSearchDao.searchFieldByCellIds(CTW_CELL_TYPE, ImmutableSet.of()))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(invalidGeneIds))
+                .thenReturn(ImmutableMap.of());
+        when(cellMetadataBitmapIndexService.getValues(ImmutableMap.of(), CTW_CELL_TYPE.name(), ImmutableMap.of()))
                 .thenReturn(ImmutableSet.of());
 
         var emptySetOfCellType = subject.searchCellType(invalidGeneIds);
@@ -109,15 +115,16 @@ public class AnalyticsSearchServiceTest {
         var existingGeneId1 = generateRandomEnsemblGeneId();
         var existingGeneId2 = generateRandomEnsemblGeneId();
         var validGeneIds = ImmutableSet.of(existingGeneId1, existingGeneId2);
-        var existingCellId1 = generateRandomCellId();
-        var existingCellId2 = generateRandomCellId();
-        var validCellIds = ImmutableSet.of(existingCellId1, existingCellId2);
+        var cellIdsInExperiments =
+                ImmutableMap.of(
+                        generateRandomExperimentAccession(), CellPostingList.of(BitSet.valueOf(new long[]{0b11})));
 
         var expectedCellType = "protoplast";
 
-        when(geneSearchService.getCellIdsFromGeneIds(validGeneIds))
-                .thenReturn(validCellIds);
-        when(analyticsSearchDao.searchFieldByCellIds(CTW_CELL_TYPE, validCellIds))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(validGeneIds))
+                .thenReturn(cellIdsInExperiments);
+        when(cellMetadataBitmapIndexService.getValues(
+                cellIdsInExperiments, CTW_CELL_TYPE.name(), ImmutableMap.of()))
                 .thenReturn(ImmutableSet.of(expectedCellType));
 
         var actualSetOfCellType = subject.searchCellType(validGeneIds);
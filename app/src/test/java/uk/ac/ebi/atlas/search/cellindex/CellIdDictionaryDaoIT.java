@@ -0,0 +1,91 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestInstance.Lifecycle;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit.jupiter.SpringExtension;
+import org.springframework.test.context.web.WebAppConfiguration;
+import uk.ac.ebi.atlas.configuration.TestConfig;
+import uk.ac.ebi.atlas.testutils.JdbcUtils;
+
+import javax.inject.Inject;
+import javax.sql.DataSource;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(SpringExtension.class)
+@WebAppConfiguration
+@ContextConfiguration(classes = TestConfig.class)
+@TestInstance(Lifecycle.PER_CLASS)
+class CellIdDictionaryDaoIT {
+    @Inject
+    private DataSource dataSource;
+
+    @Inject
+    private NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    @Inject
+    private JdbcUtils jdbcTestUtils;
+
+    private CellIdDictionaryDao subject;
+
+    @BeforeAll
+    void populateDatabaseTables() {
+        var populator = new ResourceDatabasePopulator();
+        populator.addScripts(
+                new ClassPathResource("fixtures/experiment.sql"),
+                new ClassPathResource("fixtures/scxa_analytics.sql"),
+                new ClassPathResource("fixtures/scxa_cell_group.sql"),
+                new ClassPathResource("fixtures/scxa_cell_group_membership.sql"));
+        populator.execute(dataSource);
+    }
+
+    @AfterAll
+    void cleanDatabaseTables() {
+        var populator = new ResourceDatabasePopulator();
+        populator.addScripts(
+                new ClassPathResource("fixtures/scxa_cell_group_membership-delete.sql"),
+                new ClassPathResource("fixtures/scxa_cell_group-delete.sql"),
+                new ClassPathResource("fixtures/scxa_analytics-delete.sql"),
+                new ClassPathResource("fixtures/experiment-delete.sql"));
+        populator.execute(dataSource);
+    }
+
+    @BeforeEach
+    void setUp() {
+        subject = new CellIdDictionaryDao(namedParameterJdbcTemplate);
+    }
+
+    @ParameterizedTest
+    @MethodSource("randomExperimentAccessionProvider")
+    void everyCellInAnalyticsAndGroupMembershipHasAnOrdinal(String experimentAccession) {
+        var cellIds =
+                namedParameterJdbcTemplate.queryForList(
+                        "SELECT cell_id FROM scxa_analytics WHERE experiment_accession=:experiment_accession " +
+                                "UNION ALL " +
+                                "SELECT cell_id FROM scxa_cell_group_membership " +
+                                "WHERE experiment_accession=:experiment_accession",
+                        ImmutableMap.of("experiment_accession", experimentAccession),
+                        String.class);
+
+        var result = subject.fetchDictionary(experimentAccession);
+
+        assertThat(result.size()).isEqualTo(cellIds.stream().distinct().count());
+        cellIds.forEach(cellId -> assertThat(result.cellId(result.ordinal(cellId))).isEqualTo(cellId));
+    }
+
+    private Stream<String> randomExperimentAccessionProvider() {
+        return Stream.of(jdbcTestUtils.fetchRandomExperimentAccession());
+    }
+}
@@ -0,0 +1,52 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+import org.apache.solr.client.solrj.io.Tuple;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CELL_ID;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_CHARACTERISTIC_NAME;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.FACET_CHARACTERISTIC_VALUE;
+
+class CellMetadataBitmapIndexDaoTest {
+    private static final CellIdDictionary CELL_ID_DICTIONARY =
+            CellIdDictionary.create(ImmutableList.of("cell_1", "cell_2", "cell_3"));
+
+    private static Tuple characteristic(String cellId, String name, Object value) {
+        return new Tuple(
+                ImmutableMap.of(
+                        CELL_ID.name(), cellId,
+                        FACET_CHARACTERISTIC_NAME.name(), name,
+                        FACET_CHARACTERISTIC_VALUE.name(), value));
+    }
+
+    @Test
+    void everyValueOfMultiValuedCellsIsIndexed() {
+        var metadataValues = new HashMap<String, SetMultimap<String, String>>();
+
+        CellMetadataBitmapIndexDao.addCharacteristicValues(
+                Stream.of(
+                        characteristic("cell_1", "organism_part", "liver"),
+                        characteristic("cell_1", "organism_part", "pancreas"),
+                        characteristic("cell_2", "organism_part", ImmutableList.of("lung", "pancreas")),
+                        characteristic("cell_3", "organism", "Homo sapiens")),
+                metadataValues);
+        var subject = CellMetadataBitmapIndex.create(CELL_ID_DICTIONARY, metadataValues);
+
+        assertThat(subject.cellsWithValues("organism_part", ImmutableSet.of("liver")).cardinality())
+                .isEqualTo(1);
+        assertThat(subject.cellsWithValues("organism_part", ImmutableSet.of("pancreas")).cardinality())
+                .isEqualTo(2);
+        assertThat(subject.cellsWithValues("organism_part", ImmutableSet.of("lung")).cardinality())
+                .isEqualTo(1);
+        var humanCells = subject.cellsWithValues("organism", ImmutableSet.of("Homo sapiens"));
+        assertThat(subject.values("organism_part", humanCells)).isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.Mockito.when;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomExperimentAccession;
+
+@ExtendWith(MockitoExtension.class)
+class CellMetadataBitmapIndexServiceTest {
+    private static final String EXPERIMENT_ACCESSION_1 = generateRandomExperimentAccession();
+    private static final String EXPERIMENT_ACCESSION_2 = generateRandomExperimentAccession();
+    private static final CellIdDictionary CELL_ID_DICTIONARY =
+            CellIdDictionary.create(ImmutableList.of("cell_1", "cell_2"));
+    private static final CellPostingList CELL_2 = CellPostingList.of(BitSet.valueOf(new long[]{0b10}));
+    private static final CellPostingList CELLS_1_AND_2 = CellPostingList.of(BitSet.valueOf(new long[]{0b11}));
+
+    @Mock
+    private CellMetadataBitmapIndexDao cellMetadataBitmapIndexDaoMock;
+
+    private CellMetadataBitmapIndexService subject;
+
+    @BeforeEach
+    void setUp() {
+        when(cellMetadataBitmapIndexDaoMock.fetchIndex(EXPERIMENT_ACCESSION_1))
+                .thenReturn(
+                        CellMetadataBitmapIndex.create(
+                                CELL_ID_DICTIONARY,
+                                ImmutableMap.of(
+                                        "ctw_organism_part",
+                                        ImmutableSetMultimap.of("cell_1", "liver", "cell_2", "pancreas"),
+                                        "ctw_cell_type",
+                                        ImmutableSetMultimap.of("cell_1", "hepatocyte", "cell_2", "beta cell"))));
+
+        subject = new CellMetadataBitmapIndexService(cellMetadataBitmapIndexDaoMock);
+    }
+
+    @Test
+    void metadataTypesWithoutValuesAreLeftOut() {
+        assertThat(
+                subject.getValues(
+                        EXPERIMENT_ACCESSION_1,
+                        CELL_2,
+                        ImmutableSet.of("ctw_organism_part", "ctw_cell_type", "organism")))
+                .containsOnly(
+                        entry("ctw_organism_part", ImmutableList.of("pancreas")),
+                        entry("ctw_cell_type", ImmutableList.of("beta cell")));
+    }
+
+    @Test
+    void valuesAreMergedAcrossExperimentsAndFiltered() {
+        when(cellMetadataBitmapIndexDaoMock.fetchIndex(EXPERIMENT_ACCESSION_2))
+                .thenReturn(
+                        CellMetadataBitmapIndex.create(
+                                CELL_ID_DICTIONARY,
+                                ImmutableMap.of(
+                                        "ctw_organism_part",
+                                        ImmutableSetMultimap.of("cell_1", "lung", "cell_2", "liver"),
+                                        "ctw_cell_type",
+                                        ImmutableSetMultimap.of("cell_1", "pneumocyte", "cell_2", "hepatocyte"))));
+
+        var cellIdsByExperiment =
+                ImmutableMap.of(
+                        EXPERIMENT_ACCESSION_1, CELLS_1_AND_2,
+                        EXPERIMENT_ACCESSION_2, CELLS_1_AND_2);
+
+        assertThat(subject.getValues(cellIdsByExperiment, "ctw_organism_part", ImmutableMap.of()))
+                .containsExactlyInAnyOrder("liver", "pancreas", "lung");
+        assertThat(
+                subject.getValues(
+                        cellIdsByExperiment,
+                        "ctw_organism_part",
+                        ImmutableMap.of("ctw_cell_type", ImmutableSet.of("hepatocyte"))))
+                .containsExactly("liver");
+    }
+}
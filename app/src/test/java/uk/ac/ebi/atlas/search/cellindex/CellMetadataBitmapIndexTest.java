@@ -0,0 +1,123 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CellMetadataBitmapIndexTest {
+    private static final String ORGANISM_PART = "ctw_organism_part";
+    private static final String CELL_TYPE = "ctw_cell_type";
+
+    private static final CellIdDictionary CELL_ID_DICTIONARY =
+            CellIdDictionary.create(ImmutableList.of("cell_1", "cell_2", "cell_3", "cell_4", "cell_5", "cell_6"));
+
+    private static final CellMetadataBitmapIndex SUBJECT =
+            CellMetadataBitmapIndex.create(
+                    CELL_ID_DICTIONARY,
+                    ImmutableMap.of(
+                            ORGANISM_PART,
+                            ImmutableSetMultimap.of(
+                                    "cell_1", "liver",
+                                    "cell_2", "liver",
+                                    "cell_3", "pancreas",
+                                    "cell_4", "pancreas",
+                                    "cell_5", "pancreas"),
+                            CELL_TYPE,
+                            ImmutableSetMultimap.of(
+                                    "cell_1", "hepatocyte",
+                                    "cell_3", "beta cell",
+                                    "cell_4", "alpha cell",
+                                    "cell_6", "beta cell",
+                                    "cell_7", "delta cell")));
+
+    private static BitSet cells(String... cellIds) {
+        var cells = new BitSet();
+        Arrays.stream(cellIds).mapToInt(CELL_ID_DICTIONARY::ordinal).forEach(cells::set);
+        return cells;
+    }
+
+    @Test
+    void cellsNotInDictionaryAreLeftOut() {
+        assertThat(SUBJECT.cellCount()).isEqualTo(6);
+        assertThat(SUBJECT.cellsWithValues(CELL_TYPE, ImmutableSet.of("delta cell")).cardinality()).isZero();
+    }
+
+    @Test
+    void valuesAreSortedByNumberOfCells() {
+        var cells = cells("cell_1", "cell_3", "cell_4", "cell_5");
+
+        assertThat(SUBJECT.values(ORGANISM_PART, cells)).containsExactly("pancreas", "liver");
+    }
+
+    @Test
+    void unknownMetadataTypesAreIgnored() {
+        var cells = cells("cell_2");
+
+        assertThat(SUBJECT.values(ORGANISM_PART, cells)).containsExactly("liver");
+        assertThat(SUBJECT.values(CELL_TYPE, cells)).isEmpty();
+        assertThat(SUBJECT.values("organism", cells)).isEmpty();
+    }
+
+    @Test
+    void valuesCanBeFilteredByOtherMetadataType() {
+        var cells = cells("cell_1", "cell_2", "cell_3", "cell_4", "cell_6");
+        cells.and(SUBJECT.cellsWithValues(CELL_TYPE, ImmutableSet.of("beta cell", "hepatocyte", "foobar")));
+
+        assertThat(SUBJECT.values(ORGANISM_PART, cells)).containsExactlyInAnyOrder("liver", "pancreas");
+        assertThat(SUBJECT.values(CELL_TYPE, cells)).containsExactly("beta cell", "hepatocyte");
+    }
+
+    @Test
+    void queriesDoNotModifyTheIndex() {
+        var cells = SUBJECT.cellsWithValues(ORGANISM_PART, ImmutableSet.of("pancreas"));
+        cells.clear();
+
+        assertThat(SUBJECT.cellsWithValues(ORGANISM_PART, ImmutableSet.of("pancreas")).cardinality()).isEqualTo(3);
+    }
+
+    @Test
+    void cellsWithoutValueAreSkipped() {
+        var cellValues = HashMultimap.<String, String>create();
+        cellValues.put("cell_1", "liver");
+        cellValues.put("cell_2", null);
+
+        var subject = CellMetadataBitmapIndex.create(CELL_ID_DICTIONARY, ImmutableMap.of(ORGANISM_PART, cellValues));
+
+        assertThat(subject.values(ORGANISM_PART, cells("cell_1", "cell_2"))).isEqualTo(ImmutableList.of("liver"));
+    }
+
+    @Test
+    void cellsMayHaveManyValues() {
+        var subject =
+                CellMetadataBitmapIndex.create(
+                        CELL_ID_DICTIONARY,
+                        ImmutableMap.of(
+                                ORGANISM_PART,
+                                ImmutableSetMultimap.of(
+                                        "cell_1", "liver",
+                                        "cell_1", "pancreas",
+                                        "cell_2", "pancreas")));
+
+        assertThat(subject.values(ORGANISM_PART, cells("cell_1"))).containsExactly("liver", "pancreas");
+        assertThat(subject.cellsWithValues(ORGANISM_PART, ImmutableSet.of("liver")))
+                .isEqualTo(cells("cell_1"));
+        assertThat(subject.cellsWithValues(ORGANISM_PART, ImmutableSet.of("pancreas")))
+                .isEqualTo(cells("cell_1", "cell_2"));
+    }
+
+    @Test
+    void emptyIndex() {
+        var subject = CellMetadataBitmapIndex.create(CellIdDictionary.create(ImmutableList.of()), ImmutableMap.of());
+
+        assertThat(subject.cellCount()).isZero();
+        assertThat(subject.values(ORGANISM_PART, new BitSet())).isEmpty();
+    }
+}
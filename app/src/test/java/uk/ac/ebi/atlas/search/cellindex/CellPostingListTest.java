@@ -0,0 +1,73 @@
+package uk.ac.ebi.atlas.search.cellindex;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CellPostingListTest {
+    private static BitSet randomOrdinals(int count, int bound) {
+        var ordinals = new BitSet(bound);
+        ThreadLocalRandom.current().ints(count, 0, bound).forEach(ordinals::set);
+        return ordinals;
+    }
+
+    @Test
+    void roundTrip() {
+        // Gaps that need one to five bytes (300,000,000 - 3,000,000 takes five)
+        var ordinals = new BitSet();
+        ordinals.set(0);
+        ordinals.set(1);
+        ordinals.set(200);
+        ordinals.set(20_000);
+        ordinals.set(3_000_000);
+        ordinals.set(300_000_000);
+
+        var subject = CellPostingList.of(ordinals);
+
+        assertThat(subject.size()).isEqualTo(6);
+        assertThat(subject.toBitSet()).isEqualTo(ordinals);
+    }
+
+    @Test
+    void randomRoundTrip() {
+        var ordinals = randomOrdinals(10_000, 1_000_000);
+
+        assertThat(CellPostingList.of(ordinals).toBitSet()).isEqualTo(ordinals);
+    }
+
+    @Test
+    void denseListsTakeOneBytePerCell() {
+        var ordinals = new BitSet();
+        ordinals.set(0, 100_000, true);
+
+        var subject = CellPostingList.of(ordinals);
+
+        assertThat(subject.size()).isEqualTo(100_000);
+        assertThat(subject.encodedSize()).isEqualTo(100_000);
+    }
+
+    @Test
+    void emptyList() {
+        var subject = CellPostingList.of(new BitSet());
+
+        assertThat(subject).isEqualTo(CellPostingList.EMPTY);
+        assertThat(subject.isEmpty()).isTrue();
+        assertThat(subject.toBitSet().isEmpty()).isTrue();
+    }
+
+    @Test
+    void union() {
+        var ordinals1 = randomOrdinals(1000, 10_000);
+        var ordinals2 = randomOrdinals(1000, 10_000);
+        var expected = (BitSet) ordinals1.clone();
+        expected.or(ordinals2);
+
+        assertThat(CellPostingList.union(
+                ImmutableList.of(CellPostingList.of(ordinals1), CellPostingList.of(ordinals2))))
+                .isEqualTo(CellPostingList.of(expected));
+    }
+}
@@ -13,15 +13,12 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import uk.ac.ebi.atlas.configuration.TestConfig;
-import uk.ac.ebi.atlas.solr.SingleCellSolrUtils;
 import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
 import uk.ac.ebi.atlas.testutils.JdbcUtils;
 
 import javax.inject.Inject;
 import javax.sql.DataSource;
 
-import java.util.HashSet;
-
 import static org.assertj.core.api.Assertions.assertThat;
 
 @WebAppConfiguration
@@ -33,9 +30,6 @@ class CellTypeSearchDaoIT {
     @Inject
     private JdbcUtils jdbcUtils;
 
-    @Inject
-    private SingleCellSolrUtils solrUtils;
-
     @Inject
     private DataSource dataSource;
 
@@ -132,62 +126,4 @@ class CellTypeSearchDaoIT {
                                 "http://purl.obolibrary.org/obo/UBERON_0001264"));
 		assertThat(authorsLabels).isNotEmpty();
 	}
-
-    @Test
-    void whenEmptySetOfCellIDsAndOrganismPartsProvidedReturnEmptySetOfCellTypes() {
-        ImmutableSet<String> emptyCellIDs = ImmutableSet.of();
-        ImmutableSet<String> emptySetOfOrganismParts = ImmutableSet.of();
-
-        var cellTypes = subject.searchCellTypes(emptyCellIDs, emptySetOfOrganismParts);
-
-        assertThat(cellTypes).isEmpty();
-    }
-
-    @Test
-    void whenInvalidCellIdsAndNoOrganismPartsProvidedReturnEmptySetOfCellTypes() {
-        var invalidCellIDs =
-                ImmutableSet.of("invalid-cellID-1", "invalid-cellID-2", "invalid-cellID-3");
-        ImmutableSet<String> emptySetOfOrganismParts = ImmutableSet.of();
-
-        var cellTypes = subject.searchCellTypes(invalidCellIDs, emptySetOfOrganismParts);
-
-        assertThat(cellTypes).isEmpty();
-    }
-
-    @Test
-    void whenOnlyValidCellIdsButNoOrganismPartsProvidedReturnSetOfCellTypes() {
-        var randomListOfCellIDs =
-                ImmutableSet.copyOf(
-                        new HashSet<>(jdbcUtils.fetchRandomListOfCells(10)));
-        ImmutableSet<String> emptySetOfOrganismParts = ImmutableSet.of();
-
-        var cellTypes = subject.searchCellTypes(randomListOfCellIDs, emptySetOfOrganismParts);
-
-        assertThat(cellTypes.size()).isGreaterThan(0);
-    }
-
-    @Test
-    void whenValidCellIdsButInvalidOrganismPartsProvidedReturnEmptySetOfCellTypes() {
-        var randomListOfCellIDs =
-                ImmutableSet.copyOf(
-                        new HashSet<>(jdbcUtils.fetchRandomListOfCells(10)));
-        ImmutableSet<String> invalidOrganismParts = ImmutableSet.of("invalid-cellType-1", "invalid-cellType-2");
-
-        var cellTypes = subject.searchCellTypes(randomListOfCellIDs, invalidOrganismParts);
-
-        assertThat(cellTypes).isEmpty();
-    }
-
-    @Test
-    void whenValidCellIdsAndValidProvidedReturnSetOfCellTypes() {
-        var randomListOfCellIDs =
-                ImmutableSet.copyOf(
-                        new HashSet<>(jdbcUtils.fetchRandomListOfCells(3)));
-        ImmutableSet<String> organismParts = solrUtils.fetchedRandomOrganismPartsByCellIDs(
-                randomListOfCellIDs, 1);
-
-        var cellTypes = subject.searchCellTypes(randomListOfCellIDs, organismParts);
-
-        assertThat(cellTypes.size()).isGreaterThan(0);
-    }
 }
@@ -1,5 +1,6 @@
 package uk.ac.ebi.atlas.search.celltype;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,16 +10,22 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import uk.ac.ebi.atlas.search.GeneSearchService;
+import uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexService;
+import uk.ac.ebi.atlas.search.cellindex.CellPostingList;
+
+import java.util.BitSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_CELL_TYPE;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_ORGANISM_PART;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class CellTypeSearchServiceTest {
 
     @Mock
-    private CellTypeSearchDao cellTypeSearchDao;
+    private CellMetadataBitmapIndexService cellMetadataBitmapIndexService;
 
     @Mock
     private GeneSearchService geneSearchService;
@@ -27,7 +34,7 @@ public class CellTypeSearchServiceTest {
 
     @BeforeEach
     void setup() {
-        subject = new CellTypeSearchService(cellTypeSearchDao, geneSearchService);
+        subject = new CellTypeSearchService(cellMetadataBitmapIndexService, geneSearchService);
     }
 
     @Test
@@ -46,9 +53,12 @@ public class CellTypeSearchServiceTest {
         var setOfNonExistentGeneIds = ImmutableSet.of(nonExistentGeneId);
         ImmutableSet<String> emptySetOfOrganismParts = ImmutableSet.of();
 
-        when(geneSearchService.getCellIdsFromGeneIds(setOfNonExistentGeneIds))
-                .thenReturn(ImmutableSet.of());
-        when(cellTypeSearchDao.searchCellTypes(ImmutableSet.of(), emptySetOfOrganismParts))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(setOfNonExistentGeneIds))
+                .thenReturn(ImmutableMap.of());
+        when(cellMetadataBitmapIndexService.getValues(
+                ImmutableMap.of(),
+                CTW_CELL_TYPE.name(),
+                ImmutableMap.of(CTW_ORGANISM_PART.name(), emptySetOfOrganismParts)))
                 .thenReturn(ImmutableSet.of());
 
         var cellTypes = subject.search(setOfNonExistentGeneIds, emptySetOfOrganismParts);
@@ -61,17 +71,18 @@ public class CellTypeSearchServiceTest {
         var existingGeneId1 = "ExistingGeneId1";
         var existingGeneId2 = "ExistingGeneId2";
         var geneIds = ImmutableSet.of(existingGeneId1, existingGeneId2);
-        var existingCellId1 = "ExistingCellId1";
-        var existingCellId2 = "ExistingCellId2";
-        var cellIds = ImmutableSet.of(existingCellId1, existingCellId2);
+        var cellIdsInExperiments = ImmutableMap.of("E-MTAB-5061", CellPostingList.of(BitSet.valueOf(new long[]{0b11})));
 
         ImmutableSet<String> emptySetOfOrganismParts = ImmutableSet.of();
 
         var expectedCellType = "root cortex 7";
 
-        when(geneSearchService.getCellIdsFromGeneIds(geneIds))
-                .thenReturn(cellIds);
-        when(cellTypeSearchDao.searchCellTypes(cellIds, emptySetOfOrganismParts))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(geneIds))
+                .thenReturn(cellIdsInExperiments);
+        when(cellMetadataBitmapIndexService.getValues(
+                cellIdsInExperiments,
+                CTW_CELL_TYPE.name(),
+                ImmutableMap.of(CTW_ORGANISM_PART.name(), emptySetOfOrganismParts)))
                 .thenReturn(ImmutableSet.of(expectedCellType));
 
         var cellTypes = subject.search(geneIds, emptySetOfOrganismParts);
@@ -84,18 +95,19 @@ public class CellTypeSearchServiceTest {
         var existingGeneId1 = "ExistingGeneId1";
         var existingGeneId2 = "ExistingGeneId2";
         var geneIds = ImmutableSet.of(existingGeneId1, existingGeneId2);
-        var existingCellId1 = "ExistingCellId1";
-        var existingCellId2 = "ExistingCellId2";
-        var cellIds = ImmutableSet.of(existingCellId1, existingCellId2);
+        var cellIdsInExperiments = ImmutableMap.of("E-MTAB-5061", CellPostingList.of(BitSet.valueOf(new long[]{0b11})));
         var existingCellType1 = "ExistingCellType1";
         var existingCellType2 = "ExistingCellType2";
         var organismParts = ImmutableSet.of(existingCellType1, existingCellType2);
 
         var expectedCellType = "root cortex 7";
 
-        when(geneSearchService.getCellIdsFromGeneIds(geneIds))
-                .thenReturn(cellIds);
-        when(cellTypeSearchDao.searchCellTypes(cellIds, organismParts))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(geneIds))
+                .thenReturn(cellIdsInExperiments);
+        when(cellMetadataBitmapIndexService.getValues(
+                cellIdsInExperiments,
+                CTW_CELL_TYPE.name(),
+                ImmutableMap.of(CTW_ORGANISM_PART.name(), organismParts)))
                 .thenReturn(ImmutableSet.of(expectedCellType));
 
         var cellTypes = subject.search(geneIds, organismParts);
@@ -0,0 +1,86 @@
+package uk.ac.ebi.atlas.search.geneids;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomEnsemblGeneIds;
+
+class ExpressedGeneIndexTest {
+    @Test
+    void emptyIndex() {
+        var subject = ExpressedGeneIndex.empty();
+
+        assertThat(subject.size()).isZero();
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000066279")).isFalse();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000066279")).isFalse();
+    }
+
+    @Test
+    void genesOfAllExperimentsAreMerged() {
+        var geneIds = generateRandomEnsemblGeneIds(200);
+        var subject =
+                ExpressedGeneIndex.empty()
+                        .add(geneIds.subList(0, 150), false)
+                        .add(geneIds.subList(50, 200), false);
+
+        assertThat(subject.size()).isEqualTo(ImmutableSet.copyOf(geneIds).size());
+        assertThat(geneIds).allMatch(subject::isExpressedInPublicExperiments);
+    }
+
+    @Test
+    void genesOnlyInPrivateExperimentsAreNotPublic() {
+        var subject =
+                ExpressedGeneIndex.empty()
+                        .add(ImmutableList.of("ENSG00000066279", "ENSG00000141510"), false)
+                        .add(ImmutableList.of("ENSG00000141510", "ENSG00000139618"), true);
+
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000066279")).isTrue();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000141510")).isTrue();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isFalse();
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000139618")).isTrue();
+    }
+
+    @Test
+    void removingAnExperimentKeepsGenesExpressedInOtherExperiments() {
+        var experiment1GeneIds = ImmutableList.of("ENSG00000066279", "ENSG00000141510");
+        var experiment2GeneIds = ImmutableList.of("ENSG00000141510", "ENSG00000139618");
+        var subject =
+                ExpressedGeneIndex.empty()
+                        .add(experiment1GeneIds, false)
+                        .add(experiment2GeneIds, false)
+                        .remove(experiment1GeneIds, false);
+
+        assertThat(subject.size()).isEqualTo(2);
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000066279")).isFalse();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000141510")).isTrue();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isTrue();
+    }
+
+    @Test
+    void makingAnExperimentPrivateHidesItsGenes() {
+        var geneIds = ImmutableList.of("ENSG00000066279", "ENSG00000141510");
+        var subject =
+                ExpressedGeneIndex.empty()
+                        .add(geneIds, false)
+                        .remove(geneIds, false)
+                        .add(geneIds, true);
+
+        assertThat(subject.size()).isEqualTo(2);
+        assertThat(geneIds).noneMatch(subject::isExpressedInPublicExperiments);
+        assertThat(geneIds).allMatch(subject::isExpressedInAnyExperiment);
+    }
+
+    @Test
+    void updatesDoNotChangeThePreviousIndex() {
+        var original = ExpressedGeneIndex.empty().add(ImmutableList.of("ENSG00000066279"), false);
+
+        original.remove(ImmutableList.of("ENSG00000066279"), false);
+        original.add(ImmutableList.of("ENSG00000141510"), false);
+
+        assertThat(original.size()).isEqualTo(1);
+        assertThat(original.isExpressedInPublicExperiments("ENSG00000066279")).isTrue();
+        assertThat(original.isExpressedInAnyExperiment("ENSG00000141510")).isFalse();
+    }
+}
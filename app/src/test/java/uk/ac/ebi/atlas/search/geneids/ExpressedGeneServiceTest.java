@@ -0,0 +1,212 @@
+package uk.ac.ebi.atlas.search.geneids;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import uk.ac.ebi.atlas.trader.ExperimentVisibility;
+import uk.ac.ebi.atlas.trader.ExperimentVisibilityService;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ExpressedGeneServiceTest {
+    private static final ImmutableList<String> E_MTAB_5061_GENE_IDS =
+            ImmutableList.of("ENSG00000066279", "ENSG00000141510");
+    private static final ImmutableList<String> E_GEOD_81547_GENE_IDS =
+            ImmutableList.of("ENSG00000141510", "ENSG00000139618");
+    private static final ExperimentVisibility EXPERIMENT_VISIBILITY =
+            ExperimentVisibility.empty().update(
+                    ImmutableSet.of("E-MTAB-5061"),
+                    ImmutableMap.of("E-GEOD-81547", "3e8a4b2c-3f7e-4a8b-9d6c-1b2a3c4d5e6f"));
+
+    @Mock
+    private ExpressedGeneDao expressedGeneDaoMock;
+
+    @Mock
+    private ExperimentVisibilityService experimentVisibilityServiceMock;
+
+    private final List<Runnable> backgroundTasks = new ArrayList<>();
+
+    private ExpressedGeneService subject;
+
+    @BeforeEach
+    void setUp() {
+        when(expressedGeneDaoMock.fetchGeneIdsByExperimentAccession())
+                .thenReturn(ImmutableMap.of(
+                        "E-MTAB-5061", E_MTAB_5061_GENE_IDS,
+                        "E-GEOD-81547", E_GEOD_81547_GENE_IDS));
+        when(expressedGeneDaoMock.fetchGeneIds("E-MTAB-5061")).thenReturn(E_MTAB_5061_GENE_IDS);
+        when(expressedGeneDaoMock.fetchGeneIds("E-GEOD-81547")).thenReturn(E_GEOD_81547_GENE_IDS);
+        when(experimentVisibilityServiceMock.getSnapshot()).thenReturn(EXPERIMENT_VISIBILITY);
+
+        // Check staleness on every read
+        subject = new ExpressedGeneService(expressedGeneDaoMock, experimentVisibilityServiceMock, false, 0) {
+            @Override
+            void startInBackground(Runnable task) {
+                backgroundTasks.add(task);
+            }
+        };
+    }
+
+    private void runBackgroundTasks() {
+        var tasks = ImmutableList.copyOf(backgroundTasks);
+        backgroundTasks.clear();
+        tasks.forEach(Runnable::run);
+    }
+
+    @Test
+    void genesOfPrivateExperimentsAreOnlyExpressedInAnyExperiment() {
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000066279")).isTrue();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000141510")).isTrue();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isFalse();
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000139618")).isTrue();
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000000000")).isFalse();
+    }
+
+    @Test
+    void indexIsLoadedOnce() {
+        subject.isExpressedInPublicExperiments("ENSG00000066279");
+        subject.isExpressedInAnyExperiment("ENSG00000139618");
+
+        verify(expressedGeneDaoMock, times(1)).fetchGeneIdsByExperimentAccession();
+    }
+
+    @Test
+    void experimentsCanBeMadePublic() {
+        subject.isExpressedInAnyExperiment("ENSG00000139618");
+        subject.updateExperiment("E-GEOD-81547", false);
+
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isTrue();
+    }
+
+    @Test
+    void experimentsCanBeMadePrivate() {
+        subject.isExpressedInAnyExperiment("ENSG00000066279");
+        subject.updateExperiment("E-MTAB-5061", true);
+
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000066279")).isFalse();
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000066279")).isTrue();
+    }
+
+    @Test
+    void genesOfDeletedExperimentsAreNoLongerExpressed() {
+        subject.isExpressedInAnyExperiment("ENSG00000066279");
+        subject.deleteExperiment("E-MTAB-5061");
+
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000066279")).isFalse();
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000141510")).isTrue();
+    }
+
+    @Test
+    void newExperimentsAreAdded() {
+        when(expressedGeneDaoMock.fetchGeneIds("E-EHCA-2")).thenReturn(ImmutableList.of("ENSG00000000003"));
+        subject.isExpressedInAnyExperiment("ENSG00000066279");
+
+        subject.updateExperiment("E-EHCA-2", false);
+
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000000003")).isTrue();
+    }
+
+    @Test
+    void refreshReloadsTheIndex() {
+        subject.isExpressedInAnyExperiment("ENSG00000066279");
+        when(expressedGeneDaoMock.fetchGeneIdsByExperimentAccession())
+                .thenReturn(ImmutableMap.of("E-MTAB-5061", E_MTAB_5061_GENE_IDS));
+
+        assertThat(subject.refresh()).containsOnly(entry("experiments", 1), entry("genes", 2));
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000139618")).isFalse();
+    }
+
+    @Test
+    void indexIsNotLoadedToUpdateExperiments() {
+        subject.updateExperiment("E-MTAB-5061", true);
+        subject.deleteExperiment("E-GEOD-81547");
+
+        verify(expressedGeneDaoMock, never()).fetchGeneIdsByExperimentAccession();
+        verify(expressedGeneDaoMock, never()).fetchGeneIds(anyString());
+    }
+
+    @Test
+    void experimentsUpdatedInThisProcessDoNotRebuildTheIndex() {
+        subject.isExpressedInAnyExperiment("ENSG00000139618");
+        when(experimentVisibilityServiceMock.getSnapshot())
+                .thenReturn(
+                        EXPERIMENT_VISIBILITY.update(
+                                ImmutableSet.of("E-MTAB-5061", "E-GEOD-81547"), ImmutableMap.of()));
+
+        subject.updateExperiment("E-GEOD-81547", false);
+
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isTrue();
+        verify(expressedGeneDaoMock, times(1)).fetchGeneIdsByExperimentAccession();
+    }
+
+    @Test
+    void experimentsChangedInAnotherProcessRebuildTheIndex() {
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isFalse();
+
+        // E.g. made public by the CLI
+        when(experimentVisibilityServiceMock.getSnapshot())
+                .thenReturn(
+                        EXPERIMENT_VISIBILITY.update(
+                                ImmutableSet.of("E-MTAB-5061", "E-GEOD-81547"), ImmutableMap.of()));
+
+        // The stale index is served until the new one is built
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isFalse();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isFalse();
+        assertThat(backgroundTasks).hasSize(1);
+
+        runBackgroundTasks();
+
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000139618")).isTrue();
+        verify(expressedGeneDaoMock, times(2)).fetchGeneIdsByExperimentAccession();
+    }
+
+    @Test
+    void experimentsUpdatedWhileTheIndexIsRebuiltKeepTheirUpdate() {
+        subject.isExpressedInAnyExperiment("ENSG00000139618");
+        when(experimentVisibilityServiceMock.getSnapshot())
+                .thenReturn(
+                        EXPERIMENT_VISIBILITY.update(
+                                ImmutableSet.of("E-MTAB-5061", "E-GEOD-81547"), ImmutableMap.of()));
+        subject.isExpressedInAnyExperiment("ENSG00000139618");
+
+        // Deleted in this process after scxa-gene2experiment was streamed, but before the new index is swapped in
+        when(expressedGeneDaoMock.fetchGeneIdsByExperimentAccession())
+                .thenAnswer(invocation -> {
+                    subject.deleteExperiment("E-GEOD-81547");
+                    return ImmutableMap.of(
+                            "E-MTAB-5061", E_MTAB_5061_GENE_IDS,
+                            "E-GEOD-81547", E_GEOD_81547_GENE_IDS);
+                });
+        runBackgroundTasks();
+
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000139618")).isFalse();
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000066279")).isTrue();
+    }
+
+    @Test
+    void experimentsMissingFromTheSnapshotAreTakenAsPrivate() {
+        when(expressedGeneDaoMock.fetchGeneIdsByExperimentAccession())
+                .thenReturn(ImmutableMap.of("E-EHCA-2", ImmutableList.of("ENSG00000000003")));
+
+        assertThat(subject.isExpressedInPublicExperiments("ENSG00000000003")).isFalse();
+        assertThat(subject.isExpressedInAnyExperiment("ENSG00000000003")).isTrue();
+    }
+}
@@ -1,5 +1,6 @@
 package uk.ac.ebi.atlas.search.geneids;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.apache.commons.lang3.tuple.Pair;
 import org.apache.solr.client.solrj.SolrQuery;
@@ -23,7 +24,6 @@ import uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy;
 import uk.ac.ebi.atlas.solr.cloud.search.SolrQueryBuilder;
 import uk.ac.ebi.atlas.solr.cloud.search.streamingexpressions.source.SearchStreamBuilder;
 import uk.ac.ebi.atlas.testutils.JdbcUtils;
-import uk.ac.ebi.atlas.trader.ExperimentTraderDao;
 
 import javax.inject.Inject;
 import javax.sql.DataSource;
@@ -31,6 +31,7 @@ import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static uk.ac.ebi.atlas.solr.bioentities.BioentityPropertyName.ENSGENE;
+import static uk.ac.ebi.atlas.solr.bioentities.BioentityPropertyName.SYMBOL;
 import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.BIOENTITY_IDENTIFIER;
 import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.PROPERTY_NAME;
 import static uk.ac.ebi.atlas.solr.cloud.collections.BioentitiesCollectionProxy.PROPERTY_VALUE;
@@ -53,7 +54,7 @@ class GeneIdSearchDaoIT {
     private BioentitiesCollectionProxy bioentitiesCollectionProxy;
 
     @Inject
-    private ExperimentTraderDao experimentTraderDao;
+    private ExpressedGeneService expressedGeneService;
 
     private GeneIdSearchDao subject;
 
@@ -75,7 +76,7 @@ class GeneIdSearchDaoIT {
 
     @BeforeEach
     void setUp() {
-        subject = new GeneIdSearchDao(collectionProxyFactory, experimentTraderDao);
+        subject = new GeneIdSearchDao(collectionProxyFactory, expressedGeneService);
         bioentitiesCollectionProxy = collectionProxyFactory.create(BioentitiesCollectionProxy.class);
     }
 
@@ -157,6 +158,31 @@ class GeneIdSearchDaoIT {
                             assertThat(results).allMatch(geneId -> geneId.matches("GLYMA_.{9}")));
     }
 
+    @Test
+    void ifNoDocumentsAreFoundInBioentitiesForAnyPropertyNameReturnEmptyMap() {
+        assertThat(subject.searchGeneIdsByPropertyName("FOOBAR", ImmutableList.of(ENSGENE.name, SYMBOL.name)))
+                .isEmpty();
+    }
+
+    @ParameterizedTest
+    @MethodSource("randomGeneIdProvider")
+    void geneIdIsFoundSearchingSeveralPropertyNamesAtOnce(String geneId) {
+        assertThat(subject.searchGeneIdsByPropertyName(geneId, ImmutableList.of(SYMBOL.name, ENSGENE.name)))
+                .containsEntry(ENSGENE.name, ImmutableSet.of(geneId))
+                .doesNotContainKey(SYMBOL.name);
+    }
+
+    @Test
+    void filterBySpeciesSearchingSeveralPropertyNamesAtOnce() {
+        var multiSpeciesPropertyValue = "GO:0005622";
+
+        assertThat(
+                subject.searchGeneIdsByPropertyName(
+                        multiSpeciesPropertyValue, ImmutableList.of("go", SYMBOL.name), "Homo_sapiens"))
+                .hasEntrySatisfying("go", results ->
+                        assertThat(results).allMatch(geneId -> geneId.matches("ENSG\\d+")));
+    }
+
     private Stream<String> randomGeneIdProvider() {
         return Stream.of(jdbcTestUtils.fetchRandomGene());
     }
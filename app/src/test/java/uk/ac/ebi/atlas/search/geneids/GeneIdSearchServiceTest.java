@@ -1,6 +1,7 @@
 package uk.ac.ebi.atlas.search.geneids;
 
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -19,14 +20,19 @@ import uk.ac.ebi.atlas.species.SpeciesProperties;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphabetic;
 import static org.apache.commons.lang3.RandomStringUtils.randomAlphanumeric;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -39,6 +45,11 @@ import static uk.ac.ebi.atlas.testutils.RandomDataTestUtils.generateRandomSpecie
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 class GeneIdSearchServiceTest {
+    private static final ImmutableList<String> ID_PROPERTY_NAMES =
+            BIOENTITY_PROPERTY_NAMES.stream()
+                    .map(propertyName -> propertyName.name)
+                    .collect(toImmutableList());
+
     private static final Species HUMAN =
             new Species(
                     "Homo sapiens",
@@ -56,20 +67,26 @@ class GeneIdSearchServiceTest {
 
     @BeforeEach
     void setUp() {
+        when(geneIdSearchDaoMock.searchGeneIdsByPropertyName(anyString(), anyCollection(), anyString()))
+                .thenReturn(ImmutableMap.of());
+        when(geneIdSearchDaoMock.searchGeneIdsByPropertyName(anyString(), anyCollection()))
+                .thenReturn(ImmutableMap.of());
+
         subject = new GeneIdSearchService(geneIdSearchDaoMock, speciesFactory);
         inOrder = inOrder(geneIdSearchDaoMock);
     }
 
     @Test
-    void geneQueryWithoutCategoryIsSearchedInIdProperties() {
+    void geneQueryWithoutCategoryIsSearchedInIdPropertiesAtOnce() {
         subject.search(GeneQuery.create("foobar"));
         subject.search(GeneQuery.create("foobar", HUMAN));
 
-        BIOENTITY_PROPERTY_NAMES.forEach(propertyName ->
-                inOrder.verify(geneIdSearchDaoMock).searchGeneIds("foobar", propertyName.name));
+        inOrder.verify(geneIdSearchDaoMock).searchGeneIdsByPropertyName("foobar", ID_PROPERTY_NAMES);
+        inOrder.verify(geneIdSearchDaoMock)
+                .searchGeneIdsByPropertyName("foobar", ID_PROPERTY_NAMES, HUMAN.getEnsemblName());
 
-        BIOENTITY_PROPERTY_NAMES.forEach(propertyName ->
-                inOrder.verify(geneIdSearchDaoMock).searchGeneIds("foobar", propertyName.name, HUMAN.getEnsemblName()));
+        verify(geneIdSearchDaoMock, never()).searchGeneIds(anyString(), anyString());
+        verify(geneIdSearchDaoMock, never()).searchGeneIds(anyString(), anyString(), anyString());
     }
 
     @Test
@@ -104,21 +121,14 @@ class GeneIdSearchServiceTest {
     @Test
     void ifAtLeastOneIdMatchesWeGetNonEmptyOptional() {
         var randomIdPropertyName = generateRandomKnownBioentityPropertyName();
-        while (!SPECIES_OVERRIDE_PROPERTY_NAMES.contains(randomIdPropertyName)) {
+        while (!BIOENTITY_PROPERTY_NAMES.contains(randomIdPropertyName)) {
             randomIdPropertyName = generateRandomKnownBioentityPropertyName();
         }
 
-        BIOENTITY_PROPERTY_NAMES.forEach(propertyName -> {
-            when(geneIdSearchDaoMock.searchGeneIds("foobar", propertyName.name, HUMAN.getEnsemblName()))
-                    .thenReturn(Optional.empty());
-            when(geneIdSearchDaoMock.searchGeneIds("foobar", propertyName.name))
-                    .thenReturn(Optional.empty());
-        });
-
-        when(geneIdSearchDaoMock.searchGeneIds("foobar", randomIdPropertyName.name, HUMAN.getEnsemblName()))
-                .thenReturn(Optional.of(ImmutableSet.of()));
-        when(geneIdSearchDaoMock.searchGeneIds("foobar", randomIdPropertyName.name))
-                .thenReturn(Optional.of(ImmutableSet.of()));
+        when(geneIdSearchDaoMock.searchGeneIdsByPropertyName("foobar", ID_PROPERTY_NAMES, HUMAN.getEnsemblName()))
+                .thenReturn(ImmutableMap.of(randomIdPropertyName.name, ImmutableSet.of()));
+        when(geneIdSearchDaoMock.searchGeneIdsByPropertyName("foobar", ID_PROPERTY_NAMES))
+                .thenReturn(ImmutableMap.of(randomIdPropertyName.name, ImmutableSet.of()));
 
         assertThat(subject.search(GeneQuery.create("foobar", HUMAN)))
                 .hasValue(ImmutableSet.of());
@@ -140,55 +150,38 @@ class GeneIdSearchServiceTest {
                 BIOENTITY_PROPERTY_NAMES.subList(
                         BIOENTITY_PROPERTY_NAMES.indexOf(randomIdPropertyName) + 1, BIOENTITY_PROPERTY_NAMES.size());
 
-        idPropertyNamesBefore.forEach(propertyName -> {
-            when(geneIdSearchDaoMock.searchGeneIds("foobar", propertyName.name, HUMAN.getEnsemblName()))
-                    .thenReturn(Optional.of(ImmutableSet.of()));
-            when(geneIdSearchDaoMock.searchGeneIds("foobar", propertyName.name))
-                    .thenReturn(Optional.of(ImmutableSet.of()));
-        });
-
-        idPropertyNamesAfter.forEach(propertyName -> {
-            when(geneIdSearchDaoMock.searchGeneIds("foobar", propertyName.name, HUMAN.getEnsemblName()))
-                    .thenReturn(Optional.of(ImmutableSet.of("ENSFOOBAR0000002")));
-            when(geneIdSearchDaoMock.searchGeneIds("foobar", propertyName.name))
-                    .thenReturn(Optional.of(ImmutableSet.of("ENSFOOBAR0000002")));
-        });
+        var geneIdsByPropertyName = ImmutableMap.<String, ImmutableSet<String>>builder();
+        idPropertyNamesBefore.forEach(propertyName ->
+                geneIdsByPropertyName.put(propertyName.name, ImmutableSet.of()));
+        geneIdsByPropertyName.put(randomIdPropertyName.name, ImmutableSet.of("ENSFOOBAR0000001"));
+        idPropertyNamesAfter.forEach(propertyName ->
+                geneIdsByPropertyName.put(propertyName.name, ImmutableSet.of("ENSFOOBAR0000002")));
 
-        when(geneIdSearchDaoMock.searchGeneIds("foobar", randomIdPropertyName.name, HUMAN.getEnsemblName()))
-                .thenReturn(Optional.of(ImmutableSet.of("ENSFOOBAR0000001")));
-        when(geneIdSearchDaoMock.searchGeneIds("foobar", randomIdPropertyName.name))
-                .thenReturn(Optional.of(ImmutableSet.of("ENSFOOBAR0000001")));
+        when(geneIdSearchDaoMock.searchGeneIdsByPropertyName("foobar", ID_PROPERTY_NAMES, HUMAN.getEnsemblName()))
+                .thenReturn(geneIdsByPropertyName.build());
+        when(geneIdSearchDaoMock.searchGeneIdsByPropertyName("foobar", ID_PROPERTY_NAMES))
+                .thenReturn(geneIdsByPropertyName.build());
 
         assertThat(subject.search(GeneQuery.create("foobar", HUMAN)))
                 .isEqualTo(subject.search(GeneQuery.create("foobar")))
                 .hasValue(ImmutableSet.of("ENSFOOBAR0000001"));
 
-        idPropertyNamesBefore.forEach(propertyName ->
-                inOrder.verify(geneIdSearchDaoMock).searchGeneIds("foobar", propertyName.name, HUMAN.getEnsemblName()));
-        inOrder.verify(geneIdSearchDaoMock).searchGeneIds("foobar", randomIdPropertyName.name, HUMAN.getEnsemblName());
-
-        idPropertyNamesBefore.forEach(propertyName ->
-                inOrder.verify(geneIdSearchDaoMock).searchGeneIds("foobar", propertyName.name));
-        inOrder.verify(geneIdSearchDaoMock).searchGeneIds("foobar", randomIdPropertyName.name);
-
-        idPropertyNamesAfter.forEach(propertyName -> {
-            verify(geneIdSearchDaoMock, never()).searchGeneIds("foobar", propertyName.name, HUMAN.getEnsemblName());
-            verify(geneIdSearchDaoMock, never()).searchGeneIds("foobar", propertyName.name);
-        });
+        verify(geneIdSearchDaoMock, times(2))
+                .searchGeneIdsByPropertyName("foobar", ID_PROPERTY_NAMES, HUMAN.getEnsemblName());
+        verify(geneIdSearchDaoMock, times(2)).searchGeneIdsByPropertyName("foobar", ID_PROPERTY_NAMES);
     }
 
     @Test
     void ifQueryHasEmptySpeciesSearchAllSpecies() {
         var searchString = randomAlphanumeric(3, 20);
         subject.search(GeneQuery.create(searchString));
-        verify(geneIdSearchDaoMock).searchGeneIds(searchString, "ensgene");
-        verify(geneIdSearchDaoMock).searchGeneIds(searchString, "symbol");
-        verify(geneIdSearchDaoMock).searchGeneIds(searchString, "entrezgene");
-        verify(geneIdSearchDaoMock).searchGeneIds(searchString, "hgnc_symbol");
-        verify(geneIdSearchDaoMock).searchGeneIds(searchString, "mgi_id");
-        verify(geneIdSearchDaoMock).searchGeneIds(searchString, "mgi_symbol");
-        verify(geneIdSearchDaoMock).searchGeneIds(searchString, "flybase_gene_id");
-        verify(geneIdSearchDaoMock).searchGeneIds(searchString, "wbpsgene");
+        verify(geneIdSearchDaoMock).searchGeneIdsByPropertyName(
+                eq(searchString),
+                argThat(propertyNames ->
+                        propertyNames.containsAll(
+                                ImmutableList.of(
+                                        "ensgene", "symbol", "entrezgene", "hgnc_symbol", "mgi_id", "mgi_symbol",
+                                        "flybase_gene_id", "wbpsgene"))));
     }
 
     @Test
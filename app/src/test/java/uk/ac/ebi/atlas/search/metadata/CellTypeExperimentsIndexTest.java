@@ -0,0 +1,26 @@
+package uk.ac.ebi.atlas.search.metadata;
+
+import com.google.common.collect.ImmutableSetMultimap;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CellTypeExperimentsIndexTest {
+    private static final CellTypeExperimentsIndex SUBJECT = CellTypeExperimentsIndex.create(
+            ImmutableSetMultimap.of(
+                    "T cell", "E-MTAB-2",
+                    "t  cell ", "E-MTAB-1",
+                    "T cell", "E-MTAB-1",
+                    "B cell", "E-MTAB-3"));
+
+    @Test
+    void cellTypesWithTheSameNormalisedLabelAreMerged() {
+        assertThat(SUBJECT.cellTypeCount()).isEqualTo(2);
+        assertThat(SUBJECT.experimentAccessions(" T  CELL")).containsExactly("E-MTAB-1", "E-MTAB-2");
+    }
+
+    @Test
+    void unknownCellTypesHaveNoExperiments() {
+        assertThat(SUBJECT.experimentAccessions("foobar")).isEmpty();
+    }
+}
@@ -0,0 +1,49 @@
+package uk.ac.ebi.atlas.search.metadata;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGene;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CellTypeMarkerGenesIndexTest {
+    private static final MarkerGene MARKER_GENE_1 =
+            MarkerGene.create("gene_1", "inferred cell type - ontology labels", "E-MTAB-1", 0.01, "E-MTAB-1",
+                    10, 12, "CPM");
+    private static final MarkerGene MARKER_GENE_2 =
+            MarkerGene.create("gene_2", "inferred cell type - ontology labels", "E-MTAB-1", 0.001, "E-MTAB-1",
+                    20, 22, "CPM");
+    private static final MarkerGene MARKER_GENE_3 =
+            MarkerGene.create("gene_3", "inferred cell type - authors labels", "E-MTAB-1", 0.005, "E-MTAB-1",
+                    30, 32, "CPM");
+
+    private static final CellTypeMarkerGenesIndex SUBJECT = CellTypeMarkerGenesIndex.create(
+            ImmutableMap.of(
+                    "T cell", ImmutableList.of(MARKER_GENE_1, MARKER_GENE_2),
+                    "t  cell ", ImmutableList.of(MARKER_GENE_3),
+                    "B cell", ImmutableList.of(MARKER_GENE_1)));
+
+    @Test
+    void labelsAreNormalised() {
+        assertThat(CellTypeMarkerGenesIndex.normalise("  CD4-positive,  alpha-beta T cell "))
+                .isEqualTo("cd4-positive, alpha-beta t cell");
+    }
+
+    @Test
+    void cellTypesWithTheSameNormalisedLabelAreMerged() {
+        assertThat(SUBJECT.cellTypeCount()).isEqualTo(2);
+        assertThat(SUBJECT.markerGenes("T CELL"))
+                .containsExactlyInAnyOrder(MARKER_GENE_1, MARKER_GENE_2, MARKER_GENE_3);
+    }
+
+    @Test
+    void markerGenesAreRankedByPValue() {
+        assertThat(SUBJECT.markerGenes("T cell")).containsExactly(MARKER_GENE_2, MARKER_GENE_3, MARKER_GENE_1);
+    }
+
+    @Test
+    void unknownCellTypesHaveNoMarkerGenes() {
+        assertThat(SUBJECT.markerGenes("foobar")).isEmpty();
+    }
+}
@@ -1,5 +1,6 @@
 package uk.ac.ebi.atlas.search.metadata;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
@@ -12,10 +13,14 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import uk.ac.ebi.atlas.configuration.TestConfig;
+import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGene;
+import uk.ac.ebi.atlas.trader.ExperimentVisibility;
+import uk.ac.ebi.atlas.trader.ExperimentVisibilityService;
 
 import javax.inject.Inject;
 import javax.sql.DataSource;
 
+import static java.util.Comparator.comparingDouble;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(SpringExtension.class)
@@ -28,6 +33,9 @@ class MultiexperimentCellTypeMarkerGenesDaoIT {
     @Inject
     private DataSource dataSource;
 
+    @Inject
+    private ExperimentVisibilityService experimentVisibilityService;
+
     @Inject
     MultiexperimentCellTypeMarkerGenesDao subject;
 
@@ -55,19 +63,61 @@ class MultiexperimentCellTypeMarkerGenesDaoIT {
     void knownCellTypeReturnsResults() {
         // We have a few cell type marker genes in our fixtures; this is one of them
         // Pick a value from scxa_cell_group.sql with variable "inferred cell type - *"
-        assertThat(subject.getCellTypeMarkerGenes(ImmutableSet.of("E-GEOD-81547"), "mesenchymal cell"))
-                .isNotEmpty();
+        assertThat(subject.fetchCellTypeMarkerGenesIndex("E-GEOD-81547").markerGenes("mesenchymal cell"))
+                .isNotEmpty()
+                .allSatisfy(markerGene -> {
+                    assertThat(markerGene.cellGroupValue()).isEqualTo("E-GEOD-81547");
+                    assertThat(markerGene.pValue()).isLessThan(0.05);
+                })
+                .isSortedAccordingTo(comparingDouble(MarkerGene::pValue));
+    }
+
+    @Test
+    void cellTypesAreLookedUpByTheirNormalisedLabel() {
+        assertThat(subject.fetchCellTypeMarkerGenesIndex("E-GEOD-81547").markerGenes(" Mesenchymal  Cell"))
+                .isEqualTo(subject.fetchCellTypeMarkerGenesIndex("E-GEOD-81547").markerGenes("mesenchymal cell"));
     }
 
     @Test
     void unknownCellTypeReturnsEmpty() {
-        assertThat(subject.getCellTypeMarkerGenes(ImmutableSet.of("E-CURD-4"), "foobar"))
+        assertThat(subject.fetchCellTypeMarkerGenesIndex("E-CURD-4").markerGenes("foobar"))
                 .isEmpty();
     }
 
     @Test
     void unknownExperimentAccessionReturnsEmpty() {
-        assertThat(subject.getCellTypeMarkerGenes(ImmutableSet.of("E-FOOBAR"), "mesenchymal cell"))
-                .isEmpty();
+        assertThat(subject.fetchCellTypeMarkerGenesIndex("E-FOOBAR").cellTypeCount())
+                .isZero();
+    }
+
+    @Test
+    void experimentsOfCellTypesHaveItsMarkerGenes() {
+        var experimentAccessions =
+                subject.fetchCellTypeExperimentsIndex(experimentVisibilityService.getSnapshot())
+                        .experimentAccessions("mesenchymal cell");
+
+        assertThat(experimentAccessions)
+                .contains("E-GEOD-81547")
+                .allSatisfy(experimentAccession ->
+                        assertThat(subject.fetchCellTypeMarkerGenesIndex(experimentAccession)
+                                .markerGenes("mesenchymal cell"))
+                                .isNotEmpty());
+    }
+
+    @Test
+    void experimentsOfCellTypesAreLookedUpByTheirNormalisedLabel() {
+        var index = subject.fetchCellTypeExperimentsIndex(experimentVisibilityService.getSnapshot());
+
+        assertThat(index.experimentAccessions(" Mesenchymal  Cell"))
+                .isEqualTo(index.experimentAccessions("mesenchymal cell"));
+    }
+
+    @Test
+    void privateExperimentsAreLeftOut() {
+        var visibility =
+                ExperimentVisibility.empty().update(ImmutableSet.of(), ImmutableMap.of("E-GEOD-81547", "foobar"));
+
+        assertThat(subject.fetchCellTypeExperimentsIndex(visibility).cellTypeCount())
+                .isZero();
     }
 }
@@ -1,5 +1,6 @@
 package uk.ac.ebi.atlas.search.organismpart;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -9,16 +10,22 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 import uk.ac.ebi.atlas.search.GeneSearchService;
+import uk.ac.ebi.atlas.search.cellindex.CellMetadataBitmapIndexService;
+import uk.ac.ebi.atlas.search.cellindex.CellPostingList;
+
+import java.util.BitSet;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_CELL_TYPE;
+import static uk.ac.ebi.atlas.solr.cloud.collections.SingleCellAnalyticsCollectionProxy.CTW_ORGANISM_PART;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
 public class OrganismPartSearchServiceTest {
 
     @Mock
-    private OrganismPartSearchDao organismPartSearchDao;
+    private CellMetadataBitmapIndexService cellMetadataBitmapIndexService;
 
     @Mock
     private GeneSearchService geneSearchService;
@@ -27,7 +34,7 @@ public class OrganismPartSearchServiceTest {
 
     @BeforeEach
     void setup() {
-        subject = new OrganismPartSearchService(organismPartSearchDao, geneSearchService);
+        subject = new OrganismPartSearchService(cellMetadataBitmapIndexService, geneSearchService);
     }
 
     @Test
@@ -46,9 +53,12 @@ public class OrganismPartSearchServiceTest {
         var setOfNonExistentGeneIds = ImmutableSet.of(nonExistentGeneId);
         ImmutableSet<String> emptySetOfCellTypes = ImmutableSet.of();
 
-        when(geneSearchService.getCellIdsFromGeneIds(setOfNonExistentGeneIds))
-                .thenReturn(ImmutableSet.of());
-        when(organismPartSearchDao.searchOrganismPart(ImmutableSet.of(), emptySetOfCellTypes))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(setOfNonExistentGeneIds))
+                .thenReturn(ImmutableMap.of());
+        when(cellMetadataBitmapIndexService.getValues(
+                ImmutableMap.of(),
+                CTW_ORGANISM_PART.name(),
+                ImmutableMap.of(CTW_CELL_TYPE.name(), emptySetOfCellTypes)))
                 .thenReturn(ImmutableSet.of());
 
         var organismParts = subject.search(setOfNonExistentGeneIds, emptySetOfCellTypes);
@@ -61,17 +71,18 @@ public class OrganismPartSearchServiceTest {
         var existingGeneId1 = "ExistingGeneId1";
         var existingGeneId2 = "ExistingGeneId2";
         var geneIds = ImmutableSet.of(existingGeneId1, existingGeneId2);
-        var existingCellId1 = "ExistingCellId1";
-        var existingCellId2 = "ExistingCellId2";
-        var cellIds = ImmutableSet.of(existingCellId1, existingCellId2);
+        var cellIdsInExperiments = ImmutableMap.of("E-MTAB-5061", CellPostingList.of(BitSet.valueOf(new long[]{0b11})));
 
         ImmutableSet<String> emptySetOfCellTypes = ImmutableSet.of();
 
         var expectedOrganismPart = "primary visual cortex";
 
-        when(geneSearchService.getCellIdsFromGeneIds(geneIds))
-                .thenReturn(cellIds);
-        when(organismPartSearchDao.searchOrganismPart(cellIds, emptySetOfCellTypes))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(geneIds))
+                .thenReturn(cellIdsInExperiments);
+        when(cellMetadataBitmapIndexService.getValues(
+                cellIdsInExperiments,
+                CTW_ORGANISM_PART.name(),
+                ImmutableMap.of(CTW_CELL_TYPE.name(), emptySetOfCellTypes)))
                 .thenReturn(ImmutableSet.of(expectedOrganismPart));
 
         var organismParts = subject.search(geneIds, emptySetOfCellTypes);
@@ -84,18 +95,19 @@ public class OrganismPartSearchServiceTest {
         var existingGeneId1 = "ExistingGeneId1";
         var existingGeneId2 = "ExistingGeneId2";
         var geneIds = ImmutableSet.of(existingGeneId1, existingGeneId2);
-        var existingCellId1 = "ExistingCellId1";
-        var existingCellId2 = "ExistingCellId2";
-        var cellIds = ImmutableSet.of(existingCellId1, existingCellId2);
+        var cellIdsInExperiments = ImmutableMap.of("E-MTAB-5061", CellPostingList.of(BitSet.valueOf(new long[]{0b11})));
         var existingCellType1 = "ExistingCellType1";
         var existingCellType2 = "ExistingCellType2";
         var cellTypes = ImmutableSet.of(existingCellType1, existingCellType2);
 
         var expectedOrganismPart = "primary visual cortex";
 
-        when(geneSearchService.getCellIdsFromGeneIds(geneIds))
-                .thenReturn(cellIds);
-        when(organismPartSearchDao.searchOrganismPart(cellIds, cellTypes))
+        when(geneSearchService.getCellIdsInExperimentsFromGeneIds(geneIds))
+                .thenReturn(cellIdsInExperiments);
+        when(cellMetadataBitmapIndexService.getValues(
+                cellIdsInExperiments,
+                CTW_ORGANISM_PART.name(),
+                ImmutableMap.of(CTW_CELL_TYPE.name(), cellTypes)))
                 .thenReturn(ImmutableSet.of(expectedOrganismPart));
 
         var organismParts = subject.search(geneIds, cellTypes);
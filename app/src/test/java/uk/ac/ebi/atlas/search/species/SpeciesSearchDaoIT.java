@@ -9,6 +9,7 @@ import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.context.web.WebAppConfiguration;
 import uk.ac.ebi.atlas.configuration.TestConfig;
+import uk.ac.ebi.atlas.search.geneids.ExpressedGeneService;
 import uk.ac.ebi.atlas.solr.cloud.SolrCloudCollectionProxyFactory;
 
 import javax.inject.Inject;
@@ -24,11 +25,14 @@ class SpeciesSearchDaoIT {
     @Inject
     private SolrCloudCollectionProxyFactory collectionProxyFactory;
 
+    @Inject
+    private ExpressedGeneService expressedGeneService;
+
     private SpeciesSearchDao subject;
 
     @BeforeEach
     void setUp() {
-        subject = new SpeciesSearchDao(collectionProxyFactory);
+        subject = new SpeciesSearchDao(collectionProxyFactory, expressedGeneService);
     }
 
     @Test
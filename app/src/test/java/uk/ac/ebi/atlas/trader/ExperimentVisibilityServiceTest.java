@@ -0,0 +1,79 @@
+package uk.ac.ebi.atlas.trader;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ExperimentVisibilityServiceTest {
+    @Mock
+    private ExperimentVisibilityDao experimentVisibilityDaoMock;
+
+    private ExperimentVisibilityService subject;
+
+    @BeforeEach
+    void setUp() {
+        when(experimentVisibilityDaoMock.fetchNextVisibility(any()))
+                .thenAnswer(invocation ->
+                        invocation.<ExperimentVisibility>getArgument(0)
+                                .update(ImmutableSet.of("E-MTAB-5061"), ImmutableMap.of()));
+        subject = new ExperimentVisibilityService(experimentVisibilityDaoMock, 0);
+    }
+
+    @Test
+    void snapshotIsReusedWhileTheExperimentTableIsUnchanged() {
+        when(experimentVisibilityDaoMock.fetchFingerprint()).thenReturn("a");
+
+        var snapshot = subject.getSnapshot();
+
+        assertThat(subject.getSnapshot()).isSameAs(snapshot);
+        assertThat(snapshot.isPublic("E-MTAB-5061")).isTrue();
+        verify(experimentVisibilityDaoMock, times(1)).fetchNextVisibility(any());
+    }
+
+    @Test
+    void snapshotIsReadAgainWhenTheExperimentTableChanges() {
+        // E.g. an experiment loaded by the CLI
+        when(experimentVisibilityDaoMock.fetchFingerprint()).thenReturn("a", "b");
+
+        var snapshot = subject.getSnapshot();
+        var nextSnapshot = subject.getSnapshot();
+
+        assertThat(nextSnapshot.getVersion()).isGreaterThan(snapshot.getVersion());
+        verify(experimentVisibilityDaoMock, times(2)).fetchNextVisibility(any());
+    }
+
+    @Test
+    void experimentTableIsCheckedOnlyOnceEveryInterval() {
+        when(experimentVisibilityDaoMock.fetchFingerprint()).thenReturn("a");
+        subject = new ExperimentVisibilityService(experimentVisibilityDaoMock, 3600);
+
+        var snapshot = subject.getSnapshot();
+
+        assertThat(subject.getSnapshot()).isSameAs(snapshot);
+        assertThat(subject.getSnapshot()).isSameAs(snapshot);
+        verify(experimentVisibilityDaoMock, times(1)).fetchFingerprint();
+    }
+
+    @Test
+    void refreshReadsTheExperimentTableRightAway() {
+        when(experimentVisibilityDaoMock.fetchFingerprint()).thenReturn("a", "b");
+        subject = new ExperimentVisibilityService(experimentVisibilityDaoMock, 3600);
+
+        var snapshot = subject.getSnapshot();
+        var refreshedSnapshot = subject.refresh();
+
+        assertThat(refreshedSnapshot.getVersion()).isGreaterThan(snapshot.getVersion());
+        assertThat(subject.getSnapshot()).isSameAs(refreshedSnapshot);
+    }
+}
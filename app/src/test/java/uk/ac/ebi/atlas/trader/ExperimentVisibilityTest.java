@@ -0,0 +1,69 @@
+package uk.ac.ebi.atlas.trader;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ExperimentVisibilityTest {
+    private static final String ACCESS_KEY = "3e8a4b2c-3f7e-4a8b-9d6c-1b2a3c4d5e6f";
+
+    private final ExperimentVisibility subject =
+            ExperimentVisibility.empty().update(
+                    ImmutableSet.of("E-MTAB-5061", "E-EHCA-2"),
+                    ImmutableMap.of("E-GEOD-81547", ACCESS_KEY));
+
+    @Test
+    void publicExperimentsCanBeAccessedWithoutAccessKey() {
+        assertThat(subject.isPublic("E-MTAB-5061")).isTrue();
+        assertThat(subject.isPrivate("E-MTAB-5061")).isFalse();
+        assertThat(subject.isAccessible("E-MTAB-5061", "")).isTrue();
+    }
+
+    @Test
+    void privateExperimentsNeedTheirAccessKey() {
+        assertThat(subject.isPublic("E-GEOD-81547")).isFalse();
+        assertThat(subject.isPrivate("E-GEOD-81547")).isTrue();
+        assertThat(subject.isAccessible("E-GEOD-81547", "")).isFalse();
+        assertThat(subject.isAccessible("E-GEOD-81547", ACCESS_KEY)).isTrue();
+    }
+
+    @Test
+    void unknownExperimentsAreNeitherPublicNorPrivate() {
+        assertThat(subject.isPublic("E-FOOBAR-1")).isFalse();
+        assertThat(subject.isPrivate("E-FOOBAR-1")).isFalse();
+        assertThat(subject.isAccessible("E-FOOBAR-1", ACCESS_KEY)).isFalse();
+    }
+
+    @Test
+    void everyUpdateIsANewVersion() {
+        var next = subject.update(subject.getPublicExperimentAccessions(), ImmutableMap.of("E-GEOD-81547", ACCESS_KEY));
+
+        assertThat(subject.getVersion()).isEqualTo(1);
+        assertThat(next.getVersion()).isEqualTo(2);
+    }
+
+    @Test
+    void cacheScopeOnlyChangesForExperimentsWhoseVisibilityChanges() {
+        var next =
+                subject.update(
+                        ImmutableSet.of("E-MTAB-5061"),
+                        ImmutableMap.of("E-EHCA-2", ACCESS_KEY, "E-GEOD-81547", ACCESS_KEY));
+
+        assertThat(next.cacheScope("E-MTAB-5061", ""))
+                .isEqualTo(subject.cacheScope("E-MTAB-5061", ""));
+        assertThat(next.cacheScope("E-GEOD-81547", ACCESS_KEY))
+                .isEqualTo(subject.cacheScope("E-GEOD-81547", ACCESS_KEY));
+        assertThat(next.cacheScope("E-EHCA-2", ACCESS_KEY))
+                .isNotEqualTo(subject.cacheScope("E-EHCA-2", ""));
+    }
+
+    @Test
+    void deniedRequestsHaveTheirOwnCacheScope() {
+        assertThat(subject.cacheScope("E-GEOD-81547", ""))
+                .isNotEqualTo(subject.cacheScope("E-GEOD-81547", ACCESS_KEY));
+        assertThat(subject.cacheScope("E-MTAB-5061", ""))
+                .isEqualTo(subject.cacheScope("E-MTAB-5061", ACCESS_KEY));
+    }
+}
@@ -7,10 +7,9 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.MethodSource;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import uk.ac.ebi.atlas.experimentimport.CachedExperimentFilesParser;
 import uk.ac.ebi.atlas.experimentimport.ExperimentCrudDao;
 import uk.ac.ebi.atlas.experimentimport.ExperimentDto;
-import uk.ac.ebi.atlas.experimentimport.idf.IdfParser;
-import uk.ac.ebi.atlas.experimentimport.sdrf.SdrfParser;
 import uk.ac.ebi.atlas.experiments.ExperimentBuilder;
 import uk.ac.ebi.atlas.model.experiment.ExperimentType;
 import uk.ac.ebi.atlas.trader.factory.SingleCellBaselineExperimentFactory;
@@ -37,13 +36,7 @@ class ScxaExperimentRepositoryTest {
     private ExperimentCrudDao experimentCrudDaoMock;
 
     @Mock
-    private ExperimentDesignParser experimentDesignParserMock;
-
-    @Mock
-    private IdfParser idfParserMock;
-
-    @Mock
-    private SdrfParser sdrfParserMock;
+    private CachedExperimentFilesParser cachedExperimentFilesParserMock;
 
     @Mock
     private SingleCellBaselineExperimentFactory experimentFactoryMock;
@@ -55,10 +48,8 @@ class ScxaExperimentRepositoryTest {
         subject =
                 new ScxaExperimentRepository(
                         experimentCrudDaoMock,
-                        experimentDesignParserMock,
-                        idfParserMock,
-                        experimentFactoryMock,
-                        sdrfParserMock);
+                        cachedExperimentFilesParserMock,
+                        experimentFactoryMock);
     }
 
     @ParameterizedTest
@@ -101,9 +92,9 @@ class ScxaExperimentRepositoryTest {
         when(experimentCrudDaoMock.readExperiment(experimentAccession)).thenReturn(testDto);
 
         when(experimentFactoryMock.create(testDto,
-          experimentDesignParserMock.parse(testDto.getExperimentAccession()),
-          idfParserMock.parse(testDto.getExperimentAccession()),
-          sdrfParserMock.parseSingleCellTechnologyType(testDto.getExperimentAccession())))
+          cachedExperimentFilesParserMock.parseExperimentDesign(testDto.getExperimentAccession()),
+          cachedExperimentFilesParserMock.parseIdf(testDto.getExperimentAccession()),
+          cachedExperimentFilesParserMock.parseSingleCellTechnologyType(testDto.getExperimentAccession())))
           .thenReturn(new ExperimentBuilder.SingleCellBaselineExperimentBuilder()
             .withExperimentAccession(testDto.getExperimentAccession())
             .build());
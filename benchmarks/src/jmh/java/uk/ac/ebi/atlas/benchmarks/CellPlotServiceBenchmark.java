@@ -0,0 +1,105 @@
+package uk.ac.ebi.atlas.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotCoordinatesStore;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotDao;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotService;
+import uk.ac.ebi.atlas.experimentpage.expression.ExpressionMatrixStore;
+import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataService;
+import uk.ac.ebi.atlas.experimentpage.tsneplot.ClustersIndexStore;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static uk.ac.ebi.atlas.benchmarks.SyntheticData.EXPERIMENT_ACCESSION;
+
+// Grouping, rounding and labelling of the points of a cell plot once its coordinates, clusters and metadata have been
+// fetched (the DAO and stores are stubbed)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CellPlotServiceBenchmark {
+    private static final Map<String, Integer> PLOT_PARAMETERS = ImmutableMap.of("perplexity", 30);
+    private static final int K = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int cellCount;
+
+    private CellPlotService subject;
+
+    @Setup
+    public void setUp() {
+        var cellIds = SyntheticData.cellIds(cellCount);
+        var coordinates = SyntheticData.coordinates(cellIds);
+
+        var cellPlotCoordinatesStoreMock = mock(CellPlotCoordinatesStore.class, withSettings().stubOnly());
+        when(cellPlotCoordinatesStoreMock.fetchCellPlot(anyString(), anyString(), anyMap()))
+                .thenReturn(Optional.of(coordinates));
+        when(cellPlotCoordinatesStoreMock.fetchCoordinates(anyString(), anyString(), anyMap()))
+                .thenReturn(Optional.of(SyntheticData.indexedCoordinates(coordinates)));
+
+        var clustersIndexStoreMock = mock(ClustersIndexStore.class, withSettings().stubOnly());
+        when(clustersIndexStoreMock.fetchClustersIndex(anyString())).thenReturn(Optional.empty());
+
+        var cellPlotDaoMock = mock(CellPlotDao.class, withSettings().stubOnly());
+        when(cellPlotDaoMock.fetchCellClusters(EXPERIMENT_ACCESSION, K)).thenReturn(SyntheticData.clusters(cellIds, K));
+
+        var cellMetadataServiceMock = mock(CellMetadataService.class, withSettings().stubOnly());
+        when(cellMetadataServiceMock.getMetadataValuesForGivenType(anyString(), anyString()))
+                .thenReturn(SyntheticData.metadataValues(cellIds, 50));
+
+        subject =
+                new CellPlotService(
+                        cellPlotDaoMock,
+                        cellPlotCoordinatesStoreMock,
+                        mock(ExpressionMatrixStore.class, withSettings().stubOnly()),
+                        clustersIndexStoreMock,
+                        cellMetadataServiceMock);
+    }
+
+    @Benchmark
+    public ImmutableMap<String, ?> clusterPlotWithK() {
+        return subject.clusterPlotWithK(EXPERIMENT_ACCESSION, K, "tsne", PLOT_PARAMETERS);
+    }
+
+    @Benchmark
+    public ImmutableMap<String, ?> clusterPlotWithMetadata() {
+        return subject.clusterPlotWithMetadata(
+                EXPERIMENT_ACCESSION, "inferred_cell_type_-_ontology_labels", "tsne", PLOT_PARAMETERS);
+    }
+
+    @Benchmark
+    public Object metadataValues() {
+        return subject.metadataValues(
+                EXPERIMENT_ACCESSION, "inferred_cell_type_-_ontology_labels", "tsne", PLOT_PARAMETERS);
+    }
+
+    // Points are streamed rather than collected, e.g. by JsonCellPlotController
+    @Benchmark
+    public void streamClusterPlotWithMetadata(Blackhole blackhole) {
+        subject.streamClusterPlotWithMetadata(
+                EXPERIMENT_ACCESSION,
+                "inferred_cell_type_-_ontology_labels",
+                "tsne",
+                PLOT_PARAMETERS,
+                (metadataValue, pointDto) -> {
+                    blackhole.consume(metadataValue);
+                    blackhole.consume(pointDto);
+                });
+    }
+}
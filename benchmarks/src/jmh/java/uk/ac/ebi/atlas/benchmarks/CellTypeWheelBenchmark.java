@@ -0,0 +1,65 @@
+package uk.ac.ebi.atlas.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.ac.ebi.atlas.search.FeaturedSpeciesService;
+import uk.ac.ebi.atlas.search.metadata.CellTypeWheelDao;
+import uk.ac.ebi.atlas.search.metadata.CellTypeWheelService;
+import uk.ac.ebi.atlas.search.metadata.HighchartsSunburstAdapter;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// Explosion of the tuples of a cell type wheel search, and their conversion to a Highcharts sunburst
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class CellTypeWheelBenchmark {
+    private static final String SEARCH_TERM = "pancreas";
+
+    @Param({"10000", "100000"})
+    private int tupleCount;
+
+    private CellTypeWheelService cellTypeWheelService;
+    private ImmutableSet<ImmutablePair<ImmutableList<String>, String>> cellTypeWheelEntries;
+    private HighchartsSunburstAdapter highchartsSunburstAdapter;
+
+    @Setup
+    public void setUp() {
+        var cellTypeWheelDaoMock = mock(CellTypeWheelDao.class, withSettings().stubOnly());
+        when(cellTypeWheelDaoMock.facetSearchCtwFields(anyString(), anyString()))
+                .thenReturn(SyntheticData.cellTypeWheelTuples(tupleCount));
+
+        var featuredSpeciesServiceMock = mock(FeaturedSpeciesService.class, withSettings().stubOnly());
+        when(featuredSpeciesServiceMock.getSpeciesNamesSortedByExperimentCount())
+                .thenReturn(ImmutableList.of("Homo sapiens", "Mus musculus"));
+
+        cellTypeWheelService = new CellTypeWheelService(cellTypeWheelDaoMock, featuredSpeciesServiceMock);
+        cellTypeWheelEntries = cellTypeWheelService.search(SEARCH_TERM, "");
+        highchartsSunburstAdapter = new HighchartsSunburstAdapter();
+    }
+
+    @Benchmark
+    public ImmutableSet<ImmutablePair<ImmutableList<String>, String>> search() {
+        return cellTypeWheelService.search(SEARCH_TERM, "");
+    }
+
+    @Benchmark
+    public ImmutableSet<ImmutableMap<String, ?>> getCellTypeWheelSunburst() {
+        return highchartsSunburstAdapter.getCellTypeWheelSunburst(SEARCH_TERM, cellTypeWheelEntries);
+    }
+}
@@ -0,0 +1,155 @@
+package uk.ac.ebi.atlas.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import uk.ac.ebi.atlas.experimentpage.ExperimentAttributesService;
+import uk.ac.ebi.atlas.model.experiment.singlecell.SingleCellBaselineExperiment;
+import uk.ac.ebi.atlas.search.GeneSearchService;
+import uk.ac.ebi.atlas.search.JsonGeneSearchController;
+import uk.ac.ebi.atlas.search.cellindex.CellPostingList;
+import uk.ac.ebi.atlas.search.celltype.CellTypeSearchService;
+import uk.ac.ebi.atlas.search.geneids.GeneIdSearchService;
+import uk.ac.ebi.atlas.search.geneids.GeneQuery;
+import uk.ac.ebi.atlas.search.organismpart.OrganismPartSearchService;
+import uk.ac.ebi.atlas.search.species.SpeciesSearchService;
+import uk.ac.ebi.atlas.trader.ExperimentTrader;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.function.Function.identity;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// Assembly of the results of a gene search (experiment attributes, facets and marker genes of every gene and
+// experiment) and their serialisation to JSON, once the cells where the genes are expressed have been found
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class JsonGeneSearchControllerBenchmark {
+    private static final int EXPERIMENT_COUNT = 100;
+
+    @Param({"1", "10", "100"})
+    private int geneCount;
+
+    private LinkedMultiValueMap<String, String> requestParams;
+    private JsonGeneSearchController subject;
+
+    @Setup
+    public void setUp() {
+        // URLs of experiments and results are built from the current request, which is bound to this thread
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(new MockHttpServletRequest()));
+
+        requestParams = new LinkedMultiValueMap<>();
+        requestParams.add("q", "ENSG");
+
+        var geneIds =
+                IntStream.range(0, geneCount)
+                        .mapToObj(i -> String.format("ENSG%011d", i))
+                        .collect(toImmutableSet());
+        var experimentAccessions =
+                IntStream.range(0, EXPERIMENT_COUNT)
+                        .mapToObj(i -> "E-BENCH-" + i)
+                        .collect(toImmutableList());
+
+        var geneIdSearchServiceMock = mock(GeneIdSearchService.class, withSettings().stubOnly());
+        var geneQuery = GeneQuery.create("ENSG");
+        when(geneIdSearchServiceMock.getGeneQueryByRequestParams(any())).thenReturn(geneQuery);
+        when(geneIdSearchServiceMock.search(geneQuery)).thenReturn(Optional.of(geneIds));
+
+        var random = SyntheticData.random();
+        var geneSearchServiceMock = mock(GeneSearchService.class, withSettings().stubOnly());
+        // Every gene is expressed in a thousand cells of every experiment...
+        when(geneSearchServiceMock.getCellIdsInExperiments(any()))
+                .thenReturn(
+                        geneIds.stream()
+                                .collect(toImmutableMap(
+                                        identity(),
+                                        __ -> experimentAccessions.stream()
+                                                .collect(toImmutableMap(
+                                                        identity(),
+                                                        ___ -> cells(random, 1_000))))));
+        // ... and a marker gene in half of them
+        ImmutableMap<String, Map<String, Map<Integer, List<Integer>>>> markerGeneProfile =
+                geneIds.stream()
+                        .collect(toImmutableMap(
+                                identity(),
+                                __ -> experimentAccessions.stream()
+                                        .filter(___ -> random.nextBoolean())
+                                        .collect(toImmutableMap(
+                                                identity(),
+                                                ___ -> ImmutableMap.of(10, ImmutableList.of(1, 3, 7))))));
+        when(geneSearchServiceMock.getMarkerGeneProfile(any())).thenReturn(markerGeneProfile);
+        when(geneSearchServiceMock.getFacets(anyString(), any()))
+                .thenReturn(
+                        ImmutableMap.of(
+                                "organism", ImmutableList.of("Homo sapiens"),
+                                "organism_part", ImmutableList.of("pancreas", "islet of Langerhans", "duodenum"),
+                                "inferred_cell_type_-_ontology_labels",
+                                IntStream.range(0, 20)
+                                        .mapToObj(i -> "cell type " + i)
+                                        .collect(toImmutableList())));
+
+        var experimentTraderMock = mock(ExperimentTrader.class, withSettings().stubOnly());
+        var experimentMock = mock(SingleCellBaselineExperiment.class, withSettings().stubOnly());
+        when(experimentTraderMock.getPublicExperiment(anyString())).thenReturn(experimentMock);
+
+        var experimentAttributesServiceMock = mock(ExperimentAttributesService.class, withSettings().stubOnly());
+        when(experimentAttributesServiceMock.getAttributes(any()))
+                .thenReturn(
+                        ImmutableMap.of(
+                                "experimentAccession", "E-BENCH-1",
+                                "experimentDescription", "Single-cell RNA-seq analysis of the human pancreas",
+                                "species", "Homo sapiens",
+                                "numberOfAssays", 10_000));
+
+        subject =
+                new JsonGeneSearchController(
+                        geneIdSearchServiceMock,
+                        geneSearchServiceMock,
+                        experimentTraderMock,
+                        experimentAttributesServiceMock,
+                        mock(OrganismPartSearchService.class, withSettings().stubOnly()),
+                        mock(CellTypeSearchService.class, withSettings().stubOnly()),
+                        mock(SpeciesSearchService.class, withSettings().stubOnly()));
+    }
+
+    @Benchmark
+    public String search() {
+        return subject.search(requestParams);
+    }
+
+    @Benchmark
+    public String searchForGene() {
+        return subject.searchForGene(requestParams);
+    }
+
+    private static CellPostingList cells(Random random, int cellCount) {
+        var ordinals = new BitSet();
+        random.ints(cellCount, 0, 100_000).forEach(ordinals::set);
+        return CellPostingList.of(ordinals);
+    }
+}
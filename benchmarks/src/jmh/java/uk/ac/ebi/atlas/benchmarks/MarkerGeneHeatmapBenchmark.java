@@ -0,0 +1,71 @@
+package uk.ac.ebi.atlas.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.ac.ebi.atlas.bioentity.properties.GeneSymbolService;
+import uk.ac.ebi.atlas.experimentpage.markergenes.HighchartsHeatmapAdapter;
+import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGene;
+import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGeneHeatmap;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.ArgumentMatchers.anySet;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+// Merging and sorting of marker genes, and conversion of the heatmap rows to Highcharts points
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class MarkerGeneHeatmapBenchmark {
+    @Param({"1000", "5000"})
+    private int markerGeneCount;
+
+    @Param({"10", "50"})
+    private int groupCount;
+
+    private ImmutableList<MarkerGene> markerGenes;
+    private ImmutableList<MarkerGene> sortedMarkerGenes;
+    private HighchartsHeatmapAdapter subject;
+
+    @Setup
+    public void setUp() {
+        markerGenes = SyntheticData.markerGenes(markerGeneCount, groupCount);
+        sortedMarkerGenes = MarkerGeneHeatmap.create(markerGenes).sortedNaturally();
+
+        var geneSymbolServiceMock = mock(GeneSymbolService.class, withSettings().stubOnly());
+        when(geneSymbolServiceMock.getSymbols(anySet())).thenReturn(ImmutableMap.of());
+        subject = new HighchartsHeatmapAdapter(geneSymbolServiceMock);
+    }
+
+    // What used to be done on every request, and is now done once per experiment and cell group type
+    @Benchmark
+    public MarkerGeneHeatmap createMarkerGeneHeatmap() {
+        return MarkerGeneHeatmap.create(markerGenes);
+    }
+
+    @Benchmark
+    public ImmutableList<ImmutableMap<String, Object>> getMarkerGeneHeatmapDataSortedNaturally() {
+        return subject.getMarkerGeneHeatmapDataSortedNaturally(markerGenes);
+    }
+
+    @Benchmark
+    public ImmutableList<ImmutableMap<String, Object>> getMarkerGeneHeatmapData() {
+        return subject.getMarkerGeneHeatmapData(sortedMarkerGenes);
+    }
+
+    // The first screen of the marker genes tab: the top 5 genes of the first 10 groups
+    @Benchmark
+    public ImmutableList<ImmutableMap<String, Object>> getFirstPageOfMarkerGeneHeatmapData() {
+        return subject.getMarkerGeneHeatmapData(sortedMarkerGenes, 5, 0, 10);
+    }
+}
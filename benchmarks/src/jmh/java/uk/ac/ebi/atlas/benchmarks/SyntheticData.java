@@ -0,0 +1,124 @@
+package uk.ac.ebi.atlas.benchmarks;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotCoordinates;
+import uk.ac.ebi.atlas.experimentpage.markergenes.MarkerGene;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.Comparator.comparing;
+import static java.util.function.Function.identity;
+
+// Fixtures of the same shape as those of real experiments, generated with a fixed seed so that results of different
+// runs (and releases) can be compared
+final class SyntheticData {
+    static final String EXPERIMENT_ACCESSION = "E-BENCH-1";
+    static final String EXPRESSION_UNIT = "CPM";
+
+    private SyntheticData() {
+    }
+
+    static Random random() {
+        return new Random(42);
+    }
+
+    static ImmutableList<String> cellIds(int cellCount) {
+        return IntStream.range(0, cellCount)
+                .mapToObj(i -> String.format("SAMEA%08d-%s", i / 1_000, Integer.toHexString(i)))
+                .collect(toImmutableList());
+    }
+
+    static ImmutableList<TSnePoint.Dto> coordinates(ImmutableList<String> cellIds) {
+        var random = random();
+        return cellIds.stream()
+                .map(cellId -> TSnePoint.Dto.create(random.nextGaussian() * 20, random.nextGaussian() * 20, cellId))
+                .collect(toImmutableList());
+    }
+
+    // The same points as read from a coordinates file, sorted by cell ID
+    static CellPlotCoordinates indexedCoordinates(ImmutableList<TSnePoint.Dto> points) {
+        var sortedPoints = ImmutableList.sortedCopyOf(comparing(TSnePoint.Dto::name), points);
+        return new CellPlotCoordinates() {
+            @Override
+            public int cellCount() {
+                return sortedPoints.size();
+            }
+
+            @Override
+            public double x(int index) {
+                return sortedPoints.get(index).x();
+            }
+
+            @Override
+            public double y(int index) {
+                return sortedPoints.get(index).y();
+            }
+
+            @Override
+            public String cellId(int index) {
+                return sortedPoints.get(index).name();
+            }
+        };
+    }
+
+    // Cluster IDs of k clusters, from 1 to k
+    static ImmutableMap<String, String> clusters(ImmutableList<String> cellIds, int k) {
+        var random = random();
+        return cellIds.stream()
+                .collect(toImmutableMap(identity(), __ -> Integer.toString(random.nextInt(k) + 1)));
+    }
+
+    // Values of a metadata type with the given cardinality, e.g. inferred cell types; some cells have no value
+    static ImmutableMap<String, String> metadataValues(ImmutableList<String> cellIds, int cardinality) {
+        var random = random();
+        return cellIds.stream()
+                .filter(__ -> random.nextInt(20) > 0)
+                .collect(toImmutableMap(identity(), __ -> "cell type " + random.nextInt(cardinality)));
+    }
+
+    // Marker genes of groups 1 to groupCount, with their expression in every group; one in ten genes is a marker in
+    // two groups, so that they are merged into a single row
+    static ImmutableList<MarkerGene> markerGenes(int markerGeneCount, int groupCount) {
+        var random = random();
+        var markerGenes = ImmutableList.<MarkerGene>builder();
+        for (var i = 0; i < markerGeneCount; i++) {
+            var geneId = String.format("ENSG%011d", i);
+            var groupsWhereMarker = i % 10 == 0 ? 2 : 1;
+            for (var j = 0; j < groupsWhereMarker; j++) {
+                var cellGroupValueWhereMarker = Integer.toString(random.nextInt(groupCount) + 1);
+                var pValue = random.nextDouble() / 100;
+                for (var cellGroupValue = 1; cellGroupValue <= groupCount; cellGroupValue++) {
+                    markerGenes.add(
+                            MarkerGene.create(
+                                    geneId,
+                                    Integer.toString(groupCount),
+                                    cellGroupValueWhereMarker,
+                                    pValue,
+                                    Integer.toString(cellGroupValue),
+                                    random.nextDouble() * 1_000,
+                                    random.nextDouble() * 1_000,
+                                    EXPRESSION_UNIT));
+                }
+            }
+        }
+        return markerGenes.build();
+    }
+
+    // Tuples of species, organism part, cell type and experiment accession, as returned by CellTypeWheelDao
+    static ImmutableList<ImmutableList<String>> cellTypeWheelTuples(int tupleCount) {
+        var random = random();
+        return IntStream.range(0, tupleCount)
+                .mapToObj(__ ->
+                        ImmutableList.of(
+                                "species " + random.nextInt(5),
+                                "organism part " + random.nextInt(50),
+                                "cell type " + random.nextInt(500),
+                                String.format("E-BENCH-%d", random.nextInt(300))))
+                .collect(toImmutableList());
+    }
+}
@@ -0,0 +1,104 @@
+package uk.ac.ebi.atlas.benchmarks;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import uk.ac.ebi.atlas.experimentpage.cellplot.CellPlotCoordinatesStore;
+import uk.ac.ebi.atlas.experimentpage.expression.ExpressionMatrixStore;
+import uk.ac.ebi.atlas.experimentpage.metadata.CellMetadataService;
+import uk.ac.ebi.atlas.experimentpage.tsne.TSnePoint;
+import uk.ac.ebi.atlas.experimentpage.tsneplot.TSnePlotDao;
+import uk.ac.ebi.atlas.experimentpage.tsneplot.TSnePlotService;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static java.util.function.Function.identity;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+import static uk.ac.ebi.atlas.benchmarks.SyntheticData.EXPERIMENT_ACCESSION;
+
+// Rounding of the coordinates of t-SNE plots and grouping of their points by cluster or metadata value
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TSnePlotServiceBenchmark {
+    private static final int K = 20;
+
+    @Param({"10000", "100000", "1000000"})
+    private int cellCount;
+
+    private TSnePlotService subject;
+
+    @Setup
+    public void setUp() {
+        var cellIds = SyntheticData.cellIds(cellCount);
+        var coordinates = SyntheticData.coordinates(cellIds);
+        var clusters = SyntheticData.clusters(cellIds, K);
+
+        var tSnePlotDaoMock = mock(TSnePlotDao.class, withSettings().stubOnly());
+        when(tSnePlotDaoMock.fetchTSnePlotWithClusters(anyString(), anyString(), anyInt(), anyString()))
+                .thenReturn(
+                        coordinates.stream()
+                                .map(pointDto ->
+                                        TSnePoint.Dto.create(
+                                                pointDto.x(),
+                                                pointDto.y(),
+                                                clusters.get(pointDto.name()),
+                                                pointDto.name()))
+                                .collect(toImmutableList()));
+
+        var cellPlotCoordinatesStoreMock = mock(CellPlotCoordinatesStore.class, withSettings().stubOnly());
+        when(cellPlotCoordinatesStoreMock.fetchCellPlot(anyString(), anyString(), anyMap()))
+                .thenReturn(Optional.of(coordinates));
+
+        // The gene is expressed in one of every three cells
+        var expressionMatrixStoreMock = mock(ExpressionMatrixStore.class, withSettings().stubOnly());
+        var random = SyntheticData.random();
+        when(expressionMatrixStoreMock.fetchExpressionLevels(anyString(), anyString()))
+                .thenReturn(
+                        Optional.of(
+                                cellIds.stream()
+                                        .filter(__ -> random.nextInt(3) == 0)
+                                        .collect(toImmutableMap(identity(), __ -> random.nextDouble() * 100))));
+
+        var cellMetadataServiceMock = mock(CellMetadataService.class, withSettings().stubOnly());
+        when(cellMetadataServiceMock.getMetadataValuesForGivenType(anyString(), anyString()))
+                .thenReturn(SyntheticData.metadataValues(cellIds, 50));
+
+        subject =
+                new TSnePlotService(
+                        tSnePlotDaoMock,
+                        cellPlotCoordinatesStoreMock,
+                        expressionMatrixStoreMock,
+                        cellMetadataServiceMock);
+    }
+
+    @Benchmark
+    public ImmutableMap<String, ImmutableSet<TSnePoint>> fetchTSnePlotWithClusters() {
+        return subject.fetchTSnePlotWithClusters(EXPERIMENT_ACCESSION, "tsne", 30, Integer.toString(K));
+    }
+
+    @Benchmark
+    public ImmutableMap<String, ImmutableSet<TSnePoint>> fetchTSnePlotWithMetadata() {
+        return subject.fetchTSnePlotWithMetadata(EXPERIMENT_ACCESSION, 30, "inferred_cell_type_-_ontology_labels");
+    }
+
+    @Benchmark
+    public ImmutableSet<TSnePoint> fetchTSnePlotWithExpression() {
+        return subject.fetchTSnePlotWithExpression(EXPERIMENT_ACCESSION, "tsne", 30, "ENSG00000000001");
+    }
+}